@@ -21,10 +21,13 @@
  */
 package gg.sep.battlenet;
 
+import java.io.Closeable;
 import java.time.Duration;
 import java.time.Instant;
 import java.time.ZoneId;
+import java.util.List;
 
+import com.google.common.collect.ImmutableList;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import lombok.Builder;
@@ -39,11 +42,37 @@ import gg.sep.battlenet.adapter.BattleNetEntityPostProcessor;
 import gg.sep.battlenet.adapter.DurationDeserializer;
 import gg.sep.battlenet.adapter.InstantDeserializer;
 import gg.sep.battlenet.adapter.ZoneIdDeserializer;
+import gg.sep.battlenet.api.APIRegistry;
+import gg.sep.battlenet.api.BattleNetAPI;
 import gg.sep.battlenet.api.BattleNetAPIProxy;
+import gg.sep.battlenet.auth.OAuthAuthenticator;
+import gg.sep.battlenet.auth.OAuthTokenManager;
+import gg.sep.battlenet.auth.OAuthTokenStore;
 import gg.sep.battlenet.auth.api.OAuthAPI;
+import gg.sep.battlenet.cache.BattleNetEntityCache;
+import gg.sep.battlenet.cache.CacheConfig;
+import gg.sep.battlenet.http.HttpTransport;
 import gg.sep.battlenet.interceptor.BattleNetInterceptor;
 import gg.sep.battlenet.model.BattleNetLocale;
 import gg.sep.battlenet.model.BattleNetRegion;
+import gg.sep.battlenet.ratelimit.RateLimitConfig;
+import gg.sep.battlenet.retry.RetryConfig;
+import gg.sep.battlenet.wow.api.IndexCacheWarmer;
+import gg.sep.battlenet.wow.endpoint.AchievementEndpoint;
+import gg.sep.battlenet.wow.endpoint.AzeriteEssenceEndpoint;
+import gg.sep.battlenet.wow.endpoint.CreatureEndpoint;
+import gg.sep.battlenet.wow.endpoint.KeyFullItemEndpoint;
+import gg.sep.battlenet.wow.endpoint.KeystoneEndpoint;
+import gg.sep.battlenet.wow.endpoint.MountEndpoint;
+import gg.sep.battlenet.wow.endpoint.PetEndpoint;
+import gg.sep.battlenet.wow.endpoint.PlayableClassEndpoint;
+import gg.sep.battlenet.wow.endpoint.PlayableSpecializationEndpoint;
+import gg.sep.battlenet.wow.endpoint.PowerTypeEndpoint;
+import gg.sep.battlenet.wow.endpoint.RaceEndpoint;
+import gg.sep.battlenet.wow.endpoint.RealmEndpoint;
+import gg.sep.battlenet.wow.endpoint.RegionEndpoint;
+import gg.sep.battlenet.wow.endpoint.ReputationEndpoint;
+import gg.sep.battlenet.wow.endpoint.TitleEndpoint;
 import gg.sep.battlenet.wow.model.talent.TalentTier;
 import gg.sep.battlenet.wow.serializer.TalentTierDeserializer;
 
@@ -54,10 +83,18 @@ import gg.sep.battlenet.wow.serializer.TalentTierDeserializer;
  *
  * <p>Client IDs and secrets are created by registering an application on the Battle.net developer portal:
  * https://develop.battle.net/documentation/guides/getting-started
+ *
+ * <p>The client runs background threads for rate limiting, retries, OAuth token refreshes and cache warming,
+ * which are stopped by {@link #close()}.
  */
 
-public final class BattleNet {
+public final class BattleNet implements Closeable {
     private static final String BATTLENET_API_BASE_URL_F = "https://%s.api.blizzard.com/";
+    private static final List<Class<?>> ENDPOINTS = ImmutableList.of(
+        AchievementEndpoint.class, AzeriteEssenceEndpoint.class, CreatureEndpoint.class, KeyFullItemEndpoint.class,
+        KeystoneEndpoint.class, MountEndpoint.class, PetEndpoint.class, PlayableClassEndpoint.class,
+        PlayableSpecializationEndpoint.class, PowerTypeEndpoint.class, RaceEndpoint.class, RealmEndpoint.class,
+        RegionEndpoint.class, ReputationEndpoint.class, TitleEndpoint.class);
 
     @Getter
     private BattleNetRegion region;
@@ -68,9 +105,21 @@ public final class BattleNet {
     @Getter
     private final BattleNetAPIProxy proxy;
     @Getter
+    private final OkHttpClient httpClient;
+    @Getter
+    private final OAuthTokenManager tokenManager;
+    @Getter
+    private final BattleNetInterceptor interceptor;
+    @Getter
     private final Retrofit retrofit;
     @Getter
     private final Gson jsonParser;
+    @Getter
+    private final BattleNetEntityCache cache;
+    @Getter
+    private final IndexCacheWarmer cacheWarmer;
+    @Getter
+    private final APIRegistry registry;
 
     /**
      * Create a new instance of the Battle.net API client using the specified application Client ID and secret.
@@ -78,10 +127,32 @@ public final class BattleNet {
      * @param clientSecret Client Secret key of the Battle.net API application.
      * @param baseUrl Base URL of the Battle.net API. Generally you can leave this null, unless you have
      *                good reason to explicitly override it.
+     * @param region Region of the Battle.net API to use. Defaults to the locale's region, or North America.
+     * @param locale Locale to request API responses in. Defaults to the region's first supported locale.
+     * @param rateLimitConfig Rate limit, quota windows and adaptive throttling of the client's requests.
+     *                        Defaults to {@link RateLimitConfig#defaults()}.
+     * @param retryConfig Which failed requests are retried, and when. Defaults to {@link RetryConfig#defaults()}.
+     * @param httpTransport Connection pool, dispatcher and protocol settings. Clients built with the same
+     *                      transport share its connections. Defaults to the JVM-wide {@link HttpTransport#shared()}
+     *                      transport. Ignored if {@code httpClient} is specified.
+     * @param httpClient An existing {@link OkHttpClient} to share connections and dispatcher threads with.
+     *                   The client itself is not modified.
+     * @param cacheConfig Cache to read API responses through, and how cached and repeated responses are reused.
+     *                    Defaults to {@link CacheConfig#defaults()}, which doesn't cache entities.
+     * @param tokenStore Store which OAuth access tokens are shared through, so that other instances and processes
+     *                   using the same client id reuse an unexpired token instead of retrieving their own.
+     *                   Defaults to no store. See {@link gg.sep.battlenet.auth.FileOAuthTokenStore}.
+     * @param validateEndpoints Whether every API endpoint should be created and validated while the client is built,
+     *                          so that a misdeclared endpoint fails at startup rather than on its first request.
+     *                          Defaults to {@code false}, creating each endpoint the first time it is used.
      */
     @Builder
     private BattleNet(@NonNull final String clientId, @NonNull final String clientSecret, final HttpUrl baseUrl,
-                      final BattleNetRegion region, final BattleNetLocale locale) {
+                      final BattleNetRegion region, final BattleNetLocale locale,
+                      final RateLimitConfig rateLimitConfig, final RetryConfig retryConfig,
+                      final HttpTransport httpTransport, final OkHttpClient httpClient,
+                      final CacheConfig cacheConfig, final OAuthTokenStore tokenStore,
+                      final Boolean validateEndpoints) {
 
         if (region == null && locale != null) {
             this.locale = locale;
@@ -99,6 +170,9 @@ public final class BattleNet {
             ));
         }
 
+        final CacheConfig caching = (cacheConfig == null) ? CacheConfig.defaults() : cacheConfig;
+        this.cache = caching.getCache();
+
         if (baseUrl == null) {
             final String formattedUrl = String.format(BATTLENET_API_BASE_URL_F, this.region.getRegionUrlValue());
             this.baseUrl = HttpUrl.get(formattedUrl);
@@ -106,18 +180,82 @@ public final class BattleNet {
             this.baseUrl = baseUrl;
         }
 
-        this.proxy = new BattleNetAPIProxy(this);
+        this.proxy = BattleNetAPIProxy.builder()
+            .battleNet(this)
+            .rateLimitConfig(rateLimitConfig)
+            .retryConfig(retryConfig)
+            .cacheConfig(caching)
+            .build();
         this.jsonParser = buildJsonParser();
+        if (this.cache != null) {
+            this.cache.bind(this);
+        }
+        if (httpClient != null) {
+            this.httpClient = httpClient;
+        } else {
+            this.httpClient = (httpTransport == null) ? HttpTransport.shared().getClient() : httpTransport.getClient();
+        }
 
         final OAuthAPI oAuthAPI = OAuthAPI.builder()
             .clientId(clientId)
             .clientSecret(clientSecret)
             .battleNet(this)
             .build();
-        this.retrofit = initRetrofit(this.baseUrl, oAuthAPI);
+        this.tokenManager = OAuthTokenManager.builder()
+            .oAuthAPI(oAuthAPI)
+            .tokenStore(tokenStore)
+            .build();
+        this.interceptor = new BattleNetInterceptor(tokenManager, this);
+        final boolean validate = Boolean.TRUE.equals(validateEndpoints);
+        this.retrofit = initRetrofit(this.baseUrl, this.interceptor, validate);
+        this.registry = new APIRegistry(this, retrofit);
+        if (validate) {
+            registry.createEndpoints(ENDPOINTS);
+        }
+        this.cacheWarmer = (this.cache != null && caching.isCacheWarming()) ?
+            IndexCacheWarmer.builder().battleNet(this).build() : null;
     }
 
+    /**
+     * Returns the client's endpoint of the specified Retrofit interface. Each endpoint is only created once, so
+     * this can be called for every request.
+     *
+     * @param endpointClass Retrofit endpoint interface.
+     * @param <T> Type of the endpoint interface.
+     * @return The client's endpoint of the interface.
+     */
+    public <T> T getEndpoint(final Class<T> endpointClass) {
+        return registry.getEndpoint(endpointClass);
+    }
 
+    /**
+     * Returns the client's shared instance of the specified API, eg {@code getAPI(RealmAPI.class)}.
+     *
+     * <p>The instance is shared by every caller of this client. For work which should run at a different
+     * {@link gg.sep.battlenet.ratelimit.RequestPriority}, use a copy made with
+     * {@link BattleNetAPI#withPriority(gg.sep.battlenet.ratelimit.RequestPriority)}.
+     *
+     * @param apiClass Class of the API.
+     * @param <A> Type of the API.
+     * @return The client's instance of the API.
+     */
+    public <A extends BattleNetAPI> A getAPI(final Class<A> apiClass) {
+        return registry.getAPI(apiClass);
+    }
+
+    /**
+     * Stops the client's background threads: the proxy's scheduler, the OAuth token manager's refreshes and the
+     * index cache warmer, if any. Requests made afterwards fail without being sent. The cache and HTTP client may
+     * be shared with other clients, so they are not closed.
+     */
+    @Override
+    public void close() {
+        if (cacheWarmer != null) {
+            cacheWarmer.close();
+        }
+        proxy.close();
+        tokenManager.close();
+    }
 
     /**
      * Creates a new instance of the Gson JSON parser that will be used by the Battle.net client.
@@ -139,15 +277,23 @@ public final class BattleNet {
 
     /**
      * Build an instance of the default {@link Retrofit} API library for the Battle.net API.
+     *
+     * <p>The Retrofit client is derived from the shared {@link #getHttpClient()} with
+     * {@link OkHttpClient#newBuilder()}, so it adds this client's interceptor and {@link OAuthAuthenticator}
+     * while still sharing the connection pool and dispatcher.
+     *
      * @return Completed instance of the Retrofit API library.
      */
-    private Retrofit initRetrofit(final HttpUrl apiBaseUrl, final OAuthAPI oAuthAPI) {
-        final OkHttpClient.Builder httpClientBuilder = new OkHttpClient.Builder();
-        httpClientBuilder.addInterceptor(new BattleNetInterceptor(oAuthAPI, this));
+    private Retrofit initRetrofit(final HttpUrl apiBaseUrl, final BattleNetInterceptor battleNetInterceptor,
+                                  final boolean validateEagerly) {
+        final OkHttpClient.Builder httpClientBuilder = httpClient.newBuilder();
+        httpClientBuilder.addInterceptor(battleNetInterceptor);
+        httpClientBuilder.authenticator(new OAuthAuthenticator(tokenManager));
         return new Retrofit.Builder()
             .addConverterFactory(GsonConverterFactory.create(jsonParser))
             .client(httpClientBuilder.build())
             .baseUrl(apiBaseUrl)
+            .validateEagerly(validateEagerly)
             .build();
     }
 }
@@ -29,12 +29,18 @@ import com.google.gson.JsonDeserializationContext;
 import com.google.gson.JsonDeserializer;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonParseException;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.JsonSerializationContext;
+import com.google.gson.JsonSerializer;
 
 /**
  * Gson JSON deserializer for converting Duration longs into {@link Duration} objects which are in
  * millisecond format.
+ *
+ * <p>Durations are serialized back into the same millisecond format, so entities written with
+ * {@link gg.sep.battlenet.model.JsonSerializable#toJson()} can be parsed again.
  */
-public class DurationDeserializer implements JsonDeserializer<Duration> {
+public class DurationDeserializer implements JsonDeserializer<Duration>, JsonSerializer<Duration> {
 
     /**
      * {@inheritDoc}
@@ -44,4 +50,12 @@ public class DurationDeserializer implements JsonDeserializer<Duration> {
                                 final JsonDeserializationContext context) throws JsonParseException {
         return Duration.ofMillis(json.getAsLong());
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public JsonElement serialize(final Duration src, final Type typeOfSrc, final JsonSerializationContext context) {
+        return new JsonPrimitive(src.toMillis());
+    }
 }
@@ -29,12 +29,18 @@ import com.google.gson.JsonDeserializationContext;
 import com.google.gson.JsonDeserializer;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonParseException;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.JsonSerializationContext;
+import com.google.gson.JsonSerializer;
 
 /**
  * Gson JSON deserializer for converting Instant time longs into {@link java.time.Instant} objects which are in
  * epoch millisecond format.
+ *
+ * <p>Instants are serialized back into the same epoch millisecond format, so entities written with
+ * {@link gg.sep.battlenet.model.JsonSerializable#toJson()} can be parsed again.
  */
-public class InstantDeserializer implements JsonDeserializer<Instant> {
+public class InstantDeserializer implements JsonDeserializer<Instant>, JsonSerializer<Instant> {
 
     /**
      * {@inheritDoc}
@@ -44,4 +50,12 @@ public class InstantDeserializer implements JsonDeserializer<Instant> {
                                final JsonDeserializationContext context) throws JsonParseException {
         return Instant.ofEpochMilli(json.getAsLong());
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public JsonElement serialize(final Instant src, final Type typeOfSrc, final JsonSerializationContext context) {
+        return new JsonPrimitive(src.toEpochMilli());
+    }
 }
@@ -29,11 +29,17 @@ import com.google.gson.JsonDeserializationContext;
 import com.google.gson.JsonDeserializer;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonParseException;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.JsonSerializationContext;
+import com.google.gson.JsonSerializer;
 
 /**
  * Gson JSON deserializer for converting timezone id strings into {@link ZoneId} objects.
+ *
+ * <p>Zone IDs are serialized back into the same id strings, so entities written with
+ * {@link gg.sep.battlenet.model.JsonSerializable#toJson()} can be parsed again.
  */
-public class ZoneIdDeserializer implements JsonDeserializer<ZoneId> {
+public class ZoneIdDeserializer implements JsonDeserializer<ZoneId>, JsonSerializer<ZoneId> {
 
     /**
      * {@inheritDoc}
@@ -43,4 +49,12 @@ public class ZoneIdDeserializer implements JsonDeserializer<ZoneId> {
                               final JsonDeserializationContext context) throws JsonParseException {
         return ZoneId.of(json.getAsString());
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public JsonElement serialize(final ZoneId src, final Type typeOfSrc, final JsonSerializationContext context) {
+        return new JsonPrimitive(src.getId());
+    }
 }
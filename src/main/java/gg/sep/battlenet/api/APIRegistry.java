@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2019 sep.gg <seputaes@sep.gg>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package gg.sep.battlenet.api;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import retrofit2.Retrofit;
+
+import gg.sep.battlenet.BattleNet;
+
+/**
+ * Creates and keeps the Retrofit endpoints and API instances of a {@link BattleNet} client, so that each one is
+ * only created once however many times it is used.
+ *
+ * <p>{@link Retrofit#create(Class)} builds a new dynamic proxy on every call, and parses each endpoint method's
+ * annotations the first time the method is called through it. Asking the registry for an endpoint instead
+ * returns the single proxy created for its class, so callers which look up an endpoint per call, such as
+ * {@link gg.sep.battlenet.wow.model.WoWKey}, don't pay for the proxy each time.
+ *
+ * <p>API instances returned by {@link #getAPI(Class)} are shared by every caller of the client, at
+ * {@link gg.sep.battlenet.ratelimit.RequestPriority#NORMAL}. Background work which should run at another priority
+ * uses a copy from {@link BattleNetAPI#withPriority(gg.sep.battlenet.ratelimit.RequestPriority)}, which leaves the
+ * shared instance unchanged.
+ */
+public final class APIRegistry {
+    private final BattleNet battleNet;
+    private final Retrofit retrofit;
+    private final Map<Class<?>, Object> endpoints = new ConcurrentHashMap<>();
+    private final Map<Class<? extends BattleNetAPI>, BattleNetAPI> apis = new ConcurrentHashMap<>();
+
+    /**
+     * Create a new registry.
+     *
+     * @param battleNet Client the API instances are created for.
+     * @param retrofit Retrofit instance the endpoints are created with.
+     */
+    public APIRegistry(final BattleNet battleNet, final Retrofit retrofit) {
+        this.battleNet = battleNet;
+        this.retrofit = retrofit;
+    }
+
+    /**
+     * Returns the endpoint of the specified interface, creating it the first time it is requested.
+     *
+     * @param endpointClass Retrofit endpoint interface.
+     * @param <T> Type of the endpoint interface.
+     * @return The single endpoint created for the interface.
+     */
+    public <T> T getEndpoint(final Class<T> endpointClass) {
+        return endpointClass.cast(endpoints.computeIfAbsent(endpointClass, retrofit::create));
+    }
+
+    /**
+     * Returns the API instance of the specified class, creating it the first time it is requested.
+     *
+     * <p>The API class must have a public constructor which takes the {@link BattleNet} client, like every API
+     * class in this library.
+     *
+     * @param apiClass Class of the API.
+     * @param <A> Type of the API.
+     * @return The single instance created for the API class.
+     * @throws IllegalArgumentException If the API class can't be created with the client.
+     */
+    public <A extends BattleNetAPI> A getAPI(final Class<A> apiClass) {
+        return apiClass.cast(apis.computeIfAbsent(apiClass, this::createAPI));
+    }
+
+    /**
+     * Creates the endpoints of the specified interfaces now, rather than when they are first used.
+     *
+     * <p>If the Retrofit instance was built with {@link Retrofit.Builder#validateEagerly(boolean)}, each endpoint
+     * method's annotations are parsed and checked as the endpoint is created, so a misdeclared endpoint fails
+     * here rather than on its first request.
+     *
+     * @param endpointClasses Retrofit endpoint interfaces to create.
+     * @throws IllegalArgumentException If one of the endpoints is invalid.
+     */
+    public void createEndpoints(final Collection<Class<?>> endpointClasses) {
+        endpointClasses.forEach(this::getEndpoint);
+    }
+
+    private BattleNetAPI createAPI(final Class<? extends BattleNetAPI> apiClass) {
+        try {
+            return apiClass.getConstructor(BattleNet.class).newInstance(battleNet);
+        } catch (final InvocationTargetException e) {
+            throw new IllegalArgumentException("Unable to create API " + apiClass.getName(), e.getCause());
+        } catch (final ReflectiveOperationException e) {
+            throw new IllegalArgumentException("Unable to create API " + apiClass.getName(), e);
+        }
+    }
+}
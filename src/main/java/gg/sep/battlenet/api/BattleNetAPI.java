@@ -22,14 +22,18 @@
 
 package gg.sep.battlenet.api;
 
+import java.util.concurrent.CompletableFuture;
+
 import lombok.AccessLevel;
 import lombok.Getter;
+import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
 import retrofit2.Call;
 
 import gg.sep.battlenet.BattleNet;
 import gg.sep.battlenet.model.BattleNetEntity;
+import gg.sep.battlenet.ratelimit.RequestPriority;
 import gg.sep.result.Result;
 
 /**
@@ -37,13 +41,45 @@ import gg.sep.result.Result;
  *
  * This class provides some shared methods common between each of the API classes,
  * such as executing API calls and returning the API's objects.
+ *
+ * <p>Every call made through an API instance is executed with that instance's {@link RequestPriority},
+ * which defaults to {@link RequestPriority#NORMAL}. An instance's priority never changes, so instances can be
+ * shared freely. To keep background work from delaying user-facing lookups on a shared client, run it through a
+ * copy of the API made with {@link #withPriority(RequestPriority)}, eg at {@link RequestPriority#BULK}.
  */
 @Log4j2
 @RequiredArgsConstructor
-public abstract class BattleNetAPI {
+public abstract class BattleNetAPI implements Cloneable {
     @Getter(AccessLevel.PROTECTED)
     private final BattleNet battleNet;
 
+    /**
+     * Priority with which this API's calls wait for rate limit permits. Only assigned to a new copy by
+     * {@link #withPriority(RequestPriority)}, before the copy is returned.
+     */
+    @Getter
+    private RequestPriority priority = RequestPriority.NORMAL;
+
+    /**
+     * Returns a copy of this API whose calls wait for rate limit permits with the specified priority. This
+     * instance, which may be shared with other callers, is unchanged.
+     *
+     * @param newPriority Priority of the copy's calls.
+     * @param <A> Type of this API.
+     * @return A copy of this API, of the same class, with the specified priority.
+     */
+    @SuppressWarnings("unchecked")
+    public <A extends BattleNetAPI> A withPriority(@NonNull final RequestPriority newPriority) {
+        final BattleNetAPI copy;
+        try {
+            copy = (BattleNetAPI) clone();
+        } catch (final CloneNotSupportedException e) {
+            throw new IllegalStateException(e);
+        }
+        copy.priority = newPriority;
+        return (A) copy;
+    }
+
     /**
      * Executes the API call and converts the response body into the {@link BattleNetEntity}.
      *
@@ -57,6 +93,21 @@ public abstract class BattleNetAPI {
      *         was successful, otherwise an {@link gg.sep.result.Err} containing the error message.
      */
     protected <T extends BattleNetEntity> Result<T, String> executeCall(final Call<T> call) {
-        return battleNet.getProxy().getResponse(call);
+        return battleNet.getProxy().getResponse(call, priority);
+    }
+
+    /**
+     * Asynchronous version of {@link #executeCall(Call)}.
+     *
+     * <p>The call is dispatched without blocking the calling thread, and the returned future completes
+     * with the same {@link Result} that {@link #executeCall(Call)} would have returned.
+     *
+     * @param call Retrofit API call to execute.
+     * @param <T> Type of the API response object that is expected to be returned from the API call.
+     * @return A future which completes with an {@link gg.sep.result.Ok} result containing the entity {@code T}
+     *         if the API call was successful, otherwise an {@link gg.sep.result.Err} containing the error message.
+     */
+    protected <T extends BattleNetEntity> CompletableFuture<Result<T, String>> executeCallAsync(final Call<T> call) {
+        return battleNet.getProxy().getResponseAsync(call, priority);
     }
 }
@@ -22,17 +22,55 @@
 
 package gg.sep.battlenet.api;
 
+import java.io.Closeable;
 import java.io.IOException;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
 
-import com.google.common.util.concurrent.RateLimiter;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.gson.JsonElement;
 import com.google.gson.JsonParseException;
+import lombok.Builder;
+import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.log4j.Log4j2;
+import okhttp3.Headers;
+import okhttp3.HttpUrl;
+import okhttp3.Request;
 import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Invocation;
 import retrofit2.Response;
 
 import gg.sep.battlenet.BattleNet;
+import gg.sep.battlenet.cache.BattleNetEntityCache;
+import gg.sep.battlenet.cache.CacheConfig;
+import gg.sep.battlenet.cache.CacheKeys;
+import gg.sep.battlenet.cache.CacheStatistics;
+import gg.sep.battlenet.cache.NamespaceRevisions;
+import gg.sep.battlenet.cache.NegativeCache;
+import gg.sep.battlenet.http.ValidatorStore;
+import gg.sep.battlenet.interceptor.BattleNetInterceptor;
 import gg.sep.battlenet.model.BattleNetEntity;
+import gg.sep.battlenet.ratelimit.AdaptiveThrottle;
+import gg.sep.battlenet.ratelimit.AsyncRateLimiter;
+import gg.sep.battlenet.ratelimit.PermitStore;
+import gg.sep.battlenet.ratelimit.QuotaManager;
+import gg.sep.battlenet.ratelimit.RateLimitConfig;
+import gg.sep.battlenet.ratelimit.RequestPriority;
+import gg.sep.battlenet.retry.RetryConfig;
+import gg.sep.battlenet.retry.RetryContext;
+import gg.sep.battlenet.retry.RetryDecision;
+import gg.sep.battlenet.retry.RetryPolicy;
 import gg.sep.battlenet.util.Waits;
 import gg.sep.result.Err;
 import gg.sep.result.Ok;
@@ -41,15 +79,43 @@ import gg.sep.result.Result;
 /**
  * Simple "proxy" class which handles actually executing the {@link retrofit2.Retrofit} API {@link Call}s.
  *
- * <p>This proxy handles simple rate limiting and retries when Battle.net throttles.
+ * <p>Each request waits for a permit from the proxy's {@link AsyncRateLimiter}, which enforces the rate limit and
+ * quota windows of its {@link RateLimitConfig}, releasing waiting requests by {@link RequestPriority}. Failed requests
+ * are retried according to its {@link RetryConfig}. {@code GET} requests are answered, where possible, without
+ * sending them, according to its {@link CacheConfig}: from the client's {@link BattleNetEntityCache}, from a
+ * {@link NegativeCache} of missing resources, or by sharing an identical request in flight.
+ *
+ * <p>Calls can be executed either synchronously with {@link #getResponse(Call)}, which blocks the calling
+ * thread for the duration of the request, or asynchronously with {@link #getResponseAsync(Call)}, which
+ * dispatches the request using {@link Call#enqueue(Callback)} and waits for permits and retries on a
+ * shared scheduler rather than on the caller's thread. The scheduler is stopped by {@link #close()}.
  */
 @Log4j2
-public final class BattleNetAPIProxy {
-    private static final int DEFAULT_MAX_THROTTLE_RETRIES = 10;
-    private static final int RETRY_INTERVAL_MS = 500;
-    private static final int DEFAULT_RATE_LIMIT_PER_SECOND = 10;
+public final class BattleNetAPIProxy implements Closeable {
+    private static final int DEFAULT_MAX_QUEUED_REQUESTS = 10_000;
+    private static final long DEFAULT_MAX_VALIDATORS = 10_000;
+    private static final int HTTP_NOT_MODIFIED = 304;
+    private static final int HTTP_NOT_FOUND = 404;
+    private static final long DEFAULT_MAX_NEGATIVE_ENTRIES = 10_000;
     private final BattleNet battleNet;
-    private final RateLimiter rateLimiter;
+    private final ScheduledExecutorService scheduler;
+    private final AsyncRateLimiter rateLimiter;
+    @Getter
+    private final QuotaManager quotaManager;
+    private final AdaptiveThrottle adaptiveThrottle;
+    @Getter
+    private final RetryPolicy retryPolicy;
+    private final RequestCoalescer coalescer;
+    @Getter
+    private final ValidatorStore validatorStore;
+    @Getter
+    private final CacheRefresher cacheRefresher;
+    @Getter
+    private final NegativeCache negativeCache;
+    @Getter
+    private final NamespaceRevisions namespaceRevisions;
+    private final Duration namespaceProbeInterval;
+    private final AtomicBoolean probingNamespaces = new AtomicBoolean();
     @Setter
     private int maxThrottleRetries;
 
@@ -59,7 +125,7 @@ public final class BattleNetAPIProxy {
      * @param battleNet Battle.net Client instance.
      */
     public BattleNetAPIProxy(final BattleNet battleNet) {
-        this(battleNet, DEFAULT_RATE_LIMIT_PER_SECOND);
+        this(battleNet, null, null, null);
     }
 
     /**
@@ -69,61 +135,940 @@ public final class BattleNetAPIProxy {
      * @param requestsPerSecond Maximum number of requests per second to call the API.
      */
     public BattleNetAPIProxy(final BattleNet battleNet, final long requestsPerSecond) {
+        this(battleNet, RateLimitConfig.builder().requestsPerSecond(requestsPerSecond).build(), null, null);
+    }
+
+    /**
+     * Create a new proxy for the specified Battle.net API client. Any configuration which is null uses its
+     * defaults.
+     *
+     * @param battleNet Battle.net Client instance.
+     * @param rateLimitConfig Rate limit, quota windows and adaptive throttling of the proxy's requests.
+     * @param retryConfig Which failed requests are retried, and when.
+     * @param cacheConfig How responses are reused: background refresh of cached entities, negative caching,
+     *                    namespace revision checks, request coalescing and conditional requests. The cache itself
+     *                    is the {@link BattleNet#getCache()} of the client.
+     */
+    @Builder
+    private BattleNetAPIProxy(final BattleNet battleNet, final RateLimitConfig rateLimitConfig,
+                              final RetryConfig retryConfig, final CacheConfig cacheConfig) {
+        final RateLimitConfig rateLimit = (rateLimitConfig == null) ? RateLimitConfig.defaults() : rateLimitConfig;
+        final RetryConfig retry = (retryConfig == null) ? RetryConfig.defaults() : retryConfig;
+        final CacheConfig caching = (cacheConfig == null) ? CacheConfig.defaults() : cacheConfig;
         this.battleNet = battleNet;
-        this.rateLimiter = RateLimiter.create(DEFAULT_RATE_LIMIT_PER_SECOND);
-        this.maxThrottleRetries = DEFAULT_MAX_THROTTLE_RETRIES;
+        this.maxThrottleRetries = retry.getMaxThrottleRetries();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+            .setDaemon(true)
+            .setNameFormat("battlenet-proxy-%d")
+            .build());
+        this.quotaManager = new QuotaManager(rateLimit.getQuotaWindows(), rateLimit.getPermitStore(),
+            QuotaManager.DEFAULT_LEASE_SIZE);
+        this.rateLimiter = new AsyncRateLimiter(rateLimit.getRequestsPerSecond(), DEFAULT_MAX_QUEUED_REQUESTS,
+            scheduler, quotaManager, rateLimit.getQuotaPolicy());
+        this.adaptiveThrottle = rateLimit.isAdaptiveThrottling() ? new AdaptiveThrottle(rateLimiter) : null;
+        this.retryPolicy = retry.getRetryPolicy();
+        this.coalescer = caching.isCoalesceRequests() ? new RequestCoalescer() : null;
+        this.validatorStore = caching.isConditionalRequests() ? new ValidatorStore(DEFAULT_MAX_VALIDATORS) : null;
+        this.cacheRefresher = (caching.getRefreshPolicy() == null) ? null :
+            new CacheRefresher(caching.getRefreshPolicy());
+        this.negativeCache = new NegativeCache(caching.getNegativeCacheTTL(), DEFAULT_MAX_NEGATIVE_ENTRIES);
+        this.namespaceRevisions = new NamespaceRevisions();
+        this.namespaceProbeInterval = caching.getNamespaceProbeInterval();
+    }
+
+    /**
+     * Returns the current rate limit of the proxy in requests per second.
+     * @return The current rate limit of the proxy in requests per second.
+     */
+    public double getRequestsPerSecond() {
+        return rateLimiter.getRate();
+    }
+
+    /**
+     * Returns the number of requests remaining in the tightest quota window.
+     * @return The number of requests remaining in the tightest quota window.
+     */
+    public long getRemainingQuota() {
+        return quotaManager.getRemaining();
+    }
+
+    /**
+     * Stops the proxy's scheduler and the thread leasing permits from its {@link PermitStore}. Requests waiting for
+     * a permit or a retry fail, and later requests fail without being sent.
+     */
+    @Override
+    public void close() {
+        rateLimiter.close();
+        scheduler.shutdownNow();
+        quotaManager.close();
     }
 
     /**
      * Executes the Retrofit {@link Call}s, accounting for rate limits and throttling.
      *
+     * <p>Failed attempts are retried according to the proxy's {@link RetryPolicy}, waiting on the calling thread
+     * between attempts. If an identical request is already in flight, the calling thread waits for its result
+     * instead of executing the call.
+     *
      * @param call Retrofit API call to execute.
      * @param <T> Type of the call's response model.
      * @return An {@link gg.sep.result.Ok} result containing the entity {@code T} if the API call
      *         was successful, otherwise an {@link gg.sep.result.Err} containing the error message.
      */
     public <T extends BattleNetEntity> Result<T, String> getResponse(final Call<T> call) {
-        return getResponse(call, 0);
+        return getResponse(call, RequestPriority.NORMAL);
     }
 
     /**
-     * Executes the Retrofit {@link Call}s, accounting for rate limits and throttling.
+     * Identical to {@link #getResponse(Call)}, but waits for rate limit permits with the specified priority.
      *
      * @param call Retrofit API call to execute.
-     * @param prevCount Number representing the previous number of attempts, in the case of retries.
+     * @param priority Priority of the call.
      * @param <T> Type of the call's response model.
      * @return An {@link gg.sep.result.Ok} result containing the entity {@code T} if the API call
      *         was successful, otherwise an {@link gg.sep.result.Err} containing the error message.
      */
-    private <T extends BattleNetEntity> Result<T, String> getResponse(final Call<T> call, final long prevCount) {
+    public <T extends BattleNetEntity> Result<T, String> getResponse(final Call<T> call,
+                                                                     final RequestPriority priority) {
+        final Class<T> type = entityType(call);
+        final HttpUrl url = canonicalUrl(call.request());
+        final String cacheKey = cacheKey(call, url, type);
+        final T cached = getCached(cacheKey, type, () -> fetchAsync(call.clone(), url, RequestPriority.BULK));
+        if (cached != null) {
+            return Ok.of(cached);
+        }
+        final long start = System.nanoTime();
+        return putLoaded(cacheKey, type, start, fetch(call, url, priority));
+    }
+
+    /**
+     * Executes a Retrofit {@link Call} which returns raw JSON, and parses the response into an entity of
+     * the specified type. This is used for endpoints whose response type isn't known until runtime, such as
+     * the full item behind a {@link gg.sep.battlenet.wow.model.WoWKey}.
+     *
+     * <p>The call is otherwise executed exactly like {@link #getResponse(Call, RequestPriority)}, including
+     * caching, coalescing, rate limiting and retries.
+     *
+     * @param call Retrofit API call to execute.
+     * @param type Class of the entity to parse the response into.
+     * @param priority Priority of the call.
+     * @param <T> Type of the entity.
+     * @return An {@link gg.sep.result.Ok} result containing the entity {@code T} if the API call
+     *         was successful, otherwise an {@link gg.sep.result.Err} containing the error message.
+     */
+    public <T extends BattleNetEntity> Result<T, String> getEntity(final Call<JsonElement> call, final Class<T> type,
+                                                                   final RequestPriority priority) {
+        final HttpUrl url = canonicalUrl(call.request());
+        final String cacheKey = cacheKey(call, url, type);
+        final T cached = getCached(cacheKey, type, () -> fetchAsync(call.clone(), url, RequestPriority.BULK)
+            .thenApply(json -> parse(call, json, type)));
+        if (cached != null) {
+            return Ok.of(cached);
+        }
+        final long start = System.nanoTime();
+        return putLoaded(cacheKey, type, start, parse(call, fetch(call, url, priority), type));
+    }
+
+    /**
+     * Asynchronous version of {@link #getEntity(Call, Class, RequestPriority)}.
+     *
+     * @param call Retrofit API call to execute.
+     * @param type Class of the entity to parse the response into.
+     * @param priority Priority of the call.
+     * @param <T> Type of the entity.
+     * @return A future which completes with an {@link gg.sep.result.Ok} result containing the entity {@code T}
+     *         if the API call was successful, otherwise an {@link gg.sep.result.Err} containing the error message.
+     */
+    public <T extends BattleNetEntity> CompletableFuture<Result<T, String>> getEntityAsync(
+        final Call<JsonElement> call, final Class<T> type, final RequestPriority priority) {
+
+        final HttpUrl url = canonicalUrl(call.request());
+        final String cacheKey = cacheKey(call, url, type);
+        final T cached = getCached(cacheKey, type, () -> fetchAsync(call.clone(), url, RequestPriority.BULK)
+            .thenApply(json -> parse(call, json, type)));
+        if (cached != null) {
+            return CompletableFuture.completedFuture(Ok.of(cached));
+        }
+        final long start = System.nanoTime();
+        return fetchAsync(call, url, priority)
+            .thenApply(json -> putLoaded(cacheKey, type, start, parse(call, json, type)));
+    }
+
+    /**
+     * Returns whether the response to a call is currently cached, without reading or parsing the cached entity.
+     *
+     * @param call Retrofit API call.
+     * @param type Class of the entity which the response is parsed into.
+     * @return True if the client has a cache and it holds an unexpired entry for the call, otherwise false.
+     */
+    public boolean isCached(final Call<?> call, final Class<? extends BattleNetEntity> type) {
+        final String cacheKey = cacheKey(call, canonicalUrl(call.request()), type);
+        if (cacheKey == null) {
+            return false;
+        }
+        try {
+            final Duration ttl = getCache().getTTL(cacheKey);
+            return !ttl.isZero() && !ttl.isNegative();
+        } catch (final RuntimeException e) {
+            log.error("Error reading the TTL of a cached Battle.net entity. key={}", cacheKey, e);
+            return false;
+        }
+    }
+
+    /**
+     * Executes the Retrofit {@link Call}, sharing the result of an identical call if one is already in flight.
+     *
+     * @param call Retrofit API call to execute.
+     * @param url Canonical URL of the call's request.
+     * @param priority Priority of the call.
+     * @param <T> Type of the call's response model.
+     * @return The final result of the call.
+     */
+    private <T> Result<T, String> fetch(final Call<T> call, final HttpUrl url, final RequestPriority priority) {
+        final Result<T, String> knownMissing = knownMissing(call, url);
+        if (knownMissing != null) {
+            return knownMissing;
+        }
+        final String key = coalescingKey(call, url);
+        if (key == null) {
+            return execute(call, url, priority);
+        }
+        return coalescer.execute(key, () -> execute(call, url, priority));
+    }
+
+    /**
+     * Executes the Retrofit {@link Call} on the calling thread, retrying as needed.
+     *
+     * @param call Retrofit API call to execute.
+     * @param url Canonical URL of the call's request.
+     * @param priority Priority of the call.
+     * @param <T> Type of the call's response model.
+     * @return The final result of the call.
+     */
+    private <T> Result<T, String> execute(final Call<T> call, final HttpUrl url, final RequestPriority priority) {
+        retryPolicy.onRequest();
+        Call<T> attemptCall = call;
+        Duration previousDelay = Duration.ZERO;
+        int attempt = 0;
+        while (true) {
+            attempt++;
+            final Result<Duration, String> permit = awaitPermit(priority);
+            if (permit.isErr()) {
+                return Err.of(permit.unwrapErr());
+            }
+            Response<T> apiResponse = null;
+            Throwable error = null;
+            try {
+                apiResponse = attemptCall.execute();
+                recordResponse(apiResponse);
+                log.debug("BattleNet API | path={}, rateLimitWaitMs={}, attempt={}",
+                    call.request().url().encodedPath(), permit.unwrap().toMillis(), attempt);
+            } catch (final IOException | JsonParseException e) {
+                error = e;
+            }
+            final AttemptOutcome<T> outcome = evaluate(call, url, attempt, previousDelay, apiResponse, error);
+            if (outcome.result != null) {
+                return outcome.result;
+            }
+            Waits.simpleSleep(outcome.retryDelay.toMillis());
+            previousDelay = outcome.retryDelay;
+            attemptCall = attemptCall.clone();
+        }
+    }
+
+    /**
+     * Executes the Retrofit {@link Call} asynchronously, accounting for rate limits and throttling.
+     *
+     * <p>The request is dispatched with {@link Call#enqueue(Callback)}, so no thread is blocked while
+     * the request is in flight. Waiting for a rate limit permit and waiting between retries
+     * are both scheduled rather than slept, so the calling thread returns immediately. If an identical request
+     * is already in flight, its future is shared rather than executing the call.
+     *
+     * @param call Retrofit API call to execute.
+     * @param <T> Type of the call's response model.
+     * @return A future which completes with an {@link gg.sep.result.Ok} result containing the entity {@code T}
+     *         if the API call was successful, otherwise an {@link gg.sep.result.Err} containing the error message.
+     */
+    public <T extends BattleNetEntity> CompletableFuture<Result<T, String>> getResponseAsync(final Call<T> call) {
+        return getResponseAsync(call, RequestPriority.NORMAL);
+    }
+
+    /**
+     * Identical to {@link #getResponseAsync(Call)}, but waits for rate limit permits with the specified priority.
+     *
+     * @param call Retrofit API call to execute.
+     * @param priority Priority of the call.
+     * @param <T> Type of the call's response model.
+     * @return A future which completes with an {@link gg.sep.result.Ok} result containing the entity {@code T}
+     *         if the API call was successful, otherwise an {@link gg.sep.result.Err} containing the error message.
+     */
+    public <T extends BattleNetEntity> CompletableFuture<Result<T, String>> getResponseAsync(
+        final Call<T> call, final RequestPriority priority) {
+
+        final Class<T> type = entityType(call);
+        final HttpUrl url = canonicalUrl(call.request());
+        final String cacheKey = cacheKey(call, url, type);
+        final T cached = getCached(cacheKey, type, () -> fetchAsync(call.clone(), url, RequestPriority.BULK));
+        if (cached != null) {
+            return CompletableFuture.completedFuture(Ok.of(cached));
+        }
+        final long start = System.nanoTime();
+        final CompletableFuture<Result<T, String>> future = fetchAsync(call, url, priority);
+        return (cacheKey == null) ? future : future.thenApply(result -> putLoaded(cacheKey, type, start, result));
+    }
+
+    /**
+     * Starts executing the Retrofit {@link Call} asynchronously, sharing the future of an identical call if one
+     * is already in flight.
+     *
+     * @param call Retrofit API call to execute.
+     * @param url Canonical URL of the call's request.
+     * @param priority Priority of the call.
+     * @param <T> Type of the call's response model.
+     * @return A future which completes with the final result of the call.
+     */
+    private <T> CompletableFuture<Result<T, String>> fetchAsync(final Call<T> call, final HttpUrl url,
+                                                                final RequestPriority priority) {
+        final Result<T, String> knownMissing = knownMissing(call, url);
+        if (knownMissing != null) {
+            return CompletableFuture.completedFuture(knownMissing);
+        }
+        final String key = coalescingKey(call, url);
+        if (key == null) {
+            return executeAsync(call, url, priority);
+        }
+        return coalescer.executeAsync(key, () -> executeAsync(call, url, priority));
+    }
+
+    /**
+     * Starts executing the Retrofit {@link Call} asynchronously.
+     *
+     * @param call Retrofit API call to execute.
+     * @param url Canonical URL of the call's request.
+     * @param priority Priority of the call.
+     * @param <T> Type of the call's response model.
+     * @return A future which completes with the final result of the call.
+     */
+    private <T> CompletableFuture<Result<T, String>> executeAsync(
+        final Call<T> call, final HttpUrl url, final RequestPriority priority) {
+
+        final CompletableFuture<Result<T, String>> future = new CompletableFuture<>();
+        retryPolicy.onRequest();
+        getResponseAsync(call, url, priority, 1, Duration.ZERO, future);
+        return future;
+    }
+
+    /**
+     * Asynchronously executes the Retrofit {@link Call}, completing {@code future} once a final result is available.
+     *
+     * @param call Retrofit API call to execute.
+     * @param url Canonical URL of the call's request.
+     * @param priority Priority of the call.
+     * @param attempt The number of this attempt, starting at 1.
+     * @param previousDelay Delay which was waited before this attempt.
+     * @param future Future which will be completed with the result of the call.
+     * @param <T> Type of the call's response model.
+     */
+    private <T> void getResponseAsync(final Call<T> call, final HttpUrl url, final RequestPriority priority,
+                                      final int attempt, final Duration previousDelay,
+                                      final CompletableFuture<Result<T, String>> future) {
+        // the permit future completes on the limiter's scheduler once it's our turn, no thread waits for it
+        rateLimiter.acquire(priority).whenComplete((waited, error) -> {
+            if (error != null) {
+                future.complete(permitFailure(error));
+                return;
+            }
+            dispatchAsync(call, url, priority, attempt, previousDelay, future, waited);
+        });
+    }
+
+    /**
+     * Enqueues the Retrofit {@link Call} after a rate limit permit has been granted.
+     *
+     * @param call Retrofit API call to execute.
+     * @param url Canonical URL of the call's request.
+     * @param priority Priority of the call.
+     * @param attempt The number of this attempt, starting at 1.
+     * @param previousDelay Delay which was waited before this attempt.
+     * @param future Future which will be completed with the result of the call.
+     * @param waited Amount of time spent waiting for the rate limit permit.
+     * @param <T> Type of the call's response model.
+     */
+    private <T> void dispatchAsync(final Call<T> call, final HttpUrl url, final RequestPriority priority,
+                                   final int attempt, final Duration previousDelay,
+                                   final CompletableFuture<Result<T, String>> future, final Duration waited) {
+        call.enqueue(new Callback<T>() {
+            @Override
+            public void onResponse(final Call<T> enqueuedCall, final Response<T> apiResponse) {
+                try {
+                    recordResponse(apiResponse);
+                    log.debug("BattleNet API | path={}, rateLimitWaitMs={}, attempt={}, async=true",
+                        call.request().url().encodedPath(), waited.toMillis(), attempt);
+                    complete(evaluate(call, url, attempt, previousDelay, apiResponse, null));
+                } catch (final RuntimeException e) {
+                    future.completeExceptionally(e);
+                }
+            }
+
+            @Override
+            public void onFailure(final Call<T> enqueuedCall, final Throwable t) {
+                try {
+                    complete(evaluate(call, url, attempt, previousDelay, null, t));
+                } catch (final RuntimeException e) {
+                    future.completeExceptionally(e);
+                }
+            }
+
+            private void complete(final AttemptOutcome<T> outcome) {
+                if (outcome.result != null) {
+                    future.complete(outcome.result);
+                    return;
+                }
+                scheduler.schedule(
+                    () -> getResponseAsync(call.clone(), url, priority, attempt + 1, outcome.retryDelay, future),
+                    outcome.retryDelay.toNanos(), TimeUnit.NANOSECONDS);
+            }
+        });
+    }
+
+    /**
+     * The outcome of a single attempt: either the final result of the call, or the delay after which
+     * the call should be retried.
+     *
+     * @param <T> Type of the call's response model.
+     */
+    private static final class AttemptOutcome<T> {
+        private final Result<T, String> result;
+        private final Duration retryDelay;
+
+        private AttemptOutcome(final Result<T, String> result, final Duration retryDelay) {
+            this.result = result;
+            this.retryDelay = retryDelay;
+        }
+
+        private static <T> AttemptOutcome<T> done(final Result<T, String> result) {
+            return new AttemptOutcome<>(result, null);
+        }
+
+        private static <T> AttemptOutcome<T> retry(final Duration retryDelay) {
+            return new AttemptOutcome<>(null, retryDelay);
+        }
+    }
+
+    /**
+     * Decides what to do after an attempt completes, either with a response or an exception.
+     *
+     * @param call The original call.
+     * @param url Canonical URL of the call's request.
+     * @param attempt The number of the attempt, starting at 1.
+     * @param previousDelay Delay which was waited before the attempt.
+     * @param apiResponse Response returned by the API, or null if the attempt failed with an exception.
+     * @param error Exception thrown by the attempt, or null if a response was received.
+     * @param <T> Type of the call's response model.
+     * @return The outcome of the attempt.
+     */
+    private <T> AttemptOutcome<T> evaluate(final Call<T> call, final HttpUrl url, final int attempt,
+                                           final Duration previousDelay, final Response<T> apiResponse,
+                                           final Throwable error) {
+        if (apiResponse == null) {
+            final RetryDecision decision = retryPolicy.shouldRetry(RetryContext.builder()
+                .attempt(attempt)
+                .previousDelay(previousDelay)
+                .error(error)
+                .build());
+            if (decision.isRetry()) {
+                log.warn("Error calling Battle.net, retrying in {}ms. Attempt {}. url={}, exception={}",
+                    decision.getDelay().toMillis(), attempt, call.request().url(), error);
+                return AttemptOutcome.retry(decision.getDelay());
+            }
+            return AttemptOutcome.done(failureResult(call, error));
+        }
+
+        recordNamespaceRevision(url, apiResponse.headers());
+        final int code = apiResponse.code();
+        if (code == HTTP_NOT_MODIFIED) {
+            return notModified(call, url, apiResponse);
+        }
+        if (code >= 200 && code < 300) {
+            recordValidators(call, url, apiResponse);
+            return AttemptOutcome.done(toResult(apiResponse));
+        }
+        if (code == HTTP_NOT_FOUND) {
+            return AttemptOutcome.done(notFound(call, url));
+        }
+        final boolean throttled = code == 429;
+        if (throttled && attempt >= maxThrottleRetries) {
+            log.error("Maximum retries hit. Stopping...");
+            return AttemptOutcome.done(Err.of("Maximum number of throttle retries hit"));
+        }
+        final RetryDecision decision = retryPolicy.shouldRetry(RetryContext.builder()
+            .attempt(attempt)
+            .previousDelay(previousDelay)
+            .statusCode(code)
+            .headers(apiResponse.headers())
+            .build());
+        if (decision.isRetry()) {
+            log.warn("[Response {}] Retrying Battle.net request in {}ms. Attempt {}/{}",
+                code, decision.getDelay().toMillis(), attempt, maxThrottleRetries);
+            return AttemptOutcome.retry(decision.getDelay());
+        }
+        if (throttled) {
+            log.error("Battle.net is throttling requests and the request will not be retried: {}",
+                decision.getReason());
+            return AttemptOutcome.done(Err.of("Battle.net throttled the request: " + decision.getReason()));
+        }
+        return AttemptOutcome.done(toResult(apiResponse));
+    }
+
+    /**
+     * Fails the call straight away if its URL is known not to exist.
+     *
+     * @param call Retrofit API call to be executed.
+     * @param url Canonical URL of the call's request.
+     * @param <T> Type of the call's response model.
+     * @return An {@link gg.sep.result.Err} if the URL is known not to exist, otherwise null.
+     */
+    private <T> Result<T, String> knownMissing(final Call<T> call, final HttpUrl url) {
+        if (!"GET".equals(call.request().method())) {
+            return null;
+        }
+        final Optional<String> error = negativeCache.get(url);
+        if (!error.isPresent()) {
+            return null;
+        }
+        log.debug("BattleNet API | path={}, knownMissing=true", call.request().url().encodedPath());
+        return Err.of(error.get());
+    }
+
+    /**
+     * Converts a {@code 404 Not Found} response into an error, remembering the URL as not found if it was
+     * a {@code GET} request.
+     *
+     * @param call The original call.
+     * @param url Canonical URL of the call's request.
+     * @param <T> Type of the call's response model.
+     * @return An {@link gg.sep.result.Err} containing the error message.
+     */
+    private <T> Result<T, String> notFound(final Call<T> call, final HttpUrl url) {
+        final String error = "Battle.net resource not found (404): " + call.request().url().encodedPath();
+        if ("GET".equals(call.request().method())) {
+            negativeCache.record(url, error);
+        }
+        log.debug(error);
+        return Err.of(error);
+    }
+
+    /**
+     * Returns the key under which the call is coalesced with identical in-flight calls.
+     *
+     * <p>The key is the canonical URL of the request, as it will be sent after the {@link BattleNetInterceptor}
+     * has applied the namespace and locale, plus the endpoint's declared return type if known, so two endpoints
+     * which happen to share a URL but deserialize different models are never coalesced together.
+     *
+     * @param call Retrofit API call to be executed.
+     * @param url Canonical URL of the call's request.
+     * @return The coalescing key, or null if the call should not be coalesced.
+     */
+    private String coalescingKey(final Call<?> call, final HttpUrl url) {
+        if (coalescer == null) {
+            return null;
+        }
+        final Request request = call.request();
+        if (!"GET".equals(request.method())) {
+            return null;
+        }
+        final Invocation invocation = request.tag(Invocation.class);
+        return (invocation == null) ? url.toString() : url + " " + invocation.method().getGenericReturnType();
+    }
+
+    /**
+     * Returns the canonical URL of the request, as it will be sent after the {@link BattleNetInterceptor}
+     * has applied the namespace and locale.
+     *
+     * <p>It's computed once when a call is first handed to the proxy, and passed to everything which keys on it:
+     * the cache, negative cache, coalescer, validator store and namespace revisions. The interceptor remembers
+     * the URL it computed, and reuses it when the request is sent.
+     *
+     * @param request Request to be sent.
+     * @return The canonical URL of the request.
+     */
+    private HttpUrl canonicalUrl(final Request request) {
+        final BattleNetInterceptor interceptor = (battleNet == null) ? null : battleNet.getInterceptor();
+        return (interceptor == null) ? request.url() : interceptor.canonicalUrl(request.url());
+    }
+
+    /**
+     * Returns the cache key for the call, or null if the call's response should not be cached.
+     *
+     * <p>Requests to a static namespace are keyed by the namespace's current revision. Until the revision is
+     * known, which is as soon as the first response from the namespace arrives, they aren't cached.
+     *
+     * @param call Retrofit API call to be executed.
+     * @param url Canonical URL of the call's request.
+     * @param type Class of the entity which the response is parsed into, or null if it isn't known.
+     * @return The cache key for the call, or null if there is no cache, or the call isn't a cacheable
+     *         {@code GET} request.
+     */
+    private String cacheKey(final Call<?> call, final HttpUrl url, final Class<?> type) {
+        final BattleNetEntityCache cache = getCache();
+        if (cache == null || type == null || !"GET".equals(call.request().method())) {
+            return null;
+        }
+        final String namespace = NamespaceRevisions.staticNamespace(url);
+        if (namespace == null) {
+            return CacheKeys.of(battleNet.getRegion(), url);
+        }
+        startNamespaceProbe();
+        final String revision = namespaceRevisions.getRevision(namespace, cache, battleNet.getRegion());
+        return (revision == null) ? null : CacheKeys.of(battleNet.getRegion(), url, revision);
+    }
+
+    /**
+     * Records the namespace revision reported in a response to a static namespace.
+     *
+     * @param url Canonical URL of the request.
+     * @param headers Headers of the response.
+     */
+    private void recordNamespaceRevision(final HttpUrl url, final Headers headers) {
+        final String revision = (headers == null) ? null : headers.get(NamespaceRevisions.NAMESPACE_HEADER);
+        if (revision == null || battleNet == null) {
+            return;
+        }
+        final String namespace = NamespaceRevisions.staticNamespace(url);
+        if (namespaceRevisions.observe(namespace, revision, getCache(), battleNet.getRegion())) {
+            log.debug("BattleNet API | namespace={}, revision={}", namespace, revision);
+        }
+    }
+
+    /**
+     * Starts periodically checking the revision of each known static namespace, unless it's already started
+     * or disabled.
+     */
+    private void startNamespaceProbe() {
+        if (namespaceProbeInterval.isZero() || scheduler.isShutdown() || probingNamespaces.get() ||
+            !probingNamespaces.compareAndSet(false, true)) {
+            return;
+        }
+        scheduler.scheduleWithFixedDelay(this::probeNamespaces,
+            namespaceProbeInterval.toMillis(), namespaceProbeInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Sends a small request to each known static namespace at {@link RequestPriority#BULK}. The revision reported
+     * in the response is recorded like that of any other response.
+     */
+    private void probeNamespaces() {
+        try {
+            final NamespaceProbeEndpoint endpoint = battleNet.getEndpoint(NamespaceProbeEndpoint.class);
+            for (final String namespace : namespaceRevisions.getNamespaces()) {
+                final Call<JsonElement> probe = endpoint.probe(namespace);
+                fetchAsync(probe, canonicalUrl(probe.request()), RequestPriority.BULK).thenAccept(result -> {
+                    if (result.isErr()) {
+                        log.warn("Unable to check the revision of Battle.net namespace {}: {}",
+                            namespace, result.unwrapErr());
+                    }
+                });
+            }
+        } catch (final RuntimeException e) {
+            log.error("Error checking the revisions of Battle.net namespaces", e);
+        }
+    }
+
+    private BattleNetEntityCache getCache() {
+        return (battleNet == null) ? null : battleNet.getCache();
+    }
+
+    /**
+     * Reads the call's entity from the cache, starting a background refresh if the {@link CacheRefresher}
+     * decides the cached entity needs one.
+     *
+     * @param cacheKey Cache key of the call, or null if it isn't cacheable.
+     * @param type Class of the entity.
+     * @param refresh Fetches a fresh copy of the entity in the background, if a refresh is needed.
+     * @param <T> Type of the entity.
+     * @return The cached entity, or null if it isn't cached.
+     */
+    private <T extends BattleNetEntity> T getCached(final String cacheKey, final Class<T> type,
+                                                    final Supplier<CompletableFuture<Result<T, String>>> refresh) {
+        if (cacheKey == null) {
+            return null;
+        }
         try {
-            final double waitTimeMs = this.rateLimiter.acquire() * 1000; // acquire a permit and convert it to millis
-            final Response<T> apiResponse = call.execute();
-            log.debug("BattleNet API | path={}, rateLimitWaitMs={}", call.request().url().encodedPath(), waitTimeMs);
-            // check if we're being throttled
-            if (apiResponse.code() == 429) {
-                final long currAttempt = prevCount + 1;
-                log.warn("[Response 429] Battle.Net is throttling requests. Attempt {}/{}",
-                    currAttempt, maxThrottleRetries);
-                // quit if we hit the maximum number of retries
-                if (currAttempt == maxThrottleRetries) {
-                    log.error("Maximum retries hit. Stopping...");
-                    return Err.of("Maximum number of throttle retries hit");
+            final BattleNetEntityCache cache = getCache();
+            final T cached = cache.get(cacheKey, type);
+            if (cached != null && cacheRefresher != null) {
+                cacheRefresher.onHit(cache, cacheKey, type,
+                    () -> refresh.get().thenApply(result -> putCached(cacheKey, result)));
+            }
+            return cached;
+        } catch (final RuntimeException e) {
+            log.error("Error reading Battle.net entity from the cache. key={}", cacheKey, e);
+            return null;
+        }
+    }
+
+    /**
+     * Records the time taken to retrieve an entity which missed the cache in the cache's
+     * {@link CacheStatistics}, including any time spent waiting for the rate limiter, then caches the entity.
+     *
+     * @param cacheKey Cache key of the call, or null if it isn't cacheable.
+     * @param type Class of the entity.
+     * @param startNanos {@link System#nanoTime()} when the retrieval started.
+     * @param result Result of the retrieval.
+     * @param <T> Type of the entity.
+     * @return The {@code result}.
+     */
+    private <T extends BattleNetEntity> Result<T, String> putLoaded(final String cacheKey, final Class<T> type,
+                                                                    final long startNanos,
+                                                                    final Result<T, String> result) {
+        if (cacheKey != null) {
+            try {
+                final CacheStatistics statistics = getCache().getStatistics();
+                if (statistics != null) {
+                    statistics.recordLoad(type, System.nanoTime() - startNanos, result.isOk());
                 }
-                Waits.simpleSleep(RETRY_INTERVAL_MS);
-                return getResponse(call.clone(), currAttempt);
+            } catch (final RuntimeException e) {
+                log.error("Error recording Battle.net cache statistics. key={}", cacheKey, e);
             }
-            final T body = apiResponse.body();
-            if (body == null) {
-                final String error = "Unable to get an API response from Battle.net: " + apiResponse.raw().request().url();
-                log.error(error);
-                return Err.of(error);
+        }
+        return putCached(cacheKey, result);
+    }
+
+    private <T extends BattleNetEntity> Result<T, String> putCached(final String cacheKey,
+                                                                    final Result<T, String> result) {
+        if (cacheKey != null && result.isOk()) {
+            try {
+                final BattleNetEntityCache cache = getCache();
+                final T entity = result.unwrap();
+                if (cache.set(cacheKey, entity) && cacheRefresher != null) {
+                    cacheRefresher.onWrite(cache, cacheKey, entity.getClass());
+                }
+            } catch (final RuntimeException e) {
+                log.error("Error writing Battle.net entity to the cache. key={}", cacheKey, e);
             }
-            return Ok.of(body);
-        } catch (final IOException | JsonParseException e) {
-            return Err.of(String.format("Error retrieving valid response from Battle.net. url=%s, exception=%s",
+        }
+        return result;
+    }
+
+    /**
+     * Returns the entity class the call's endpoint declares it returns, if it is a {@link BattleNetEntity}.
+     *
+     * @param call Retrofit API call.
+     * @param <T> Type of the call's response model.
+     * @return The declared entity class, or null if it isn't known.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T extends BattleNetEntity> Class<T> entityType(final Call<T> call) {
+        final Class<?> type = responseType(call);
+        return (type != null && BattleNetEntity.class.isAssignableFrom(type)) ? (Class<T>) type : null;
+    }
+
+    /**
+     * Parses the result of a raw JSON call into an entity.
+     *
+     * @param call The call which returned the JSON.
+     * @param json The result of the call.
+     * @param type Class of the entity to parse the JSON into.
+     * @param <T> Type of the entity.
+     * @return An {@link gg.sep.result.Ok} result containing the parsed entity, otherwise
+     *         an {@link gg.sep.result.Err} containing the error message of the call or the parser.
+     */
+    private <T> Result<T, String> parse(final Call<?> call, final Result<JsonElement, String> json,
+                                        final Class<T> type) {
+        if (json.isErr()) {
+            return Err.of(json.unwrapErr());
+        }
+        return parse(call, json.unwrap(), type);
+    }
+
+    /**
+     * Parses a raw JSON response into an entity.
+     *
+     * @param call The call which returned the JSON.
+     * @param json The JSON response body.
+     * @param type Class of the entity to parse the JSON into.
+     * @param <T> Type of the entity.
+     * @return An {@link gg.sep.result.Ok} result containing the parsed entity, otherwise
+     *         an {@link gg.sep.result.Err} containing the error message.
+     */
+    private <T> Result<T, String> parse(final Call<?> call, final JsonElement json, final Class<T> type) {
+        try {
+            final T entity = battleNet.getJsonParser().fromJson(json, type);
+            if (entity != null) {
+                return Ok.of(entity);
+            }
+            return Err.of(String.format("Error retrieving the full item %s", call.request().url()));
+        } catch (final JsonParseException e) {
+            log.error(e);
+            return Err.of(String.format("Exception when attempting to parse the response. url=%s, exception=%s",
                 call.request().url(), e));
         }
+    }
+
+    /**
+     * Returns the model class the call's endpoint declares it returns, eg {@code Mount} for {@code Call<Mount>}.
+     *
+     * @param call Retrofit API call.
+     * @return The declared model class, or null if it isn't known.
+     */
+    private static Class<?> responseType(final Call<?> call) {
+        final Invocation invocation = call.request().tag(Invocation.class);
+        if (invocation == null) {
+            return null;
+        }
+        final Type returnType = invocation.method().getGenericReturnType();
+        if (returnType instanceof ParameterizedType) {
+            final Type responseType = ((ParameterizedType) returnType).getActualTypeArguments()[0];
+            if (responseType instanceof Class) {
+                return (Class<?>) responseType;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Remembers the validators of a successful {@code GET} response, along with its entity.
+     *
+     * <p>If the client has a {@link BattleNetEntityCache}, the entity is already written to it, so only the
+     * validators are remembered, and a {@code 304 Not Modified} response is answered from the cache. Responses
+     * which aren't read through the cache, such as raw JSON, aren't sent conditionally at all in that case.
+     *
+     * @param call The original call.
+     * @param url Canonical URL of the call's request.
+     * @param apiResponse Successful response returned by the API.
+     */
+    private void recordValidators(final Call<?> call, final HttpUrl url, final Response<?> apiResponse) {
+        if (validatorStore == null || !"GET".equals(call.request().method()) || apiResponse.body() == null) {
+            return;
+        }
+        final String key = url.toString();
+        if (getCache() == null) {
+            validatorStore.record(key, apiResponse.headers(), apiResponse.body());
+        } else if (apiResponse.body() instanceof BattleNetEntity) {
+            validatorStore.record(key, apiResponse.headers(), null);
+        } else {
+            validatorStore.invalidate(key);
+        }
+    }
+
+    /**
+     * Answers a {@code 304 Not Modified} response with the entity stored alongside the validators which were
+     * sent with the request, or if the client has a {@link BattleNetEntityCache}, with the cached entity.
+     *
+     * <p>If the entity has been evicted since the conditional request was sent, the request is retried
+     * immediately, this time without validators, so the full response is downloaded.
+     *
+     * @param call The original call.
+     * @param url Canonical URL of the call's request.
+     * @param apiResponse The {@code 304} response.
+     * @param <T> Type of the call's response model.
+     * @return The outcome of the attempt.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> AttemptOutcome<T> notModified(final Call<T> call, final HttpUrl url, final Response<T> apiResponse) {
+        final Request sentRequest = apiResponse.raw().request();
+        final boolean wasConditional = sentRequest.header(ValidatorStore.IF_NONE_MATCH_HEADER) != null
+            || sentRequest.header(ValidatorStore.IF_MODIFIED_SINCE_HEADER) != null;
+        if (validatorStore == null || !wasConditional) {
+            return AttemptOutcome.done(toResult(apiResponse));
+        }
+
+        final String key = url.toString();
+        final Class<?> type = responseType(call);
+        final Optional<Object> entity = (getCache() == null) ?
+            validatorStore.get(key).map(ValidatorStore.Validators::getEntity) :
+            Optional.ofNullable(cached(call, url, type));
+        final Optional<Object> matching = entity.filter(e -> type == null || type.isInstance(e));
+        if (matching.isPresent()) {
+            log.debug("BattleNet API | Not modified, using stored entity. url={}", key);
+            return AttemptOutcome.done(Ok.of((T) matching.get()));
+        }
+        log.debug("BattleNet API | Not modified, but the stored entity is gone. Requesting again. url={}", key);
+        validatorStore.invalidate(key);
+        return AttemptOutcome.retry(Duration.ZERO);
+    }
+
+    /**
+     * Reads the entity of a call from the cache, without triggering a background refresh.
+     *
+     * @param call The original call.
+     * @param url Canonical URL of the call's request.
+     * @param type Declared response type of the call, or null if it isn't known.
+     * @return The cached entity, or null if it isn't cached or the call's response isn't an entity.
+     */
+    private BattleNetEntity cached(final Call<?> call, final HttpUrl url, final Class<?> type) {
+        if (type == null || !BattleNetEntity.class.isAssignableFrom(type)) {
+            return null;
+        }
+        final Class<? extends BattleNetEntity> entityType = type.asSubclass(BattleNetEntity.class);
+        final String cacheKey = cacheKey(call, url, entityType);
+        if (cacheKey == null) {
+            return null;
+        }
+        try {
+            return getCache().get(cacheKey, entityType);
+        } catch (final RuntimeException e) {
+            log.error("Error reading Battle.net entity from the cache. key={}", cacheKey, e);
+            return null;
+        }
+    }
+
+    /**
+     * Feeds the response to the adaptive throttle, if enabled.
+     *
+     * @param apiResponse Response returned by the API.
+     */
+    private void recordResponse(final Response<?> apiResponse) {
+        if (adaptiveThrottle != null) {
+            adaptiveThrottle.onResponse(apiResponse.code(), apiResponse.headers());
+        }
+    }
+
+    /**
+     * Waits for a rate limit permit on the current thread.
+     *
+     * @param priority Priority of the request waiting for the permit.
+     * @return An {@link gg.sep.result.Ok} result containing the time spent waiting for the permit,
+     *         or an {@link gg.sep.result.Err} if the permit could not be acquired.
+     */
+    private Result<Duration, String> awaitPermit(final RequestPriority priority) {
+        try {
+            return Ok.of(rateLimiter.acquire(priority).join());
+        } catch (final CompletionException e) {
+            return permitFailure(e.getCause());
+        }
+    }
+
+    private static <T> Result<T, String> permitFailure(final Throwable t) {
+        Throwable cause = t;
+        while (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        final String error = "Unable to acquire a rate limit permit: " + cause.getMessage();
+        log.error(error);
+        return Err.of(error);
+    }
+
+    /**
+     * Converts a completed (non-throttled) API response into its final result.
+     *
+     * @param apiResponse Response returned by the API.
+     * @param <T> Type of the call's response model.
+     * @return An {@link gg.sep.result.Ok} result containing the response body if one was present,
+     *         otherwise an {@link gg.sep.result.Err} containing the error message.
+     */
+    private static <T> Result<T, String> toResult(final Response<T> apiResponse) {
+        final T body = apiResponse.body();
+        if (body == null) {
+            final String error = "Unable to get an API response from Battle.net: " + apiResponse.raw().request().url();
+            log.error(error);
+            return Err.of(error);
+        }
+        return Ok.of(body);
+    }
 
+    private static <T> Result<T, String> failureResult(final Call<T> call, final Throwable t) {
+        return Err.of(String.format("Error retrieving valid response from Battle.net. url=%s, exception=%s",
+            call.request().url(), t));
     }
 }
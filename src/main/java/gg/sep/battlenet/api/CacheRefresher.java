@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2019 sep.gg <seputaes@sep.gg>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package gg.sep.battlenet.api;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import lombok.Getter;
+import lombok.extern.log4j.Log4j2;
+
+import gg.sep.battlenet.cache.BattleNetEntityCache;
+import gg.sep.battlenet.cache.RefreshPolicy;
+import gg.sep.battlenet.model.BattleNetEntity;
+import gg.sep.result.Result;
+
+/**
+ * Refreshes cached entities in the background according to a {@link RefreshPolicy}.
+ *
+ * <p>Every cache hit is counted, and checked against the remaining TTL of its entry. Stale entries, and
+ * frequently read entries which are close to going stale, trigger a background refresh, while the cached
+ * entity is returned to the reader straight away. At most one refresh per key is in flight at a time, no
+ * matter how many readers see the entry as stale.
+ *
+ * <p>When an entity is written to the cache, its TTL is extended by the stale window of its class, so that it
+ * stays available to be served while it is refreshed.
+ */
+@Log4j2
+public final class CacheRefresher {
+    private static final long MAX_TRACKED_KEYS = 10_000;
+
+    @Getter
+    private final RefreshPolicy policy;
+    private final RequestCoalescer refreshes = new RequestCoalescer();
+    private final ConcurrentMap<String, LongAdder> reads = CacheBuilder.newBuilder()
+        .maximumSize(MAX_TRACKED_KEYS)
+        .<String, LongAdder>build()
+        .asMap();
+
+    /**
+     * Create a new refresher using the specified policy.
+     *
+     * @param policy Policy deciding when entries are refreshed.
+     */
+    public CacheRefresher(final RefreshPolicy policy) {
+        this.policy = policy;
+    }
+
+    /**
+     * Records a cache hit, and starts a background refresh of the entry if the policy says it needs one.
+     *
+     * @param cache The cache the entity was read from.
+     * @param key Key of the cached entry.
+     * @param entityClass Class of the cached entity.
+     * @param refresh Fetches a fresh copy of the entity and writes it to the cache. Only called if a refresh
+     *                is needed and no refresh of the key is already in flight.
+     * @param <R> Type of the refresh's result.
+     * @return The freshness of the entry.
+     */
+    public <R extends Result<?, String>> RefreshPolicy.Freshness onHit(
+        final BattleNetEntityCache cache, final String key, final Class<? extends BattleNetEntity> entityClass,
+        final Supplier<CompletableFuture<R>> refresh) {
+
+        final LongAdder counter = reads.computeIfAbsent(key, k -> new LongAdder());
+        counter.increment();
+        final Duration remaining = cache.getTTL(key);
+        final RefreshPolicy.Freshness freshness =
+            policy.freshness(cache.getEntityTTL(entityClass), remaining, entityClass, counter.sum());
+        if (freshness != RefreshPolicy.Freshness.FRESH) {
+            refresh(key, freshness, refresh);
+        }
+        return freshness;
+    }
+
+    /**
+     * Extends the TTL of a freshly written entry by its stale window, and resets its read count.
+     *
+     * @param cache The cache the entity was written to.
+     * @param key Key of the cached entry.
+     * @param entityClass Class of the cached entity.
+     */
+    public void onWrite(final BattleNetEntityCache cache, final String key,
+                        final Class<? extends BattleNetEntity> entityClass) {
+        reads.remove(key);
+        if (!policy.getStaleWindow(entityClass).isZero()) {
+            cache.updateTTL(policy.getStoredTTL(cache.getEntityTTL(entityClass), entityClass), key);
+        }
+    }
+
+    /**
+     * Returns the number of background refreshes currently in flight.
+     * @return The number of background refreshes currently in flight.
+     */
+    public int getRefreshing() {
+        return refreshes.getInFlight();
+    }
+
+    private <R extends Result<?, String>> void refresh(final String key, final RefreshPolicy.Freshness freshness,
+                                                        final Supplier<CompletableFuture<R>> refresh) {
+        try {
+            refreshes.executeAsync(key, refresh).whenComplete((result, error) -> {
+                if (error != null) {
+                    log.warn("Background refresh of cached Battle.net entity failed. key={}", key, error);
+                } else if (result.isErr()) {
+                    log.warn("Background refresh of cached Battle.net entity failed. key={}, error={}",
+                        key, result.unwrapErr());
+                } else {
+                    log.debug("Refreshed cached Battle.net entity in the background. key={}, freshness={}",
+                        key, freshness);
+                }
+            });
+        } catch (final RuntimeException e) {
+            log.warn("Unable to start background refresh of cached Battle.net entity. key={}", key, e);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2019 sep.gg <seputaes@sep.gg>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package gg.sep.battlenet.api;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent identical requests into a single execution ("single-flight").
+ *
+ * <p>The first caller for a key becomes the leader and actually performs the request. Any caller asking
+ * for the same key while the leader is still in flight becomes a follower, and simply shares the leader's
+ * result rather than performing the request again. Once the leader completes, the key is released, so
+ * later requests for the same key are performed afresh.
+ *
+ * <p>Only the in-flight request is shared. This is not a cache.
+ */
+public final class RequestCoalescer {
+    private final ConcurrentMap<Object, CompletableFuture<?>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Performs the request on the calling thread, unless an identical request is already in flight,
+     * in which case the calling thread waits for that request's result instead.
+     *
+     * @param key Key identifying identical requests.
+     * @param request Performs the request. Only called if this caller is the leader.
+     * @param <V> Type of the request's result.
+     * @return The result of the request, either performed by this caller or shared by the leader.
+     */
+    @SuppressWarnings("unchecked")
+    public <V> V execute(final Object key, final Supplier<V> request) {
+        final CompletableFuture<V> leader = new CompletableFuture<>();
+        final CompletableFuture<V> existing = (CompletableFuture<V>) inFlight.putIfAbsent(key, leader);
+        if (existing != null) {
+            return join(existing);
+        }
+        try {
+            final V result = request.get();
+            leader.complete(result);
+            return result;
+        } catch (final RuntimeException | Error e) {
+            leader.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, leader);
+        }
+    }
+
+    /**
+     * Starts the request asynchronously, unless an identical request is already in flight,
+     * in which case the in-flight request's future is returned instead.
+     *
+     * @param key Key identifying identical requests.
+     * @param request Starts the request. Only called if this caller is the leader.
+     * @param <V> Type of the request's result.
+     * @return A future which completes with the result of the request.
+     */
+    @SuppressWarnings("unchecked")
+    public <V> CompletableFuture<V> executeAsync(final Object key, final Supplier<CompletableFuture<V>> request) {
+        final CompletableFuture<V> leader = new CompletableFuture<>();
+        final CompletableFuture<V> existing = (CompletableFuture<V>) inFlight.putIfAbsent(key, leader);
+        if (existing != null) {
+            return existing;
+        }
+        final CompletableFuture<V> started;
+        try {
+            started = request.get();
+        } catch (final RuntimeException | Error e) {
+            inFlight.remove(key, leader);
+            leader.completeExceptionally(e);
+            throw e;
+        }
+        started.whenComplete((result, error) -> {
+            // release the key before completing, so callbacks which re-request the key start a fresh request
+            inFlight.remove(key, leader);
+            if (error != null) {
+                leader.completeExceptionally(error);
+            } else {
+                leader.complete(result);
+            }
+        });
+        return leader;
+    }
+
+    /**
+     * Returns the number of distinct requests currently in flight.
+     * @return The number of distinct requests currently in flight.
+     */
+    public int getInFlight() {
+        return inFlight.size();
+    }
+
+    private static <V> V join(final CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (final CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2019 sep.gg <seputaes@sep.gg>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package gg.sep.battlenet.auth;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.time.Instant;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import lombok.Getter;
+import lombok.extern.log4j.Log4j2;
+
+import gg.sep.battlenet.auth.model.OAuthToken;
+
+/**
+ * {@link OAuthTokenStore} kept in a file, which is shared by every process on the host or shared file system
+ * that is given the same path.
+ *
+ * <p>Tokens are written to a temporary file which is then atomically renamed over the store's file, so readers
+ * never see a partially written token and don't need to lock. Writers take an exclusive {@link FileLock} on a
+ * sibling {@code .lock} file, so concurrent writers don't interfere. Where the file system supports it, the
+ * file is only readable by its owner, since it holds a credential.
+ */
+@Log4j2
+public final class FileOAuthTokenStore implements OAuthTokenStore {
+    private static final String ACCESS_TOKEN = "access_token";
+    private static final String TOKEN_TYPE = "token_type";
+    private static final String EXPIRES_AT = "expires_at";
+    // file locks are held by the whole JVM, so stores in the same JVM must also exclude each other
+    private static final ConcurrentMap<Path, Object> PATH_LOCKS = new ConcurrentHashMap<>();
+
+    @Getter
+    private final Path path;
+    private final Path lockPath;
+    private final Object pathLock;
+
+    /**
+     * Create a new store using the specified file, which is created when a token is first saved.
+     *
+     * @param path Path to the store's file. Each client id should have its own file.
+     */
+    public FileOAuthTokenStore(final Path path) {
+        this.path = path.toAbsolutePath().normalize();
+        this.lockPath = this.path.resolveSibling(this.path.getFileName() + ".lock");
+        this.pathLock = PATH_LOCKS.computeIfAbsent(this.path, p -> new Object());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public StoredOAuthToken load() {
+        final Properties properties = new Properties();
+        try (InputStream input = Files.newInputStream(path)) {
+            properties.load(input);
+        } catch (final NoSuchFileException e) {
+            return null;
+        } catch (final IOException e) {
+            log.warn("Unable to read stored Battle.net OAuth token. path={}", path, e);
+            return null;
+        }
+        final String accessToken = properties.getProperty(ACCESS_TOKEN);
+        if (accessToken == null) {
+            return null;
+        }
+        final OAuthToken token = OAuthToken.builder()
+            .accessToken(accessToken)
+            .tokenType(properties.getProperty(TOKEN_TYPE))
+            .build();
+        final String expiresAt = properties.getProperty(EXPIRES_AT);
+        try {
+            return new StoredOAuthToken(token,
+                (expiresAt == null) ? null : Instant.ofEpochMilli(Long.parseLong(expiresAt)));
+        } catch (final NumberFormatException e) {
+            log.warn("Ignoring stored Battle.net OAuth token with a malformed expiry. path={}", path);
+            return null;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void save(final StoredOAuthToken stored) {
+        final Properties properties = new Properties();
+        properties.setProperty(ACCESS_TOKEN, stored.getToken().getAccessToken());
+        if (stored.getToken().getTokenType() != null) {
+            properties.setProperty(TOKEN_TYPE, stored.getToken().getTokenType());
+        }
+        if (stored.getExpiresAt() != null) {
+            properties.setProperty(EXPIRES_AT, Long.toString(stored.getExpiresAt().toEpochMilli()));
+        }
+
+        synchronized (pathLock) {
+            try (FileChannel lockChannel = FileChannel.open(lockPath, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE); FileLock ignored = lockChannel.lock()) {
+
+                final Path temp = Files.createTempFile(path.getParent(), path.getFileName().toString(), ".tmp");
+                try {
+                    restrictPermissions(temp);
+                    try (OutputStream output = Files.newOutputStream(temp)) {
+                        properties.store(output, null);
+                    }
+                    Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } finally {
+                    Files.deleteIfExists(temp);
+                }
+            } catch (final IOException e) {
+                log.warn("Unable to store Battle.net OAuth token. path={}", path, e);
+            }
+        }
+    }
+
+    private static void restrictPermissions(final Path file) {
+        try {
+            Files.setPosixFilePermissions(file, PosixFilePermissions.fromString("rw-------"));
+        } catch (final UnsupportedOperationException | IOException e) {
+            log.debug("Unable to restrict permissions of the OAuth token file. path={}", file);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2019 sep.gg <seputaes@sep.gg>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package gg.sep.battlenet.auth;
+
+import lombok.extern.log4j.Log4j2;
+import okhttp3.Authenticator;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.Route;
+
+import gg.sep.battlenet.auth.model.OAuthToken;
+import gg.sep.result.Result;
+
+/**
+ * okhttp3 {@link Authenticator} which recovers from Battle.net rejecting an access token with
+ * {@code 401 Unauthorized}, eg when a token is revoked or expires early.
+ *
+ * <p>Only requests which were given their token by the {@link gg.sep.battlenet.interceptor.BattleNetInterceptor}
+ * are handled, which tags them with the {@link OAuthToken} it added. The rejected token is replaced through the
+ * {@link OAuthTokenManager}, which retrieves a single new token however many requests were rejected at once, and
+ * the request is replayed once with the new token. If the replayed request is rejected too, the {@code 401} is
+ * returned to the caller.
+ */
+@Log4j2
+public final class OAuthAuthenticator implements Authenticator {
+    private static final int UNAUTHORIZED = 401;
+    private static final String AUTHORIZATION_HEADER = "Authorization";
+
+    private final OAuthTokenManager tokenManager;
+
+    /**
+     * Create a new authenticator.
+     * @param tokenManager Token manager which replaces rejected tokens.
+     */
+    public OAuthAuthenticator(final OAuthTokenManager tokenManager) {
+        this.tokenManager = tokenManager;
+    }
+
+    /**
+     * Returns the rejected request with a new access token, or null if it shouldn't be replayed.
+     *
+     * @param route Route of the rejected request.
+     * @param response The {@code 401} response.
+     * @return The request to replay, or null to return the response to the caller.
+     */
+    @Override
+    public Request authenticate(final Route route, final Response response) {
+        final Request request = response.request();
+        final OAuthToken rejected = request.tag(OAuthToken.class);
+        if (rejected == null || wasReplayed(response)) {
+            return null;
+        }
+        final Result<OAuthToken, String> replacement = tokenManager.replace(rejected);
+        if (replacement.isErr()) {
+            log.warn("Unable to replace rejected Battle.net OAuth token: {}", replacement.unwrapErr());
+            return null;
+        }
+        final OAuthToken token = replacement.unwrap();
+        if (token.getAccessToken().equals(rejected.getAccessToken())) {
+            return null;
+        }
+        log.debug("Replaying request with a new Battle.net OAuth token. url={}", request.url().encodedPath());
+        return request.newBuilder()
+            .header(AUTHORIZATION_HEADER, "Bearer " + token.getAccessToken())
+            .tag(OAuthToken.class, token)
+            .build();
+    }
+
+    private static boolean wasReplayed(final Response response) {
+        for (Response prior = response.priorResponse(); prior != null; prior = prior.priorResponse()) {
+            if (prior.code() == UNAUTHORIZED) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,316 @@
+/*
+ * Copyright (c) 2019 sep.gg <seputaes@sep.gg>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package gg.sep.battlenet.auth;
+
+import java.io.Closeable;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.extern.log4j.Log4j2;
+
+import gg.sep.battlenet.auth.api.OAuthAPI;
+import gg.sep.battlenet.auth.model.OAuthToken;
+import gg.sep.result.Err;
+import gg.sep.result.Ok;
+import gg.sep.result.Result;
+
+/**
+ * Keeps a Battle.net client's OAuth access token, and refreshes it before it expires.
+ *
+ * <ul>
+ *     <li>The current token is handed out by {@link #getToken()} without locking, so requests never wait for a
+ *         token once the first one has been retrieved.</li>
+ *     <li>Retrievals are single-flight: if several threads need a token at once, one of them retrieves it, and
+ *         the others wait for its result instead of each retrieving their own.</li>
+ *     <li>Once a token is retrieved, a refresh is scheduled {@code refreshMargin} before it expires, according to
+ *         its {@link OAuthToken#getExpiresIn()}. If the refresh fails, it is retried while the token is still
+ *         valid. Tokens without an expiry are never refreshed.</li>
+ * </ul>
+ *
+ * <p>Only if the current token has expired, because every background refresh failed, does a request wait for
+ * a new token to be retrieved.
+ *
+ * <p>If Battle.net rejects a token early, eg because it was revoked, {@link #replace(OAuthToken)} retrieves a new
+ * one. However many requests were rejected with the same token, only one new token is retrieved.
+ *
+ * <p>With an {@link OAuthTokenStore}, a token saved by another instance or process is used instead of
+ * retrieving a new one, as long as it isn't due for a refresh, and every retrieved token is saved to the store.
+ * Short-lived processes sharing a store therefore skip the token request on startup.
+ */
+@Log4j2
+public final class OAuthTokenManager implements Closeable {
+    private static final Duration DEFAULT_REFRESH_MARGIN = Duration.ofMinutes(5);
+    private static final Duration REFRESH_RETRY_DELAY = Duration.ofSeconds(30);
+
+    private final OAuthAPI oAuthAPI;
+    private final Duration refreshMargin;
+    private final Clock clock;
+    private final OAuthTokenStore tokenStore;
+    private final ScheduledExecutorService scheduler;
+    private final AtomicReference<CurrentToken> current = new AtomicReference<>();
+    private final AtomicReference<CompletableFuture<Result<OAuthToken, String>>> inFlight =
+        new AtomicReference<>();
+    private final AtomicReference<ScheduledFuture<?>> scheduledRefresh = new AtomicReference<>();
+
+    /**
+     * A retrieved token and when it expires.
+     */
+    private static final class CurrentToken {
+        private final OAuthToken token;
+        private final long expiresAt;
+
+        private CurrentToken(final OAuthToken token, final long expiresAt) {
+            this.token = token;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * Create a new token manager. Any setting which is null uses its default.
+     *
+     * @param oAuthAPI OAuth API which tokens are retrieved from.
+     * @param refreshMargin How long before a token expires it is refreshed. Defaults to 5 minutes, and is capped
+     *                      at half of the token's lifetime.
+     * @param clock Time source used for token expiry. Defaults to the system clock.
+     * @param tokenStore Store which tokens are shared through. Defaults to no store.
+     */
+    @Builder
+    private OAuthTokenManager(@NonNull final OAuthAPI oAuthAPI, final Duration refreshMargin, final Clock clock,
+                              final OAuthTokenStore tokenStore) {
+        this.oAuthAPI = oAuthAPI;
+        this.refreshMargin = (refreshMargin == null) ? DEFAULT_REFRESH_MARGIN : refreshMargin;
+        this.clock = (clock == null) ? Clock.systemUTC() : clock;
+        this.tokenStore = tokenStore;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+            .setDaemon(true)
+            .setNameFormat("battlenet-oauth-%d")
+            .build());
+    }
+
+    /**
+     * Returns the current access token, retrieving one first if there is no current token or it has expired.
+     *
+     * @return An {@link gg.sep.result.Ok} result containing the current token, otherwise an
+     *         {@link gg.sep.result.Err} containing the error message if a token could not be retrieved.
+     */
+    public Result<OAuthToken, String> getToken() {
+        final CurrentToken token = current.get();
+        if (token != null && clock.millis() < token.expiresAt) {
+            return Ok.of(token.token);
+        }
+        return refresh().join();
+    }
+
+    /**
+     * Retrieves a new access token, unless a retrieval is already in flight, in which case its result is shared.
+     *
+     * <p>The first caller retrieves the token on its own thread, and the returned future is already complete when
+     * this returns. Other callers receive the future of the retrieval in flight.
+     *
+     * @return A future which completes with the result of the retrieval.
+     */
+    public CompletableFuture<Result<OAuthToken, String>> refresh() {
+        return refresh(null);
+    }
+
+    /**
+     * Replaces a token which Battle.net rejected. If the current token is no longer the rejected token, it has
+     * already been replaced, and the current token is returned without retrieving another.
+     *
+     * @param rejected The rejected token.
+     * @return An {@link gg.sep.result.Ok} result containing the token which replaced {@code rejected}, otherwise
+     *         an {@link gg.sep.result.Err} containing the error message if a token could not be retrieved.
+     */
+    public Result<OAuthToken, String> replace(final OAuthToken rejected) {
+        return refresh(rejected.getAccessToken()).join();
+    }
+
+    /**
+     * Retrieves a new access token, or shares the result of a retrieval already in flight.
+     *
+     * @param rejectedAccessToken Access token being replaced, or null to retrieve a new token regardless of the
+     *                            current token.
+     * @return A future which completes with the result of the retrieval.
+     */
+    private CompletableFuture<Result<OAuthToken, String>> refresh(final String rejectedAccessToken) {
+        final CompletableFuture<Result<OAuthToken, String>> future = new CompletableFuture<>();
+        while (!inFlight.compareAndSet(null, future)) {
+            final CompletableFuture<Result<OAuthToken, String>> existing = inFlight.get();
+            if (existing != null) {
+                return existing;
+            }
+        }
+        Result<OAuthToken, String> result = null;
+        try {
+            result = retrieve(rejectedAccessToken);
+        } finally {
+            if (result != null) {
+                future.complete(result);
+            } else {
+                // an Error escaped the retrieval, callers sharing it must not wait for it forever
+                future.completeExceptionally(new IllegalStateException("Unable to retrieve OAuth token"));
+            }
+            // only once the result is published, so a caller which arrives meanwhile shares it instead of
+            // starting another retrieval
+            inFlight.compareAndSet(future, null);
+        }
+        return future;
+    }
+
+    /**
+     * Retrieves a new access token from the token store or the OAuth API. Must only be called by the retrieval
+     * in flight.
+     *
+     * @param rejectedAccessToken Access token being replaced, or null to retrieve a new token regardless of the
+     *                            current token.
+     * @return The result of the retrieval.
+     */
+    private Result<OAuthToken, String> retrieve(final String rejectedAccessToken) {
+        // checked once this is the only retrieval in flight, so a replacement which just completed is seen
+        final CurrentToken token = current.get();
+        if (rejectedAccessToken != null && token != null
+            && !rejectedAccessToken.equals(token.token.getAccessToken())) {
+            return Ok.of(token.token);
+        }
+        final StoredOAuthToken stored = loadStored(rejectedAccessToken, token);
+        if (stored != null) {
+            accept(stored.getToken(),
+                (stored.getExpiresAt() == null) ? Long.MAX_VALUE : stored.getExpiresAt().toEpochMilli());
+            return Ok.of(stored.getToken());
+        }
+        Result<OAuthToken, String> result;
+        try {
+            result = oAuthAPI.getToken();
+        } catch (final RuntimeException e) {
+            log.error("Error retrieving Battle.net OAuth token", e);
+            result = Err.of("Unable to retrieve OAuth token: " + e.getMessage());
+        }
+        if (result.isOk()) {
+            final OAuthToken retrieved = result.unwrap();
+            final Long expiresIn = retrieved.getExpiresIn();
+            final long expiresAt = (expiresIn == null || expiresIn <= 0) ?
+                Long.MAX_VALUE : clock.millis() + Duration.ofSeconds(expiresIn).toMillis();
+            accept(retrieved, expiresAt);
+            saveStored(retrieved, expiresAt);
+        } else {
+            log.warn("Unable to retrieve Battle.net OAuth token: {}", result.unwrapErr());
+        }
+        return result;
+    }
+
+    /**
+     * Stops any scheduled refresh.
+     */
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    private void accept(final OAuthToken token, final long expiresAt) {
+        current.set(new CurrentToken(token, expiresAt));
+        if (expiresAt == Long.MAX_VALUE) {
+            return;
+        }
+        final Duration lifetime = Duration.ofMillis(Math.max(0, expiresAt - clock.millis()));
+        final Duration margin = (refreshMargin.compareTo(lifetime.dividedBy(2)) > 0) ?
+            lifetime.dividedBy(2) : refreshMargin;
+        scheduleRefresh(lifetime.minus(margin));
+    }
+
+    /**
+     * Loads a token saved to the store by another instance or process, if it can be used in place of retrieving
+     * a new token.
+     *
+     * @param rejectedAccessToken Access token being replaced, or null.
+     * @param token The current token, or null.
+     * @return The stored token, or null if there is none, or it is the current or rejected token, or it is due
+     *         for a refresh.
+     */
+    private StoredOAuthToken loadStored(final String rejectedAccessToken, final CurrentToken token) {
+        if (tokenStore == null) {
+            return null;
+        }
+        final StoredOAuthToken stored;
+        try {
+            stored = tokenStore.load();
+        } catch (final RuntimeException e) {
+            log.warn("Unable to load the stored Battle.net OAuth token", e);
+            return null;
+        }
+        if (stored == null || stored.getToken() == null || stored.getToken().getAccessToken() == null) {
+            return null;
+        }
+        final String accessToken = stored.getToken().getAccessToken();
+        if (accessToken.equals(rejectedAccessToken)
+            || (token != null && accessToken.equals(token.token.getAccessToken()))) {
+            return null;
+        }
+        final Instant expiresAt = stored.getExpiresAt();
+        return (expiresAt == null || expiresAt.isAfter(clock.instant().plus(refreshMargin))) ? stored : null;
+    }
+
+    private void saveStored(final OAuthToken token, final long expiresAt) {
+        if (tokenStore == null) {
+            return;
+        }
+        try {
+            tokenStore.save(new StoredOAuthToken(token,
+                (expiresAt == Long.MAX_VALUE) ? null : Instant.ofEpochMilli(expiresAt)));
+        } catch (final RuntimeException e) {
+            log.warn("Unable to store the Battle.net OAuth token", e);
+        }
+    }
+
+    private void scheduleRefresh(final Duration delay) {
+        try {
+            final ScheduledFuture<?> previous = scheduledRefresh.getAndSet(
+                scheduler.schedule(this::backgroundRefresh, delay.toMillis(), TimeUnit.MILLISECONDS));
+            if (previous != null) {
+                previous.cancel(false);
+            }
+        } catch (final RuntimeException e) {
+            log.debug("Not scheduling an OAuth token refresh, the token manager is closed");
+        }
+    }
+
+    private void backgroundRefresh() {
+        if (refresh().join().isErr()) {
+            final CurrentToken token = current.get();
+            final long remaining = (token == null) ? 0 : token.expiresAt - clock.millis();
+            // keep retrying while the current token is still valid; once it expires, requests retrieve a new one
+            if (remaining > 0) {
+                scheduleRefresh(Duration.ofMillis(Math.min(remaining, REFRESH_RETRY_DELAY.toMillis())));
+            }
+        }
+    }
+}
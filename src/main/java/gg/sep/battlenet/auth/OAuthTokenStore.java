@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2019 sep.gg <seputaes@sep.gg>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package gg.sep.battlenet.auth;
+
+/**
+ * Persists a client's OAuth access token, so that other {@link gg.sep.battlenet.BattleNet} instances and
+ * processes using the same client id can reuse it until it expires, rather than each retrieving their own.
+ *
+ * <p>A store holds a single token, so each client id (and region) needs its own store. Stores are an
+ * optimization: implementations should return null from {@link #load()} rather than throw if the token can't be
+ * read, and log rather than throw if it can't be saved.
+ */
+public interface OAuthTokenStore {
+
+    /**
+     * Returns the stored token.
+     * @return The stored token, or null if no token is stored or it could not be read.
+     */
+    StoredOAuthToken load();
+
+    /**
+     * Stores a token, replacing any token already stored.
+     * @param token The token to store.
+     */
+    void save(StoredOAuthToken token);
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2019 sep.gg <seputaes@sep.gg>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package gg.sep.battlenet.auth;
+
+import java.time.Instant;
+
+import lombok.Getter;
+
+import gg.sep.battlenet.auth.model.OAuthToken;
+
+/**
+ * An OAuth token kept in an {@link OAuthTokenStore}, with the time it expires. The token's own
+ * {@link OAuthToken#getExpiresIn()} is relative to when it was retrieved, so isn't meaningful once stored.
+ */
+@Getter
+public final class StoredOAuthToken {
+    private final OAuthToken token;
+    private final Instant expiresAt;
+
+    /**
+     * Create a new stored token.
+     *
+     * @param token The token.
+     * @param expiresAt When the token expires, or null if it doesn't expire.
+     */
+    public StoredOAuthToken(final OAuthToken token, final Instant expiresAt) {
+        this.token = token;
+        this.expiresAt = expiresAt;
+    }
+}
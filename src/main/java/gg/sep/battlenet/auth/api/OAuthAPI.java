@@ -37,6 +37,7 @@ import gg.sep.battlenet.BattleNet;
 import gg.sep.battlenet.api.BattleNetAPI;
 import gg.sep.battlenet.auth.endpoint.OAuthEndpoint;
 import gg.sep.battlenet.auth.model.OAuthToken;
+import gg.sep.battlenet.ratelimit.RequestPriority;
 import gg.sep.result.Result;
 
 /**
@@ -46,6 +47,9 @@ import gg.sep.result.Result;
  * <p>API Reference: https://develop.battle.net/documentation/api-reference/oauth-api
  *
  * Handles the retrieval of application access tokens and other other OAuth related requests.
+ *
+ * <p>Every other request waits for the token, so token requests always wait for rate limit permits with
+ * {@link RequestPriority#INTERACTIVE} priority, regardless of {@link #withPriority(RequestPriority)}.
  */
 @Log4j2
 public final class OAuthAPI extends BattleNetAPI {
@@ -77,16 +81,17 @@ public final class OAuthAPI extends BattleNetAPI {
         // the order of these initializing is important
         this.baseUrl = (baseUrl == null) ?
             HttpUrl.get(String.format(BATTLE_NET_OAUTH_BASE_URL_F, battleNet.getRegion().getRegionUrlValue())) : baseUrl;
-        this.retrofit = initOAuthRetrofit(this.baseUrl, battleNet.getJsonParser());
+        this.retrofit = initOAuthRetrofit(this.baseUrl, battleNet.getJsonParser(), battleNet.getHttpClient());
         this.oAuthEndpoint = this.retrofit.create(OAuthEndpoint.class);
 
     }
 
-    private Retrofit initOAuthRetrofit(final HttpUrl oAuthBaseUrl, final Gson jsonParser) {
-        final OkHttpClient.Builder httpClientBuilder = new OkHttpClient.Builder();
+    private Retrofit initOAuthRetrofit(final HttpUrl oAuthBaseUrl, final Gson jsonParser,
+                                       final OkHttpClient httpClient) {
+        // share the Battle.net client's connection pool and dispatcher, but none of its API interceptors
         return new Retrofit.Builder()
             .addConverterFactory(GsonConverterFactory.create(jsonParser))
-            .client(httpClientBuilder.build())
+            .client(httpClient)
             .baseUrl(oAuthBaseUrl)
             .build();
     }
@@ -99,6 +104,6 @@ public final class OAuthAPI extends BattleNetAPI {
      */
     public Result<OAuthToken, String> getToken() {
         final Call<OAuthToken> call = oAuthEndpoint.getAccessToken(baseUrl + TOKEN_POST_PATH, basicAuthCredentials);
-        return executeCall(call);
+        return getBattleNet().getProxy().getResponse(call, RequestPriority.INTERACTIVE);
     }
 }
@@ -26,6 +26,7 @@ import java.time.Duration;
 import java.util.Map;
 import java.util.concurrent.Callable;
 
+import gg.sep.battlenet.BattleNet;
 import gg.sep.battlenet.model.BattleNetEntity;
 
 /**
@@ -47,6 +48,31 @@ public interface BattleNetEntityCache {
      */
     String getKeyPrefix();
 
+    /**
+     * Called by the {@link BattleNet} client which the cache was given to, once the client's JSON parser
+     * has been created and before the cache is used.
+     *
+     * <p>Caches which serialize entities should use the client's {@link BattleNet#getJsonParser()}, which
+     * has the type adapters needed to serialize and parse every entity, and sets the client on the entities
+     * it parses. The default implementation does nothing.
+     *
+     * @param battleNet The Battle.net client using the cache.
+     */
+    default void bind(final BattleNet battleNet) {
+    }
+
+    /**
+     * Returns the statistics recorded by the cache: hits, misses and load latency for each entity class,
+     * evictions by cause, and the cache's size.
+     *
+     * <p>The default implementation returns null, for caches which don't record statistics.
+     *
+     * @return The cache's statistics, or null if the cache doesn't record statistics.
+     */
+    default CacheStatistics getStatistics() {
+        return null;
+    }
+
     /**
      * Sets the TTL for entities of a {@link BattleNetEntity} subclass, which will be used
      * for all future cache inserts.
@@ -126,12 +152,42 @@ public interface BattleNetEntityCache {
      *                 or has expired in order to produce a fresh version of the entity.
      *                 The retrieved value will be cached via {@link #set(String, BattleNetEntity)}
      *                 and returned.
+     * <p>The default implementation reads the entity with {@link #get(String, Class)}, and records the time
+     * taken by {@code retrieve} in the cache's {@link #getStatistics()}, if any. Concurrent callers for the same
+     * missing key may each call {@code retrieve}. If {@code retrieve} returns null, nothing is cached and null is
+     * returned. If it throws, nothing is cached and the exception is rethrown, wrapped in an
+     * {@link IllegalStateException} if it is a checked exception.
+     *
      * @param <T> The type of {@code entityType}.
      * @return The cached non-expired {@link BattleNetEntity} (if available) for the
      *         specified {@code key}, or the return value of {@code retrieve} if none
      *         is available from the cache.
      */
-    <T extends BattleNetEntity> T getOrElse(String key, Class<T> entityType, Callable<T> retrieve);
+    default <T extends BattleNetEntity> T getOrElse(final String key, final Class<T> entityType,
+                                                    final Callable<T> retrieve) {
+        final T cached = get(key, entityType);
+        if (cached != null) {
+            return cached;
+        }
+        final CacheStatistics statistics = getStatistics();
+        final long start = System.nanoTime();
+        T retrieved = null;
+        try {
+            retrieved = retrieve.call();
+        } catch (final RuntimeException e) {
+            throw e;
+        } catch (final Exception e) {
+            throw new IllegalStateException("Unable to retrieve entity for key " + key, e);
+        } finally {
+            if (statistics != null) {
+                statistics.recordLoad(entityType, System.nanoTime() - start, retrieved != null);
+            }
+        }
+        if (retrieved != null) {
+            set(key, retrieved);
+        }
+        return retrieved;
+    }
 
     /**
      * Inserts or updates an item in the cache.
@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2019 sep.gg <seputaes@sep.gg>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package gg.sep.battlenet.cache;
+
+import java.time.Duration;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * How a Battle.net client reuses the responses it has already received: the cache it reads through, how cached
+ * entities are refreshed and invalidated, and whether identical or unchanged requests are answered without
+ * downloading their response again.
+ */
+@Getter
+public final class CacheConfig {
+    private static final Duration DEFAULT_NEGATIVE_CACHE_TTL = Duration.ofMinutes(5);
+    private static final Duration DEFAULT_NAMESPACE_PROBE_INTERVAL = Duration.ofMinutes(10);
+
+    private final BattleNetEntityCache cache;
+    private final RefreshPolicy refreshPolicy;
+    private final Duration negativeCacheTTL;
+    private final Duration namespaceProbeInterval;
+    private final boolean cacheWarming;
+    private final boolean coalesceRequests;
+    private final boolean conditionalRequests;
+
+    /**
+     * Creates a new cache configuration. Any setting which is null uses its default.
+     *
+     * @param cache Cache to read API responses through. If set, {@code GET} requests are answered from the cache
+     *              when possible, and successful responses are written to it with the TTL of their entity class.
+     *              Defaults to no caching. See {@link InMemoryEntityCache}.
+     * @param refreshPolicy Policy for serving cached entities while they are stale or about to expire, and refreshing
+     *                      them in the background. Only used with a {@code cache}. Defaults to no background refresh.
+     * @param negativeCacheTTL How long URLs which returned {@code 404 Not Found} are remembered, during which
+     *                         requests for them fail without being sent. Defaults to 5 minutes. Zero disables it,
+     *                         but known unavailable APIs are still failed without a request.
+     * @param namespaceProbeInterval How often the revision of each static namespace is checked while static
+     *                               entities are cached, so that entities cached from an old game build stop being
+     *                               read once a new build ships. Defaults to 10 minutes. Zero disables the check.
+     * @param cacheWarming Whether the full items of every WoW index which is retrieved should be fetched into the
+     *                     {@code cache} in the background. Only used with a {@code cache}. Defaults to {@code false}.
+     * @param coalesceRequests Whether concurrent identical GET requests should share a single HTTP call and result.
+     *                         Defaults to {@code true}.
+     * @param conditionalRequests Whether {@code ETag}/{@code Last-Modified} validators should be remembered and
+     *                            sent on later requests, so unchanged resources aren't downloaded and parsed
+     *                            again. With a {@code cache}, only the validators are remembered and unchanged
+     *                            entities are read from the cache; without one, the parsed entities are kept
+     *                            alongside their validators. Defaults to {@code false}.
+     */
+    @Builder
+    private CacheConfig(final BattleNetEntityCache cache, final RefreshPolicy refreshPolicy,
+                        final Duration negativeCacheTTL, final Duration namespaceProbeInterval,
+                        final Boolean cacheWarming, final Boolean coalesceRequests,
+                        final Boolean conditionalRequests) {
+        this.cache = cache;
+        this.refreshPolicy = refreshPolicy;
+        this.negativeCacheTTL = (negativeCacheTTL == null) ? DEFAULT_NEGATIVE_CACHE_TTL : negativeCacheTTL;
+        this.namespaceProbeInterval = (namespaceProbeInterval == null) ?
+            DEFAULT_NAMESPACE_PROBE_INTERVAL : namespaceProbeInterval;
+        this.cacheWarming = Boolean.TRUE.equals(cacheWarming);
+        this.coalesceRequests = !Boolean.FALSE.equals(coalesceRequests);
+        this.conditionalRequests = Boolean.TRUE.equals(conditionalRequests);
+    }
+
+    /**
+     * Returns the default cache configuration, which doesn't cache entities.
+     * @return The default cache configuration.
+     */
+    public static CacheConfig defaults() {
+        return builder().build();
+    }
+}
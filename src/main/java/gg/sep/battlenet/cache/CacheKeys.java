@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2019 sep.gg <seputaes@sep.gg>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package gg.sep.battlenet.cache;
+
+import lombok.experimental.UtilityClass;
+import okhttp3.HttpUrl;
+
+import gg.sep.battlenet.model.BattleNetRegion;
+
+/**
+ * Utility class for building the keys under which API responses are stored in a {@link BattleNetEntityCache}.
+ */
+@UtilityClass
+public class CacheKeys {
+    /**
+     * Builds the cache key for a request, in the format {@code {region}:{path}?{query}}.
+     * Eg, {@code us:/data/wow/mount/6?namespace=static-us&locale=en_US}.
+     *
+     * <p>The URL should be the canonical URL of the request (see
+     * {@link gg.sep.battlenet.interceptor.BattleNetInterceptor#canonicalUrl(HttpUrl)}), so that the key includes
+     * the namespace and locale of the request, but not the access token. The host is left out so that keys
+     * don't change if the client's base URL is overridden.
+     *
+     * @param region Region the request is sent to.
+     * @param canonicalUrl Canonical URL of the request.
+     * @return The cache key for the request.
+     */
+    public static String of(final BattleNetRegion region, final HttpUrl canonicalUrl) {
+        final String query = canonicalUrl.encodedQuery();
+        return region.getRegionUrlValue() + ":" + canonicalUrl.encodedPath() + ((query == null) ? "" : "?" + query);
+    }
+
+    /**
+     * Builds the cache key for a request to a static namespace, tied to the namespace revision which served it,
+     * in the format {@code {region}:{revision}:{path}?{query}}.
+     * Eg, {@code us:static-9.0.2_36165-us:/data/wow/mount/6?namespace=static-us&locale=en_US}.
+     *
+     * <p>When a new game build changes the revision, keys built with the old revision are no longer read,
+     * so the entities cached from the old build are invalidated at once. See {@link NamespaceRevisions}.
+     *
+     * @param region Region the request is sent to.
+     * @param canonicalUrl Canonical URL of the request.
+     * @param revision Revision of the request's namespace.
+     * @return The cache key for the request.
+     */
+    public static String of(final BattleNetRegion region, final HttpUrl canonicalUrl, final String revision) {
+        final String query = canonicalUrl.encodedQuery();
+        return region.getRegionUrlValue() + ":" + revision + ":" + canonicalUrl.encodedPath() +
+            ((query == null) ? "" : "?" + query);
+    }
+}
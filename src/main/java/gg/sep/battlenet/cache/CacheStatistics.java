@@ -0,0 +1,206 @@
+/*
+ * Copyright (c) 2019 sep.gg <seputaes@sep.gg>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package gg.sep.battlenet.cache;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import gg.sep.battlenet.model.BattleNetEntity;
+
+/**
+ * Live statistics of a {@link BattleNetEntityCache}: hits, misses and load latency for each entity class, evictions
+ * by cause, and the size of the cache.
+ *
+ * <p>Counters are striped {@link LongAdder}s, so recording is cheap enough for the read path, even when many
+ * threads read the same entity class at once. The counters are never reset; use {@link #snapshot()} to export them,
+ * and {@link CacheStatsSnapshot#since(CacheStatsSnapshot)} or a {@link CacheStatsReporter} to get the activity of
+ * each period.
+ */
+public final class CacheStatistics {
+    /**
+     * Why the cache evicted an entry. Entries which are deleted, flushed or overwritten by their callers are not
+     * evictions, and aren't counted.
+     */
+    public enum EvictionCause {
+        /**
+         * The entry's TTL expired.
+         */
+        EXPIRED,
+        /**
+         * The entry was evicted to keep the cache within its size budget.
+         */
+        SIZE
+    }
+
+    private final ConcurrentMap<Class<? extends BattleNetEntity>, EntityCounters> entities = new ConcurrentHashMap<>();
+    private final Map<EvictionCause, LongAdder> evictions = new EnumMap<>(EvictionCause.class);
+    private final LongSupplier entries;
+    private final LongSupplier bytes;
+    private final Clock clock;
+    private final Instant createdAt;
+
+    /**
+     * Counters of a single entity class.
+     */
+    private static final class EntityCounters {
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+        private final LongAdder loadSuccesses = new LongAdder();
+        private final LongAdder loadFailures = new LongAdder();
+        private final LongAdder loadNanos = new LongAdder();
+
+        private CacheStatsSnapshot.EntityStats snapshot() {
+            return new CacheStatsSnapshot.EntityStats(hits.sum(), misses.sum(), loadSuccesses.sum(),
+                loadFailures.sum(), Duration.ofNanos(loadNanos.sum()));
+        }
+    }
+
+    /**
+     * Create new statistics for a cache.
+     *
+     * @param entries Returns the number of entries currently in the cache.
+     * @param bytes Returns the number of bytes used by the cache's entries, or {@code -1} if it isn't known.
+     */
+    public CacheStatistics(final LongSupplier entries, final LongSupplier bytes) {
+        this(entries, bytes, Clock.systemUTC());
+    }
+
+    /**
+     * Create new statistics for a cache.
+     *
+     * @param entries Returns the number of entries currently in the cache.
+     * @param bytes Returns the number of bytes used by the cache's entries, or {@code -1} if it isn't known.
+     * @param clock Time source for the times of snapshots.
+     */
+    public CacheStatistics(final LongSupplier entries, final LongSupplier bytes, final Clock clock) {
+        this.entries = entries;
+        this.bytes = bytes;
+        this.clock = clock;
+        this.createdAt = clock.instant();
+        for (final EvictionCause cause : EvictionCause.values()) {
+            evictions.put(cause, new LongAdder());
+        }
+    }
+
+    /**
+     * Records a read which was answered by the cache.
+     * @param entityClass Class of the entity which was read.
+     */
+    public void recordHit(final Class<? extends BattleNetEntity> entityClass) {
+        counters(entityClass).hits.increment();
+    }
+
+    /**
+     * Records a read which wasn't answered by the cache.
+     * @param entityClass Class of the entity which was read.
+     */
+    public void recordMiss(final Class<? extends BattleNetEntity> entityClass) {
+        counters(entityClass).misses.increment();
+    }
+
+    /**
+     * Records the retrieval of an entity after a miss.
+     *
+     * @param entityClass Class of the entity which was retrieved.
+     * @param nanos How long the retrieval took, in nanoseconds.
+     * @param success Whether the entity was retrieved.
+     */
+    public void recordLoad(final Class<? extends BattleNetEntity> entityClass, final long nanos,
+                           final boolean success) {
+        final EntityCounters counters = counters(entityClass);
+        (success ? counters.loadSuccesses : counters.loadFailures).increment();
+        counters.loadNanos.add(nanos);
+    }
+
+    /**
+     * Records an entry being evicted from the cache.
+     * @param cause Why the entry was evicted.
+     */
+    public void recordEviction(final EvictionCause cause) {
+        evictions.get(cause).increment();
+    }
+
+    /**
+     * Records entries being evicted from the cache.
+     *
+     * @param cause Why the entries were evicted.
+     * @param count Number of entries.
+     */
+    public void recordEvictions(final EvictionCause cause, final long count) {
+        evictions.get(cause).add(count);
+    }
+
+    /**
+     * Returns the total number of reads answered by the cache.
+     * @return The total number of reads answered by the cache.
+     */
+    public long getHitCount() {
+        return entities.values().stream().mapToLong(counters -> counters.hits.sum()).sum();
+    }
+
+    /**
+     * Returns the total number of reads which weren't answered by the cache.
+     * @return The total number of reads which weren't answered by the cache.
+     */
+    public long getMissCount() {
+        return entities.values().stream().mapToLong(counters -> counters.misses.sum()).sum();
+    }
+
+    /**
+     * Returns the number of entries which left the cache for the specified reason.
+     *
+     * @param cause Why the entries left the cache.
+     * @return The number of entries which left the cache for {@code cause}.
+     */
+    public long getEvictionCount(final EvictionCause cause) {
+        return evictions.get(cause).sum();
+    }
+
+    /**
+     * Returns a snapshot of every counter, covering the time since the statistics were created.
+     * @return A snapshot of every counter.
+     */
+    public CacheStatsSnapshot snapshot() {
+        final Map<Class<? extends BattleNetEntity>, CacheStatsSnapshot.EntityStats> entityStats = new HashMap<>();
+        entities.forEach((entityClass, counters) -> entityStats.put(entityClass, counters.snapshot()));
+        final Map<EvictionCause, Long> evictionCounts = new EnumMap<>(EvictionCause.class);
+        evictions.forEach((cause, count) -> evictionCounts.put(cause, count.sum()));
+        final Instant now = clock.instant();
+        return new CacheStatsSnapshot(now, Duration.between(createdAt, now), entityStats, evictionCounts,
+            entries.getAsLong(), bytes.getAsLong());
+    }
+
+    private EntityCounters counters(final Class<? extends BattleNetEntity> entityClass) {
+        // get first, since computeIfAbsent locks even when the key is present
+        final EntityCounters counters = entities.get(entityClass);
+        return (counters == null) ? entities.computeIfAbsent(entityClass, c -> new EntityCounters()) : counters;
+    }
+}
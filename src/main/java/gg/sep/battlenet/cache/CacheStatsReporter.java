@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2019 sep.gg <seputaes@sep.gg>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package gg.sep.battlenet.cache;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * Periodically exports a cache's {@link CacheStatistics}, as the activity since the previous export.
+ *
+ * <p>Each period's {@link CacheStatsSnapshot} is passed to a consumer, which would typically publish it to a
+ * metrics system. If no consumer is set, snapshots are logged.
+ */
+@Log4j2
+public final class CacheStatsReporter implements Closeable {
+    private static final Duration DEFAULT_INTERVAL = Duration.ofMinutes(1);
+
+    private final CacheStatistics statistics;
+    private final Consumer<CacheStatsSnapshot> consumer;
+    private final ScheduledExecutorService scheduler;
+    private CacheStatsSnapshot previous;
+
+    /**
+     * Create and start a new reporter.
+     *
+     * @param statistics Statistics which are reported.
+     * @param interval Time between reports. Defaults to 1 minute.
+     * @param consumer Receives the statistics of each period. Defaults to logging them.
+     */
+    @Builder
+    private CacheStatsReporter(@NonNull final CacheStatistics statistics, final Duration interval,
+                               final Consumer<CacheStatsSnapshot> consumer) {
+        final Duration reportInterval = (interval == null) ? DEFAULT_INTERVAL : interval;
+        if (reportInterval.isNegative() || reportInterval.isZero()) {
+            throw new IllegalArgumentException("interval must be positive");
+        }
+        this.statistics = statistics;
+        this.consumer = (consumer == null) ? snapshot -> log.info("Cache statistics: {}", snapshot) : consumer;
+        this.previous = statistics.snapshot();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+            .setDaemon(true)
+            .setNameFormat("battlenet-cache-stats-%d")
+            .build());
+        final long millis = reportInterval.toMillis();
+        scheduler.scheduleAtFixedRate(this::report, millis, millis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Reports the statistics since the previous report immediately.
+     */
+    public synchronized void report() {
+        final CacheStatsSnapshot current = statistics.snapshot();
+        final CacheStatsSnapshot period = current.since(previous);
+        previous = current;
+        try {
+            consumer.accept(period);
+        } catch (final RuntimeException e) {
+            log.warn("Failed to report cache statistics", e);
+        }
+    }
+
+    /**
+     * Stops reporting.
+     */
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) 2019 sep.gg <seputaes@sep.gg>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package gg.sep.battlenet.cache;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import gg.sep.battlenet.model.BattleNetEntity;
+
+/**
+ * Point-in-time export of a cache's {@link CacheStatistics}.
+ *
+ * <p>A snapshot taken by {@link CacheStatistics#snapshot()} covers the whole life of the cache. The difference
+ * between two snapshots, from {@link #since(CacheStatsSnapshot)}, covers the period between them, which is what
+ * should be exported periodically to metrics systems.
+ */
+@Getter
+@ToString
+public final class CacheStatsSnapshot {
+    private final Instant takenAt;
+    private final Duration period;
+    private final Map<Class<? extends BattleNetEntity>, EntityStats> entities;
+    private final Map<CacheStatistics.EvictionCause, Long> evictions;
+    private final long entries;
+    private final long bytes;
+
+    /**
+     * Statistics of a single entity class.
+     */
+    @Getter
+    @ToString
+    @AllArgsConstructor(access = AccessLevel.PACKAGE)
+    public static final class EntityStats {
+        private final long hits;
+        private final long misses;
+        private final long loadSuccesses;
+        private final long loadFailures;
+        private final Duration totalLoadTime;
+
+        /**
+         * Returns the fraction of reads which were answered by the cache.
+         * @return The fraction of reads which were answered by the cache, or 1 if there were no reads.
+         */
+        public double getHitRate() {
+            return hitRate(hits, misses);
+        }
+
+        /**
+         * Returns the average time taken to retrieve an entity after a miss.
+         * @return The average time taken to retrieve an entity, or zero if there were no retrievals.
+         */
+        public Duration getAverageLoadTime() {
+            final long loads = loadSuccesses + loadFailures;
+            return (loads == 0) ? Duration.ZERO : totalLoadTime.dividedBy(loads);
+        }
+
+        private EntityStats minus(final EntityStats earlier) {
+            return new EntityStats(hits - earlier.hits, misses - earlier.misses,
+                loadSuccesses - earlier.loadSuccesses, loadFailures - earlier.loadFailures,
+                totalLoadTime.minus(earlier.totalLoadTime));
+        }
+    }
+
+    CacheStatsSnapshot(final Instant takenAt, final Duration period,
+                       final Map<Class<? extends BattleNetEntity>, EntityStats> entities,
+                       final Map<CacheStatistics.EvictionCause, Long> evictions, final long entries,
+                       final long bytes) {
+        this.takenAt = takenAt;
+        this.period = period;
+        this.entities = Collections.unmodifiableMap(entities);
+        this.evictions = Collections.unmodifiableMap(evictions);
+        this.entries = entries;
+        this.bytes = bytes;
+    }
+
+    /**
+     * Returns the total number of reads answered by the cache.
+     * @return The total number of reads answered by the cache.
+     */
+    public long getHitCount() {
+        return entities.values().stream().mapToLong(EntityStats::getHits).sum();
+    }
+
+    /**
+     * Returns the total number of reads which weren't answered by the cache.
+     * @return The total number of reads which weren't answered by the cache.
+     */
+    public long getMissCount() {
+        return entities.values().stream().mapToLong(EntityStats::getMisses).sum();
+    }
+
+    /**
+     * Returns the fraction of all reads which were answered by the cache.
+     * @return The fraction of all reads which were answered by the cache, or 1 if there were no reads.
+     */
+    public double getHitRate() {
+        return hitRate(getHitCount(), getMissCount());
+    }
+
+    /**
+     * Returns the average time taken to retrieve an entity after a miss, across all entity classes.
+     * @return The average time taken to retrieve an entity, or zero if there were no retrievals.
+     */
+    public Duration getAverageLoadTime() {
+        final long loads = entities.values().stream()
+            .mapToLong(stats -> stats.getLoadSuccesses() + stats.getLoadFailures()).sum();
+        if (loads == 0) {
+            return Duration.ZERO;
+        }
+        return entities.values().stream().map(EntityStats::getTotalLoadTime)
+            .reduce(Duration.ZERO, Duration::plus).dividedBy(loads);
+    }
+
+    /**
+     * Returns the number of entries which left the cache for the specified reason.
+     *
+     * @param cause Why the entries left the cache.
+     * @return The number of entries which left the cache for {@code cause}.
+     */
+    public long getEvictionCount(final CacheStatistics.EvictionCause cause) {
+        return evictions.getOrDefault(cause, 0L);
+    }
+
+    /**
+     * Returns the rate at which entries expired during the snapshot's period.
+     * @return The number of entries which expired per second, or 0 if the period is empty.
+     */
+    public double getExpiryRate() {
+        final double seconds = period.toMillis() / 1000.0;
+        return (seconds <= 0) ? 0 : getEvictionCount(CacheStatistics.EvictionCause.EXPIRED) / seconds;
+    }
+
+    /**
+     * Returns the activity between an earlier snapshot and this one. The number of entries and bytes are the
+     * values at the time this snapshot was taken.
+     *
+     * @param earlier A snapshot of the same statistics, taken before this one.
+     * @return The statistics for the period between the two snapshots.
+     */
+    public CacheStatsSnapshot since(final CacheStatsSnapshot earlier) {
+        final Map<Class<? extends BattleNetEntity>, EntityStats> entityStats = new HashMap<>();
+        entities.forEach((entityClass, stats) -> {
+            final EntityStats before = earlier.entities.get(entityClass);
+            entityStats.put(entityClass, (before == null) ? stats : stats.minus(before));
+        });
+        final Map<CacheStatistics.EvictionCause, Long> evictionCounts =
+            new EnumMap<>(CacheStatistics.EvictionCause.class);
+        evictions.forEach((cause, count) -> evictionCounts.put(cause, count - earlier.getEvictionCount(cause)));
+        return new CacheStatsSnapshot(takenAt, Duration.between(earlier.takenAt, takenAt), entityStats,
+            evictionCounts, entries, bytes);
+    }
+
+    private static double hitRate(final long hits, final long misses) {
+        final long reads = hits + misses;
+        return (reads == 0) ? 1 : (double) hits / reads;
+    }
+}
@@ -0,0 +1,835 @@
+/*
+ * Copyright (c) 2019 sep.gg <seputaes@sep.gg>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package gg.sep.battlenet.cache;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.extern.log4j.Log4j2;
+
+import gg.sep.battlenet.BattleNet;
+import gg.sep.battlenet.model.BattleNetEntity;
+
+/**
+ * Persistent implementation of {@link BattleNetEntityCache}, which stores entities as JSON in append-only
+ * segment files on the local disk, so they survive restarts of the process.
+ *
+ * <ul>
+ *     <li>Each segment file is memory-mapped in its entirety. Writes append a record to the newest segment,
+ *         rolling over to a new segment once it is full, and reads copy the record straight out of the mapped
+ *         file, without a system call.</li>
+ *     <li>An in-memory hash index maps every key to the location of its newest record. The index is rebuilt by
+ *         scanning the segments when the cache is opened. Records carry a checksum, so a record which was only
+ *         partially written when the process died is discarded.</li>
+ *     <li>Each record stores the time at which it expires. Expiry times are updated in place, so
+ *         {@link #updateTTL(Duration, String...)} and {@link #del(String...)} (which expires the record
+ *         immediately) don't append anything.</li>
+ *     <li>Overwritten, deleted and expired records are garbage. Once the garbage in the older segments exceeds the
+ *         compaction threshold, a background thread copies the records which are still live to the newest segment
+ *         and deletes the older segments. Records are copied in small batches, so writers only wait for the batch
+ *         in progress. Compaction can also be run with {@link #compact()}.</li>
+ * </ul>
+ *
+ * <p>Entities are serialized and parsed with the {@link BattleNet#getJsonParser()} of the client the cache is given
+ * to, so parsed entities have the client set on them. Entities can't be read or written until the cache has been
+ * bound to a client with {@link #bind(BattleNet)}, which the client does itself.
+ *
+ * <p>Only one cache instance, in one process, may use a directory at a time. This is enforced with a file lock.
+ * The cache should be {@link #close() closed} when it is no longer needed.
+ */
+@Log4j2
+public final class DiskEntityCache implements BattleNetEntityCache, Closeable {
+    private static final String DEFAULT_KEY_PREFIX = "battlenet:";
+    private static final Duration DEFAULT_TTL = Duration.ofDays(1);
+    private static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+    private static final double DEFAULT_COMPACTION_THRESHOLD = 0.5;
+    private static final String LOCK_FILE = "cache.lock";
+    private static final String SEGMENT_FILE_F = "segment-%016d.dat";
+    private static final Pattern SEGMENT_FILE_PATTERN = Pattern.compile("segment-(\\d{16})\\.dat");
+
+    // record layout: length, checksum, expiresAt, key length, key, type length, type, value
+    // the checksum covers everything from the key length onwards, so expiry times can be updated in place
+    private static final int LENGTH_OFFSET = 0;
+    private static final int CHECKSUM_OFFSET = 4;
+    private static final int EXPIRES_AT_OFFSET = 8;
+    private static final int HEADER_SIZE = 16;
+    private static final int MIN_RECORD_SIZE = HEADER_SIZE + 2 * Short.BYTES;
+    private static final int COMPACTION_BATCH_SIZE = 256;
+
+    @Getter
+    private final String keyPrefix;
+    @Getter
+    private final Duration defaultTTL;
+    @Getter
+    private final Path directory;
+    private final int segmentSize;
+    private final double compactionThreshold;
+    private final Clock clock;
+    private final ConcurrentMap<Class<? extends BattleNetEntity>, Duration> entityTTLs = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Location> index = new ConcurrentHashMap<>();
+    private final Object writeLock = new Object();
+    private final List<DiskSegment> segments = new ArrayList<>();
+    @Getter
+    private final CacheStatistics statistics = new CacheStatistics(index::size, this::liveBytes);
+    private final FileChannel lockChannel;
+    private final FileLock directoryLock;
+    private final ExecutorService compactor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+        .setDaemon(true)
+        .setNameFormat("battlenet-disk-cache-compactor-%d")
+        .build());
+    private volatile Gson jsonParser;
+    private volatile boolean closed;
+    private boolean compacting;
+
+    /**
+     * The location of the newest record of a key.
+     */
+    private static final class Location {
+        private final DiskSegment segment;
+        private final int offset;
+        private final int length;
+        private final long expiresAt;
+
+        private Location(final DiskSegment segment, final int offset, final int length, final long expiresAt) {
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * Opens a disk cache in the specified directory, creating the directory if it doesn't exist, and loads the
+     * index of any entities already stored there. Any setting other than {@code directory} which is null uses
+     * its default.
+     *
+     * @param directory Directory in which the segment files are stored.
+     * @param keyPrefix Prefix prepended to every key. Defaults to {@code "battlenet:"}.
+     * @param defaultTTL TTL of entities whose class has no TTL set. Defaults to 1 day.
+     * @param segmentSize Size of each segment file in bytes, which is also the size limit of a single entity.
+     *                    Defaults to 64MiB.
+     * @param compactionThreshold Fraction of the older segments' bytes which must be garbage before they are
+     *                            compacted automatically. Defaults to 0.5.
+     * @param clock Time source used for expiry. Defaults to the system clock.
+     * @throws UncheckedIOException If the directory or segment files could not be opened.
+     * @throws IllegalStateException If the directory is already in use by another cache.
+     */
+    @Builder
+    private DiskEntityCache(final Path directory, final String keyPrefix, final Duration defaultTTL,
+                            final Integer segmentSize, final Double compactionThreshold, final Clock clock) {
+        if (directory == null) {
+            throw new IllegalArgumentException("directory must not be null");
+        }
+        this.directory = directory;
+        this.keyPrefix = (keyPrefix == null) ? DEFAULT_KEY_PREFIX : keyPrefix;
+        this.defaultTTL = (defaultTTL == null) ? DEFAULT_TTL : defaultTTL;
+        this.segmentSize = (segmentSize == null) ? DEFAULT_SEGMENT_SIZE : segmentSize;
+        this.compactionThreshold = (compactionThreshold == null) ? DEFAULT_COMPACTION_THRESHOLD : compactionThreshold;
+        this.clock = (clock == null) ? Clock.systemUTC() : clock;
+        if (this.segmentSize < MIN_RECORD_SIZE) {
+            throw new IllegalArgumentException("segmentSize is too small to hold a record");
+        }
+
+        try {
+            Files.createDirectories(directory);
+            this.lockChannel = FileChannel.open(directory.resolve(LOCK_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Unable to open cache directory " + directory, e);
+        }
+        this.directoryLock = lockDirectory(lockChannel, directory);
+        try {
+            synchronized (writeLock) {
+                load();
+            }
+        } catch (final IOException e) {
+            closeQuietly();
+            compactor.shutdown();
+            throw new UncheckedIOException("Unable to load cache segments from " + directory, e);
+        } catch (final RuntimeException e) {
+            closeQuietly();
+            compactor.shutdown();
+            throw e;
+        }
+    }
+
+    /**
+     * Takes an exclusive lock on the cache directory, closing the lock file's channel if the lock can't be taken.
+     *
+     * @param lockChannel Channel of the directory's lock file.
+     * @param directory The cache directory.
+     * @return The lock.
+     */
+    private static FileLock lockDirectory(final FileChannel lockChannel, final Path directory) {
+        FileLock lock = null;
+        try {
+            lock = lockChannel.tryLock();
+        } catch (final OverlappingFileLockException e) {
+            // locked by another cache in this JVM
+        } catch (final IOException e) {
+            closeChannel(lockChannel);
+            throw new UncheckedIOException("Unable to lock cache directory " + directory, e);
+        }
+        if (lock == null) {
+            closeChannel(lockChannel);
+            throw new IllegalStateException("Cache directory is already in use: " + directory);
+        }
+        return lock;
+    }
+
+    private static void closeChannel(final FileChannel channel) {
+        try {
+            channel.close();
+        } catch (final IOException e) {
+            log.warn("Unable to close cache lock file", e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>Uses the client's JSON parser to serialize and parse entities.
+     */
+    @Override
+    public void bind(final BattleNet battleNet) {
+        this.jsonParser = battleNet.getJsonParser();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Duration setEntityTTL(final Class<? extends BattleNetEntity> entityClass, final Duration ttl) {
+        return entityTTLs.put(entityClass, ttl);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Duration getEntityTTL(final Class<? extends BattleNetEntity> entityClass) {
+        final Duration ttl = entityTTLs.get(entityClass);
+        return (ttl == null) ? defaultTTL : ttl;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Duration getTTL(final String key) {
+        final Location location = index.get(prefixed(key));
+        if (location == null) {
+            return Duration.ZERO;
+        }
+        final long remaining = location.expiresAt - clock.millis();
+        return (remaining > 0) ? Duration.ofMillis(remaining) : Duration.ZERO;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>Returns null if the entity stored under the key is not of class {@code entityType}.
+     */
+    @Override
+    public <T extends BattleNetEntity> T get(final String key, final Class<T> entityType) {
+        final Gson gson = jsonParser;
+        final String prefixedKey = prefixed(key);
+        final Location location = index.get(prefixedKey);
+        if (gson == null || location == null || closed) {
+            statistics.recordMiss(entityType);
+            return null;
+        }
+        if (location.expiresAt <= clock.millis()) {
+            if (index.remove(prefixedKey, location)) {
+                location.segment.release(location.length);
+                statistics.recordEviction(CacheStatistics.EvictionCause.EXPIRED);
+            }
+            statistics.recordMiss(entityType);
+            return null;
+        }
+
+        final ByteBuffer record = ByteBuffer.wrap(location.segment.read(location.offset, location.length));
+        record.position(HEADER_SIZE);
+        skipString(record);
+        if (!entityType.getName().equals(readString(record))) {
+            statistics.recordMiss(entityType);
+            return null;
+        }
+        final String json = new String(record.array(), record.position(), record.remaining(), StandardCharsets.UTF_8);
+        try {
+            final T entity = gson.fromJson(json, entityType);
+            statistics.recordHit(entityType);
+            return entity;
+        } catch (final JsonParseException e) {
+            log.error("Unable to parse cached Battle.net entity. key={}", prefixedKey, e);
+            statistics.recordMiss(entityType);
+            return null;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>Returns {@code false} if the cache hasn't been bound to a client yet, the entity is larger than a segment,
+     * or the segment files could not be written.
+     */
+    @Override
+    public boolean set(final String key, final BattleNetEntity value) {
+        final Gson gson = jsonParser;
+        if (value == null) {
+            del(key);
+            return false;
+        }
+        if (gson == null) {
+            log.warn("Disk cache has not been bound to a Battle.net client, unable to write key={}", key);
+            return false;
+        }
+        final String prefixedKey = prefixed(key);
+        final long expiresAt = expiresAt(getEntityTTL(value.getClass()));
+        final byte[] record;
+        try {
+            record = encode(prefixedKey, value.getClass().getName(), gson.toJson(value), expiresAt);
+        } catch (final IllegalArgumentException | JsonParseException e) {
+            log.error("Unable to serialize Battle.net entity for the disk cache. key={}", prefixedKey, e);
+            return false;
+        }
+        if (record.length > segmentSize) {
+            log.warn("Battle.net entity is larger than a cache segment and won't be cached. key={}, size={}",
+                prefixedKey, record.length);
+            return false;
+        }
+
+        synchronized (writeLock) {
+            if (closed) {
+                return false;
+            }
+            try {
+                final Location location = append(record, expiresAt);
+                final Location previous = index.put(prefixedKey, location);
+                if (previous != null) {
+                    previous.segment.release(previous.length);
+                }
+                return true;
+            } catch (final IOException e) {
+                log.error("Unable to write to the disk cache. key={}", prefixedKey, e);
+                return false;
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean del(final String... keys) {
+        synchronized (writeLock) {
+            if (closed) {
+                return false;
+            }
+            for (final String key : keys) {
+                final Location location = index.remove(prefixed(key));
+                if (location != null) {
+                    location.segment.putLong(location.offset + EXPIRES_AT_OFFSET, 0);
+                    location.segment.release(location.length);
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean updateTTL(final Duration ttl, final String... keys) {
+        final long expiresAt = expiresAt(ttl);
+        synchronized (writeLock) {
+            if (closed) {
+                return false;
+            }
+            for (final String key : keys) {
+                updateExpiry(prefixed(key), expiresAt);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean resetTTL(final Map<String, Class<? extends BattleNetEntity>> keysAndTypes) {
+        synchronized (writeLock) {
+            if (closed) {
+                return false;
+            }
+            keysAndTypes.forEach((key, type) -> updateExpiry(prefixed(key), expiresAt(getEntityTTL(type))));
+            return true;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>Every key in a disk cache has the cache's prefix, so this deletes every segment file and starts afresh.
+     */
+    @Override
+    public boolean flushCache() {
+        synchronized (writeLock) {
+            if (closed) {
+                return false;
+            }
+            index.clear();
+            try {
+                for (final DiskSegment segment : segments) {
+                    segment.delete();
+                }
+                segments.clear();
+                segments.add(newSegment(0));
+                return true;
+            } catch (final IOException e) {
+                log.error("Unable to flush the disk cache in {}", directory, e);
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Copies the live records in every segment except the newest to the newest segment, and deletes the older
+     * segments, on the calling thread.
+     *
+     * <p>This is done automatically in the background whenever a new segment is started and the garbage in the
+     * older segments exceeds the compaction threshold.
+     *
+     * @return {@code true} if the compaction was successful, otherwise {@code false}, including if another
+     *         compaction is already running.
+     */
+    public boolean compact() {
+        synchronized (writeLock) {
+            if (closed || compacting) {
+                return false;
+            }
+            compacting = true;
+        }
+        try {
+            compactSealedSegments();
+            return true;
+        } catch (final IOException e) {
+            log.error("Unable to compact the disk cache in {}", directory, e);
+            return false;
+        }
+    }
+
+    /**
+     * Returns the number of entries in the cache, including any which have expired but not yet been removed.
+     * @return The number of entries in the cache.
+     */
+    public int size() {
+        return index.size();
+    }
+
+    /**
+     * Returns the number of segment files used by the cache.
+     * @return The number of segment files used by the cache.
+     */
+    public int getSegmentCount() {
+        synchronized (writeLock) {
+            return segments.size();
+        }
+    }
+
+    /**
+     * Flushes all segments to disk, closes them, and releases the directory lock. The cache can't be used
+     * after it has been closed.
+     *
+     * @throws IOException If any segment could not be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (writeLock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            index.clear();
+            IOException error = null;
+            for (final DiskSegment segment : segments) {
+                try {
+                    segment.close();
+                } catch (final IOException e) {
+                    error = e;
+                }
+            }
+            segments.clear();
+            closeQuietly();
+            compactor.shutdown();
+            if (error != null) {
+                throw error;
+            }
+        }
+    }
+
+    private void closeQuietly() {
+        try {
+            directoryLock.release();
+        } catch (final IOException e) {
+            log.warn("Unable to release the lock on cache directory {}", directory, e);
+        }
+        closeChannel(lockChannel);
+    }
+
+    /**
+     * Opens the existing segments in order, rebuilding the index from their records.
+     *
+     * @throws IOException If a segment could not be opened.
+     */
+    private void load() throws IOException {
+        final List<Long> ids = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (final Path file : files) {
+                final Matcher matcher = SEGMENT_FILE_PATTERN.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    ids.add(Long.parseLong(matcher.group(1)));
+                }
+            }
+        }
+        ids.sort(Long::compare);
+        for (final long id : ids) {
+            final DiskSegment segment = DiskSegment.open(id, segmentPath(id), segmentSize);
+            segments.add(segment);
+            segment.setWritePosition(scan(segment));
+        }
+
+        // drop records which expired while the cache was closed
+        final long now = clock.millis();
+        index.entrySet().removeIf(entry -> {
+            final Location location = entry.getValue();
+            if (location.expiresAt <= now) {
+                location.segment.release(location.length);
+                return true;
+            }
+            return false;
+        });
+
+        if (segments.isEmpty()) {
+            segments.add(newSegment(0));
+        }
+        log.debug("Opened disk cache. directory={}, segments={}, entries={}",
+            directory, segments.size(), index.size());
+    }
+
+    /**
+     * Adds every valid record in the segment to the index, replacing older records of the same key.
+     *
+     * @param segment The segment to scan.
+     * @return The offset after the last valid record.
+     */
+    private int scan(final DiskSegment segment) {
+        int offset = 0;
+        while (offset + MIN_RECORD_SIZE <= segment.capacity()) {
+            final int length = segment.getInt(offset + LENGTH_OFFSET);
+            if (length < MIN_RECORD_SIZE || length > segment.capacity() - offset) {
+                break;
+            }
+            final ByteBuffer record = ByteBuffer.wrap(segment.read(offset, length));
+            if (segment.getInt(offset + CHECKSUM_OFFSET) != checksum(record.array())) {
+                log.warn("Discarding corrupt disk cache record. segment={}, offset={}", segment.getPath(), offset);
+                break;
+            }
+            record.position(HEADER_SIZE);
+            final String key = readString(record);
+            final Location location =
+                new Location(segment, offset, length, segment.getLong(offset + EXPIRES_AT_OFFSET));
+            segment.retain(length);
+            final Location previous = index.put(key, location);
+            if (previous != null) {
+                previous.segment.release(previous.length);
+            }
+            offset += length;
+        }
+        return offset;
+    }
+
+    /**
+     * Appends a record to the newest segment, starting a new segment if it doesn't fit. Must hold the write lock.
+     *
+     * @param record The encoded record.
+     * @param expiresAt Epoch millisecond at which the record expires.
+     * @return The location of the appended record.
+     * @throws IOException If a new segment could not be created.
+     */
+    private Location append(final byte[] record, final long expiresAt) throws IOException {
+        DiskSegment active = segments.get(segments.size() - 1);
+        int offset = active.append(record);
+        if (offset < 0) {
+            active = newSegment(active.getId() + 1);
+            segments.add(active);
+            offset = active.append(record);
+            if (!compacting && shouldCompact()) {
+                scheduleCompaction();
+            }
+        }
+        return new Location(active, offset, record.length, expiresAt);
+    }
+
+    private long liveBytes() {
+        synchronized (writeLock) {
+            return segments.stream().mapToLong(DiskSegment::getLiveBytes).sum();
+        }
+    }
+
+    private boolean shouldCompact() {
+        long total = 0;
+        long live = 0;
+        for (final DiskSegment segment : segments.subList(0, segments.size() - 1)) {
+            total += segment.getWritePosition();
+            live += segment.getLiveBytes();
+        }
+        return total > 0 && (total - live) >= total * compactionThreshold;
+    }
+
+    /**
+     * Starts a compaction on the background thread. Must hold the write lock.
+     */
+    private void scheduleCompaction() {
+        compacting = true;
+        try {
+            compactor.execute(() -> {
+                try {
+                    compactSealedSegments();
+                } catch (final IOException e) {
+                    log.error("Unable to compact the disk cache in {}", directory, e);
+                }
+            });
+        } catch (final RejectedExecutionException e) {
+            compacting = false;
+        }
+    }
+
+    /**
+     * Copies the live, unexpired records of every segment except the newest to the newest segment, and deletes
+     * the older segments.
+     *
+     * <p>The write lock is only held for one batch of records at a time, so writers and readers waiting on it
+     * aren't stalled for the whole copy. Must be called with {@code compacting} set, and without holding the
+     * write lock. Clears {@code compacting} when it is done, and starts another compaction in the background if
+     * enough garbage was written meanwhile.
+     *
+     * @throws IOException If a segment could not be created or deleted.
+     */
+    private void compactSealedSegments() throws IOException {
+        boolean completed = false;
+        try {
+            final Set<DiskSegment> sealed = Collections.newSetFromMap(new IdentityHashMap<>());
+            synchronized (writeLock) {
+                if (closed) {
+                    return;
+                }
+                sealed.addAll(segments.subList(0, segments.size() - 1));
+            }
+            if (sealed.isEmpty()) {
+                return;
+            }
+            // records are only ever appended to the newest segment, so every key which has a record in a sealed
+            // segment is already in the index
+            final List<String> keys = new ArrayList<>();
+            index.forEach((key, location) -> {
+                if (sealed.contains(location.segment)) {
+                    keys.add(key);
+                }
+            });
+            int copied = 0;
+            for (int from = 0; from < keys.size(); from += COMPACTION_BATCH_SIZE) {
+                synchronized (writeLock) {
+                    if (closed) {
+                        return;
+                    }
+                    copied += copyLive(keys.subList(from, Math.min(keys.size(), from + COMPACTION_BATCH_SIZE)),
+                        sealed);
+                }
+            }
+            synchronized (writeLock) {
+                if (closed) {
+                    return;
+                }
+                for (final DiskSegment segment : sealed) {
+                    // the segment is already gone if the cache was flushed meanwhile
+                    if (segments.remove(segment)) {
+                        segment.delete();
+                    }
+                }
+            }
+            log.debug("Compacted disk cache. directory={}, segmentsRemoved={}, recordsCopied={}",
+                directory, sealed.size(), copied);
+            completed = true;
+        } finally {
+            synchronized (writeLock) {
+                compacting = false;
+                if (completed && !closed && shouldCompact()) {
+                    scheduleCompaction();
+                }
+            }
+        }
+    }
+
+    /**
+     * Copies the current records of the keys to the newest segment, if they are still in a sealed segment, and
+     * drops those which have expired. Must hold the write lock.
+     *
+     * @param keys Keys whose records were in a sealed segment when the compaction started.
+     * @param sealed The segments being compacted.
+     * @return The number of records copied.
+     * @throws IOException If a new segment could not be created.
+     */
+    private int copyLive(final List<String> keys, final Set<DiskSegment> sealed) throws IOException {
+        final long now = clock.millis();
+        int copied = 0;
+        for (final String key : keys) {
+            // the key may have been overwritten, deleted or had its expiry updated since it was listed
+            final Location location = index.get(key);
+            if (location == null || !sealed.contains(location.segment)) {
+                continue;
+            }
+            if (location.expiresAt <= now) {
+                if (index.remove(key, location)) {
+                    location.segment.release(location.length);
+                    statistics.recordEviction(CacheStatistics.EvictionCause.EXPIRED);
+                }
+                continue;
+            }
+            final byte[] record = location.segment.read(location.offset, location.length);
+            index.put(key, append(record, location.expiresAt));
+            location.segment.release(location.length);
+            copied++;
+        }
+        return copied;
+    }
+
+    private DiskSegment newSegment(final long id) throws IOException {
+        return DiskSegment.open(id, segmentPath(id), segmentSize);
+    }
+
+    private Path segmentPath(final long id) {
+        return directory.resolve(String.format(SEGMENT_FILE_F, id));
+    }
+
+    /**
+     * Updates the expiry time of a key's record in place. Must hold the write lock.
+     *
+     * @param prefixedKey The prefixed key.
+     * @param expiresAt Epoch millisecond at which the record expires.
+     */
+    private void updateExpiry(final String prefixedKey, final long expiresAt) {
+        final Location location = index.get(prefixedKey);
+        if (location == null) {
+            return;
+        }
+        location.segment.putLong(location.offset + EXPIRES_AT_OFFSET, expiresAt);
+        index.put(prefixedKey, new Location(location.segment, location.offset, location.length, expiresAt));
+    }
+
+    private long expiresAt(final Duration ttl) {
+        final long now = clock.millis();
+        try {
+            return Math.addExact(now, ttl.toMillis());
+        } catch (final ArithmeticException e) {
+            return ttl.isNegative() ? 0 : Long.MAX_VALUE;
+        }
+    }
+
+    private String prefixed(final String key) {
+        return keyPrefix + key;
+    }
+
+    private static byte[] encode(final String key, final String type, final String json, final long expiresAt) {
+        final byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        final byte[] typeBytes = type.getBytes(StandardCharsets.UTF_8);
+        final byte[] jsonBytes = json.getBytes(StandardCharsets.UTF_8);
+        if (keyBytes.length > Short.MAX_VALUE || typeBytes.length > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Key or type name is too long: " + key);
+        }
+        final long length = (long) HEADER_SIZE + 2 * Short.BYTES + keyBytes.length + typeBytes.length
+            + jsonBytes.length;
+        if (length > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Entity is too large: " + key);
+        }
+        final ByteBuffer record = ByteBuffer.allocate((int) length);
+        record.putInt((int) length);
+        record.putInt(0);
+        record.putLong(expiresAt);
+        record.putShort((short) keyBytes.length).put(keyBytes);
+        record.putShort((short) typeBytes.length).put(typeBytes);
+        record.put(jsonBytes);
+        record.putInt(CHECKSUM_OFFSET, checksum(record.array()));
+        return record.array();
+    }
+
+    private static int checksum(final byte[] record) {
+        final CRC32 crc = new CRC32();
+        crc.update(record, HEADER_SIZE, record.length - HEADER_SIZE);
+        return (int) crc.getValue();
+    }
+
+    private static String readString(final ByteBuffer record) {
+        final int length = record.getShort();
+        final String value = new String(record.array(), record.position(), length, StandardCharsets.UTF_8);
+        record.position(record.position() + length);
+        return value;
+    }
+
+    private static void skipString(final ByteBuffer record) {
+        final int length = record.getShort();
+        record.position(record.position() + length);
+    }
+}
@@ -0,0 +1,217 @@
+/*
+ * Copyright (c) 2019 sep.gg <seputaes@sep.gg>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package gg.sep.battlenet.cache;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+
+import lombok.Getter;
+
+/**
+ * A single append-only segment file of a {@link DiskEntityCache}, mapped into memory in its entirety.
+ *
+ * <p>Appends are only made by the cache's writer, while holding its lock. Reads use absolute positions on
+ * duplicates of the mapped buffer, so any number of threads can read concurrently with the writer.
+ */
+final class DiskSegment {
+    @Getter
+    private final long id;
+    @Getter
+    private final Path path;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final AtomicLong liveBytes = new AtomicLong();
+    private int writePosition;
+
+    private DiskSegment(final long id, final Path path, final FileChannel channel, final MappedByteBuffer buffer) {
+        this.id = id;
+        this.path = path;
+        this.channel = channel;
+        this.buffer = buffer;
+    }
+
+    /**
+     * Opens a segment file, creating it if it doesn't exist.
+     *
+     * @param id ID of the segment, which orders segments from oldest to newest.
+     * @param path Path of the segment file.
+     * @param capacity Size of the segment file, if it is created. Existing files are mapped at their current size.
+     * @return The opened segment.
+     * @throws IOException If the file could not be opened or mapped.
+     */
+    static DiskSegment open(final long id, final Path path, final int capacity) throws IOException {
+        final FileChannel channel = FileChannel.open(path,
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            final long size = (channel.size() == 0) ? capacity : Math.min(channel.size(), Integer.MAX_VALUE);
+            return new DiskSegment(id, path, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+        } catch (final IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the size of the segment in bytes.
+     * @return The size of the segment in bytes.
+     */
+    int capacity() {
+        return buffer.capacity();
+    }
+
+    /**
+     * Returns the offset at which the next record will be appended.
+     * @return The offset at which the next record will be appended.
+     */
+    int getWritePosition() {
+        return writePosition;
+    }
+
+    /**
+     * Moves the write position, used after recovering the records already in the segment. If there is leftover
+     * data after the new position, eg a partially written record, it is zeroed so it can't be mistaken for a
+     * record later.
+     *
+     * @param position Offset at which the next record will be appended.
+     */
+    void setWritePosition(final int position) {
+        this.writePosition = position;
+        if (position + Integer.BYTES <= capacity() && buffer.getInt(position) != 0) {
+            final ByteBuffer view = buffer.duplicate();
+            view.position(position);
+            while (view.hasRemaining()) {
+                view.put((byte) 0);
+            }
+        }
+    }
+
+    /**
+     * Appends a record, if it fits in the remaining space of the segment.
+     *
+     * @param record The encoded record.
+     * @return The offset of the record, or {@code -1} if it doesn't fit.
+     */
+    int append(final byte[] record) {
+        if (record.length > capacity() - writePosition) {
+            return -1;
+        }
+        final int offset = writePosition;
+        final ByteBuffer view = buffer.duplicate();
+        view.position(offset);
+        view.put(record);
+        writePosition += record.length;
+        liveBytes.addAndGet(record.length);
+        return offset;
+    }
+
+    /**
+     * Reads a record.
+     *
+     * @param offset Offset of the record.
+     * @param length Length of the record.
+     * @return The bytes of the record.
+     */
+    byte[] read(final int offset, final int length) {
+        final byte[] record = new byte[length];
+        final ByteBuffer view = buffer.duplicate();
+        view.position(offset);
+        view.get(record);
+        return record;
+    }
+
+    int getInt(final int offset) {
+        return buffer.getInt(offset);
+    }
+
+    long getLong(final int offset) {
+        return buffer.getLong(offset);
+    }
+
+    void putInt(final int offset, final int value) {
+        buffer.putInt(offset, value);
+    }
+
+    void putLong(final int offset, final long value) {
+        buffer.putLong(offset, value);
+    }
+
+    /**
+     * Returns the number of bytes in the segment which belong to the current version of a cached entry.
+     * @return The number of bytes in the segment which belong to the current version of a cached entry.
+     */
+    long getLiveBytes() {
+        return liveBytes.get();
+    }
+
+    /**
+     * Records that a record in the segment is the current version of a cached entry, used when recovering the
+     * records already in the segment.
+     *
+     * @param length Length of the record.
+     */
+    void retain(final int length) {
+        liveBytes.addAndGet(length);
+    }
+
+    /**
+     * Records that a record in the segment has been superseded, deleted or has expired.
+     *
+     * @param length Length of the record.
+     */
+    void release(final int length) {
+        liveBytes.addAndGet(-length);
+    }
+
+    /**
+     * Flushes changes to the mapped buffer to the file, and closes it. The buffer itself stays mapped until it is
+     * garbage collected, so concurrent readers are unaffected.
+     *
+     * @throws IOException If the file could not be closed.
+     */
+    void close() throws IOException {
+        buffer.force();
+        channel.close();
+    }
+
+    /**
+     * Closes and deletes the segment file.
+     *
+     * <p>The first record header is zeroed before deleting, so that if the file can't be deleted, eg because the
+     * platform doesn't allow deleting mapped files, it is read as an empty segment when the cache is reopened.
+     *
+     * @throws IOException If the file could not be closed or deleted.
+     */
+    void delete() throws IOException {
+        if (capacity() >= Integer.BYTES) {
+            buffer.putInt(0, 0);
+        }
+        close();
+        Files.deleteIfExists(path);
+    }
+}
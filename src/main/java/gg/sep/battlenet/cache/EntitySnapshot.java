@@ -0,0 +1,262 @@
+/*
+ * Copyright (c) 2019 sep.gg <seputaes@sep.gg>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package gg.sep.battlenet.cache;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.BiConsumer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import lombok.experimental.UtilityClass;
+import lombok.extern.log4j.Log4j2;
+
+import gg.sep.battlenet.BattleNet;
+import gg.sep.battlenet.model.BattleNetEntity;
+
+/**
+ * Reads and writes snapshots of cached entities: compact files which can be built once, eg by
+ * {@link gg.sep.battlenet.wow.snapshot.StaticSnapshotWriter}, and loaded into the cache of every client at startup
+ * instead of requesting the same entities from Battle.net again.
+ *
+ * <p>A snapshot is a gzipped JSON document, which is written and read in a single streaming pass, so neither
+ * writing nor loading needs to hold the whole document in memory:
+ *
+ * <pre>
+ * {"version": 1, "region": "us", "locale": "en_US", "createdAt": 1571270400000,
+ *  "entries": [{"key": "us:static-9.0.2_36165-us:/data/wow/mount/6?namespace=static-us&amp;locale=en_US",
+ *               "type": "gg.sep.battlenet.wow.model.mount.Mount", "entity": {...}}, ...]}
+ * </pre>
+ *
+ * <p>Entries are stored under their cache keys, which include the region and locale of the client which built
+ * the snapshot, so a snapshot can only be loaded by a client with the same region and locale. Entities are
+ * serialized with the client's {@link BattleNet#getJsonParser()}.
+ */
+@Log4j2
+@UtilityClass
+public class EntitySnapshot {
+    /**
+     * Version of the snapshot format written by this class.
+     */
+    public static final int FORMAT_VERSION = 1;
+
+    private static final String VERSION = "version";
+    private static final String REGION = "region";
+    private static final String LOCALE = "locale";
+    private static final String CREATED_AT = "createdAt";
+    private static final String ENTRIES = "entries";
+    private static final String KEY = "key";
+    private static final String TYPE = "type";
+    private static final String ENTITY = "entity";
+
+    /**
+     * Writes a snapshot of entities to a file. The snapshot is written to a temporary file first and then moved
+     * into place, so readers never see a partially written snapshot.
+     *
+     * @param file File to write the snapshot to. Any existing file is replaced.
+     * @param battleNet Client the entities were retrieved with.
+     * @param entities Entities to write, by cache key.
+     * @return The number of entities written.
+     * @throws IOException If the snapshot can't be written.
+     */
+    public static int write(final Path file, final BattleNet battleNet,
+                            final Map<String, ? extends BattleNetEntity> entities) throws IOException {
+        final Gson gson = battleNet.getJsonParser();
+        final Path directory = file.toAbsolutePath().getParent();
+        final Path temp = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try {
+            try (JsonWriter writer = new JsonWriter(new OutputStreamWriter(new GZIPOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(temp))), StandardCharsets.UTF_8))) {
+
+                writer.beginObject();
+                writer.name(VERSION).value(FORMAT_VERSION);
+                writer.name(REGION).value(battleNet.getRegion().getRegionUrlValue());
+                writer.name(LOCALE).value(battleNet.getLocale().getLocaleString());
+                writer.name(CREATED_AT).value(Instant.now().toEpochMilli());
+                writer.name(ENTRIES).beginArray();
+                // sorted, so that snapshots of the same data are identical
+                for (final Map.Entry<String, ? extends BattleNetEntity> entry : new TreeMap<>(entities).entrySet()) {
+                    final BattleNetEntity entity = entry.getValue();
+                    writer.beginObject();
+                    writer.name(KEY).value(entry.getKey());
+                    writer.name(TYPE).value(entity.getClass().getName());
+                    writer.name(ENTITY);
+                    gson.toJson(entity, entity.getClass(), writer);
+                    writer.endObject();
+                }
+                writer.endArray();
+                writer.endObject();
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        log.info("Wrote a snapshot of {} Battle.net entities to {}", entities.size(), file);
+        return entities.size();
+    }
+
+    /**
+     * Loads a snapshot into the cache of a client. Each entity is stored with the TTL of its entity class, except
+     * for {@link NamespaceRevision}s, which never expire.
+     *
+     * @param file Snapshot file to load.
+     * @param battleNet Client whose {@link BattleNet#getCache()} the entities are loaded into.
+     * @return The number of entities loaded.
+     * @throws IOException If the snapshot can't be read.
+     * @throws IllegalStateException If the client has no cache.
+     * @throws IllegalArgumentException If the snapshot was written by a client with a different region or locale.
+     */
+    public static int load(final Path file, final BattleNet battleNet) throws IOException {
+        final BattleNetEntityCache cache = battleNet.getCache();
+        if (cache == null) {
+            throw new IllegalStateException("The Battle.net client has no cache to load the snapshot into");
+        }
+        return load(file, battleNet, (key, entity) -> {
+            if (entity instanceof NamespaceRevision) {
+                NamespaceRevisions.store(cache, key, (NamespaceRevision) entity);
+            } else {
+                cache.set(key, entity);
+            }
+        });
+    }
+
+    /**
+     * Loads a snapshot, passing each entity to a consumer, eg to fill an in-memory repository.
+     *
+     * <p>Entries whose type isn't a {@link BattleNetEntity} class on the classpath are skipped.
+     *
+     * @param file Snapshot file to load.
+     * @param battleNet Client whose JSON parser is used to parse the entities.
+     * @param consumer Called with the cache key and entity of each entry, in the order they were written.
+     * @return The number of entities loaded.
+     * @throws IOException If the snapshot can't be read.
+     * @throws IllegalArgumentException If the snapshot was written by a client with a different region or locale.
+     */
+    public static int load(final Path file, final BattleNet battleNet,
+                           final BiConsumer<String, BattleNetEntity> consumer) throws IOException {
+        final Gson gson = battleNet.getJsonParser();
+        final Map<String, Class<? extends BattleNetEntity>> types = new HashMap<>();
+        int loaded = 0;
+        try (JsonReader reader = new JsonReader(new InputStreamReader(new GZIPInputStream(
+            new BufferedInputStream(Files.newInputStream(file))), StandardCharsets.UTF_8))) {
+
+            reader.beginObject();
+            while (reader.hasNext()) {
+                final String name = reader.nextName();
+                switch (name) {
+                    case VERSION:
+                        final int version = reader.nextInt();
+                        if (version != FORMAT_VERSION) {
+                            throw new IOException("Unsupported snapshot version " + version + ": " + file);
+                        }
+                        break;
+                    case REGION:
+                        checkMatches(REGION, reader.nextString(), battleNet.getRegion().getRegionUrlValue());
+                        break;
+                    case LOCALE:
+                        checkMatches(LOCALE, reader.nextString(), battleNet.getLocale().getLocaleString());
+                        break;
+                    case ENTRIES:
+                        reader.beginArray();
+                        while (reader.hasNext()) {
+                            if (readEntry(reader, gson, types, consumer)) {
+                                loaded++;
+                            }
+                        }
+                        reader.endArray();
+                        break;
+                    default:
+                        reader.skipValue();
+                }
+            }
+            reader.endObject();
+        }
+        log.info("Loaded a snapshot of {} Battle.net entities from {}", loaded, file);
+        return loaded;
+    }
+
+    private static boolean readEntry(final JsonReader reader, final Gson gson,
+                                     final Map<String, Class<? extends BattleNetEntity>> types,
+                                     final BiConsumer<String, BattleNetEntity> consumer) throws IOException {
+        String key = null;
+        Class<? extends BattleNetEntity> type = null;
+        BattleNetEntity entity = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            final String name = reader.nextName();
+            if (KEY.equals(name)) {
+                key = reader.nextString();
+            } else if (TYPE.equals(name)) {
+                final String typeName = reader.nextString();
+                if (!types.containsKey(typeName)) {
+                    types.put(typeName, entityClass(typeName));
+                }
+                type = types.get(typeName);
+            } else if (ENTITY.equals(name) && type != null) {
+                entity = gson.fromJson(reader, type);
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        if (key == null || entity == null) {
+            return false;
+        }
+        consumer.accept(key, entity);
+        return true;
+    }
+
+    private static Class<? extends BattleNetEntity> entityClass(final String typeName) {
+        try {
+            final Class<?> type = Class.forName(typeName, false, EntitySnapshot.class.getClassLoader());
+            if (BattleNetEntity.class.isAssignableFrom(type)) {
+                return type.asSubclass(BattleNetEntity.class);
+            }
+        } catch (final ClassNotFoundException e) {
+            log.debug("Snapshot entity class not found: {}", typeName);
+        }
+        log.warn("Skipping snapshot entries of unknown entity type {}", typeName);
+        return null;
+    }
+
+    private static void checkMatches(final String field, final String snapshotValue, final String clientValue) {
+        if (!clientValue.equals(snapshotValue)) {
+            throw new IllegalArgumentException(String.format(
+                "Snapshot was written with %s '%s', but the client uses '%s'", field, snapshotValue, clientValue));
+        }
+    }
+}
@@ -0,0 +1,316 @@
+/*
+ * Copyright (c) 2019 sep.gg <seputaes@sep.gg>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package gg.sep.battlenet.cache;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Policy;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.github.benmanes.caffeine.cache.Weigher;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.extern.log4j.Log4j2;
+
+import gg.sep.battlenet.model.BattleNetEntity;
+
+/**
+ * In-process implementation of {@link BattleNetEntityCache}, backed by a
+ * <a href="https://github.com/ben-manes/caffeine">Caffeine</a> cache.
+ *
+ * <ul>
+ *     <li>Each entry expires after the TTL of its entity class ({@link #setEntityTTL(Class, Duration)}),
+ *         or the default TTL if none was set for the class. TTLs of individual entries can be changed
+ *         afterwards with {@link #updateTTL(Duration, String...)} and {@link #resetTTL(Map)}.</li>
+ *     <li>The cache is bounded by the total weight of its entries. By default every entity weighs 1, so the
+ *         bound is a number of entries, but a {@link Weigher} can be provided to bound by eg estimated size.</li>
+ *     <li>Once full, entries are admitted and evicted using Window TinyLFU, which keeps frequently used entities
+ *         in the cache even when a crawl streams through large numbers of entities which are only used once.</li>
+ *     <li>Reads are lock-free, and {@link #getOrElse(String, Class, Callable)} calls {@code retrieve} at most
+ *         once per key at a time, with other callers for the same key waiting for its result.</li>
+ * </ul>
+ *
+ * <p>Entities are stored as objects rather than serialized, so the cached instances are returned directly.
+ *
+ * <p>Hits, misses, load times and evictions are always recorded in {@link #getStatistics()}. The byte footprint
+ * of the cache isn't known, since entities aren't serialized.
+ */
+@Log4j2
+public final class InMemoryEntityCache implements BattleNetEntityCache {
+    private static final String DEFAULT_KEY_PREFIX = "battlenet:";
+    private static final Duration DEFAULT_TTL = Duration.ofHours(1);
+    private static final long DEFAULT_MAXIMUM_WEIGHT = 100_000;
+
+    @Getter
+    private final String keyPrefix;
+    @Getter
+    private final Duration defaultTTL;
+    private final ConcurrentMap<Class<? extends BattleNetEntity>, Duration> entityTTLs = new ConcurrentHashMap<>();
+    private final Cache<String, BattleNetEntity> cache;
+    private final Policy.VarExpiration<String, BattleNetEntity> expiration;
+    @Getter
+    private final CacheStatistics statistics;
+
+    /**
+     * Create a new in-memory cache. Any setting which is null uses its default.
+     *
+     * @param keyPrefix Prefix prepended to every key. Defaults to {@code "battlenet:"}.
+     * @param defaultTTL TTL of entities whose class has no TTL set. Defaults to 1 hour.
+     * @param maximumWeight Maximum total weight of the cached entities. Defaults to 100,000.
+     * @param weigher Calculates the weight of each entry. Defaults to a weight of 1 for every entity.
+     * @param ticker Time source used for expiry. Defaults to {@link System#nanoTime()}.
+     */
+    @Builder
+    private InMemoryEntityCache(final String keyPrefix, final Duration defaultTTL, final Long maximumWeight,
+                                final Weigher<String, BattleNetEntity> weigher, final Ticker ticker) {
+        this.keyPrefix = (keyPrefix == null) ? DEFAULT_KEY_PREFIX : keyPrefix;
+        this.defaultTTL = (defaultTTL == null) ? DEFAULT_TTL : defaultTTL;
+
+        final Weigher<String, BattleNetEntity> entityWeigher = (weigher == null) ? (key, value) -> 1 : weigher;
+        this.cache = Caffeine.newBuilder()
+            .maximumWeight((maximumWeight == null) ? DEFAULT_MAXIMUM_WEIGHT : maximumWeight)
+            .weigher(entityWeigher)
+            .expireAfter(new EntityExpiry())
+            .removalListener(this::recordRemoval)
+            .ticker((ticker == null) ? Ticker.systemTicker() : ticker)
+            .build();
+        this.statistics = new CacheStatistics(cache::estimatedSize, () -> -1);
+        this.expiration = cache.policy().expireVariably()
+            .orElseThrow(() -> new IllegalStateException("Cache does not support variable expiration"));
+    }
+
+    /**
+     * Expires each entry after the TTL of its entity class, measured from when it was last written.
+     */
+    private final class EntityExpiry implements Expiry<String, BattleNetEntity> {
+        @Override
+        public long expireAfterCreate(final String key, final BattleNetEntity value, final long currentTime) {
+            return toNanos(getEntityTTL(value.getClass()));
+        }
+
+        @Override
+        public long expireAfterUpdate(final String key, final BattleNetEntity value, final long currentTime,
+                                      final long currentDuration) {
+            return toNanos(getEntityTTL(value.getClass()));
+        }
+
+        @Override
+        public long expireAfterRead(final String key, final BattleNetEntity value, final long currentTime,
+                                    final long currentDuration) {
+            return currentDuration;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Duration setEntityTTL(final Class<? extends BattleNetEntity> entityClass, final Duration ttl) {
+        return entityTTLs.put(entityClass, ttl);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Duration getEntityTTL(final Class<? extends BattleNetEntity> entityClass) {
+        final Duration ttl = entityTTLs.get(entityClass);
+        return (ttl == null) ? defaultTTL : ttl;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Duration getTTL(final String key) {
+        final OptionalLong remaining = expiration.getExpiresAfter(prefixed(key), TimeUnit.NANOSECONDS);
+        return (remaining.isPresent() && remaining.getAsLong() > 0) ?
+            Duration.ofNanos(remaining.getAsLong()) : Duration.ZERO;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <T extends BattleNetEntity> T get(final String key, final Class<T> entityType) {
+        final BattleNetEntity entity = cache.getIfPresent(prefixed(key));
+        if (entityType.isInstance(entity)) {
+            statistics.recordHit(entityType);
+            return entityType.cast(entity);
+        }
+        statistics.recordMiss(entityType);
+        return null;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>Concurrent callers for the same key share a single call to {@code retrieve}. If {@code retrieve}
+     * returns null, nothing is cached and null is returned. If it throws, nothing is cached and the exception
+     * is rethrown, wrapped in an {@link IllegalStateException} if it is a checked exception.
+     */
+    @Override
+    public <T extends BattleNetEntity> T getOrElse(final String key, final Class<T> entityType,
+                                                   final Callable<T> retrieve) {
+        final String prefixedKey = prefixed(key);
+        final BattleNetEntity present = cache.getIfPresent(prefixedKey);
+        if (entityType.isInstance(present)) {
+            statistics.recordHit(entityType);
+            return entityType.cast(present);
+        }
+        statistics.recordMiss(entityType);
+        final Callable<T> timedRetrieve = () -> timed(entityType, key, retrieve);
+        final BattleNetEntity cached = cache.get(prefixedKey, k -> call(key, timedRetrieve));
+        if (cached == null || entityType.isInstance(cached)) {
+            return entityType.cast(cached);
+        }
+        // an entity of another type is cached under this key, replace it
+        return entityType.cast(cache.asMap().compute(prefixedKey,
+            (k, existing) -> entityType.isInstance(existing) ? existing : call(key, timedRetrieve)));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean set(final String key, final BattleNetEntity value) {
+        if (value == null) {
+            cache.invalidate(prefixed(key));
+            return false;
+        }
+        cache.put(prefixed(key), value);
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean del(final String... keys) {
+        cache.invalidateAll(Arrays.stream(keys).map(this::prefixed).collect(Collectors.toList()));
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean updateTTL(final Duration ttl, final String... keys) {
+        for (final String key : keys) {
+            expiration.setExpiresAfter(prefixed(key), toNanos(ttl), TimeUnit.NANOSECONDS);
+        }
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean resetTTL(final Map<String, Class<? extends BattleNetEntity>> keysAndTypes) {
+        keysAndTypes.forEach((key, type) ->
+            expiration.setExpiresAfter(prefixed(key), toNanos(getEntityTTL(type)), TimeUnit.NANOSECONDS));
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean flushCache() {
+        cache.invalidateAll();
+        return true;
+    }
+
+    /**
+     * Returns the approximate number of entities in the cache.
+     * @return The approximate number of entities in the cache.
+     */
+    public long estimatedSize() {
+        return cache.estimatedSize();
+    }
+
+    /**
+     * Performs any pending maintenance, such as evicting expired entries.
+     * This normally happens automatically during reads and writes.
+     */
+    public void cleanUp() {
+        cache.cleanUp();
+    }
+
+    private void recordRemoval(final String key, final BattleNetEntity value, final RemovalCause cause) {
+        // deletes and overwrites by callers aren't evictions
+        if (cause.wasEvicted()) {
+            statistics.recordEviction((cause == RemovalCause.EXPIRED) ?
+                CacheStatistics.EvictionCause.EXPIRED : CacheStatistics.EvictionCause.SIZE);
+        }
+    }
+
+    private <T extends BattleNetEntity> T timed(final Class<T> entityType, final String key,
+                                                final Callable<T> retrieve) {
+        final long start = System.nanoTime();
+        boolean success = false;
+        try {
+            final T retrieved = call(key, retrieve);
+            success = retrieved != null;
+            return retrieved;
+        } finally {
+            statistics.recordLoad(entityType, System.nanoTime() - start, success);
+        }
+    }
+
+    private String prefixed(final String key) {
+        return keyPrefix + key;
+    }
+
+    private static <T extends BattleNetEntity> T call(final String key, final Callable<T> retrieve) {
+        try {
+            return retrieve.call();
+        } catch (final RuntimeException e) {
+            throw e;
+        } catch (final Exception e) {
+            throw new IllegalStateException("Unable to retrieve the entity for cache key: " + key, e);
+        }
+    }
+
+    private static long toNanos(final Duration duration) {
+        if (duration.isNegative()) {
+            return 0;
+        }
+        try {
+            return duration.toNanos();
+        } catch (final ArithmeticException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2019 sep.gg <seputaes@sep.gg>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package gg.sep.battlenet.cache;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.google.common.collect.ImmutableSet;
+import lombok.extern.log4j.Log4j2;
+import okhttp3.HttpUrl;
+
+import gg.sep.battlenet.model.BattleNetRegion;
+
+/**
+ * Tracks the revision of each Battle.net static namespace, so that cached static entities can be tied to the game
+ * build they were read from.
+ *
+ * <p>Static requests are sent with a namespace such as {@code static-us}, and Battle.net reports which revision of
+ * that namespace answered in the {@value #NAMESPACE_HEADER} response header, eg {@code static-9.0.2_36165-us}.
+ * The revision only changes when a new game build ships. The cache keys of static requests include the current
+ * revision (see {@link CacheKeys#of(BattleNetRegion, HttpUrl, String)}), so as soon as a response from a new build
+ * is seen, every entity cached from the old build stops being read at once. Static entities can therefore be
+ * cached with effectively infinite TTLs.
+ *
+ * <p>Revisions whose build number is older than the current revision are ignored, so a response from a server
+ * which hasn't been updated yet during a patch rollout doesn't switch the cache back to the old build.
+ *
+ * <p>The latest revision of each namespace is also written to the {@link BattleNetEntityCache} as a
+ * {@link NamespaceRevision}, which never expires, so that a persistent cache can be read after a restart without
+ * first waiting for a response to report the revision. The cache is only read once for each namespace, whether or
+ * not a revision was stored there.
+ */
+@Log4j2
+public final class NamespaceRevisions {
+    /**
+     * Response header in which Battle.net reports the revision of the namespace which answered the request.
+     */
+    public static final String NAMESPACE_HEADER = "Battlenet-Namespace";
+
+    private static final String NAMESPACE_PARAM = "namespace";
+    private static final String STATIC_PREFIX = "static-";
+    private static final Pattern BUILD_NUMBER = Pattern.compile("_(\\d{1,18})-");
+    private static final Duration NO_EXPIRY = Duration.ofMillis(Long.MAX_VALUE);
+
+    private final ConcurrentMap<String, String> revisions = new ConcurrentHashMap<>();
+    private final Set<String> readFromCache = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Returns the static namespace a request is sent to.
+     *
+     * @param canonicalUrl Canonical URL of the request.
+     * @return The request's namespace, eg {@code static-us}, or null if it isn't sent to a static namespace.
+     */
+    public static String staticNamespace(final HttpUrl canonicalUrl) {
+        final String namespace = canonicalUrl.queryParameter(NAMESPACE_PARAM);
+        return (namespace != null && namespace.startsWith(STATIC_PREFIX)) ? namespace : null;
+    }
+
+    /**
+     * Returns the current revision of a static namespace, reading it from the cache the first time it is asked for
+     * if it hasn't been seen since the client started.
+     *
+     * @param namespace Static namespace, eg {@code static-us}.
+     * @param cache Cache the revision may have been stored in, or null.
+     * @param region Region of the client.
+     * @return The current revision of the namespace, or null if it isn't known yet.
+     */
+    public String getRevision(final String namespace, final BattleNetEntityCache cache, final BattleNetRegion region) {
+        final String revision = revisions.get(namespace);
+        if (revision != null || cache == null || !readFromCache.add(namespace)) {
+            return revision;
+        }
+        final NamespaceRevision stored = cache.get(revisionKey(region, namespace), NamespaceRevision.class);
+        if (stored == null || stored.getRevision() == null) {
+            return null;
+        }
+        final String existing = revisions.putIfAbsent(namespace, stored.getRevision());
+        return (existing == null) ? stored.getRevision() : existing;
+    }
+
+    /**
+     * Records the revision Battle.net reported for a request to a static namespace.
+     *
+     * @param namespace Static namespace the request was sent to, eg {@code static-us}.
+     * @param revision Value of the {@value #NAMESPACE_HEADER} response header, eg {@code static-9.0.2_36165-us}.
+     * @param cache Cache to store the new revision in, or null.
+     * @param region Region of the client.
+     * @return True if the revision of the namespace changed, otherwise false.
+     */
+    public boolean observe(final String namespace, final String revision, final BattleNetEntityCache cache,
+                           final BattleNetRegion region) {
+        if (namespace == null || revision == null || !revision.startsWith(STATIC_PREFIX)) {
+            return false;
+        }
+        String previous;
+        do {
+            previous = getRevision(namespace, cache, region);
+            if (revision.equals(previous) || isOlder(revision, previous)) {
+                return false;
+            }
+        } while (!((previous == null) ? revisions.putIfAbsent(namespace, revision) == null :
+            revisions.replace(namespace, previous, revision)));
+
+        if (previous != null) {
+            log.info("Battle.net namespace {} changed from {} to {}. Entities cached from {} will no longer be read.",
+                namespace, previous, revision, previous);
+        }
+        if (cache != null) {
+            store(cache, revisionKey(region, namespace),
+                NamespaceRevision.builder().namespace(namespace).revision(revision).build());
+        }
+        return true;
+    }
+
+    /**
+     * Writes a namespace revision to a cache without an expiry, since the entities cached for it can only be
+     * found while it is known.
+     *
+     * @param cache Cache to store the revision in.
+     * @param key Cache key of the revision, from {@link #revisionKey(BattleNetRegion, String)}.
+     * @param revision The namespace revision.
+     */
+    static void store(final BattleNetEntityCache cache, final String key, final NamespaceRevision revision) {
+        if (cache.set(key, revision)) {
+            cache.updateTTL(NO_EXPIRY, key);
+        }
+    }
+
+    /**
+     * Returns the static namespaces whose revision is known.
+     * @return The static namespaces whose revision is known.
+     */
+    public Set<String> getNamespaces() {
+        return ImmutableSet.copyOf(revisions.keySet());
+    }
+
+    /**
+     * Returns the key the revision of a namespace is stored under in the cache.
+     *
+     * @param region Region of the client.
+     * @param namespace Static namespace, eg {@code static-us}.
+     * @return The cache key of the namespace's revision.
+     */
+    public static String revisionKey(final BattleNetRegion region, final String namespace) {
+        return region.getRegionUrlValue() + ":namespace-revision:" + namespace;
+    }
+
+    private static boolean isOlder(final String revision, final String current) {
+        if (current == null) {
+            return false;
+        }
+        final Matcher revisionBuild = BUILD_NUMBER.matcher(revision);
+        final Matcher currentBuild = BUILD_NUMBER.matcher(current);
+        if (!revisionBuild.find() || !currentBuild.find()) {
+            return false;
+        }
+        return Long.parseLong(revisionBuild.group(1)) < Long.parseLong(currentBuild.group(1));
+    }
+}
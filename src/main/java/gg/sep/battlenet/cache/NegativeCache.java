@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2019 sep.gg <seputaes@sep.gg>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package gg.sep.battlenet.cache;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableMap;
+import okhttp3.HttpUrl;
+
+import gg.sep.battlenet.wow.model.talent.Talent;
+
+/**
+ * Remembers which URLs are known not to exist, so that repeated requests for them can be answered with an error
+ * straight away, without spending a rate limit permit or making a request to Battle.net.
+ *
+ * <p>There are two sources of knowledge:
+ *
+ * <ul>
+ *     <li>URLs which returned {@code 404 Not Found} are remembered for a short TTL. The TTL is kept short because
+ *         Battle.net adds new game data with each patch, so ids which are missing today may exist tomorrow.</li>
+ *     <li>APIs which are documented as unavailable by Blizzard are always short-circuited, based on their path.
+ *         See {@link #KNOWN_UNAVAILABLE}.</li>
+ * </ul>
+ *
+ * <p>Entries are keyed by the canonical URL of the request (see
+ * {@link gg.sep.battlenet.interceptor.BattleNetInterceptor#canonicalUrl(okhttp3.HttpUrl)}), so a URL which is
+ * missing in one namespace or locale isn't assumed to be missing in another.
+ */
+public final class NegativeCache {
+    /**
+     * Path prefixes of APIs which are known to be unavailable, mapped to the error returned for them.
+     */
+    public static final Map<String, String> KNOWN_UNAVAILABLE = ImmutableMap.of(
+        "/data/wow/talent/", Talent.API_UNAVAILABLE
+    );
+
+    private final Cache<String, String> notFound;
+
+    /**
+     * Create a new negative cache.
+     *
+     * @param ttl How long a URL which returned {@code 404 Not Found} is remembered for.
+     * @param maximumSize Maximum number of URLs to remember.
+     */
+    public NegativeCache(final Duration ttl, final long maximumSize) {
+        this(ttl, maximumSize, Ticker.systemTicker());
+    }
+
+    /**
+     * Create a new negative cache.
+     *
+     * @param ttl How long a URL which returned {@code 404 Not Found} is remembered for.
+     * @param maximumSize Maximum number of URLs to remember.
+     * @param ticker Time source used for expiry.
+     */
+    public NegativeCache(final Duration ttl, final long maximumSize, final Ticker ticker) {
+        this.notFound = CacheBuilder.newBuilder()
+            .expireAfterWrite(ttl.toNanos(), TimeUnit.NANOSECONDS)
+            .maximumSize(maximumSize)
+            .ticker(ticker)
+            .build();
+    }
+
+    /**
+     * Returns the error for a URL which is known not to exist.
+     *
+     * @param canonicalUrl Canonical URL of the request.
+     * @return The error for the URL if it is known not to exist, otherwise empty.
+     */
+    public Optional<String> get(final HttpUrl canonicalUrl) {
+        final String path = canonicalUrl.encodedPath();
+        for (final Map.Entry<String, String> unavailable : KNOWN_UNAVAILABLE.entrySet()) {
+            if (path.startsWith(unavailable.getKey())) {
+                return Optional.of(unavailable.getValue());
+            }
+        }
+        return Optional.ofNullable(notFound.getIfPresent(canonicalUrl.toString()));
+    }
+
+    /**
+     * Remembers that a URL returned {@code 404 Not Found}.
+     *
+     * @param canonicalUrl Canonical URL of the request.
+     * @param error Error to return for later requests for the URL.
+     */
+    public void record(final HttpUrl canonicalUrl, final String error) {
+        notFound.put(canonicalUrl.toString(), error);
+    }
+
+    /**
+     * Forgets that a URL returned {@code 404 Not Found}, so the next request for it is sent to Battle.net.
+     *
+     * @param canonicalUrl Canonical URL of the request.
+     */
+    public void invalidate(final HttpUrl canonicalUrl) {
+        notFound.invalidate(canonicalUrl.toString());
+    }
+
+    /**
+     * Returns the approximate number of URLs remembered as not found.
+     * @return The approximate number of URLs remembered as not found.
+     */
+    public long size() {
+        return notFound.size();
+    }
+}
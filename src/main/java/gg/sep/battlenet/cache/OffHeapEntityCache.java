@@ -0,0 +1,488 @@
+/*
+ * Copyright (c) 2019 sep.gg <seputaes@sep.gg>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package gg.sep.battlenet.cache;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.StampedLock;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.extern.log4j.Log4j2;
+
+import gg.sep.battlenet.BattleNet;
+import gg.sep.battlenet.model.BattleNetEntity;
+
+/**
+ * Implementation of {@link BattleNetEntityCache} which stores serialized entities outside of the Java heap, in
+ * direct {@link ByteBuffer} slabs, so large numbers of entities can be cached without adding to the heap or to
+ * garbage collection pauses.
+ *
+ * <ul>
+ *     <li>The memory budget is divided into fixed size slabs, which are allocated as they are first needed.
+ *         Entities are serialized to JSON and appended to the current slab.</li>
+ *     <li>Once every slab is in use, the oldest slab is reused, evicting every entry in it. This keeps writes
+ *         cheap and avoids fragmentation, at the cost of evicting in write order rather than by use. It works
+ *         best behind an on-heap cache holding the most used entities, see {@link TieredEntityCache}.</li>
+ *     <li>Only the index of keys, slab locations and expiry times is kept on the heap. Reads copy the entry out
+ *         of its slab and parse it, so every hit returns a new instance of the entity.</li>
+ *     <li>Reads are optimistic: each slab has a {@link StampedLock} which is only write locked while the slab is
+ *         invalidated for reuse, and a copy which overlapped a reuse is discarded.</li>
+ * </ul>
+ *
+ * <p>Entities are serialized and parsed with the {@link BattleNet#getJsonParser()} of the client the cache is
+ * given to. Entities can't be read or written until the cache has been bound to a client with
+ * {@link #bind(BattleNet)}, which the client does itself.
+ */
+@Log4j2
+public final class OffHeapEntityCache implements BattleNetEntityCache {
+    private static final String DEFAULT_KEY_PREFIX = "battlenet:";
+    private static final Duration DEFAULT_TTL = Duration.ofHours(1);
+    private static final long DEFAULT_MAX_BYTES = 256L * 1024 * 1024;
+    private static final int DEFAULT_SLAB_SIZE = 4 * 1024 * 1024;
+    private static final int MIN_SLABS = 2;
+
+    @Getter
+    private final String keyPrefix;
+    @Getter
+    private final Duration defaultTTL;
+    @Getter
+    private final int slabSize;
+    private final Clock clock;
+    private final ConcurrentMap<Class<? extends BattleNetEntity>, Duration> entityTTLs = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Location> index = new ConcurrentHashMap<>();
+    private final Object writeLock = new Object();
+    private final ByteBuffer[] slabs;
+    private final StampedLock[] slabLocks;
+    private final List<Set<String>> slabKeys;
+    private final AtomicIntegerArray generations;
+    private final AtomicLong usedBytes = new AtomicLong();
+    @Getter
+    private final CacheStatistics statistics = new CacheStatistics(index::size, usedBytes::get);
+    private int currentSlab;
+    private int writeOffset;
+    private volatile Gson jsonParser;
+
+    /**
+     * The location of an entry within the slabs. The entry is only valid while its slab's generation is unchanged.
+     */
+    private static final class Location {
+        private final int slab;
+        private final int generation;
+        private final int offset;
+        private final int length;
+        private final long expiresAt;
+
+        private Location(final int slab, final int generation, final int offset, final int length,
+                         final long expiresAt) {
+            this.slab = slab;
+            this.generation = generation;
+            this.offset = offset;
+            this.length = length;
+            this.expiresAt = expiresAt;
+        }
+
+        private Location withExpiresAt(final long newExpiresAt) {
+            return new Location(slab, generation, offset, length, newExpiresAt);
+        }
+    }
+
+    /**
+     * Create a new off-heap cache. Any setting which is null uses its default.
+     *
+     * @param keyPrefix Prefix prepended to every key. Defaults to {@code "battlenet:"}.
+     * @param defaultTTL TTL of entities whose class has no TTL set. Defaults to 1 hour.
+     * @param maxBytes Maximum number of bytes of direct memory used by the slabs. Defaults to 256MiB.
+     * @param slabSize Size of each slab in bytes, which is also the size limit of a single serialized entity.
+     *                 Defaults to 4MiB.
+     * @param clock Time source used for expiry. Defaults to the system clock.
+     */
+    @Builder
+    private OffHeapEntityCache(final String keyPrefix, final Duration defaultTTL, final Long maxBytes,
+                               final Integer slabSize, final Clock clock) {
+        this.keyPrefix = (keyPrefix == null) ? DEFAULT_KEY_PREFIX : keyPrefix;
+        this.defaultTTL = (defaultTTL == null) ? DEFAULT_TTL : defaultTTL;
+        this.slabSize = (slabSize == null) ? DEFAULT_SLAB_SIZE : slabSize;
+        this.clock = (clock == null) ? Clock.systemUTC() : clock;
+        if (this.slabSize <= 0) {
+            throw new IllegalArgumentException("slabSize must be positive");
+        }
+        final long budget = (maxBytes == null) ? DEFAULT_MAX_BYTES : maxBytes;
+        final long slabCount = budget / this.slabSize;
+        if (slabCount < MIN_SLABS || slabCount > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("maxBytes must hold at least " + MIN_SLABS + " slabs");
+        }
+        this.slabs = new ByteBuffer[(int) slabCount];
+        this.slabLocks = new StampedLock[slabs.length];
+        this.slabKeys = new ArrayList<>(slabs.length);
+        for (int i = 0; i < slabs.length; i++) {
+            slabLocks[i] = new StampedLock();
+            slabKeys.add(new HashSet<>());
+        }
+        this.generations = new AtomicIntegerArray(slabs.length);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>Uses the client's JSON parser to serialize and parse entities.
+     */
+    @Override
+    public void bind(final BattleNet battleNet) {
+        this.jsonParser = battleNet.getJsonParser();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Duration setEntityTTL(final Class<? extends BattleNetEntity> entityClass, final Duration ttl) {
+        return entityTTLs.put(entityClass, ttl);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Duration getEntityTTL(final Class<? extends BattleNetEntity> entityClass) {
+        final Duration ttl = entityTTLs.get(entityClass);
+        return (ttl == null) ? defaultTTL : ttl;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Duration getTTL(final String key) {
+        final Location location = index.get(prefixed(key));
+        if (location == null || !isValid(location)) {
+            return Duration.ZERO;
+        }
+        final long remaining = location.expiresAt - clock.millis();
+        return (remaining > 0) ? Duration.ofMillis(remaining) : Duration.ZERO;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>Returns null if the entity stored under the key is not of class {@code entityType}.
+     */
+    @Override
+    public <T extends BattleNetEntity> T get(final String key, final Class<T> entityType) {
+        final String prefixedKey = prefixed(key);
+        final Gson gson = jsonParser;
+        final Location location = index.get(prefixedKey);
+        if (gson == null || location == null) {
+            statistics.recordMiss(entityType);
+            return null;
+        }
+        if (location.expiresAt <= clock.millis()) {
+            if (remove(prefixedKey, location)) {
+                statistics.recordEviction(CacheStatistics.EvictionCause.EXPIRED);
+            }
+            statistics.recordMiss(entityType);
+            return null;
+        }
+
+        final byte[] record = read(location);
+        if (record == null) {
+            statistics.recordMiss(entityType);
+            return null;
+        }
+        final ByteBuffer buffer = ByteBuffer.wrap(record);
+        final int typeLength = buffer.getShort();
+        final String type = new String(record, buffer.position(), typeLength, StandardCharsets.UTF_8);
+        if (!entityType.getName().equals(type)) {
+            statistics.recordMiss(entityType);
+            return null;
+        }
+        final int jsonOffset = buffer.position() + typeLength;
+        try {
+            final T entity = gson.fromJson(
+                new String(record, jsonOffset, record.length - jsonOffset, StandardCharsets.UTF_8), entityType);
+            statistics.recordHit(entityType);
+            return entity;
+        } catch (final JsonParseException e) {
+            log.error("Unable to parse cached Battle.net entity. key={}", prefixedKey, e);
+            statistics.recordMiss(entityType);
+            return null;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>Returns {@code false} if the cache hasn't been bound to a client yet, or the serialized entity is larger
+     * than a slab.
+     */
+    @Override
+    public boolean set(final String key, final BattleNetEntity value) {
+        final Gson gson = jsonParser;
+        if (value == null) {
+            del(key);
+            return false;
+        }
+        if (gson == null) {
+            log.warn("Off-heap cache has not been bound to a Battle.net client, unable to write key={}", key);
+            return false;
+        }
+        final String prefixedKey = prefixed(key);
+        final byte[] record = encode(value.getClass().getName(), gson.toJson(value));
+        if (record.length > slabSize) {
+            log.warn("Battle.net entity is larger than a cache slab and won't be cached. key={}, size={}",
+                prefixedKey, record.length);
+            return false;
+        }
+        final long expiresAt = expiresAt(getEntityTTL(value.getClass()));
+
+        synchronized (writeLock) {
+            if (record.length > slabSize - writeOffset || slabs[currentSlab] == null) {
+                nextSlab();
+            }
+            final ByteBuffer slab = slabs[currentSlab].duplicate();
+            slab.position(writeOffset);
+            slab.put(record);
+            final Location location = new Location(currentSlab, generations.get(currentSlab), writeOffset,
+                record.length, expiresAt);
+            writeOffset += record.length;
+            slabKeys.get(currentSlab).add(prefixedKey);
+            usedBytes.addAndGet(record.length);
+            final Location previous = index.put(prefixedKey, location);
+            if (previous != null && isValid(previous)) {
+                usedBytes.addAndGet(-previous.length);
+                if (previous.slab != currentSlab) {
+                    slabKeys.get(previous.slab).remove(prefixedKey);
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean del(final String... keys) {
+        for (final String key : keys) {
+            final String prefixedKey = prefixed(key);
+            final Location location = index.get(prefixedKey);
+            if (location != null) {
+                remove(prefixedKey, location);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean updateTTL(final Duration ttl, final String... keys) {
+        final long expiresAt = expiresAt(ttl);
+        for (final String key : keys) {
+            index.computeIfPresent(prefixed(key), (k, location) -> location.withExpiresAt(expiresAt));
+        }
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean resetTTL(final Map<String, Class<? extends BattleNetEntity>> keysAndTypes) {
+        keysAndTypes.forEach((key, type) -> updateTTL(getEntityTTL(type), key));
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>Every key in an off-heap cache has the cache's prefix, so this empties the cache. The slabs are kept
+     * allocated, to be reused.
+     */
+    @Override
+    public boolean flushCache() {
+        synchronized (writeLock) {
+            index.clear();
+            for (int i = 0; i < slabs.length; i++) {
+                invalidate(i);
+                slabKeys.get(i).clear();
+            }
+            usedBytes.set(0);
+            writeOffset = 0;
+            return true;
+        }
+    }
+
+    /**
+     * Returns the number of entries in the cache, including any which have expired but not yet been removed.
+     * @return The number of entries in the cache.
+     */
+    public int size() {
+        return index.size();
+    }
+
+    /**
+     * Returns the number of bytes of the slabs used by live entries.
+     * @return The number of bytes used by live entries.
+     */
+    long usedBytes() {
+        return usedBytes.get();
+    }
+
+    /**
+     * Moves writes to the next slab, allocating it if it hasn't been used yet, or evicting every entry in it if it
+     * has. Must hold the write lock.
+     */
+    private void nextSlab() {
+        if (slabs[currentSlab] != null) {
+            currentSlab = (currentSlab + 1) % slabs.length;
+        }
+        writeOffset = 0;
+        if (slabs[currentSlab] == null) {
+            slabs[currentSlab] = ByteBuffer.allocateDirect(slabSize);
+            return;
+        }
+        // invalidate every location in the slab before it is overwritten
+        final int generation = invalidate(currentSlab);
+        final Set<String> keys = slabKeys.get(currentSlab);
+        for (final String key : keys) {
+            final Location location = index.get(key);
+            if (location != null && location.slab == currentSlab && location.generation == generation
+                && index.remove(key, location)) {
+                usedBytes.addAndGet(-location.length);
+                statistics.recordEviction(CacheStatistics.EvictionCause.SIZE);
+            }
+        }
+        keys.clear();
+    }
+
+    /**
+     * Copies an entry out of its slab.
+     *
+     * @param location Location of the entry.
+     * @return The entry's bytes, or null if the slab was reused, either before or while it was being copied.
+     */
+    private byte[] read(final Location location) {
+        final ByteBuffer slab = slabs[location.slab];
+        if (slab == null) {
+            return null;
+        }
+        final StampedLock lock = slabLocks[location.slab];
+        final long optimistic = lock.tryOptimisticRead();
+        if (optimistic != 0) {
+            if (!isValid(location)) {
+                return null;
+            }
+            final byte[] record = copy(slab, location);
+            // validate() fences the copy, which can only be trusted if the slab wasn't reused while copying
+            if (lock.validate(optimistic)) {
+                return record;
+            }
+        }
+        final long stamp = lock.readLock();
+        try {
+            return isValid(location) ? copy(slab, location) : null;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private static byte[] copy(final ByteBuffer slab, final Location location) {
+        final byte[] record = new byte[location.length];
+        final ByteBuffer view = slab.duplicate();
+        view.position(location.offset);
+        view.get(record);
+        return record;
+    }
+
+    /**
+     * Invalidates every location in a slab, waiting for any reads of the slab which hold its read lock.
+     * Must hold the write lock.
+     *
+     * @param slab Index of the slab.
+     * @return The slab's generation before it was invalidated.
+     */
+    private int invalidate(final int slab) {
+        final StampedLock lock = slabLocks[slab];
+        final long stamp = lock.writeLock();
+        try {
+            return generations.getAndIncrement(slab);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private boolean isValid(final Location location) {
+        return generations.get(location.slab) == location.generation;
+    }
+
+    private boolean remove(final String prefixedKey, final Location location) {
+        synchronized (writeLock) {
+            if (!index.remove(prefixedKey, location)) {
+                return false;
+            }
+            if (isValid(location)) {
+                usedBytes.addAndGet(-location.length);
+                slabKeys.get(location.slab).remove(prefixedKey);
+            }
+            return true;
+        }
+    }
+
+    private long expiresAt(final Duration ttl) {
+        final long now = clock.millis();
+        try {
+            return Math.addExact(now, ttl.toMillis());
+        } catch (final ArithmeticException e) {
+            return ttl.isNegative() ? 0 : Long.MAX_VALUE;
+        }
+    }
+
+    private String prefixed(final String key) {
+        return keyPrefix + key;
+    }
+
+    private static byte[] encode(final String type, final String json) {
+        final byte[] typeBytes = type.getBytes(StandardCharsets.UTF_8);
+        final byte[] jsonBytes = json.getBytes(StandardCharsets.UTF_8);
+        return ByteBuffer.allocate(Short.BYTES + typeBytes.length + jsonBytes.length)
+            .putShort((short) typeBytes.length)
+            .put(typeBytes)
+            .put(jsonBytes)
+            .array();
+    }
+}
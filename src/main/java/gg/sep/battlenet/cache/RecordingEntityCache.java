@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2019 sep.gg <seputaes@sep.gg>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package gg.sep.battlenet.cache;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import lombok.Getter;
+
+import gg.sep.battlenet.BattleNet;
+import gg.sep.battlenet.model.BattleNetEntity;
+
+/**
+ * {@link BattleNetEntityCache} which remembers every entity read from or written to another cache, so that the
+ * entities a client has used can be exported, eg as an {@link EntitySnapshot}.
+ *
+ * <p>Only the latest entity for each key is remembered. Deleted keys are forgotten. The recorded entities are kept
+ * on the heap until {@link #clearRecorded()} is called, so the cache is meant for building snapshots rather than
+ * for long running clients.
+ */
+public final class RecordingEntityCache implements BattleNetEntityCache {
+    @Getter
+    private final BattleNetEntityCache delegate;
+    private final ConcurrentMap<String, BattleNetEntity> recorded = new ConcurrentHashMap<>();
+
+    /**
+     * Create a new recording cache.
+     *
+     * @param delegate Cache which entities are read from and written to.
+     */
+    public RecordingEntityCache(final BattleNetEntityCache delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * Returns the entities read from or written to the cache, by key.
+     * @return Unmodifiable view of the recorded entities, by key.
+     */
+    public Map<String, BattleNetEntity> getRecorded() {
+        return Collections.unmodifiableMap(recorded);
+    }
+
+    /**
+     * Forgets every recorded entity. The delegate cache is not changed.
+     */
+    public void clearRecorded() {
+        recorded.clear();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getKeyPrefix() {
+        return delegate.getKeyPrefix();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void bind(final BattleNet battleNet) {
+        delegate.bind(battleNet);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>Returns the statistics of the delegate.
+     */
+    @Override
+    public CacheStatistics getStatistics() {
+        return delegate.getStatistics();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Duration setEntityTTL(final Class<? extends BattleNetEntity> entityClass, final Duration ttl) {
+        return delegate.setEntityTTL(entityClass, ttl);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Duration getEntityTTL(final Class<? extends BattleNetEntity> entityClass) {
+        return delegate.getEntityTTL(entityClass);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Duration getTTL(final String key) {
+        return delegate.getTTL(key);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <T extends BattleNetEntity> T get(final String key, final Class<T> entityType) {
+        final T cached = delegate.get(key, entityType);
+        if (cached != null) {
+            recorded.put(key, cached);
+        }
+        return cached;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <T extends BattleNetEntity> T getOrElse(final String key, final Class<T> entityType,
+                                                   final Callable<T> retrieve) {
+        final T entity = delegate.getOrElse(key, entityType, retrieve);
+        if (entity != null) {
+            recorded.put(key, entity);
+        }
+        return entity;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean set(final String key, final BattleNetEntity value) {
+        recorded.put(key, value);
+        return delegate.set(key, value);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean del(final String... keys) {
+        for (final String key : keys) {
+            recorded.remove(key);
+        }
+        return delegate.del(keys);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean updateTTL(final Duration ttl, final String... keys) {
+        return delegate.updateTTL(ttl, keys);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean resetTTL(final Map<String, Class<? extends BattleNetEntity>> keysAndTypes) {
+        return delegate.resetTTL(keysAndTypes);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean flushCache() {
+        recorded.clear();
+        return delegate.flushCache();
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2019 sep.gg <seputaes@sep.gg>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package gg.sep.battlenet.cache;
+
+import java.time.Duration;
+import java.util.Map;
+
+import com.google.common.collect.ImmutableMap;
+import lombok.Builder;
+import lombok.Getter;
+
+import gg.sep.battlenet.model.BattleNetEntity;
+
+/**
+ * Decides when cached entities should be refreshed in the background, rather than expiring and making the next
+ * reader wait for a synchronous request to Battle.net.
+ *
+ * <p>Two mechanisms are supported, both built on the remaining TTL reported by
+ * {@link BattleNetEntityCache#getTTL(String)}:
+ *
+ * <ul>
+ *     <li><b>Stale-while-revalidate</b>: entries are kept in the cache for a stale window past the TTL of their
+ *         entity class (the <i>soft</i> TTL). Reads during the stale window return the cached entity at once,
+ *         while a single background request fetches a fresh copy.</li>
+ *     <li><b>Refresh-ahead</b>: entries which are still fresh, but within the last fraction of their soft TTL,
+ *         are refreshed in the background if they have been read often enough since they were written. Hot
+ *         entries are therefore replaced before they ever go stale, while rarely read entries are left to
+ *         expire.</li>
+ * </ul>
+ */
+@Getter
+public final class RefreshPolicy {
+    private static final Duration DEFAULT_STALE_WINDOW = Duration.ofMinutes(5);
+    private static final double DEFAULT_REFRESH_AHEAD_FRACTION = 0.2;
+    private static final int DEFAULT_REFRESH_AHEAD_MIN_READS = 2;
+    private static final Duration NO_EXPIRY = Duration.ofMillis(Long.MAX_VALUE);
+
+    private final Duration staleWindow;
+    private final Map<Class<? extends BattleNetEntity>, Duration> entityStaleWindows;
+    private final double refreshAheadFraction;
+    private final int refreshAheadMinReads;
+
+    /**
+     * How fresh a cached entry is, and so whether it should be refreshed.
+     */
+    public enum Freshness {
+        /**
+         * The entry is fresh, and doesn't need refreshing.
+         */
+        FRESH,
+        /**
+         * The entry is fresh, but close to going stale and read often, so should be refreshed ahead of time.
+         */
+        REFRESH_AHEAD,
+        /**
+         * The entry is past its soft TTL. It may still be served, but should be refreshed.
+         */
+        STALE
+    }
+
+    /**
+     * Creates a new refresh policy. Any parameter left null uses its default.
+     *
+     * @param staleWindow How long entries are kept and served past the TTL of their entity class, while being
+     *                    refreshed. Defaults to 5 minutes.
+     * @param entityStaleWindows Stale windows for specific entity classes, overriding {@code staleWindow}.
+     * @param refreshAheadFraction Fraction of the soft TTL, at the end of the TTL, within which frequently read
+     *                             entries are refreshed ahead of time. Defaults to 0.2. A value of 0 disables
+     *                             refresh-ahead.
+     * @param refreshAheadMinReads Number of times an entry must have been read since it was written to be refreshed
+     *                             ahead of time. Defaults to 2.
+     */
+    @Builder
+    private RefreshPolicy(final Duration staleWindow,
+                          final Map<Class<? extends BattleNetEntity>, Duration> entityStaleWindows,
+                          final Double refreshAheadFraction, final Integer refreshAheadMinReads) {
+        this.staleWindow = (staleWindow == null) ? DEFAULT_STALE_WINDOW : staleWindow;
+        this.entityStaleWindows = (entityStaleWindows == null) ?
+            ImmutableMap.of() : ImmutableMap.copyOf(entityStaleWindows);
+        this.refreshAheadFraction = (refreshAheadFraction == null) ?
+            DEFAULT_REFRESH_AHEAD_FRACTION : refreshAheadFraction;
+        this.refreshAheadMinReads = (refreshAheadMinReads == null) ?
+            DEFAULT_REFRESH_AHEAD_MIN_READS : refreshAheadMinReads;
+        if (this.staleWindow.isNegative() || this.entityStaleWindows.values().stream().anyMatch(Duration::isNegative)) {
+            throw new IllegalArgumentException("Stale windows must not be negative");
+        }
+        if (this.refreshAheadFraction < 0 || this.refreshAheadFraction > 1) {
+            throw new IllegalArgumentException("refreshAheadFraction must be between 0 and 1");
+        }
+    }
+
+    /**
+     * Returns the stale window of the specified entity class.
+     *
+     * @param entityClass Class of the cached entity.
+     * @return The stale window of the entity class, or the default stale window if none was set for the class.
+     */
+    public Duration getStaleWindow(final Class<? extends BattleNetEntity> entityClass) {
+        return entityStaleWindows.getOrDefault(entityClass, staleWindow);
+    }
+
+    /**
+     * Returns how long an entry should be kept in the cache after it is written: the TTL of its entity class
+     * plus the class's stale window.
+     *
+     * <p>An entity TTL which is negative, or too long to be represented in milliseconds, is treated as no expiry.
+     * The sum saturates, so entries which never expire keep never expiring.
+     *
+     * @param entityTTL TTL of the entity class, from {@link BattleNetEntityCache#getEntityTTL(Class)}.
+     * @param entityClass Class of the cached entity.
+     * @return The total TTL the entry should be stored with.
+     */
+    public Duration getStoredTTL(final Duration entityTTL, final Class<? extends BattleNetEntity> entityClass) {
+        if (entityTTL.isNegative() || entityTTL.compareTo(NO_EXPIRY) >= 0) {
+            return NO_EXPIRY;
+        }
+        final Duration staleWindow = getStaleWindow(entityClass);
+        return (NO_EXPIRY.minus(entityTTL).compareTo(staleWindow) <= 0) ? NO_EXPIRY : entityTTL.plus(staleWindow);
+    }
+
+    /**
+     * Decides how fresh a cached entry is.
+     *
+     * @param entityTTL TTL of the entity class, from {@link BattleNetEntityCache#getEntityTTL(Class)}.
+     * @param remainingTTL Remaining TTL of the entry, from {@link BattleNetEntityCache#getTTL(String)}.
+     * @param entityClass Class of the cached entity.
+     * @param reads Number of times the entry has been read since it was written, including this read.
+     * @return The freshness of the entry.
+     */
+    public Freshness freshness(final Duration entityTTL, final Duration remainingTTL,
+                               final Class<? extends BattleNetEntity> entityClass, final long reads) {
+        final Duration freshRemaining = remainingTTL.minus(getStaleWindow(entityClass));
+        if (freshRemaining.isNegative() || freshRemaining.isZero()) {
+            return Freshness.STALE;
+        }
+        if (reads >= refreshAheadMinReads && seconds(freshRemaining) < seconds(entityTTL) * refreshAheadFraction) {
+            return Freshness.REFRESH_AHEAD;
+        }
+        return Freshness.FRESH;
+    }
+
+    private static double seconds(final Duration duration) {
+        return duration.getSeconds() + duration.getNano() / 1e9;
+    }
+}
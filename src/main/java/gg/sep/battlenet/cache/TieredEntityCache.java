@@ -0,0 +1,247 @@
+/*
+ * Copyright (c) 2019 sep.gg <seputaes@sep.gg>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package gg.sep.battlenet.cache;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import gg.sep.battlenet.BattleNet;
+import gg.sep.battlenet.model.BattleNetEntity;
+
+/**
+ * Two-tier {@link BattleNetEntityCache}, with a small on-heap L1 of live entity objects in front of a large
+ * off-heap L2 of serialized entities.
+ *
+ * <p>Reads are answered by the L1 if possible, and otherwise by the L2, in which case the entity parsed from the
+ * L2 is promoted to the L1 for the rest of its TTL. Writes, deletes and TTL changes go to both tiers. Each tier
+ * has its own size budget, so the most used entities are kept ready to use on the heap, while the bulk of the
+ * cached data sits outside of it, invisible to the garbage collector.
+ *
+ * <p>Each tier records its own hits, misses and evictions in its {@link CacheStatistics}, see {@link #getL1()}
+ * and {@link #getL2()}; only reads which missed the L1 reach the L2. The cache's own {@link #getStatistics()}
+ * count a read as a hit if either tier answered it, and report the entries and bytes of the L2. Evictions are
+ * only recorded by each tier's own statistics, since an entity evicted from the L1 may still be in the L2.
+ */
+public final class TieredEntityCache implements BattleNetEntityCache {
+    private static final long DEFAULT_L1_MAXIMUM_SIZE = 10_000;
+
+    @Getter
+    private final InMemoryEntityCache l1;
+    @Getter
+    private final OffHeapEntityCache l2;
+    @Getter
+    private final CacheStatistics statistics;
+
+    /**
+     * Create a new tiered cache. Either tier which is null uses its default.
+     *
+     * @param l1 The on-heap tier. Defaults to an {@link InMemoryEntityCache} of up to 10,000 entities.
+     * @param l2 The off-heap tier. Defaults to an {@link OffHeapEntityCache} with its default 256MiB budget.
+     */
+    @Builder
+    private TieredEntityCache(final InMemoryEntityCache l1, final OffHeapEntityCache l2) {
+        this.l1 = (l1 == null) ?
+            InMemoryEntityCache.builder().maximumWeight(DEFAULT_L1_MAXIMUM_SIZE).build() : l1;
+        this.l2 = (l2 == null) ? OffHeapEntityCache.builder().build() : l2;
+        this.statistics = new CacheStatistics(this.l2::size, this.l2::usedBytes);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getKeyPrefix() {
+        return l2.getKeyPrefix();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>Binds both tiers.
+     */
+    @Override
+    public void bind(final BattleNet battleNet) {
+        l1.bind(battleNet);
+        l2.bind(battleNet);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Duration setEntityTTL(final Class<? extends BattleNetEntity> entityClass, final Duration ttl) {
+        l1.setEntityTTL(entityClass, ttl);
+        return l2.setEntityTTL(entityClass, ttl);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Duration getEntityTTL(final Class<? extends BattleNetEntity> entityClass) {
+        return l2.getEntityTTL(entityClass);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Duration getTTL(final String key) {
+        final Duration ttl = l1.getTTL(key);
+        return ttl.isZero() ? l2.getTTL(key) : ttl;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>Entities found in the L2 are promoted to the L1, with the TTL they have left in the L2.
+     */
+    @Override
+    public <T extends BattleNetEntity> T get(final String key, final Class<T> entityType) {
+        final T cached = l1.get(key, entityType);
+        if (cached != null) {
+            statistics.recordHit(entityType);
+            return cached;
+        }
+        final T promoted = l2.get(key, entityType);
+        if (promoted != null) {
+            final Duration ttl = l2.getTTL(key);
+            if (!ttl.isZero() && l1.set(key, promoted)) {
+                l1.updateTTL(ttl, key);
+            }
+            statistics.recordHit(entityType);
+        } else {
+            statistics.recordMiss(entityType);
+        }
+        return promoted;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>The entity is loaded through the L1's {@link InMemoryEntityCache#getOrElse(String, Class, Callable)}, so
+     * concurrent callers for the same key wait for a single load. The load looks in the L2 first, promoting the
+     * entity found there for the rest of its TTL, and only calls {@code retrieve} if the entity is in neither tier,
+     * writing its result to both. If {@code retrieve} returns null, nothing is cached and null is returned. If it
+     * throws, nothing is cached and the exception is rethrown, wrapped in an {@link IllegalStateException} if it is
+     * a checked exception.
+     */
+    @Override
+    public <T extends BattleNetEntity> T getOrElse(final String key, final Class<T> entityType,
+                                                   final Callable<T> retrieve) {
+        final AtomicReference<Duration> promotedTTL = new AtomicReference<>();
+        final AtomicBoolean retrieved = new AtomicBoolean();
+        final T entity = l1.getOrElse(key, entityType, () -> {
+            final T promoted = l2.get(key, entityType);
+            if (promoted != null) {
+                promotedTTL.set(l2.getTTL(key));
+                return promoted;
+            }
+            retrieved.set(true);
+            final long start = System.nanoTime();
+            T loaded = null;
+            try {
+                loaded = retrieve.call();
+            } finally {
+                statistics.recordLoad(entityType, System.nanoTime() - start, loaded != null);
+            }
+            if (loaded != null) {
+                l2.set(key, loaded);
+            }
+            return loaded;
+        });
+        final Duration ttl = promotedTTL.get();
+        if (ttl != null) {
+            // the L1 stored the promoted entity with the TTL of its class
+            if (ttl.isZero()) {
+                l1.del(key);
+            } else {
+                l1.updateTTL(ttl, key);
+            }
+        }
+        if (entity == null || retrieved.get()) {
+            statistics.recordMiss(entityType);
+        } else {
+            statistics.recordHit(entityType);
+        }
+        return entity;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>The entity is written to both tiers. Returns {@code true} if either tier accepted it.
+     */
+    @Override
+    public boolean set(final String key, final BattleNetEntity value) {
+        final boolean l2Set = l2.set(key, value);
+        final boolean l1Set = l1.set(key, value);
+        return l1Set || l2Set;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean del(final String... keys) {
+        final boolean l1Deleted = l1.del(keys);
+        final boolean l2Deleted = l2.del(keys);
+        return l1Deleted && l2Deleted;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean updateTTL(final Duration ttl, final String... keys) {
+        final boolean l1Updated = l1.updateTTL(ttl, keys);
+        final boolean l2Updated = l2.updateTTL(ttl, keys);
+        return l1Updated && l2Updated;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean resetTTL(final Map<String, Class<? extends BattleNetEntity>> keysAndTypes) {
+        final boolean l1Reset = l1.resetTTL(keysAndTypes);
+        final boolean l2Reset = l2.resetTTL(keysAndTypes);
+        return l1Reset && l2Reset;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean flushCache() {
+        final boolean l1Flushed = l1.flushCache();
+        final boolean l2Flushed = l2.flushCache();
+        return l1Flushed && l2Flushed;
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2019 sep.gg <seputaes@sep.gg>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package gg.sep.battlenet.http;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+
+/**
+ * HTTP transport settings shared by Battle.net clients: the connection pool, dispatcher and protocols
+ * used to talk to the Battle.net APIs.
+ *
+ * <p>The {@link OkHttpClient} for a transport is created once, the first time {@link #getClient()} is called,
+ * and then reused. Every {@link gg.sep.battlenet.BattleNet} client built with the same transport therefore
+ * shares its warm connections, TLS sessions and dispatcher threads, regardless of region or locale.
+ * Clients which don't specify a transport all share the JVM-wide {@link #shared()} transport.
+ */
+@Getter
+@ToString(exclude = "client")
+public final class HttpTransport {
+    private static final int DEFAULT_MAX_IDLE_CONNECTIONS = 10;
+    private static final Duration DEFAULT_KEEP_ALIVE = Duration.ofMinutes(5);
+    private static final int DEFAULT_MAX_REQUESTS = 64;
+    private static final int DEFAULT_MAX_REQUESTS_PER_HOST = 16;
+    private static final Duration DEFAULT_CONNECT_TIMEOUT = Duration.ofSeconds(10);
+    private static final Duration DEFAULT_READ_TIMEOUT = Duration.ofSeconds(30);
+
+    private final int maxIdleConnections;
+    private final Duration keepAlive;
+    private final boolean http2;
+    private final int maxRequests;
+    private final int maxRequestsPerHost;
+    private final Duration connectTimeout;
+    private final Duration readTimeout;
+
+    @Getter(lazy = true)
+    private final OkHttpClient client = createClient();
+
+    /**
+     * Create a new transport configuration. Any setting which is null uses its default.
+     *
+     * @param maxIdleConnections Maximum number of idle connections kept in the pool. Defaults to 10.
+     * @param keepAlive How long an idle connection is kept in the pool. Defaults to 5 minutes.
+     * @param http2 Whether HTTP/2 may be negotiated with the server. Defaults to {@code true}.
+     * @param maxRequests Maximum number of asynchronous requests executing at once. Defaults to 64.
+     * @param maxRequestsPerHost Maximum number of asynchronous requests executing at once per host.
+     *                           Defaults to 16.
+     * @param connectTimeout Timeout for opening new connections. Defaults to 10 seconds.
+     * @param readTimeout Timeout for reading a response. Defaults to 30 seconds.
+     */
+    @Builder
+    private HttpTransport(final Integer maxIdleConnections, final Duration keepAlive, final Boolean http2,
+                          final Integer maxRequests, final Integer maxRequestsPerHost,
+                          final Duration connectTimeout, final Duration readTimeout) {
+        this.maxIdleConnections = (maxIdleConnections == null) ? DEFAULT_MAX_IDLE_CONNECTIONS : maxIdleConnections;
+        this.keepAlive = (keepAlive == null) ? DEFAULT_KEEP_ALIVE : keepAlive;
+        this.http2 = (http2 == null) || http2;
+        this.maxRequests = (maxRequests == null) ? DEFAULT_MAX_REQUESTS : maxRequests;
+        this.maxRequestsPerHost = (maxRequestsPerHost == null) ? DEFAULT_MAX_REQUESTS_PER_HOST : maxRequestsPerHost;
+        this.connectTimeout = (connectTimeout == null) ? DEFAULT_CONNECT_TIMEOUT : connectTimeout;
+        this.readTimeout = (readTimeout == null) ? DEFAULT_READ_TIMEOUT : readTimeout;
+    }
+
+    /**
+     * Returns the JVM-wide transport used by clients which don't specify their own.
+     * @return The JVM-wide transport used by clients which don't specify their own.
+     */
+    public static HttpTransport shared() {
+        return SharedHolder.INSTANCE;
+    }
+
+    private OkHttpClient createClient() {
+        final Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(maxRequests);
+        dispatcher.setMaxRequestsPerHost(maxRequestsPerHost);
+
+        return new OkHttpClient.Builder()
+            .connectionPool(new ConnectionPool(maxIdleConnections, keepAlive.toMillis(), TimeUnit.MILLISECONDS))
+            .dispatcher(dispatcher)
+            .protocols(http2 ? Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1)
+                : Collections.singletonList(Protocol.HTTP_1_1))
+            .connectTimeout(connectTimeout.toMillis(), TimeUnit.MILLISECONDS)
+            .readTimeout(readTimeout.toMillis(), TimeUnit.MILLISECONDS)
+            .build();
+    }
+
+    /**
+     * Lazily creates the shared transport the first time it is used.
+     */
+    private static final class SharedHolder {
+        private static final HttpTransport INSTANCE = HttpTransport.builder().build();
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2019 sep.gg <seputaes@sep.gg>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package gg.sep.battlenet.http;
+
+import java.util.Optional;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import okhttp3.Headers;
+
+/**
+ * Remembers the validators ({@code ETag} and {@code Last-Modified}) of previous responses, so that later requests
+ * for the same URL can be sent as conditional requests. If the client doesn't cache entities elsewhere, the entity
+ * parsed from each response is kept too, so a {@code 304 Not Modified} response can be answered with it.
+ *
+ * <p>Entries are keyed by the canonical URL of the request (see
+ * {@link gg.sep.battlenet.interceptor.BattleNetInterceptor#canonicalUrl(okhttp3.HttpUrl)}). The store is
+ * bounded, and the least recently used entries are evicted once it is full.
+ */
+public final class ValidatorStore {
+    /**
+     * Name of the response header containing the entity tag of the response.
+     */
+    public static final String ETAG_HEADER = "ETag";
+    /**
+     * Name of the response header containing the last modified date of the response.
+     */
+    public static final String LAST_MODIFIED_HEADER = "Last-Modified";
+    /**
+     * Name of the request header used to send the entity tag of the stored response.
+     */
+    public static final String IF_NONE_MATCH_HEADER = "If-None-Match";
+    /**
+     * Name of the request header used to send the last modified date of the stored response.
+     */
+    public static final String IF_MODIFIED_SINCE_HEADER = "If-Modified-Since";
+
+    private final Cache<String, Validators> entries;
+
+    /**
+     * The validators of a stored response, and the entity which was parsed from it, if it was kept.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static final class Validators {
+        private final String etag;
+        private final String lastModified;
+        private final Object entity;
+    }
+
+    /**
+     * Create a new validator store.
+     *
+     * @param maximumSize Maximum number of URLs to remember validators for.
+     */
+    public ValidatorStore(final long maximumSize) {
+        this.entries = CacheBuilder.newBuilder()
+            .maximumSize(maximumSize)
+            .build();
+    }
+
+    /**
+     * Returns the stored validators for the URL.
+     *
+     * @param canonicalUrl Canonical URL of the request.
+     * @return The stored validators for the URL, or empty if there are none.
+     */
+    public Optional<Validators> get(final String canonicalUrl) {
+        return Optional.ofNullable(entries.getIfPresent(canonicalUrl));
+    }
+
+    /**
+     * Records the validators of a successful response, along with the entity parsed from it.
+     * If the response has neither an {@code ETag} nor a {@code Last-Modified} header, any previously
+     * stored validators for the URL are discarded, since they no longer describe the current response.
+     *
+     * @param canonicalUrl Canonical URL of the request.
+     * @param headers Headers of the response.
+     * @param entity Entity parsed from the response body, or null to only remember the validators.
+     */
+    public void record(final String canonicalUrl, final Headers headers, final Object entity) {
+        final String etag = headers.get(ETAG_HEADER);
+        final String lastModified = headers.get(LAST_MODIFIED_HEADER);
+        if (etag == null && lastModified == null) {
+            entries.invalidate(canonicalUrl);
+            return;
+        }
+        entries.put(canonicalUrl, new Validators(etag, lastModified, entity));
+    }
+
+    /**
+     * Discards any stored validators for the URL.
+     *
+     * @param canonicalUrl Canonical URL of the request.
+     */
+    public void invalidate(final String canonicalUrl) {
+        entries.invalidate(canonicalUrl);
+    }
+
+    /**
+     * Returns the number of URLs with stored validators.
+     * @return The number of URLs with stored validators.
+     */
+    public long size() {
+        return entries.size();
+    }
+}
@@ -25,6 +25,8 @@ package gg.sep.battlenet.interceptor;
 import java.io.IOException;
 import java.util.Set;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableSet;
 import okhttp3.HttpUrl;
 import okhttp3.Interceptor;
@@ -32,86 +34,213 @@ import okhttp3.Request;
 import okhttp3.Response;
 
 import gg.sep.battlenet.BattleNet;
+import gg.sep.battlenet.auth.OAuthTokenManager;
 import gg.sep.battlenet.auth.api.OAuthAPI;
 import gg.sep.battlenet.auth.model.OAuthToken;
+import gg.sep.battlenet.http.ValidatorStore;
 import gg.sep.result.Result;
 
 /**
  * okhttp3 request interceptor for performing various tasks on the Battle.net API urls
  * and requests prior to forwarding them, such as adding OAuthTokens, WoW namespaces, and locales.
+ *
+ * <p>The interceptor runs for every request, so its work is kept small. The rewritten and canonical URLs of
+ * recently seen URLs are remembered, so the URL the proxy computes for its cache key with
+ * {@link #canonicalUrl(HttpUrl)} is reused when the request is sent, rather than being built again. For other
+ * URLs, the rewritten query string of each distinct original query string is remembered, so the namespace and
+ * locale are only resolved once for each endpoint and set of parameters, and a URL whose query needs no changes
+ * is passed through as is. The {@code Authorization} header value is built once for each token.
  */
 public class BattleNetInterceptor implements Interceptor {
 
     private static final Set<String> NAMESPACES = ImmutableSet.of("static", "dynamic", "profile");
+    private static final String ACCESS_TOKEN_PARAMETER = "access_token";
+    private static final String AUTHORIZATION_HEADER = "Authorization";
+    private static final long MAX_REWRITTEN_QUERIES = 10_000;
+    private static final long MAX_REWRITTEN_URLS = 10_000;
 
-
-    private final OAuthAPI oAuthAPI;
+    private final OAuthTokenManager tokenManager;
     private final String regionSuffix;
     private final String localeValue;
+    private final ValidatorStore validatorStore;
+    private final Cache<String, String> rewrittenQueries = CacheBuilder.newBuilder()
+        .maximumSize(MAX_REWRITTEN_QUERIES)
+        .build();
+    private final Cache<HttpUrl, RewrittenUrl> rewrittenUrls = CacheBuilder.newBuilder()
+        .maximumSize(MAX_REWRITTEN_URLS)
+        .build();
+    private volatile BearerToken bearerToken;
+
+    /**
+     * The URL a request is sent to once it has been rewritten, and its canonical URL.
+     */
+    private static final class RewrittenUrl {
+        private final HttpUrl rewritten;
+        private final HttpUrl canonical;
+
+        private RewrittenUrl(final HttpUrl rewritten) {
+            this.rewritten = rewritten;
+            this.canonical = withoutAccessToken(rewritten);
+        }
+    }
 
-    private OAuthToken oAuthToken;
+    /**
+     * An access token and the {@code Authorization} header value which sends it.
+     */
+    private static final class BearerToken {
+        private final OAuthToken token;
+        private final String headerValue;
+
+        private BearerToken(final OAuthToken token) {
+            this.token = token;
+            this.headerValue = "Bearer " + token.getAccessToken();
+        }
+    }
 
     /**
      * Create the interceptor with the specified built OAuthAPI and Battle.net Client.
-     * @param oAuthAPI OAuthAPI class for getting OAuthAccess tokens if the request does not already have one.
+     *
+     * @param oAuthAPI Not used. Tokens are retrieved by the client's {@link BattleNet#getTokenManager()}, so that
+     *                 they are shared with the rest of the client, and the manager is closed with it.
      * @param battleNet Battle.net client which is making the requests.
+     * @deprecated Use {@link #BattleNetInterceptor(OAuthTokenManager, BattleNet)}.
      */
+    @Deprecated
     public BattleNetInterceptor(final OAuthAPI oAuthAPI, final BattleNet battleNet) {
-        this.oAuthAPI = oAuthAPI;
-        this.regionSuffix = battleNet.getRegion().getRegionUrlValue();
-        this.localeValue = battleNet.getLocale().getLocaleString();
+        this(battleNet.getTokenManager(), battleNet);
     }
 
-    private OAuthToken getToken() {
-        if (oAuthToken != null) {
-            return oAuthToken;
-        }
-        return refreshToken();
-    }
-
-    private OAuthToken refreshToken() {
-        final Result<OAuthToken, String> tokenRequest = oAuthAPI.getToken();
-        this.oAuthToken = tokenRequest.getOk().orElseThrow(RuntimeException::new);
-        return this.oAuthToken;
+    /**
+     * Create the interceptor with the specified OAuth token manager and Battle.net Client.
+     * @param tokenManager Token manager which provides OAuth access tokens if the request does not already have one.
+     * @param battleNet Battle.net client which is making the requests.
+     */
+    public BattleNetInterceptor(final OAuthTokenManager tokenManager, final BattleNet battleNet) {
+        this.tokenManager = tokenManager;
+        this.regionSuffix = battleNet.getRegion().getRegionUrlValue();
+        this.localeValue = battleNet.getLocale().getLocaleString();
+        this.validatorStore = (battleNet.getProxy() == null) ? null : battleNet.getProxy().getValidatorStore();
     }
 
     /**
      * Intercepts the HTTP request prior to sending it and performs several tasks:
      *
      * <ul>
-     *     <li>Adds an OAuth access token if there is not already one on the request</li>
+     *     <li>Adds an OAuth access token as an {@code Authorization: Bearer} header if the request doesn't already
+     *         have an {@code access_token} parameter or {@code Authorization} header, and tags the request with
+     *         the {@link OAuthToken} so that {@link gg.sep.battlenet.auth.OAuthAuthenticator} can replace it if
+     *         it is rejected</li>
      *     <li>Adds the Battle.net client's locale if the request is not already one on the request</li>
      *     <li>Replaces any {@code addNamespace} query parameter with {@code namespace} and a value in the format
      *         of {@code {namespace}-{region}}, provided the value of {@code addNamespace} is one of the valid
      *         namespaces. This only applies to WoW APIs. See the docs:
      *         https://develop.battle.net/documentation/guides/game-data-apis-wow-namespaces
      *     </li>
+     *     <li>Adds {@code If-None-Match} and {@code If-Modified-Since} headers to {@code GET} requests if
+     *         validators were stored for the URL by a previous response, and the request doesn't already
+     *         have them</li>
      * </ul>
      * @param chain The okhttp3 request chain prior to being sent.
      * @return The response, forwarded by the chain.
-     * @throws IOException Thrown by okhttp3 if the request fails.
+     * @throws IOException Thrown by okhttp3 if the request fails, or if an OAuth access token is needed and
+     *                     could not be retrieved.
      */
     @Override
     public Response intercept(final Chain chain) throws IOException {
         final Request originalRequest = chain.request();
-        final HttpUrl originalUrl = originalRequest.url();
-        final HttpUrl.Builder newUrlBuilder = originalUrl.newBuilder();
+        final RewrittenUrl url = rewrittenUrl(originalRequest.url());
 
-        handleOAuth(originalUrl, newUrlBuilder);
-        handleWoWNamespace(originalUrl, newUrlBuilder);
-        handleLocale(originalUrl, newUrlBuilder);
+        final Request.Builder newRequestBuilder = originalRequest.newBuilder().url(url.rewritten);
+        handleOAuth(originalRequest, newRequestBuilder);
+        handleConditionalRequest(originalRequest, url.canonical, newRequestBuilder);
+        return chain.proceed(newRequestBuilder.build());
+    }
 
-        final Request newRequest = originalRequest.newBuilder()
-            .url(newUrlBuilder.build())
-            .build();
-        return chain.proceed(newRequest);
+    /**
+     * Returns the URL which will actually be requested for the specified URL, with the WoW namespace and locale
+     * applied, but without the OAuth access token.
+     *
+     * <p>Two requests with the same canonical URL will receive the same response, which makes this suitable
+     * as a key for coalescing or caching requests.
+     *
+     * @param originalUrl URL of the request before it is intercepted.
+     * @return The canonical URL of the request.
+     */
+    public HttpUrl canonicalUrl(final HttpUrl originalUrl) {
+        return rewrittenUrl(originalUrl).canonical;
+    }
+
+    /**
+     * Returns the rewritten and canonical URLs of a URL, reusing them if the same URL was seen recently.
+     *
+     * @param originalUrl URL of the request before it is intercepted.
+     * @return The rewritten and canonical URLs.
+     */
+    private RewrittenUrl rewrittenUrl(final HttpUrl originalUrl) {
+        RewrittenUrl url = rewrittenUrls.getIfPresent(originalUrl);
+        if (url == null) {
+            url = new RewrittenUrl(rewrite(originalUrl));
+            rewrittenUrls.put(originalUrl, url);
+        }
+        return url;
+    }
+
+    /**
+     * Removes any OAuth access token from a URL which has already been rewritten.
+     *
+     * @param rewrittenUrl URL with the WoW namespace and locale applied.
+     * @return The canonical URL of the request.
+     */
+    private static HttpUrl withoutAccessToken(final HttpUrl rewrittenUrl) {
+        return (rewrittenUrl.queryParameter(ACCESS_TOKEN_PARAMETER) == null) ?
+            rewrittenUrl : rewrittenUrl.newBuilder().removeAllQueryParameters(ACCESS_TOKEN_PARAMETER).build();
     }
 
-    private void handleOAuth(final HttpUrl originalUrl, final HttpUrl.Builder urlBuilder) {
-        final String originalToken = originalUrl.queryParameter("access_token");
-        if (originalToken == null) {
-            urlBuilder.addQueryParameter("access_token", getToken().getAccessToken());
+    /**
+     * Applies the WoW namespace and locale to a URL, reusing the rewritten query string of any earlier URL with
+     * the same query string.
+     *
+     * @param originalUrl URL of the request before it is intercepted.
+     * @return The rewritten URL, or {@code originalUrl} itself if its query string needs no changes.
+     */
+    private HttpUrl rewrite(final HttpUrl originalUrl) {
+        final String originalQuery = originalUrl.encodedQuery();
+        final String key = (originalQuery == null) ? "" : originalQuery;
+        String rewrittenQuery = rewrittenQueries.getIfPresent(key);
+        if (rewrittenQuery == null) {
+            final HttpUrl.Builder urlBuilder = originalUrl.newBuilder();
+            handleWoWNamespace(originalUrl, urlBuilder);
+            handleLocale(originalUrl, urlBuilder);
+            final String query = urlBuilder.build().encodedQuery();
+            rewrittenQuery = (query == null) ? "" : query;
+            rewrittenQueries.put(key, rewrittenQuery);
+        }
+        return rewrittenQuery.equals(key) ? originalUrl : originalUrl.newBuilder().encodedQuery(rewrittenQuery).build();
+    }
+
+    private void handleOAuth(final Request originalRequest, final Request.Builder requestBuilder) throws IOException {
+        if (originalRequest.header(AUTHORIZATION_HEADER) != null
+            || originalRequest.url().queryParameter(ACCESS_TOKEN_PARAMETER) != null) {
+            return;
+        }
+        final Result<OAuthToken, String> token = tokenManager.getToken();
+        if (token.isErr()) {
+            throw new IOException(token.unwrapErr());
         }
+        final BearerToken bearer = bearerToken(token.unwrap());
+        requestBuilder.header(AUTHORIZATION_HEADER, bearer.headerValue)
+            // lets the OAuthAuthenticator replace the token if Battle.net rejects it
+            .tag(OAuthToken.class, bearer.token);
+    }
+
+    private BearerToken bearerToken(final OAuthToken token) {
+        final BearerToken current = bearerToken;
+        if (current != null && current.token == token) {
+            return current;
+        }
+        final BearerToken bearer = new BearerToken(token);
+        bearerToken = bearer;
+        return bearer;
     }
 
     private void handleWoWNamespace(final HttpUrl originalUrl, final HttpUrl.Builder urlBuilder) {
@@ -123,6 +252,23 @@ public class BattleNetInterceptor implements Interceptor {
         }
     }
 
+    private void handleConditionalRequest(final Request originalRequest, final HttpUrl canonicalUrl,
+                                          final Request.Builder requestBuilder) {
+        if (validatorStore == null || !"GET".equals(originalRequest.method())
+            || originalRequest.header(ValidatorStore.IF_NONE_MATCH_HEADER) != null
+            || originalRequest.header(ValidatorStore.IF_MODIFIED_SINCE_HEADER) != null) {
+            return;
+        }
+        validatorStore.get(canonicalUrl.toString()).ifPresent(validators -> {
+            if (validators.getEtag() != null) {
+                requestBuilder.header(ValidatorStore.IF_NONE_MATCH_HEADER, validators.getEtag());
+            }
+            if (validators.getLastModified() != null) {
+                requestBuilder.header(ValidatorStore.IF_MODIFIED_SINCE_HEADER, validators.getLastModified());
+            }
+        });
+    }
+
     private void handleLocale(final HttpUrl originalUrl, final HttpUrl.Builder urlBuilder) {
         final String originalLocale = originalUrl.queryParameter("locale");
         if (originalLocale == null) {
@@ -0,0 +1,248 @@
+/*
+ * Copyright (c) 2019 sep.gg <seputaes@sep.gg>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package gg.sep.battlenet.ratelimit;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import lombok.Getter;
+import lombok.extern.log4j.Log4j2;
+import okhttp3.Headers;
+
+/**
+ * Additive-increase/multiplicative-decrease (AIMD) controller for an {@link AsyncRateLimiter}.
+ *
+ * <p>Each throttled ({@code 429}) response cuts the limiter's rate by {@link #getDecreaseFactor()},
+ * at most once per {@link #getDecreaseCooldownMs()} so a burst of concurrent 429s only counts once.
+ * Each successful response adds {@link #getIncreaseStep()} requests per second back, up to the
+ * configured maximum rate. If the response carries quota headers, the rate is also capped so that
+ * the remaining quota lasts until the reported reset, and the rate from before the cap is restored at
+ * the reset, when the quota is replenished.
+ *
+ * <p>Since every request goes through the same limiter, the whole client converges on the rate
+ * Battle.net is actually willing to serve instead of each request retrying on its own.
+ */
+@Log4j2
+public final class AdaptiveThrottle {
+    /**
+     * Response header containing the number of requests remaining in the current quota period.
+     */
+    public static final String QUOTA_REMAINING_HEADER = "X-RateLimit-Remaining";
+
+    /**
+     * Response header containing the number of seconds until the current quota period resets.
+     */
+    public static final String QUOTA_RESET_HEADER = "X-RateLimit-Reset";
+
+    private static final double DEFAULT_MIN_RATE = 1;
+    private static final double DEFAULT_DECREASE_FACTOR = 0.5;
+    private static final double DEFAULT_INCREASE_STEP = 0.1;
+    private static final long DEFAULT_DECREASE_COOLDOWN_MS = 1000;
+    // reset values larger than this are treated as epoch seconds rather than seconds remaining
+    private static final long EPOCH_RESET_THRESHOLD = 1_000_000_000L;
+    // reset assumed for an exhausted quota which doesn't report one: the shortest Battle.net quota window
+    private static final long DEFAULT_RESET_SECONDS = 1;
+
+    private final AsyncRateLimiter rateLimiter;
+    @Getter
+    private final double maxRate;
+    @Getter
+    private final double minRate;
+    @Getter
+    private final double decreaseFactor;
+    @Getter
+    private final double increaseStep;
+    @Getter
+    private final long decreaseCooldownMs;
+
+    private long lastDecreaseNanos;
+    private boolean decreasedOnce;
+    // rate to restore when the quota resets, or 0 if the rate isn't capped by the quota
+    private double restoreRate;
+    private long restoreAtNanos;
+    private long restoreGeneration;
+
+    /**
+     * Creates a controller with the default AIMD parameters, which will never raise the rate above
+     * the limiter's current rate.
+     *
+     * @param rateLimiter The rate limiter to control.
+     */
+    public AdaptiveThrottle(final AsyncRateLimiter rateLimiter) {
+        this(rateLimiter, rateLimiter.getRate(), DEFAULT_MIN_RATE, DEFAULT_DECREASE_FACTOR,
+            DEFAULT_INCREASE_STEP, DEFAULT_DECREASE_COOLDOWN_MS);
+    }
+
+    /**
+     * Creates a controller with custom AIMD parameters.
+     *
+     * @param rateLimiter The rate limiter to control.
+     * @param maxRate The maximum rate the controller will raise the limiter to.
+     * @param minRate The minimum rate the controller will lower the limiter to.
+     * @param decreaseFactor Multiplier applied to the rate on a throttled response, between 0 and 1.
+     * @param increaseStep Requests per second added back to the rate on each successful response.
+     * @param decreaseCooldownMs Minimum time between two multiplicative decreases.
+     */
+    public AdaptiveThrottle(final AsyncRateLimiter rateLimiter, final double maxRate, final double minRate,
+                            final double decreaseFactor, final double increaseStep, final long decreaseCooldownMs) {
+        if (!(decreaseFactor > 0 && decreaseFactor < 1)) {
+            throw new IllegalArgumentException("decreaseFactor must be between 0 and 1: " + decreaseFactor);
+        }
+        if (!(minRate > 0) || minRate > maxRate) {
+            throw new IllegalArgumentException(String.format("Invalid rate range. minRate=%s, maxRate=%s",
+                minRate, maxRate));
+        }
+        this.rateLimiter = rateLimiter;
+        this.maxRate = maxRate;
+        this.minRate = minRate;
+        this.decreaseFactor = decreaseFactor;
+        this.increaseStep = increaseStep;
+        this.decreaseCooldownMs = decreaseCooldownMs;
+    }
+
+    /**
+     * Updates the rate based on a response from the API.
+     *
+     * @param code HTTP status code of the response.
+     * @param headers Headers of the response. May be null.
+     */
+    public void onResponse(final int code, final Headers headers) {
+        if (code == 429) {
+            onThrottled();
+        } else if (code >= 200 && code < 300) {
+            onSuccess();
+        }
+        if (headers != null) {
+            onQuotaHeaders(headers.get(QUOTA_REMAINING_HEADER), headers.get(QUOTA_RESET_HEADER));
+        }
+    }
+
+    /**
+     * Multiplicatively decreases the rate after a throttled response.
+     */
+    public synchronized void onThrottled() {
+        final long now = System.nanoTime();
+        if (decreasedOnce && now - lastDecreaseNanos < TimeUnit.MILLISECONDS.toNanos(decreaseCooldownMs)) {
+            return;
+        }
+        decreasedOnce = true;
+        lastDecreaseNanos = now;
+        final double newRate = Math.max(minRate, rateLimiter.getRate() * decreaseFactor);
+        log.warn("Battle.net is throttling requests, lowering rate limit to {} requests/second", newRate);
+        rateLimiter.setRate(newRate);
+        if (restoreRate > 0) {
+            // the rate from before the quota cap was too high as well
+            restoreRate = Math.max(minRate, restoreRate * decreaseFactor);
+        }
+    }
+
+    /**
+     * Additively increases the rate after a successful response.
+     */
+    public synchronized void onSuccess() {
+        final double currentRate = rateLimiter.getRate();
+        if (currentRate < maxRate) {
+            rateLimiter.setRate(Math.min(maxRate, currentRate + increaseStep));
+        }
+    }
+
+    /**
+     * Caps the rate so that the remaining quota reported by the API lasts until it resets, and schedules the
+     * rate from before the cap to be restored at the reset.
+     *
+     * @param remainingValue Value of the quota remaining header, or null if not present.
+     * @param resetValue Value of the quota reset header, or null if not present.
+     */
+    synchronized void onQuotaHeaders(final String remainingValue, final String resetValue) {
+        final Long remaining = parseLong(remainingValue);
+        if (remaining == null) {
+            return;
+        }
+        final Long reset = parseLong(resetValue);
+        final long secondsUntilReset;
+        if (reset == null) {
+            secondsUntilReset = DEFAULT_RESET_SECONDS;
+        } else {
+            secondsUntilReset = (reset > EPOCH_RESET_THRESHOLD) ?
+                reset - TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()) : reset;
+        }
+        if (remaining <= 0) {
+            capUntilReset(minRate, Math.max(secondsUntilReset, DEFAULT_RESET_SECONDS));
+            return;
+        }
+        if (reset == null || secondsUntilReset <= 0) {
+            return;
+        }
+        final double sustainableRate = (double) remaining / secondsUntilReset;
+        if (sustainableRate < rateLimiter.getRate()) {
+            capUntilReset(Math.max(minRate, sustainableRate), secondsUntilReset);
+        }
+    }
+
+    /**
+     * Lowers the rate until the quota resets, remembering the rate from before the first cap so it can be
+     * restored at the reset rather than only through additive increase.
+     */
+    private void capUntilReset(final double cappedRate, final long secondsUntilReset) {
+        if (restoreRate == 0) {
+            restoreRate = rateLimiter.getRate();
+        }
+        rateLimiter.setRate(cappedRate);
+
+        final long resetNanos = System.nanoTime() + TimeUnit.SECONDS.toNanos(secondsUntilReset);
+        if (restoreGeneration > 0 && resetNanos - restoreAtNanos <= 0) {
+            return;
+        }
+        restoreAtNanos = resetNanos;
+        final long generation = ++restoreGeneration;
+        try {
+            rateLimiter.getScheduler().schedule(() -> restore(generation), secondsUntilReset, TimeUnit.SECONDS);
+        } catch (final RejectedExecutionException e) {
+            log.debug("Unable to schedule the rate limit restore, the scheduler is shut down");
+        }
+    }
+
+    private synchronized void restore(final long generation) {
+        // a later cap moved the reset back, and scheduled its own restore
+        if (generation != restoreGeneration || restoreRate == 0) {
+            return;
+        }
+        final double rate = Math.min(maxRate, restoreRate);
+        restoreRate = 0;
+        if (rate > rateLimiter.getRate()) {
+            log.debug("Battle.net quota reset, restoring rate limit to {} requests/second", rate);
+            rateLimiter.setRate(rate);
+        }
+    }
+
+    private static Long parseLong(final String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (final NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,416 @@
+/*
+ * Copyright (c) 2019 sep.gg <seputaes@sep.gg>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package gg.sep.battlenet.ratelimit;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * Non-blocking rate limiter which hands out permits asynchronously.
+ *
+ * <p>Unlike a blocking limiter, callers are never parked while waiting for a permit. Each call to
+ * {@link #acquire()} returns a future which completes at the time the permit is granted. Waiting
+ * requests are held in bounded queues and released one at a time, exactly at their permit time,
+ * by a task on the provided {@link ScheduledExecutorService}. If the queues are full, the future is
+ * completed exceptionally with a {@link RejectedExecutionException}.
+ *
+ * <p>Each {@link RequestPriority} has its own FIFO queue. When requests of several priorities are waiting,
+ * the next permit goes to the request with the smallest virtual finish tag (weighted fair queuing): every
+ * queued request is tagged {@code max(virtualTime, previousTagOfItsClass) + 1 / weight}, so while all
+ * classes are busy each receives permits in proportion to its weight, and a class which has been idle
+ * starts again from the current virtual time rather than being owed a burst of permits.
+ *
+ * <p>If the limiter is given a {@link QuotaManager}, a request's quota is only taken when its permit is granted,
+ * so a request rejected because the queues are full never uses any quota. While a quota window is exhausted no
+ * permits are granted, and once it resets the waiting requests are released in the same order and at the same
+ * rate as any others. With {@link QuotaPolicy#REJECT}, requests are rejected instead while the window is exhausted.
+ *
+ * <p>The rate can be changed at any time with {@link #setRate(double)}, which takes effect from the
+ * next granted permit.
+ */
+@Log4j2
+public final class AsyncRateLimiter implements Closeable {
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Getter(AccessLevel.PACKAGE)
+    private final ScheduledExecutorService scheduler;
+    private final int maxQueuedRequests;
+    private final QuotaManager quotaManager;
+    private final QuotaPolicy quotaPolicy;
+    private final Map<RequestPriority, Queue<Waiter>> waiting = new EnumMap<>(RequestPriority.class);
+    private final Map<RequestPriority, Double> lastFinishTags = new EnumMap<>(RequestPriority.class);
+
+    private double permitsPerSecond;
+    private long intervalNanos;
+    private long nextPermitNanos;
+    private boolean drainScheduled;
+    private int queuedRequests;
+    private double virtualTime;
+    private long quotaResetNanos;
+    private boolean quotaPending;
+    private boolean closed;
+
+    @AllArgsConstructor
+    private static final class Waiter {
+        private final CompletableFuture<Duration> permit;
+        private final long enqueuedNanos;
+        private final double finishTag;
+    }
+
+    /**
+     * Create a new rate limiter.
+     *
+     * @param permitsPerSecond Number of permits to hand out per second.
+     * @param maxQueuedRequests Maximum number of requests which may be waiting for a permit at once.
+     * @param scheduler Scheduler used to release waiting requests at their permit time.
+     */
+    public AsyncRateLimiter(final double permitsPerSecond, final int maxQueuedRequests,
+                            final ScheduledExecutorService scheduler) {
+        this(permitsPerSecond, maxQueuedRequests, scheduler, null, QuotaPolicy.WAIT);
+    }
+
+    /**
+     * Create a new rate limiter which also takes each request's quota when its permit is granted.
+     *
+     * @param permitsPerSecond Number of permits to hand out per second.
+     * @param maxQueuedRequests Maximum number of requests which may be waiting for a permit at once.
+     * @param scheduler Scheduler used to release waiting requests at their permit time.
+     * @param quotaManager Quota manager which enforces the request quota windows, or null for no quota.
+     * @param quotaPolicy What to do with requests when a quota window is exhausted.
+     */
+    public AsyncRateLimiter(final double permitsPerSecond, final int maxQueuedRequests,
+                            final ScheduledExecutorService scheduler, final QuotaManager quotaManager,
+                            final QuotaPolicy quotaPolicy) {
+        if (maxQueuedRequests < 1) {
+            throw new IllegalArgumentException("maxQueuedRequests must be positive");
+        }
+        this.scheduler = scheduler;
+        this.maxQueuedRequests = maxQueuedRequests;
+        this.quotaManager = quotaManager;
+        this.quotaPolicy = quotaPolicy;
+        this.nextPermitNanos = System.nanoTime();
+        for (final RequestPriority priority : RequestPriority.values()) {
+            waiting.put(priority, new ArrayDeque<>());
+            lastFinishTags.put(priority, 0.0);
+        }
+        setRate(permitsPerSecond);
+    }
+
+    /**
+     * Returns the current rate of the limiter in permits per second.
+     * @return The current rate of the limiter in permits per second.
+     */
+    public synchronized double getRate() {
+        return permitsPerSecond;
+    }
+
+    /**
+     * Updates the rate of the limiter.
+     *
+     * @param permitsPerSecond New number of permits to hand out per second. Must be positive.
+     */
+    public synchronized void setRate(final double permitsPerSecond) {
+        if (!(permitsPerSecond > 0)) {
+            throw new IllegalArgumentException("permitsPerSecond must be positive: " + permitsPerSecond);
+        }
+        this.permitsPerSecond = permitsPerSecond;
+        this.intervalNanos = (long) (NANOS_PER_SECOND / permitsPerSecond);
+    }
+
+    /**
+     * Returns the number of requests currently waiting for a permit.
+     * @return The number of requests currently waiting for a permit.
+     */
+    public synchronized int getQueuedRequests() {
+        return queuedRequests;
+    }
+
+    /**
+     * Returns the number of requests of the specified priority currently waiting for a permit.
+     * @param priority Priority of the requests to count.
+     * @return The number of requests of the specified priority currently waiting for a permit.
+     */
+    public synchronized int getQueuedRequests(final RequestPriority priority) {
+        return waiting.get(priority).size();
+    }
+
+    /**
+     * Acquires a single permit with {@link RequestPriority#NORMAL} priority without blocking.
+     *
+     * @return A future which completes with the amount of time spent waiting once the permit has been granted,
+     *         or completes exceptionally with a {@link RejectedExecutionException} if too many requests
+     *         are already waiting.
+     */
+    public CompletableFuture<Duration> acquire() {
+        return acquire(RequestPriority.NORMAL);
+    }
+
+    /**
+     * Acquires a single permit with the specified priority without blocking.
+     *
+     * @param priority Priority of the request.
+     * @return A future which completes with the amount of time spent waiting once the permit has been granted,
+     *         or completes exceptionally with a {@link RejectedExecutionException} if too many requests
+     *         are already waiting, or the quota is exhausted with {@link QuotaPolicy#REJECT}.
+     */
+    public CompletableFuture<Duration> acquire(final RequestPriority priority) {
+        final CompletableFuture<Duration> permit = new CompletableFuture<>();
+        final boolean granted;
+        synchronized (this) {
+            final long now = System.nanoTime();
+            if (closed) {
+                permit.completeExceptionally(new RejectedExecutionException("Rate limiter is closed"));
+                return permit;
+            }
+            if (queuedRequests == 0 && !quotaPending && now >= nextPermitNanos && now >= quotaResetNanos
+                && takeQuota(now)) {
+                nextPermitNanos = now + intervalNanos;
+                granted = true;
+            } else if (closed) {
+                // taking the quota closed the limiter because the scheduler rejected the hand-over
+                permit.completeExceptionally(new RejectedExecutionException("Rate limiter is closed"));
+                return permit;
+            } else if (quotaPolicy == QuotaPolicy.REJECT && now < quotaResetNanos) {
+                permit.completeExceptionally(quotaExhausted(now));
+                return permit;
+            } else if (queuedRequests >= maxQueuedRequests) {
+                permit.completeExceptionally(new RejectedExecutionException(
+                    "Rate limiter queue is full. maxQueuedRequests=" + maxQueuedRequests));
+                return permit;
+            } else {
+                final double finishTag = Math.max(virtualTime, lastFinishTags.get(priority))
+                    + 1.0 / priority.getWeight();
+                lastFinishTags.put(priority, finishTag);
+                waiting.get(priority).add(new Waiter(permit, now, finishTag));
+                queuedRequests++;
+                scheduleDrain(now);
+                granted = false;
+            }
+        }
+        if (granted) {
+            permit.complete(Duration.ZERO);
+        }
+        return permit;
+    }
+
+    /**
+     * Rejects every request waiting for a permit, and any requested afterwards. The scheduler is not shut down,
+     * since it belongs to the caller.
+     */
+    @Override
+    public void close() {
+        final List<Waiter> rejected = new ArrayList<>();
+        synchronized (this) {
+            closed = true;
+            while (queuedRequests > 0) {
+                rejected.add(pollNextWaiter());
+            }
+        }
+        final RejectedExecutionException error = new RejectedExecutionException("Rate limiter is closed");
+        rejected.forEach(waiter -> waiter.permit.completeExceptionally(error));
+    }
+
+    /**
+     * Schedules the next drain of the waiting queue at the next permit time, if one is not already scheduled and
+     * no permit is waiting for its quota to be leased. Must be called while holding the lock.
+     */
+    private void scheduleDrain(final long now) {
+        if (drainScheduled || quotaPending || closed) {
+            return;
+        }
+        drainScheduled = true;
+        scheduler.schedule(this::drain, Math.max(0, Math.max(nextPermitNanos, quotaResetNanos) - now),
+            TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Takes one request from the quota for the next permit. Must be called while holding the lock.
+     *
+     * <p>If the quota is exhausted, no permits are granted until it resets. If permits have to be leased from a
+     * {@link PermitStore} first, or taking the quota failed, no permits are granted until the outcome is handed
+     * over, at which point the request it was taken for is granted or rejected by
+     * {@link #quotaLeased(Duration, Throwable)}.
+     *
+     * @param now The current time.
+     * @return True if the quota was taken and the permit may be granted.
+     */
+    private boolean takeQuota(final long now) {
+        if (quotaManager == null) {
+            return true;
+        }
+        final CompletableFuture<Duration> quota = quotaManager.acquire();
+        if (!quota.isDone() || quota.isCompletedExceptionally()) {
+            quotaPending = true;
+            // never completes the permit on the leasing thread, or while holding the lock
+            quota.whenCompleteAsync(this::quotaLeased, scheduler)
+                .exceptionally(error -> {
+                    // the scheduler rejected the hand-over, so no waiting request could ever be released
+                    log.error("Could not hand over the Battle.net request quota, closing the rate limiter", error);
+                    close();
+                    return null;
+                });
+            return false;
+        }
+        final Duration wait = quota.join();
+        if (wait.isZero()) {
+            return true;
+        }
+        log.debug("Battle.net request quota exhausted, holding permits for {}ms until it resets", wait.toMillis());
+        quotaResetNanos = now + wait.toNanos();
+        return false;
+    }
+
+    /**
+     * Grants the next waiting request once the quota leased for it has been handed over. If taking the quota
+     * failed, that request is rejected instead, and the next one tries again.
+     *
+     * @param wait {@link Duration#ZERO} if the quota was taken, otherwise the time until it resets.
+     * @param error Why the quota could not be taken, or null if it was.
+     */
+    private void quotaLeased(final Duration wait, final Throwable error) {
+        final List<Waiter> ready = new ArrayList<>();
+        final List<Waiter> rejected = new ArrayList<>();
+        final long now;
+        final RejectedExecutionException rejection;
+        synchronized (this) {
+            quotaPending = false;
+            now = System.nanoTime();
+            if (error != null) {
+                log.warn("Could not take the Battle.net request quota", error);
+                if (queuedRequests > 0) {
+                    rejected.add(pollNextWaiter());
+                }
+                rejection = new RejectedExecutionException("Could not take the Battle.net request quota", error);
+            } else {
+                if (!wait.isZero()) {
+                    quotaResetNanos = now + wait.toNanos();
+                    rejectQuotaWaiters(now, rejected);
+                } else if (queuedRequests > 0) {
+                    ready.add(pollNextWaiter());
+                    nextPermitNanos = Math.max(nextPermitNanos, now) + intervalNanos;
+                }
+                rejection = rejected.isEmpty() ? null : quotaExhausted(now);
+            }
+            if (queuedRequests > 0) {
+                scheduleDrain(now);
+            }
+        }
+        release(ready, rejected, rejection, now);
+    }
+
+    /**
+     * Removes every waiting request if the quota is exhausted with {@link QuotaPolicy#REJECT}.
+     * Must be called while holding the lock.
+     */
+    private void rejectQuotaWaiters(final long now, final List<Waiter> rejected) {
+        if (quotaPolicy == QuotaPolicy.REJECT && now < quotaResetNanos) {
+            while (queuedRequests > 0) {
+                rejected.add(pollNextWaiter());
+            }
+        }
+    }
+
+    /**
+     * Describes why a request was rejected while the quota is exhausted. Must be called while holding the lock.
+     */
+    private RejectedExecutionException quotaExhausted(final long now) {
+        return new RejectedExecutionException("Battle.net request quota exhausted. Resets in "
+            + TimeUnit.NANOSECONDS.toMillis(quotaResetNanos - now) + "ms");
+    }
+
+    /**
+     * Removes the waiting request with the smallest finish tag across all of the priority queues.
+     * Must be called while holding the lock, and only while at least one request is waiting.
+     */
+    private Waiter pollNextWaiter() {
+        RequestPriority next = null;
+        Waiter waiter = null;
+        for (final Map.Entry<RequestPriority, Queue<Waiter>> queue : waiting.entrySet()) {
+            final Waiter head = queue.getValue().peek();
+            if (head != null && (waiter == null || head.finishTag < waiter.finishTag)) {
+                next = queue.getKey();
+                waiter = head;
+            }
+        }
+        if (waiter == null) {
+            throw new IllegalStateException("No requests are waiting for a permit");
+        }
+        waiting.get(next).remove();
+        queuedRequests--;
+        virtualTime = waiter.finishTag;
+        return waiter;
+    }
+
+    /**
+     * Releases the waiting requests whose permit time has arrived, and reschedules itself
+     * if there are still requests waiting.
+     */
+    private void drain() {
+        final List<Waiter> ready = new ArrayList<>();
+        final List<Waiter> rejected = new ArrayList<>();
+        final long now;
+        final RejectedExecutionException rejection;
+        synchronized (this) {
+            drainScheduled = false;
+            now = System.nanoTime();
+            while (queuedRequests > 0 && !quotaPending && now >= nextPermitNanos && now >= quotaResetNanos
+                && takeQuota(now)) {
+                ready.add(pollNextWaiter());
+                nextPermitNanos = Math.max(nextPermitNanos, now) + intervalNanos;
+            }
+            rejectQuotaWaiters(now, rejected);
+            if (queuedRequests > 0) {
+                scheduleDrain(now);
+            }
+            rejection = rejected.isEmpty() ? null : quotaExhausted(now);
+        }
+        release(ready, rejected, rejection, now);
+    }
+
+    private static void release(final List<Waiter> ready, final List<Waiter> rejected,
+                                final RejectedExecutionException rejection, final long now) {
+        for (final Waiter waiter : ready) {
+            try {
+                waiter.permit.complete(Duration.ofNanos(now - waiter.enqueuedNanos));
+            } catch (final RuntimeException e) {
+                log.error("Error handing out rate limit permit", e);
+            }
+        }
+        rejected.forEach(waiter -> waiter.permit.completeExceptionally(rejection));
+    }
+}
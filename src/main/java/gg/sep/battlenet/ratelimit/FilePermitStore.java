@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) 2019 sep.gg <seputaes@sep.gg>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package gg.sep.battlenet.ratelimit;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.ToLongFunction;
+
+import lombok.Getter;
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * {@link PermitStore} kept in a small file, which is shared by every process on the host or shared file system
+ * that is given the same path.
+ *
+ * <p>Leasing takes an exclusive {@link FileLock} on the file, reads it, and writes it back if it changed, while
+ * reading the permits used only takes a shared lock. Since a {@link QuotaManager} only leases permits in batches,
+ * the file is touched a few times per window per process, rather than once per request. Writes aren't forced to
+ * disk, since processes sharing the file see each other's writes through the page cache, and the periods it
+ * records are short lived.
+ *
+ * <p>The file holds one line per quota window: {@code <capacity>/<size in ms> <period> <used>}. Lines which can't
+ * be parsed, eg after a crash while the file was being written, are ignored.
+ */
+@Log4j2
+public final class FilePermitStore implements PermitStore {
+    // file locks are held by the whole JVM, so stores in the same JVM must also exclude each other
+    private static final ConcurrentMap<Path, Object> PATH_LOCKS = new ConcurrentHashMap<>();
+
+    @Getter
+    private final Path path;
+    private final Object pathLock;
+
+    /**
+     * Create a new store using the specified file, which is created if it doesn't exist.
+     *
+     * @param path Path to the store's file.
+     */
+    public FilePermitStore(final Path path) {
+        this.path = path.toAbsolutePath().normalize();
+        this.pathLock = PATH_LOCKS.computeIfAbsent(this.path, p -> new Object());
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws UncheckedIOException If the file could not be read or written.
+     */
+    @Override
+    public long lease(final QuotaWindow window, final long period, final long permits) {
+        return update(periods -> periods.computeIfAbsent(key(window), k -> new PermitPeriod(period, 0))
+            .lease(window, period, permits));
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws UncheckedIOException If the file could not be read.
+     */
+    @Override
+    public long getUsed(final QuotaWindow window, final long period) {
+        synchronized (pathLock) {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+                 FileLock ignored = channel.lock(0, Long.MAX_VALUE, true)) {
+
+                final PermitPeriod state = read(channel).get(key(window));
+                return (state == null) ? 0 : state.getUsed(window, period);
+            } catch (final NoSuchFileException e) {
+                return 0;
+            } catch (final IOException e) {
+                throw new UncheckedIOException("Unable to read permit store " + path, e);
+            }
+        }
+    }
+
+    /**
+     * Reads the file under its lock, applies an operation to its periods, and writes them back if they changed.
+     *
+     * @param operation Operation to apply.
+     * @return The result of the operation.
+     */
+    private long update(final ToLongFunction<Map<String, PermitPeriod>> operation) {
+        synchronized (pathLock) {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE); FileLock ignored = channel.lock()) {
+
+                final Map<String, PermitPeriod> periods = read(channel);
+                final String before = format(periods);
+                final long result = operation.applyAsLong(periods);
+                final String after = format(periods);
+                if (!after.equals(before)) {
+                    final ByteBuffer bytes = ByteBuffer.wrap(after.getBytes(StandardCharsets.UTF_8));
+                    long position = 0;
+                    while (bytes.hasRemaining()) {
+                        position += channel.write(bytes, position);
+                    }
+                    channel.truncate(position);
+                }
+                return result;
+            } catch (final IOException e) {
+                throw new UncheckedIOException("Unable to update permit store " + path, e);
+            }
+        }
+    }
+
+    private Map<String, PermitPeriod> read(final FileChannel channel) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, buffer.position()) < 0) {
+                break;
+            }
+        }
+        final Map<String, PermitPeriod> periods = new LinkedHashMap<>();
+        for (final String line : new String(buffer.array(), StandardCharsets.UTF_8).split("\n")) {
+            final String[] fields = line.trim().split(" ");
+            if (fields.length != 3) {
+                continue;
+            }
+            try {
+                periods.put(fields[0], new PermitPeriod(Long.parseLong(fields[1]), Long.parseLong(fields[2])));
+            } catch (final NumberFormatException e) {
+                log.warn("Ignoring malformed line in permit store. path={}, line={}", path, line);
+            }
+        }
+        return periods;
+    }
+
+    private static String format(final Map<String, PermitPeriod> periods) {
+        final StringBuilder builder = new StringBuilder();
+        periods.forEach((key, state) ->
+            builder.append(key).append(' ').append(state.getPeriod()).append(' ').append(state.getUsed()).append('\n'));
+        return builder.toString();
+    }
+
+    private static String key(final QuotaWindow window) {
+        return window.getCapacity() + "/" + window.getSize().toMillis();
+    }
+}
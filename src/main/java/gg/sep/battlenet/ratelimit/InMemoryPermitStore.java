@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2019 sep.gg <seputaes@sep.gg>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package gg.sep.battlenet.ratelimit;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * {@link PermitStore} which is shared within a single JVM.
+ *
+ * <p>Several {@link gg.sep.battlenet.BattleNet} clients in the same process, using the same client id, can share
+ * their quota through one instance of this store. It is also the reference implementation for testing.
+ */
+public final class InMemoryPermitStore implements PermitStore {
+    private final Map<QuotaWindow, PermitPeriod> periods = new HashMap<>();
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized long lease(final QuotaWindow window, final long period, final long permits) {
+        return periods.computeIfAbsent(window, w -> new PermitPeriod(period, 0)).lease(window, period, permits);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized long getUsed(final QuotaWindow window, final long period) {
+        final PermitPeriod state = periods.get(window);
+        return (state == null) ? 0 : state.getUsed(window, period);
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2019 sep.gg <seputaes@sep.gg>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package gg.sep.battlenet.ratelimit;
+
+/**
+ * The latest period of a quota window seen by a {@link PermitStore}, and the number of permits leased from it.
+ * Not thread safe; stores must synchronize access.
+ */
+final class PermitPeriod {
+    private long period;
+    private long used;
+
+    PermitPeriod(final long period, final long used) {
+        this.period = period;
+        this.used = used;
+    }
+
+    long getPeriod() {
+        return period;
+    }
+
+    long getUsed() {
+        return used;
+    }
+
+    /**
+     * Leases permits from a period, moving on to it if it is later than the current period.
+     *
+     * @param window The quota window.
+     * @param requestedPeriod Period to lease from.
+     * @param permits Maximum number of permits to lease.
+     * @return The number of permits leased.
+     */
+    long lease(final QuotaWindow window, final long requestedPeriod, final long permits) {
+        if (requestedPeriod < period) {
+            return 0;
+        }
+        if (requestedPeriod > period) {
+            period = requestedPeriod;
+            used = 0;
+        }
+        final long granted = Math.max(0, Math.min(permits, window.getCapacity() - used));
+        used += granted;
+        return granted;
+    }
+
+    /**
+     * Returns the number of permits leased from a period.
+     *
+     * @param window The quota window.
+     * @param requestedPeriod The period.
+     * @return The number of permits leased from the period, or the window's capacity if it is over.
+     */
+    long getUsed(final QuotaWindow window, final long requestedPeriod) {
+        if (requestedPeriod > period) {
+            return 0;
+        }
+        return (requestedPeriod < period) ? window.getCapacity() : used;
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2019 sep.gg <seputaes@sep.gg>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package gg.sep.battlenet.ratelimit;
+
+/**
+ * Shared record of how many requests have been used in each {@link QuotaWindow}, so that several processes
+ * sending requests with the same Battle.net client id can stay within the quota together.
+ *
+ * <p>A {@link QuotaManager} backed by a permit store doesn't ask the store for every request. It leases permits
+ * from the store in batches, and hands them out locally until the batch is used up or the window ends. Permits
+ * which are leased but not used before the window ends are lost, so the processes together never use more
+ * than the window's capacity, at the cost of up to a batch of unused permits per process in each window.
+ *
+ * <p>Windows are aligned to the Unix epoch, so every process agrees on when each window starts and ends. Each
+ * period of a window is identified by the number of whole windows since the epoch.
+ *
+ * <p>Implementations must be thread safe, and atomic across every process sharing the store.
+ */
+public interface PermitStore {
+
+    /**
+     * Leases up to {@code permits} permits from a period of a quota window.
+     *
+     * <p>If the store has already seen a later period of the window, the requested period is over and no permits
+     * are granted.
+     *
+     * @param window The quota window.
+     * @param period Number of whole windows since the Unix epoch.
+     * @param permits Maximum number of permits to lease.
+     * @return The number of permits leased, between zero and {@code permits}. Zero if the period's capacity is
+     *         used up.
+     */
+    long lease(QuotaWindow window, long period, long permits);
+
+    /**
+     * Returns the number of permits leased from a period of a quota window, by every process.
+     *
+     * @param window The quota window.
+     * @param period Number of whole windows since the Unix epoch.
+     * @return The number of permits leased from the period. The window's capacity if the store has already seen
+     *         a later period of the window.
+     */
+    long getUsed(QuotaWindow window, long period);
+}
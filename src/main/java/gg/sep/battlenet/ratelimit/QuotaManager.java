@@ -0,0 +1,377 @@
+/*
+ * Copyright (c) 2019 sep.gg <seputaes@sep.gg>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package gg.sep.battlenet.ratelimit;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * Tracks request usage against several concurrent {@link QuotaWindow}s.
+ *
+ * <p>A request may only be sent if every window has budget remaining, so the tightest window
+ * always decides. Each window is a fixed window which starts on its first use and resets
+ * once its {@link QuotaWindow#getSize()} has elapsed.
+ *
+ * <p>If several processes share a Battle.net client id, and so its quota, a quota manager can be backed by a
+ * {@link PermitStore} shared between them. Windows are then aligned to the Unix epoch, so every process agrees on
+ * their boundaries, and permits are leased from the store in batches and handed out locally, so the store is only
+ * consulted about once per batch rather than for every request. Leases are taken on the manager's own thread, so
+ * a slow store never holds up the threads asking for permits.
+ */
+@Log4j2
+public final class QuotaManager implements Closeable {
+    /**
+     * Default Battle.net client quota: 100 requests per second.
+     */
+    public static final QuotaWindow BATTLENET_PER_SECOND = QuotaWindow.of(100, Duration.ofSeconds(1));
+
+    /**
+     * Default Battle.net client quota: 36,000 requests per hour.
+     */
+    public static final QuotaWindow BATTLENET_PER_HOUR = QuotaWindow.of(36_000, Duration.ofHours(1));
+
+    /**
+     * Default number of permits leased from a {@link PermitStore} at a time.
+     */
+    public static final long DEFAULT_LEASE_SIZE = 10;
+
+    private static final long STORE_RETRY_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final List<WindowState> windows;
+    private final PermitStore permitStore;
+    private final long leaseSize;
+    private final ExecutorService leaseExecutor;
+
+    private static final class WindowState {
+        private final QuotaWindow window;
+        private final long sizeNanos;
+        private long windowStartNanos;
+        private long used;
+        private long leased;
+        private long leaseRetryNanos;
+        private CompletableFuture<Void> pendingLease;
+
+        private WindowState(final QuotaWindow window, final long now, final boolean epochAligned) {
+            this.window = window;
+            this.sizeNanos = window.getSize().toNanos();
+            this.windowStartNanos = epochAligned ? now - (now % sizeNanos) : now;
+        }
+
+        private void roll(final long now) {
+            if (now - windowStartNanos >= sizeNanos) {
+                // skip ahead by whole windows so the boundaries stay stable
+                windowStartNanos += ((now - windowStartNanos) / sizeNanos) * sizeNanos;
+                used = 0;
+                leased = 0;
+            }
+        }
+
+        private long remaining() {
+            return window.getCapacity() - used;
+        }
+
+        private long remainingLeased() {
+            return leased - used;
+        }
+
+        private long period() {
+            return windowStartNanos / sizeNanos;
+        }
+
+        private long nanosUntilReset(final long now) {
+            return windowStartNanos + sizeNanos - now;
+        }
+    }
+
+    /**
+     * Creates a quota manager which enforces all of the specified windows.
+     *
+     * @param windows Quota windows to enforce. Must not be empty.
+     */
+    public QuotaManager(final List<QuotaWindow> windows) {
+        this(windows, null, 0);
+    }
+
+    /**
+     * Creates a quota manager which enforces all of the specified windows together with every other process
+     * sharing the permit store.
+     *
+     * @param windows Quota windows to enforce. Must not be empty.
+     * @param permitStore Store the windows' permits are leased from, or null to only enforce the windows within
+     *                    this process.
+     * @param leaseSize Maximum number of permits leased from the store at a time. Larger leases consult the store
+     *                  less often, but may leave more permits unused at the end of each window. Ignored without a
+     *                  {@code permitStore}.
+     */
+    public QuotaManager(final List<QuotaWindow> windows, final PermitStore permitStore, final long leaseSize) {
+        if (windows.isEmpty()) {
+            throw new IllegalArgumentException("At least one quota window is required");
+        }
+        if (permitStore != null && leaseSize < 1) {
+            throw new IllegalArgumentException("leaseSize must be at least 1");
+        }
+        this.permitStore = permitStore;
+        this.leaseSize = leaseSize;
+        this.leaseExecutor = (permitStore == null) ? null : Executors.newSingleThreadExecutor(
+            new ThreadFactoryBuilder().setDaemon(true).setNameFormat("battlenet-permit-store-%d").build());
+        final long now = now();
+        this.windows = windows.stream()
+            .map(w -> new WindowState(w, now, permitStore != null))
+            .collect(ImmutableList.toImmutableList());
+    }
+
+    /**
+     * Creates a quota manager using the default Battle.net per-second and per-hour quotas.
+     *
+     * @return New quota manager using the default Battle.net quotas.
+     */
+    public static QuotaManager battleNetDefaults() {
+        return new QuotaManager(ImmutableList.of(BATTLENET_PER_SECOND, BATTLENET_PER_HOUR));
+    }
+
+    /**
+     * Returns the quota windows enforced by this manager.
+     * @return The quota windows enforced by this manager.
+     */
+    public List<QuotaWindow> getWindows() {
+        return windows.stream().map(w -> w.window).collect(Collectors.toList());
+    }
+
+    /**
+     * Attempts to use one request from every window, without blocking.
+     *
+     * <p>If every window has budget remaining, one request is counted against each of them and the future
+     * completes with {@link Duration#ZERO}. Otherwise nothing is counted and the future completes with the time
+     * until the exhausted window(s) reset.
+     *
+     * <p>With a {@link PermitStore}, a window's budget is the permits leased from the store. Once they are used
+     * up, another batch is leased on the manager's own thread, and the future completes once the lease has been
+     * handed over. If the store can't be reached, the future completes with a short wait before trying again.
+     *
+     * @return A future which completes with {@link Duration#ZERO} if the request may be sent, otherwise with how
+     *         long to wait before trying again.
+     */
+    public CompletableFuture<Duration> acquire() {
+        final List<CompletableFuture<Void>> leases = new ArrayList<>();
+        synchronized (this) {
+            final long now = now();
+            long waitNanos = 0;
+            for (final WindowState state : windows) {
+                state.roll(now);
+                if (permitStore == null) {
+                    if (state.remaining() <= 0) {
+                        waitNanos = Math.max(waitNanos, state.nanosUntilReset(now));
+                    }
+                } else if (state.remainingLeased() <= 0) {
+                    if (now < state.leaseRetryNanos) {
+                        waitNanos = Math.max(waitNanos, state.leaseRetryNanos - now);
+                    } else {
+                        leases.add(lease(state));
+                    }
+                }
+            }
+            if (waitNanos > 0) {
+                return CompletableFuture.completedFuture(Duration.ofNanos(waitNanos));
+            }
+            if (leases.isEmpty()) {
+                for (final WindowState state : windows) {
+                    state.used++;
+                }
+                return CompletableFuture.completedFuture(Duration.ZERO);
+            }
+        }
+        return CompletableFuture.allOf(leases.toArray(new CompletableFuture<?>[0]))
+            .thenCompose(ignored -> acquire());
+    }
+
+    /**
+     * Attempts to use one request from every window, blocking while permits are leased from the
+     * {@link PermitStore}. Use {@link #acquire()} from threads which must not block.
+     *
+     * @return {@link Duration#ZERO} if the request may be sent, otherwise how long to wait before trying again.
+     */
+    public Duration tryAcquire() {
+        return acquire().join();
+    }
+
+    /**
+     * Returns the number of requests remaining in the tightest window. With a {@link PermitStore}, this is the
+     * number remaining across every process sharing the store, plus any unused permits leased by this process.
+     *
+     * @return The number of requests remaining in the tightest window.
+     */
+    public long getRemaining() {
+        long remaining = Long.MAX_VALUE;
+        for (final long windowRemaining : getRemainingByWindow().values()) {
+            remaining = Math.min(remaining, windowRemaining);
+        }
+        return remaining;
+    }
+
+    /**
+     * Returns the number of requests remaining in each window.
+     * @return Mapping of each window to the number of requests remaining in its current period.
+     */
+    public Map<QuotaWindow, Long> getRemainingByWindow() {
+        final Map<QuotaWindow, Long> remaining = new LinkedHashMap<>();
+        final Map<QuotaWindow, Long> periods = new LinkedHashMap<>();
+        synchronized (this) {
+            final long now = now();
+            for (final WindowState state : windows) {
+                state.roll(now);
+                remaining.put(state.window, (permitStore == null) ? state.remaining() : state.remainingLeased());
+                periods.put(state.window, state.period());
+            }
+        }
+        if (permitStore != null) {
+            // the store is read outside of the lock, so a slow store doesn't hold up acquiring permits
+            periods.forEach((window, period) -> remaining.merge(window, storeRemaining(window, period), Long::sum));
+        }
+        return remaining;
+    }
+
+    /**
+     * Returns the time until the window with the least remaining budget resets.
+     * @return The time until the window with the least remaining budget resets.
+     */
+    public Duration getTimeUntilReset() {
+        final Map<QuotaWindow, Long> remaining = getRemainingByWindow();
+        synchronized (this) {
+            final long now = now();
+            WindowState tightest = windows.get(0);
+            long tightestRemaining = Long.MAX_VALUE;
+            for (final WindowState state : windows) {
+                state.roll(now);
+                if (remaining.get(state.window) < tightestRemaining) {
+                    tightest = state;
+                    tightestRemaining = remaining.get(state.window);
+                }
+            }
+            return Duration.ofNanos(tightest.nanosUntilReset(now));
+        }
+    }
+
+    /**
+     * Returns the permit store the windows' permits are leased from.
+     * @return The permit store, or null if the windows are only enforced within this process.
+     */
+    public PermitStore getPermitStore() {
+        return permitStore;
+    }
+
+    /**
+     * Stops the thread which leases permits from the {@link PermitStore}. Requests waiting for a lease will keep
+     * waiting briefly and trying again, without ever being granted a permit.
+     */
+    @Override
+    public void close() {
+        if (leaseExecutor != null) {
+            leaseExecutor.shutdown();
+        }
+    }
+
+    /**
+     * Leases a batch of permits for the window from the store on the lease thread, unless a lease for the window
+     * is already in progress. Must hold the lock.
+     *
+     * @param state The window, whose leased permits are used up.
+     * @return A future which completes once the lease has been handed over to the window.
+     */
+    private CompletableFuture<Void> lease(final WindowState state) {
+        if (state.pendingLease != null) {
+            return state.pendingLease;
+        }
+        final long period = state.period();
+        final long permits = Math.min(leaseSize, state.window.getCapacity());
+        CompletableFuture<Long> granted;
+        try {
+            granted = CompletableFuture.supplyAsync(() -> permitStore.lease(state.window, period, permits),
+                leaseExecutor);
+        } catch (final RejectedExecutionException e) {
+            granted = new CompletableFuture<>();
+            granted.completeExceptionally(e);
+        }
+        final CompletableFuture<Void> lease = granted.handle((leased, error) -> {
+            leased(state, period, leased, error);
+            return null;
+        });
+        // the lease may already have been handed over if it was rejected
+        if (!lease.isDone()) {
+            state.pendingLease = lease;
+        }
+        return lease;
+    }
+
+    /**
+     * Hands a lease over to the window it was taken for.
+     *
+     * @param state The window.
+     * @param period The period of the window the permits were leased from.
+     * @param granted The number of permits leased, or null if the lease failed.
+     * @param error Why the lease failed, or null if it succeeded.
+     */
+    private synchronized void leased(final WindowState state, final long period, final Long granted,
+                                     final Throwable error) {
+        state.pendingLease = null;
+        final long now = now();
+        state.roll(now);
+        if (error != null) {
+            log.warn("Unable to lease Battle.net request permits from the permit store", error);
+            state.leaseRetryNanos = now + Math.min(STORE_RETRY_NANOS, state.nanosUntilReset(now));
+        } else if (state.period() == period) {
+            // permits leased for a period which has since ended are lost
+            state.leased += granted;
+            if (granted == 0) {
+                state.leaseRetryNanos = now + state.nanosUntilReset(now);
+            }
+        }
+    }
+
+    private long storeRemaining(final QuotaWindow window, final long period) {
+        try {
+            return Math.max(0, window.getCapacity() - permitStore.getUsed(window, period));
+        } catch (final RuntimeException e) {
+            log.warn("Unable to read Battle.net request permits from the permit store", e);
+            return 0;
+        }
+    }
+
+    private long now() {
+        // windows shared through a permit store must agree on their boundaries across processes
+        return (permitStore == null) ? System.nanoTime() : TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis());
+    }
+}
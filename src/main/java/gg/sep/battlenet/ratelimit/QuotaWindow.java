@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2019 sep.gg <seputaes@sep.gg>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package gg.sep.battlenet.ratelimit;
+
+import java.time.Duration;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * A single request quota window, eg "36,000 requests per hour".
+ *
+ * <p>Battle.net enforces both a short burst limit and a longer hourly quota on each client,
+ * and a {@link QuotaManager} tracks each of these as its own window.
+ *
+ * API Reference: https://develop.battle.net/documentation/guides/getting-started
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+public final class QuotaWindow {
+    private final long capacity;
+    private final Duration size;
+
+    private QuotaWindow(final long capacity, final Duration size) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Quota window capacity must be positive: " + capacity);
+        }
+        if (size.isNegative() || size.isZero()) {
+            throw new IllegalArgumentException("Quota window size must be positive: " + size);
+        }
+        this.capacity = capacity;
+        this.size = size;
+    }
+
+    /**
+     * Creates a quota window which allows {@code capacity} requests every {@code size}.
+     *
+     * @param capacity Maximum number of requests allowed within the window.
+     * @param size Duration of the window.
+     * @return New quota window.
+     */
+    public static QuotaWindow of(final long capacity, final Duration size) {
+        return new QuotaWindow(capacity, size);
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2019 sep.gg <seputaes@sep.gg>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package gg.sep.battlenet.ratelimit;
+
+import java.util.List;
+
+import com.google.common.collect.ImmutableList;
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * How fast a Battle.net client may send requests: its rate limit, the quota windows it must stay within, and
+ * what happens to requests once a window is exhausted.
+ */
+@Getter
+public final class RateLimitConfig {
+    /**
+     * Default maximum number of requests sent per second.
+     */
+    public static final long DEFAULT_REQUESTS_PER_SECOND = 10;
+
+    private final long requestsPerSecond;
+    private final List<QuotaWindow> quotaWindows;
+    private final QuotaPolicy quotaPolicy;
+    private final boolean adaptiveThrottling;
+    private final PermitStore permitStore;
+
+    /**
+     * Creates a new rate limit configuration. Any setting which is null uses its default.
+     *
+     * @param requestsPerSecond Maximum number of requests per second to send to the API. Defaults to 10.
+     * @param quotaWindows Request quota windows to enforce, eg a per-second and a per-hour quota. Defaults to the
+     *                     Battle.net client quotas, {@link QuotaManager#BATTLENET_PER_SECOND} and
+     *                     {@link QuotaManager#BATTLENET_PER_HOUR}.
+     * @param quotaPolicy Whether requests should wait or be rejected when a quota window is exhausted.
+     *                    Defaults to {@link QuotaPolicy#WAIT}.
+     * @param adaptiveThrottling Whether the rate limit should automatically back off when Battle.net throttles
+     *                           requests, and recover afterwards. Defaults to {@code true}.
+     * @param permitStore Store the quota windows' permits are leased from, so that several processes using the same
+     *                    client id stay within its quota together. Defaults to enforcing the quota windows within
+     *                    this client only. See {@link FilePermitStore}.
+     */
+    @Builder
+    private RateLimitConfig(final Long requestsPerSecond, final List<QuotaWindow> quotaWindows,
+                            final QuotaPolicy quotaPolicy, final Boolean adaptiveThrottling,
+                            final PermitStore permitStore) {
+        this.requestsPerSecond = (requestsPerSecond == null) ? DEFAULT_REQUESTS_PER_SECOND : requestsPerSecond;
+        this.quotaWindows = (quotaWindows == null) ?
+            ImmutableList.of(QuotaManager.BATTLENET_PER_SECOND, QuotaManager.BATTLENET_PER_HOUR) :
+            ImmutableList.copyOf(quotaWindows);
+        this.quotaPolicy = (quotaPolicy == null) ? QuotaPolicy.WAIT : quotaPolicy;
+        this.adaptiveThrottling = !Boolean.FALSE.equals(adaptiveThrottling);
+        this.permitStore = permitStore;
+    }
+
+    /**
+     * Returns the default rate limit configuration.
+     * @return The default rate limit configuration.
+     */
+    public static RateLimitConfig defaults() {
+        return builder().build();
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2019 sep.gg <seputaes@sep.gg>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package gg.sep.battlenet.ratelimit;
+
+import lombok.Getter;
+
+/**
+ * Priority class of a request, used by the {@link AsyncRateLimiter} to share permits between different
+ * kinds of traffic on the same client.
+ *
+ * <p>Waiting requests are released using weighted fair queuing: while several classes have requests waiting,
+ * each class receives permits in proportion to its weight, so bulk traffic can never starve interactive
+ * traffic, but still receives a share of the permits and soaks up any permits the other classes don't use.
+ */
+@Getter
+public enum RequestPriority {
+    /**
+     * User-facing requests where latency matters.
+     */
+    INTERACTIVE(16),
+
+    /**
+     * Default priority of requests.
+     */
+    NORMAL(4),
+
+    /**
+     * Background work such as crawling entire indexes or warming caches.
+     */
+    BULK(1);
+
+    private final int weight;
+
+    /**
+     * Constructs the priority with its relative weight.
+     * @param weight Relative share of the permits this class receives while other classes are also waiting.
+     */
+    RequestPriority(final int weight) {
+        this.weight = weight;
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2019 sep.gg <seputaes@sep.gg>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package gg.sep.battlenet.retry;
+
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import javax.net.ssl.SSLPeerUnverifiedException;
+
+import com.google.common.collect.ImmutableSet;
+import lombok.Builder;
+import lombok.Getter;
+import okhttp3.Headers;
+
+/**
+ * {@link RetryPolicy} which retries transient failures using exponential backoff with decorrelated jitter.
+ *
+ * <p>Each retry waits a random delay between {@link #getBaseDelay()} and three times the previous delay,
+ * capped at {@link #getMaxDelay()}. The randomness keeps a fleet of clients which were throttled at the
+ * same time from retrying in lockstep. If the response contains a {@code Retry-After} header, that delay
+ * is used instead, as long as it is not longer than {@link #getMaxRetryAfter()}.
+ *
+ * <p>Only throttled responses, server errors, and I/O errors which may succeed on a second attempt are retried.
+ * Every retry must also be paid for from the policy's {@link RetryBudget}, so retries can never grow
+ * beyond a fixed percentage of the client's traffic.
+ */
+@Getter
+public final class ExponentialBackoffRetryPolicy implements RetryPolicy {
+    /**
+     * Status codes which are retried by default: throttled responses and transient server errors.
+     */
+    public static final Set<Integer> DEFAULT_RETRYABLE_STATUS_CODES = ImmutableSet.of(429, 500, 502, 503, 504);
+
+    private static final Duration DEFAULT_BASE_DELAY = Duration.ofMillis(100);
+    private static final Duration DEFAULT_MAX_DELAY = Duration.ofSeconds(20);
+    private static final Duration DEFAULT_MAX_RETRY_AFTER = Duration.ofSeconds(60);
+    private static final int DEFAULT_MAX_ATTEMPTS = 10;
+    private static final double DEFAULT_BUDGET_RATIO = 0.1;
+    private static final double DEFAULT_BUDGET_CAPACITY = 20;
+    private static final String RETRY_AFTER_HEADER = "Retry-After";
+
+    private final Duration baseDelay;
+    private final Duration maxDelay;
+    private final Duration maxRetryAfter;
+    private final int maxAttempts;
+    private final Set<Integer> retryableStatusCodes;
+    private final RetryBudget budget;
+
+    /**
+     * Creates a new exponential backoff retry policy. Any parameter left null uses its default.
+     *
+     * @param baseDelay Minimum delay between attempts. Defaults to 100ms.
+     * @param maxDelay Maximum delay between attempts. Defaults to 20 seconds.
+     * @param maxRetryAfter Longest {@code Retry-After} value which will be honoured. Responses asking the
+     *                      client to wait longer than this are not retried. Defaults to 60 seconds.
+     * @param maxAttempts Maximum number of attempts for a single request, including the first. Defaults to 10.
+     * @param retryableStatusCodes Status codes which may be retried.
+     *                             Defaults to {@link #DEFAULT_RETRYABLE_STATUS_CODES}.
+     * @param budget Budget which limits retries to a percentage of traffic. Defaults to 10% of requests,
+     *               with up to 20 retries banked.
+     */
+    @Builder
+    private ExponentialBackoffRetryPolicy(final Duration baseDelay, final Duration maxDelay,
+                                          final Duration maxRetryAfter, final Integer maxAttempts,
+                                          final Set<Integer> retryableStatusCodes, final RetryBudget budget) {
+        this.baseDelay = (baseDelay == null) ? DEFAULT_BASE_DELAY : baseDelay;
+        this.maxDelay = (maxDelay == null) ? DEFAULT_MAX_DELAY : maxDelay;
+        this.maxRetryAfter = (maxRetryAfter == null) ? DEFAULT_MAX_RETRY_AFTER : maxRetryAfter;
+        this.maxAttempts = (maxAttempts == null) ? DEFAULT_MAX_ATTEMPTS : maxAttempts;
+        this.retryableStatusCodes = (retryableStatusCodes == null) ?
+            DEFAULT_RETRYABLE_STATUS_CODES : ImmutableSet.copyOf(retryableStatusCodes);
+        this.budget = (budget == null) ? new RetryBudget(DEFAULT_BUDGET_RATIO, DEFAULT_BUDGET_CAPACITY) : budget;
+        if (this.baseDelay.compareTo(this.maxDelay) > 0) {
+            throw new IllegalArgumentException("baseDelay must not be greater than maxDelay");
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onRequest() {
+        budget.deposit();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public RetryDecision shouldRetry(final RetryContext context) {
+        if (context.getStatusCode() != null && !retryableStatusCodes.contains(context.getStatusCode())) {
+            return RetryDecision.stop("Status code is not retryable: " + context.getStatusCode());
+        }
+        if (context.getError() != null && !isRetryable(context.getError())) {
+            return RetryDecision.stop("Exception is not retryable: " + context.getError());
+        }
+        if (context.getAttempt() >= maxAttempts) {
+            return RetryDecision.stop("Maximum number of attempts reached: " + maxAttempts);
+        }
+
+        final Duration retryAfter = retryAfter(context.getHeaders());
+        if (retryAfter != null && retryAfter.compareTo(maxRetryAfter) > 0) {
+            return RetryDecision.stop("Retry-After is longer than the maximum allowed: " + retryAfter);
+        }
+        if (!budget.tryWithdraw()) {
+            return RetryDecision.stop("Retry budget exhausted");
+        }
+        return RetryDecision.retryAfter((retryAfter == null) ? nextDelay(context.getPreviousDelay()) : retryAfter);
+    }
+
+    /**
+     * Calculates the next backoff delay using decorrelated jitter:
+     * {@code min(maxDelay, random(baseDelay, previousDelay * 3))}.
+     *
+     * @param previousDelay The delay waited before the previous attempt.
+     * @return The delay to wait before the next attempt.
+     */
+    Duration nextDelay(final Duration previousDelay) {
+        final long base = baseDelay.toMillis();
+        final long previous = (previousDelay == null) ? 0 : previousDelay.toMillis();
+        final long upper = Math.max(base, previous * 3);
+        final long delay = (upper > base) ? ThreadLocalRandom.current().nextLong(base, upper + 1) : base;
+        return Duration.ofMillis(Math.min(maxDelay.toMillis(), delay));
+    }
+
+    /**
+     * Classifies exceptions as retryable or not. I/O errors are generally retryable, with the exception
+     * of errors which will fail identically on the next attempt, such as DNS or certificate failures.
+     * Anything else, eg a response which can't be parsed, is not retried.
+     *
+     * @param error The exception thrown by the failed attempt.
+     * @return {@code true} if the request should be retried.
+     */
+    static boolean isRetryable(final Throwable error) {
+        if (error instanceof UnknownHostException || error instanceof MalformedURLException ||
+            error instanceof SSLPeerUnverifiedException) {
+            return false;
+        }
+        return error instanceof IOException;
+    }
+
+    /**
+     * Parses the {@code Retry-After} header, which may either be a number of seconds or an HTTP date.
+     *
+     * @param headers Response headers, may be null.
+     * @return The delay requested by the header, or null if the header is missing or malformed.
+     */
+    static Duration retryAfter(final Headers headers) {
+        final String value = (headers == null) ? null : headers.get(RETRY_AFTER_HEADER);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Duration.ofSeconds(Math.max(0, Long.parseLong(value.trim())));
+        } catch (final NumberFormatException e) {
+            // not a number of seconds, try an HTTP date instead
+        }
+        try {
+            final Instant retryAt = ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+            final Duration delay = Duration.between(Instant.now(), retryAt);
+            return delay.isNegative() ? Duration.ZERO : delay;
+        } catch (final DateTimeParseException e) {
+            return null;
+        }
+    }
+}
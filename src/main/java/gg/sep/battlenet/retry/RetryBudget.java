@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2019 sep.gg <seputaes@sep.gg>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package gg.sep.battlenet.retry;
+
+import lombok.Getter;
+
+/**
+ * Limits retries to a percentage of the overall request volume.
+ *
+ * <p>Every new request deposits {@link #getRatio()} tokens into the budget, and every retry withdraws
+ * a whole token. The balance is capped at {@link #getCapacity()}, which is also the starting balance,
+ * so a quiet client can still retry a handful of requests while a client whose requests are all failing
+ * quickly settles at no more than {@code ratio} retries per request, rather than multiplying its traffic.
+ */
+public final class RetryBudget {
+    @Getter
+    private final double ratio;
+    @Getter
+    private final double capacity;
+    private double balance;
+
+    /**
+     * Creates a new retry budget.
+     *
+     * @param ratio Fraction of a retry earned by each new request, eg {@code 0.1} for 10%.
+     * @param capacity Maximum number of retries which may be banked.
+     */
+    public RetryBudget(final double ratio, final double capacity) {
+        if (ratio < 0 || capacity < 0) {
+            throw new IllegalArgumentException(String.format("Invalid retry budget. ratio=%s, capacity=%s",
+                ratio, capacity));
+        }
+        this.ratio = ratio;
+        this.capacity = capacity;
+        this.balance = capacity;
+    }
+
+    /**
+     * Records a new request, earning {@link #getRatio()} of a retry.
+     */
+    public synchronized void deposit() {
+        balance = Math.min(capacity, balance + ratio);
+    }
+
+    /**
+     * Attempts to spend one retry from the budget.
+     *
+     * @return {@code true} if a retry was available and has been spent, otherwise {@code false}.
+     */
+    public synchronized boolean tryWithdraw() {
+        if (balance < 1) {
+            return false;
+        }
+        balance -= 1;
+        return true;
+    }
+
+    /**
+     * Returns the number of retries currently available.
+     * @return The number of retries currently available.
+     */
+    public synchronized double getBalance() {
+        return balance;
+    }
+}
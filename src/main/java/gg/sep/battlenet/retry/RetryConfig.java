@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2019 sep.gg <seputaes@sep.gg>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package gg.sep.battlenet.retry;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * Which failed requests of a Battle.net client are retried, when, and how many times in total.
+ */
+@Getter
+public final class RetryConfig {
+    /**
+     * Default maximum number of attempts of a request which keeps being throttled.
+     */
+    public static final int DEFAULT_MAX_THROTTLE_RETRIES = 10;
+
+    private final RetryPolicy retryPolicy;
+    private final int maxThrottleRetries;
+
+    /**
+     * Creates a new retry configuration. Any setting which is null uses its default.
+     *
+     * @param retryPolicy Policy deciding which failed requests are retried, and when. Defaults to an
+     *                    {@link ExponentialBackoffRetryPolicy} with default settings, which backs off with jitter
+     *                    and honours {@code Retry-After}.
+     * @param maxThrottleRetries Maximum number of attempts of a request which keeps being throttled, whatever the
+     *                           retry policy decides. Defaults to 10.
+     */
+    @Builder
+    private RetryConfig(final RetryPolicy retryPolicy, final Integer maxThrottleRetries) {
+        this.retryPolicy = (retryPolicy == null) ? ExponentialBackoffRetryPolicy.builder().build() : retryPolicy;
+        this.maxThrottleRetries = (maxThrottleRetries == null) ? DEFAULT_MAX_THROTTLE_RETRIES : maxThrottleRetries;
+    }
+
+    /**
+     * Returns the default retry configuration.
+     * @return The default retry configuration.
+     */
+    public static RetryConfig defaults() {
+        return builder().build();
+    }
+}
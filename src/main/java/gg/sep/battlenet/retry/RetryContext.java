@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2019 sep.gg <seputaes@sep.gg>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package gg.sep.battlenet.retry;
+
+import java.time.Duration;
+
+import lombok.Builder;
+import lombok.Getter;
+import okhttp3.Headers;
+
+/**
+ * Describes a failed attempt at an API request, which a {@link RetryPolicy} uses to decide
+ * whether the request should be retried.
+ *
+ * <p>Exactly one of {@link #getStatusCode()} or {@link #getError()} is set: the status code if the
+ * API responded, otherwise the exception thrown while sending the request or reading the response.
+ */
+@Getter
+@Builder
+public final class RetryContext {
+    /**
+     * Number of attempts made so far, including the one which just failed. Starts at 1.
+     */
+    private final int attempt;
+
+    /**
+     * Delay which was waited before the attempt that just failed, or {@link Duration#ZERO} for the first attempt.
+     */
+    private final Duration previousDelay;
+
+    /**
+     * HTTP status code of the response, or null if no response was received.
+     */
+    private final Integer statusCode;
+
+    /**
+     * Headers of the response, or null if no response was received.
+     */
+    private final Headers headers;
+
+    /**
+     * Exception thrown by the attempt, or null if a response was received.
+     */
+    private final Throwable error;
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2019 sep.gg <seputaes@sep.gg>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package gg.sep.battlenet.retry;
+
+import java.time.Duration;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * The decision made by a {@link RetryPolicy} for a failed attempt: either retry after a delay,
+ * or stop with a reason.
+ */
+@Getter
+@ToString
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public final class RetryDecision {
+    private final boolean retry;
+    private final Duration delay;
+    private final String reason;
+
+    /**
+     * Retry the request after waiting for {@code delay}.
+     *
+     * @param delay Amount of time to wait before retrying.
+     * @return A decision to retry the request.
+     */
+    public static RetryDecision retryAfter(final Duration delay) {
+        return new RetryDecision(true, delay, null);
+    }
+
+    /**
+     * Do not retry the request.
+     *
+     * @param reason Human readable reason why the request will not be retried.
+     * @return A decision to stop retrying the request.
+     */
+    public static RetryDecision stop(final String reason) {
+        return new RetryDecision(false, Duration.ZERO, reason);
+    }
+}
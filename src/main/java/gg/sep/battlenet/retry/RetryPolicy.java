@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2019 sep.gg <seputaes@sep.gg>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package gg.sep.battlenet.retry;
+
+/**
+ * Decides if and when a failed Battle.net API request should be retried.
+ *
+ * <p>The API proxy calls {@link #onRequest()} once for every new request (not for retries), and
+ * {@link #shouldRetry(RetryContext)} each time an attempt fails with a non-success response or an exception.
+ * Implementations must be thread-safe, since a single policy is shared by every request made by a client.
+ */
+public interface RetryPolicy {
+
+    /**
+     * Called once for every new request sent through the proxy, before its first attempt.
+     *
+     * <p>Policies can use this to track the volume of traffic, eg to limit retries to a percentage of it.
+     */
+    void onRequest();
+
+    /**
+     * Decides whether the failed attempt described by {@code context} should be retried.
+     *
+     * @param context Details of the failed attempt.
+     * @return A decision to either retry after a delay, or stop.
+     */
+    RetryDecision shouldRetry(RetryContext context);
+}
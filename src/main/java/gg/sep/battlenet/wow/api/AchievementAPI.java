@@ -24,6 +24,7 @@ package gg.sep.battlenet.wow.api;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import retrofit2.Call;
 
@@ -55,7 +56,7 @@ public class AchievementAPI extends WoWAPI {
      */
     public AchievementAPI(final BattleNet battleNet) {
         super(battleNet);
-        this.achievementEndpoint = battleNet.getRetrofit().create(AchievementEndpoint.class);
+        this.achievementEndpoint = battleNet.getEndpoint(AchievementEndpoint.class);
     }
 
     /**
@@ -68,6 +69,16 @@ public class AchievementAPI extends WoWAPI {
         return executeIndexCall(call);
     }
 
+    /**
+     * Asynchronous version of {@link #getAchievements()}.
+     * @return Future which completes with an {@link Ok} containing a list of achievement index items if the
+     *         API call was successful, otherwise an {@link Err} containing the error message.
+     */
+    public CompletableFuture<Result<List<AchievementIndexItem>, String>> getAchievementsAsync() {
+        final Call<AchievementIndex> call = achievementEndpoint.getAchievements();
+        return executeIndexCallAsync(call);
+    }
+
     /**
      * Gets a WoW Achievement entity for the specified Achievement {@code id}.
      * @param id ID of the WoW Achievement.
@@ -79,6 +90,17 @@ public class AchievementAPI extends WoWAPI {
         return executeCall(call);
     }
 
+    /**
+     * Asynchronous version of {@link #getAchievement(long)}.
+     * @param id ID of the WoW Achievement.
+     * @return Future which completes with an {@link Ok} containing the Achievement if the API call was successful,
+     *         otherwise an {@link Err} containing the error message.
+     */
+    public CompletableFuture<Result<Achievement, String>> getAchievementAsync(final long id) {
+        final Call<Achievement> call = achievementEndpoint.getAchievement(id);
+        return executeCallAsync(call);
+    }
+
     /**
      * Gets a list of all Achievement Category Index items for the WoW Achievement API.
      * @return {@link Ok} containing a list of achievement category index items if the API call was successful,
@@ -86,20 +108,32 @@ public class AchievementAPI extends WoWAPI {
      */
     public Result<List<AchievementCategoryIndexItem>, String> getCategories() {
         final Call<AchievementCategoryIndex> call = achievementEndpoint.getAchievementCategories();
-        final Result<AchievementCategoryIndex, String> indexResult = executeCall(call);
-        if (indexResult.isErr()) {
-            return Err.of(indexResult.unwrapErr());
-        }
+        return executeCall(call).map(AchievementAPI::allCategories);
+    }
 
+    /**
+     * Asynchronous version of {@link #getCategories()}.
+     * @return Future which completes with an {@link Ok} containing a list of achievement category index items if the
+     *         API call was successful, otherwise an {@link Err} containing the error message.
+     */
+    public CompletableFuture<Result<List<AchievementCategoryIndexItem>, String>> getCategoriesAsync() {
+        final Call<AchievementCategoryIndex> call = achievementEndpoint.getAchievementCategories();
+        return executeCallAsync(call).thenApply(indexResult -> indexResult.map(AchievementAPI::allCategories));
+    }
+
+    /**
+     * Merges the regular, root and guild categories of the category index into a single list.
+     * @param categoryIndex Achievement category index response.
+     * @return All achievement category index items contained in the index.
+     */
+    private static List<AchievementCategoryIndexItem> allCategories(final AchievementCategoryIndex categoryIndex) {
         final List<AchievementCategoryIndexItem> finalList = new ArrayList<>();
-        final AchievementCategoryIndex categoryIndex = indexResult.unwrap();
         finalList.addAll(categoryIndex.getItems());
         finalList.addAll(categoryIndex.getRootCategories());
         // this shouldn't be necessary since all guild categories should be covered between root and regular
         // but just in case...
         finalList.addAll(categoryIndex.getGuildCategories());
-
-        return Ok.of(finalList);
+        return finalList;
     }
 
     /**
@@ -113,6 +147,17 @@ public class AchievementAPI extends WoWAPI {
         return executeCall(call);
     }
 
+    /**
+     * Asynchronous version of {@link #getCategory(long)}.
+     * @param id ID of the WoW Achievement Category.
+     * @return Future which completes with an {@link Ok} containing the Achievement Category if the API call was
+     *         successful, otherwise an {@link Err} containing the error message.
+     */
+    public CompletableFuture<Result<AchievementCategory, String>> getCategoryAsync(final long id) {
+        final Call<AchievementCategory> call = achievementEndpoint.getAchievementCategory(id);
+        return executeCallAsync(call);
+    }
+
     /**
      * Gets a WoW Achievement Media entity for the specified Achievement {@code id}.
      * @param id ID of the WoW Achievement.
@@ -123,4 +168,15 @@ public class AchievementAPI extends WoWAPI {
         final Call<WoWMedia> call = achievementEndpoint.getAchievementMedia(id);
         return executeCall(call);
     }
+
+    /**
+     * Asynchronous version of {@link #getAchievementMedia(long)}.
+     * @param id ID of the WoW Achievement.
+     * @return Future which completes with an {@link Ok} containing the Achievement Media if the API call was
+     *         successful, otherwise an {@link Err} containing the error message.
+     */
+    public CompletableFuture<Result<WoWMedia, String>> getAchievementMediaAsync(final long id) {
+        final Call<WoWMedia> call = achievementEndpoint.getAchievementMedia(id);
+        return executeCallAsync(call);
+    }
 }
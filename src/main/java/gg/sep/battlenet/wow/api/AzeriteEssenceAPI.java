@@ -23,6 +23,7 @@
 package gg.sep.battlenet.wow.api;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import retrofit2.Call;
 
@@ -50,7 +51,7 @@ public class AzeriteEssenceAPI extends WoWAPI {
      */
     public AzeriteEssenceAPI(final BattleNet battleNet) {
         super(battleNet);
-        this.azeriteEssenceEndpoint = battleNet.getRetrofit().create(AzeriteEssenceEndpoint.class);
+        this.azeriteEssenceEndpoint = battleNet.getEndpoint(AzeriteEssenceEndpoint.class);
     }
 
     /**
@@ -63,6 +64,16 @@ public class AzeriteEssenceAPI extends WoWAPI {
         return executeIndexCall(call);
     }
 
+    /**
+     * Asynchronous version of {@link #getAzeriteEssences()}.
+     * @return Future which completes with an {@link Ok} containing a list of Azerite Essence index items if the API
+     *         call was successful, otherwise an {@link Err} containing the error message.
+     */
+    public CompletableFuture<Result<List<AzeriteEssenceIndexItem>, String>> getAzeriteEssencesAsync() {
+        final Call<AzeriteEssenceIndex> call = azeriteEssenceEndpoint.getAzeriteEssences();
+        return executeIndexCallAsync(call);
+    }
+
     /**
      * Gets a WoW Azerite Essence entity for the specified Azerite Essence {@code id}.
      * @param id ID of the WoW Azerite Essence.
@@ -73,4 +84,15 @@ public class AzeriteEssenceAPI extends WoWAPI {
         final Call<AzeriteEssence> call = azeriteEssenceEndpoint.getAzeriteEssence(id);
         return executeCall(call);
     }
+
+    /**
+     * Asynchronous version of {@link #getAzeriteEssence(long)}.
+     * @param id ID of the WoW Azerite Essence.
+     * @return Future which completes with an {@link Ok} containing the Azerite Essence if the API call was successful,
+     *         otherwise an {@link Err} containing the error message.
+     */
+    public CompletableFuture<Result<AzeriteEssence, String>> getAzeriteEssenceAsync(final long id) {
+        final Call<AzeriteEssence> call = azeriteEssenceEndpoint.getAzeriteEssence(id);
+        return executeCallAsync(call);
+    }
 }
@@ -23,6 +23,7 @@
 package gg.sep.battlenet.wow.api;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import retrofit2.Call;
 
@@ -55,7 +56,7 @@ public class CreatureAPI extends WoWAPI {
      */
     public CreatureAPI(final BattleNet battleNet) {
         super(battleNet);
-        this.creatureEndpoint = battleNet.getRetrofit().create(CreatureEndpoint.class);
+        this.creatureEndpoint = battleNet.getEndpoint(CreatureEndpoint.class);
     }
 
     /**
@@ -68,6 +69,16 @@ public class CreatureAPI extends WoWAPI {
         return executeIndexCall(call);
     }
 
+    /**
+     * Asynchronous version of {@link #getCreatureFamilies()}.
+     * @return Future which completes with an {@link Ok} containing a list of creature family index items if the API
+     *         call was successful, otherwise an {@link Err} containing the error message.
+     */
+    public CompletableFuture<Result<List<CreatureFamilyIndexItem>, String>> getCreatureFamiliesAsync() {
+        final Call<CreatureFamilyIndex> call = creatureEndpoint.getCreatureFamilies();
+        return executeIndexCallAsync(call);
+    }
+
     /**
      * Gets a WoW Creature Family entity for the specified Creature Family {@code id}.
      * @param id ID of the WoW Creature Family.
@@ -79,6 +90,17 @@ public class CreatureAPI extends WoWAPI {
         return executeCall(call);
     }
 
+    /**
+     * Asynchronous version of {@link #getCreatureFamily(long)}.
+     * @param id ID of the WoW Creature Family.
+     * @return Future which completes with an {@link Ok} containing the Creature Family if the API call was successful,
+     *         otherwise an {@link Err} containing the error message.
+     */
+    public CompletableFuture<Result<CreatureFamily, String>> getCreatureFamilyAsync(final long id) {
+        final Call<CreatureFamily> call = creatureEndpoint.getCreatureFamily(id);
+        return executeCallAsync(call);
+    }
+
     /**
      * Gets a WoW Creature Family Media entity for the specified Creature Family {@code id}.
      * @param id ID of the WoW Creature Family.
@@ -90,6 +112,17 @@ public class CreatureAPI extends WoWAPI {
         return executeCall(call);
     }
 
+    /**
+     * Asynchronous version of {@link #getCreatureFamilyMedia(long)}.
+     * @param id ID of the WoW Creature Family.
+     * @return Future which completes with an {@link Ok} containing the Creature Family Media if the API call was
+     *         successful, otherwise an {@link Err} containing the error message.
+     */
+    public CompletableFuture<Result<WoWMedia, String>> getCreatureFamilyMediaAsync(final long id) {
+        final Call<WoWMedia> call = creatureEndpoint.getCreatureFamilyMedia(id);
+        return executeCallAsync(call);
+    }
+
     /**
      * Gets a list of all Creature Type Index items for the WoW Creature API.
      * @return {@link Ok} containing a list of creature type index items if the API call was successful,
@@ -100,6 +133,16 @@ public class CreatureAPI extends WoWAPI {
         return executeIndexCall(call);
     }
 
+    /**
+     * Asynchronous version of {@link #getCreatureTypes()}.
+     * @return Future which completes with an {@link Ok} containing a list of creature type index items if the API call
+     *         was successful, otherwise an {@link Err} containing the error message.
+     */
+    public CompletableFuture<Result<List<CreatureTypeIndexItem>, String>> getCreatureTypesAsync() {
+        final Call<CreatureTypeIndex> call = creatureEndpoint.getCreatureTypes();
+        return executeIndexCallAsync(call);
+    }
+
     /**
      * Gets a WoW Creature Type entity for the specified Creature Type {@code id}.
      * @param id ID of the WoW Creature Type.
@@ -111,6 +154,17 @@ public class CreatureAPI extends WoWAPI {
         return executeCall(call);
     }
 
+    /**
+     * Asynchronous version of {@link #getCreatureType(long)}.
+     * @param id ID of the WoW Creature Type.
+     * @return Future which completes with an {@link Ok} containing the Creature Type if the API call was successful,
+     *         otherwise an {@link Err} containing the error message.
+     */
+    public CompletableFuture<Result<CreatureType, String>> getCreatureTypeAsync(final long id) {
+        final Call<CreatureType> call = creatureEndpoint.getCreatureType(id);
+        return executeCallAsync(call);
+    }
+
     /**
      * Gets a WoW Creature entity for the specified Creature {@code id}.
      * @param id ID of the WoW Creature.
@@ -122,6 +176,17 @@ public class CreatureAPI extends WoWAPI {
         return executeCall(call);
     }
 
+    /**
+     * Asynchronous version of {@link #getCreature(long)}.
+     * @param id ID of the WoW Creature.
+     * @return Future which completes with an {@link Ok} containing the Creature if the API call was successful,
+     *         otherwise an {@link Err} containing the error message.
+     */
+    public CompletableFuture<Result<Creature, String>> getCreatureAsync(final long id) {
+        final Call<Creature> call = creatureEndpoint.getCreature(id);
+        return executeCallAsync(call);
+    }
+
     /**
      * Gets a WoW Creature Display Media entity for the specified Creature Display {@code id}.
      * @param id ID of the WoW Creature Display.
@@ -132,4 +197,15 @@ public class CreatureAPI extends WoWAPI {
         final Call<WoWMedia> call = creatureEndpoint.getCreatureDisplayMedia(id);
         return executeCall(call);
     }
+
+    /**
+     * Asynchronous version of {@link #getCreatureDisplayMedia(long)}.
+     * @param id ID of the WoW Creature Display.
+     * @return Future which completes with an {@link Ok} containing the Creature Display Media if the API call was
+     *         successful, otherwise an {@link Err} containing the error message.
+     */
+    public CompletableFuture<Result<WoWMedia, String>> getCreatureDisplayMediaAsync(final long id) {
+        final Call<WoWMedia> call = creatureEndpoint.getCreatureDisplayMedia(id);
+        return executeCallAsync(call);
+    }
 }
@@ -0,0 +1,329 @@
+/*
+ * Copyright (c) 2019 sep.gg <seputaes@sep.gg>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package gg.sep.battlenet.wow.api;
+
+import java.io.Closeable;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.gson.JsonElement;
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.extern.log4j.Log4j2;
+import retrofit2.Call;
+
+import gg.sep.battlenet.BattleNet;
+import gg.sep.battlenet.api.BattleNetAPIProxy;
+import gg.sep.battlenet.model.BattleNetEntity;
+import gg.sep.battlenet.ratelimit.QuotaWindow;
+import gg.sep.battlenet.ratelimit.RequestPriority;
+import gg.sep.battlenet.wow.endpoint.KeyFullItemEndpoint;
+import gg.sep.battlenet.wow.model.AbstractKeyedEntity;
+import gg.sep.battlenet.wow.model.Keyed;
+import gg.sep.result.Result;
+
+/**
+ * Warms the client's {@link gg.sep.battlenet.cache.BattleNetEntityCache} with the full items of index entries,
+ * so that later calls to {@link Keyed#getFullItem()} are answered by the cache rather than by Battle.net.
+ *
+ * <p>Items are queued either when an index is retrieved through a {@link WoWAPI} (if the client was built with
+ * {@code cacheWarming} enabled), explicitly with {@link #warm(List)}, or by periodically re-reading an index with
+ * {@link #schedule(Supplier, Duration)}. The queue is worked through in the background at
+ * {@link RequestPriority#BULK}:
+ *
+ * <ul>
+ *     <li>Items which are already cached, or already queued, are skipped.</li>
+ *     <li>Only a few fetches are in flight at a time, so the warmer never floods the rate limiter's queue ahead
+ *         of other requests.</li>
+ *     <li>While any of the proxy's quota windows has less than {@code quotaReserve} of its capacity remaining,
+ *         no new fetches are started, leaving the rest of the quota for other requests.</li>
+ * </ul>
+ */
+@Log4j2
+public final class IndexCacheWarmer implements Closeable {
+    private static final int DEFAULT_MAX_IN_FLIGHT = 4;
+    private static final double DEFAULT_QUOTA_RESERVE = 0.2;
+    private static final int DEFAULT_MAX_QUEUED = 50_000;
+    private static final Duration QUOTA_RECHECK_DELAY = Duration.ofSeconds(1);
+    private static final Map<Class<?>, Class<? extends BattleNetEntity>> FULL_ITEM_TYPES = new ConcurrentHashMap<>();
+
+    private final BattleNet battleNet;
+    private final int maxInFlight;
+    private final double quotaReserve;
+    private final int maxQueued;
+    private final ScheduledExecutorService scheduler;
+    private final Queue<WarmTask> queue = new ConcurrentLinkedQueue<>();
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+    private final ConcurrentMap<Supplier<?>, ScheduledFuture<?>> schedules = new ConcurrentHashMap<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder warmed = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+    private boolean drainScheduled;
+
+    /**
+     * A queued full item fetch.
+     */
+    private static final class WarmTask {
+        private final String href;
+        private final Class<? extends BattleNetEntity> type;
+
+        private WarmTask(final String href, final Class<? extends BattleNetEntity> type) {
+            this.href = href;
+            this.type = type;
+        }
+    }
+
+    /**
+     * Create a new cache warmer. Any setting which is null uses its default.
+     *
+     * @param battleNet Client whose cache is warmed.
+     * @param maxInFlight Maximum number of full item fetches in flight at a time. Defaults to 4.
+     * @param quotaReserve Fraction of each quota window's capacity which is left for other requests. Defaults to
+     *                     0.2. A value of 0 lets the warmer use the whole quota.
+     * @param maxQueued Maximum number of queued items. Items queued beyond this are dropped. Defaults to 50,000.
+     */
+    @Builder
+    private IndexCacheWarmer(@NonNull final BattleNet battleNet, final Integer maxInFlight,
+                             final Double quotaReserve, final Integer maxQueued) {
+        this.battleNet = battleNet;
+        this.maxInFlight = (maxInFlight == null) ? DEFAULT_MAX_IN_FLIGHT : maxInFlight;
+        this.quotaReserve = (quotaReserve == null) ? DEFAULT_QUOTA_RESERVE : quotaReserve;
+        this.maxQueued = (maxQueued == null) ? DEFAULT_MAX_QUEUED : maxQueued;
+        if (this.maxInFlight < 1) {
+            throw new IllegalArgumentException("maxInFlight must be at least 1");
+        }
+        if (this.quotaReserve < 0 || this.quotaReserve >= 1) {
+            throw new IllegalArgumentException("quotaReserve must be at least 0 and less than 1");
+        }
+        this.scheduler = Executors.newScheduledThreadPool(2, new ThreadFactoryBuilder()
+            .setDaemon(true)
+            .setNameFormat("battlenet-warmer-%d")
+            .build());
+    }
+
+    /**
+     * Queues the full items of index entries to be fetched into the cache.
+     *
+     * @param items Index entries whose full items should be cached.
+     * @return The number of items queued. Items which are already cached or queued, or whose full item type
+     *         can't be determined, aren't queued.
+     */
+    public int warm(final List<? extends Keyed<?>> items) {
+        int added = 0;
+        for (final Keyed<?> item : items) {
+            final Class<? extends BattleNetEntity> type = fullItemType(item.getClass());
+            if (item.getKey() == null || item.getKey().getHref() == null || type == null) {
+                skipped.increment();
+                continue;
+            }
+            final String href = item.getKey().getHref().toExternalForm();
+            if (queued.get() >= maxQueued || !pending.add(href)) {
+                skipped.increment();
+                continue;
+            }
+            if (getProxy().isCached(fullItemCall(href), type)) {
+                pending.remove(href);
+                skipped.increment();
+                continue;
+            }
+            queue.add(new WarmTask(href, type));
+            queued.incrementAndGet();
+            added++;
+        }
+        if (added > 0) {
+            scheduler.execute(this::drain);
+        }
+        return added;
+    }
+
+    /**
+     * Periodically retrieves an index and queues the full items of its entries, eg
+     * {@code warmer.schedule(mountAPI::getMounts, Duration.ofHours(1))}. The index is first retrieved straight away.
+     *
+     * @param index Retrieves the index entries. Called on the warmer's own thread.
+     * @param interval How often to retrieve the index.
+     */
+    public void schedule(final Supplier<? extends Result<? extends List<? extends Keyed<?>>, String>> index,
+                         final Duration interval) {
+        schedules.computeIfAbsent(index, i -> scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                final Result<? extends List<? extends Keyed<?>>, String> result = index.get();
+                if (result.isErr()) {
+                    log.warn("Unable to retrieve an index for cache warming: {}", result.unwrapErr());
+                    return;
+                }
+                warm(result.unwrap());
+            } catch (final RuntimeException e) {
+                log.error("Error warming the cache from an index", e);
+            }
+        }, 0, interval.toMillis(), TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * Stops periodically retrieving an index which was passed to {@link #schedule(Supplier, Duration)}.
+     *
+     * @param index The index supplier which was scheduled.
+     * @return True if the index was scheduled, otherwise false.
+     */
+    public boolean unschedule(final Supplier<?> index) {
+        final ScheduledFuture<?> future = schedules.remove(index);
+        if (future == null) {
+            return false;
+        }
+        future.cancel(false);
+        return true;
+    }
+
+    /**
+     * Returns the number of items waiting to be fetched.
+     * @return The number of items waiting to be fetched.
+     */
+    public int getQueued() {
+        return queued.get();
+    }
+
+    /**
+     * Returns the number of full items which have been fetched into the cache.
+     * @return The number of full items which have been fetched into the cache.
+     */
+    public long getWarmed() {
+        return warmed.sum();
+    }
+
+    /**
+     * Returns the number of items which weren't queued, because they were already cached or queued, the queue was
+     * full, or their full item type couldn't be determined.
+     * @return The number of items which weren't queued.
+     */
+    public long getSkipped() {
+        return skipped.sum();
+    }
+
+    /**
+     * Stops the warmer. Queued items are dropped and scheduled indexes are no longer retrieved.
+     */
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        queue.clear();
+        queued.set(0);
+        pending.clear();
+    }
+
+    /**
+     * Starts fetching queued items, up to the in-flight limit, unless the quota reserve has been reached.
+     */
+    private synchronized void drain() {
+        drainScheduled = false;
+        while (inFlight.get() < maxInFlight && !queue.isEmpty()) {
+            if (quotaReserved()) {
+                if (!drainScheduled && !scheduler.isShutdown()) {
+                    drainScheduled = true;
+                    scheduler.schedule(this::drain, QUOTA_RECHECK_DELAY.toMillis(), TimeUnit.MILLISECONDS);
+                }
+                return;
+            }
+            final WarmTask task = queue.poll();
+            queued.decrementAndGet();
+            inFlight.incrementAndGet();
+            getProxy().getEntityAsync(fullItemCall(task.href), task.type, RequestPriority.BULK)
+                .whenComplete((result, error) -> {
+                    pending.remove(task.href);
+                    inFlight.decrementAndGet();
+                    if (error == null && result.isOk()) {
+                        warmed.increment();
+                    } else {
+                        log.debug("Unable to warm the cache with {}: {}", task.href,
+                            (error == null) ? result.unwrapErr() : error);
+                    }
+                    if (!scheduler.isShutdown()) {
+                        scheduler.execute(this::drain);
+                    }
+                });
+        }
+    }
+
+    /**
+     * Returns whether any quota window has reached the reserve which is left for other requests.
+     */
+    private boolean quotaReserved() {
+        for (final Map.Entry<QuotaWindow, Long> window
+            : getProxy().getQuotaManager().getRemainingByWindow().entrySet()) {
+            if (window.getValue() < window.getKey().getCapacity() * quotaReserve) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private BattleNetAPIProxy getProxy() {
+        return battleNet.getProxy();
+    }
+
+    private Call<JsonElement> fullItemCall(final String href) {
+        return battleNet.getEndpoint(KeyFullItemEndpoint.class).getFullItem(href);
+    }
+
+    /**
+     * Returns the class of the full item behind an index entry class, from the type argument it passes to
+     * {@link AbstractKeyedEntity}, eg {@code Mount} for {@code MountIndexItem extends AbstractWoWIndexItem<Mount>}.
+     *
+     * @param itemClass Class of the index entry.
+     * @return The full item class, or null if it can't be determined.
+     */
+    static Class<? extends BattleNetEntity> fullItemType(final Class<?> itemClass) {
+        return FULL_ITEM_TYPES.computeIfAbsent(itemClass, c -> {
+            for (Class<?> current = c; current != null; current = current.getSuperclass()) {
+                final Type superclass = current.getGenericSuperclass();
+                if (!(superclass instanceof ParameterizedType)) {
+                    continue;
+                }
+                final ParameterizedType parameterized = (ParameterizedType) superclass;
+                if (AbstractKeyedEntity.class.isAssignableFrom((Class<?>) parameterized.getRawType())) {
+                    final Type argument = parameterized.getActualTypeArguments()[0];
+                    if (argument instanceof Class && BattleNetEntity.class.isAssignableFrom((Class<?>) argument)) {
+                        return ((Class<?>) argument).asSubclass(BattleNetEntity.class);
+                    }
+                }
+            }
+            return null;
+        });
+    }
+}
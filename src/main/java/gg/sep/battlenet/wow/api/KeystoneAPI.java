@@ -23,6 +23,7 @@
 package gg.sep.battlenet.wow.api;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import retrofit2.Call;
 
@@ -53,7 +54,7 @@ public class KeystoneAPI extends WoWAPI {
      */
     public KeystoneAPI(final BattleNet battleNet) {
         super(battleNet);
-        this.keystoneEndpoint = battleNet.getRetrofit().create(KeystoneEndpoint.class);
+        this.keystoneEndpoint = battleNet.getEndpoint(KeystoneEndpoint.class);
     }
 
     /**
@@ -68,6 +69,19 @@ public class KeystoneAPI extends WoWAPI {
         return executeIndexCall(call);
     }
 
+    /**
+     * Asynchronous version of {@link #getLeaderboards(int)}.
+     *
+     * @param connectedRealmId ID of the WoW connected realm.
+     * @return Future which completes with an {@link Ok} containing a list of leaderboard index items if the API
+     *         call was successful, otherwise an {@link Err} containing the error message.
+     */
+    public CompletableFuture<Result<List<MythicKeystoneLeaderboardIndexItem>, String>> getLeaderboardsAsync(
+        final int connectedRealmId) {
+        final Call<MythicKeystoneLeaderboardIndex> call = keystoneEndpoint.getLeaderboards(connectedRealmId);
+        return executeIndexCallAsync(call);
+    }
+
     /**
      * Gets the Mythic Keystone leaderboard for the specified Conencted Realm ID, dungeon ID, and period.
      * @param connectedRealmId ID of the WoW connected realm.
@@ -83,6 +97,21 @@ public class KeystoneAPI extends WoWAPI {
         return executeCall(call);
     }
 
+    /**
+     * Asynchronous version of {@link #getLeaderboard(int, int, int)}.
+     * @param connectedRealmId ID of the WoW connected realm.
+     * @param dungeonId ID of the Keystone Dungeon.
+     * @param period Period of the keystone leaderboard.
+     * @return Future which completes with an {@link Ok} containing the keystone leaderboard if the API call was
+     *         successful, otherwise an {@link Err} containing the error message.
+     */
+    public CompletableFuture<Result<MythicKeystoneLeaderboard, String>> getLeaderboardAsync(
+        final int connectedRealmId, final int dungeonId, final int period) {
+        final Call<MythicKeystoneLeaderboard> call = keystoneEndpoint.getLeaderboard(
+            connectedRealmId, dungeonId, period);
+        return executeCallAsync(call);
+    }
+
     /**
      * Gets a list of all Mythic Keystone Affix Index items for the WoW Keystone API.
      * @return {@link Ok} containing a list of mythic keystone affix index items if the API call was successful,
@@ -93,6 +122,16 @@ public class KeystoneAPI extends WoWAPI {
         return executeIndexCall(call);
     }
 
+    /**
+     * Asynchronous version of {@link #getAfixes()}.
+     * @return Future which completes with an {@link Ok} containing a list of mythic keystone affix index items if the
+     *         API call was successful, otherwise an {@link Err} containing the error message.
+     */
+    public CompletableFuture<Result<List<KeystoneAffixIndexItem>, String>> getAfixesAsync() {
+        final Call<KeystoneAffixIndex> call = keystoneEndpoint.getAffixes();
+        return executeIndexCallAsync(call);
+    }
+
     /**
      * Gets a WoW Mythic Keystone affix entity for the specified Affix {@code id}.
      * @param id ID of the WoW Keystone Affix.
@@ -103,4 +142,15 @@ public class KeystoneAPI extends WoWAPI {
         final Call<KeystoneAffix> call = keystoneEndpoint.getAffix(id);
         return executeCall(call);
     }
+
+    /**
+     * Asynchronous version of {@link #getAffix(int)}.
+     * @param id ID of the WoW Keystone Affix.
+     * @return Future which completes with an {@link Ok} containing the Keystone Affix if the API call was successful,
+     *         otherwise an {@link Err} containing the error message.
+     */
+    public CompletableFuture<Result<KeystoneAffix, String>> getAffixAsync(final int id) {
+        final Call<KeystoneAffix> call = keystoneEndpoint.getAffix(id);
+        return executeCallAsync(call);
+    }
 }
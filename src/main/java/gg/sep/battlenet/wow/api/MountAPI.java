@@ -23,6 +23,7 @@
 package gg.sep.battlenet.wow.api;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import retrofit2.Call;
 
@@ -50,7 +51,7 @@ public class MountAPI extends WoWAPI {
      */
     public MountAPI(final BattleNet battleNet) {
         super(battleNet);
-        this.mountEndpoint = battleNet.getRetrofit().create(MountEndpoint.class);
+        this.mountEndpoint = battleNet.getEndpoint(MountEndpoint.class);
     }
 
     /**
@@ -63,6 +64,16 @@ public class MountAPI extends WoWAPI {
         return executeIndexCall(call);
     }
 
+    /**
+     * Asynchronous version of {@link #getMounts()}.
+     * @return Future which completes with an {@link Ok} containing a list of mount index items if the API call was
+     *         successful, otherwise an {@link Err} containing the error message.
+     */
+    public CompletableFuture<Result<List<MountIndexItem>, String>> getMountsAsync() {
+        final Call<MountIndex> call = mountEndpoint.getMounts();
+        return executeIndexCallAsync(call);
+    }
+
     /**
      * Gets a WoW Mount entity for the specified Mount {@code id}.
      * @param id ID of the WoW Mount.
@@ -73,4 +84,15 @@ public class MountAPI extends WoWAPI {
         final Call<Mount> call = mountEndpoint.getMount(id);
         return executeCall(call);
     }
+
+    /**
+     * Asynchronous version of {@link #getMount(long)}.
+     * @param id ID of the WoW Mount.
+     * @return Future which completes with an {@link Ok} containing the Mount if the API call was successful, otherwise
+     *         an {@link Err} containing the error message.
+     */
+    public CompletableFuture<Result<Mount, String>> getMountAsync(final long id) {
+        final Call<Mount> call = mountEndpoint.getMount(id);
+        return executeCallAsync(call);
+    }
 }
@@ -23,6 +23,7 @@
 package gg.sep.battlenet.wow.api;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import retrofit2.Call;
 
@@ -50,7 +51,7 @@ public class PetAPI extends WoWAPI {
      */
     public PetAPI(final BattleNet battleNet) {
         super(battleNet);
-        this.petEndpoint = battleNet.getRetrofit().create(PetEndpoint.class);
+        this.petEndpoint = battleNet.getEndpoint(PetEndpoint.class);
     }
 
     /**
@@ -63,6 +64,16 @@ public class PetAPI extends WoWAPI {
         return executeIndexCall(call);
     }
 
+    /**
+     * Asynchronous version of {@link #getPets()}.
+     * @return Future which completes with an {@link Ok} containing a list of pet index items if the API call was
+     *         successful, otherwise an {@link Err} containing the error message.
+     */
+    public CompletableFuture<Result<List<PetIndexItem>, String>> getPetsAsync() {
+        final Call<PetIndex> call = petEndpoint.getPets();
+        return executeIndexCallAsync(call);
+    }
+
     /**
      * Gets a WoW Pet entity for the specified Pet {@code id}.
      * @param id ID of the WoW Pet.
@@ -73,4 +84,15 @@ public class PetAPI extends WoWAPI {
         final Call<Pet> call = petEndpoint.getPet(id);
         return executeCall(call);
     }
+
+    /**
+     * Asynchronous version of {@link #getPet(long)}.
+     * @param id ID of the WoW Pet.
+     * @return Future which completes with an {@link Ok} containing the Pet if the API call was successful, otherwise an
+     *         {@link Err} containing the error message.
+     */
+    public CompletableFuture<Result<Pet, String>> getPetAsync(final long id) {
+        final Call<Pet> call = petEndpoint.getPet(id);
+        return executeCallAsync(call);
+    }
 }
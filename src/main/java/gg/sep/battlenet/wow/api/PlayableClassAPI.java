@@ -23,6 +23,7 @@
 package gg.sep.battlenet.wow.api;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import retrofit2.Call;
 
@@ -51,7 +52,7 @@ public class PlayableClassAPI extends WoWAPI {
      */
     public PlayableClassAPI(final BattleNet battleNet) {
         super(battleNet);
-        this.playableClassEndpoint = battleNet.getRetrofit().create(PlayableClassEndpoint.class);
+        this.playableClassEndpoint = battleNet.getEndpoint(PlayableClassEndpoint.class);
     }
 
     /**
@@ -64,6 +65,16 @@ public class PlayableClassAPI extends WoWAPI {
         return executeIndexCall(call);
     }
 
+    /**
+     * Asynchronous version of {@link #getPlayableClasses()}.
+     * @return Future which completes with an {@link Ok} containing a list of pet class index items if the API call was
+     *         successful, otherwise an {@link Err} containing the error message.
+     */
+    public CompletableFuture<Result<List<PlayableClassIndexItem>, String>> getPlayableClassesAsync() {
+        final Call<PlayableClassIndex> call = playableClassEndpoint.getPlayableClasses();
+        return executeIndexCallAsync(call);
+    }
+
     /**
      * Gets a WoW Playable Class entity for the specified Class {@code id}.
      * @param id ID of the WoW Playable Class.
@@ -75,6 +86,17 @@ public class PlayableClassAPI extends WoWAPI {
         return executeCall(call);
     }
 
+    /**
+     * Asynchronous version of {@link #getPlayableClass(long)}.
+     * @param id ID of the WoW Playable Class.
+     * @return Future which completes with an {@link Ok} containing the Playable Class if the API call was successful,
+     *         otherwise an {@link Err} containing the error message.
+     */
+    public CompletableFuture<Result<PlayableClass, String>> getPlayableClassAsync(final long id) {
+        final Call<PlayableClass> call = playableClassEndpoint.getPlayableClass(id);
+        return executeCallAsync(call);
+    }
+
     /**
      * Gets a WoW Playable Class Media entity for the specified Playable Class {@code id}.
      * @param id ID of the WoW Playable Class.
@@ -85,4 +107,15 @@ public class PlayableClassAPI extends WoWAPI {
         final Call<WoWMedia> call = playableClassEndpoint.getPlayableClassMedia(id);
         return executeCall(call);
     }
+
+    /**
+     * Asynchronous version of {@link #getPlayableClassMedia(long)}.
+     * @param id ID of the WoW Playable Class.
+     * @return Future which completes with an {@link Ok} containing the Playable Class Media if the API call was
+     *         successful, otherwise an {@link Err} containing the error message.
+     */
+    public CompletableFuture<Result<WoWMedia, String>> getPlayableClassMediaAsync(final long id) {
+        final Call<WoWMedia> call = playableClassEndpoint.getPlayableClassMedia(id);
+        return executeCallAsync(call);
+    }
 }
@@ -23,6 +23,7 @@
 package gg.sep.battlenet.wow.api;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import retrofit2.Call;
 
@@ -50,7 +51,7 @@ public class PlayableSpecializationAPI extends WoWAPI {
      */
     public PlayableSpecializationAPI(final BattleNet battleNet) {
         super(battleNet);
-        this.playableSpecializationEndpoint = battleNet.getRetrofit().create(PlayableSpecializationEndpoint.class);
+        this.playableSpecializationEndpoint = battleNet.getEndpoint(PlayableSpecializationEndpoint.class);
     }
 
     /**
@@ -60,11 +61,18 @@ public class PlayableSpecializationAPI extends WoWAPI {
      */
     public Result<List<PlayableSpecializationIndexItem>, String> getCharacterSpecializations() {
         final Call<PlayableSpecializationIndex> call = playableSpecializationEndpoint.getPlayableSpecializations();
-        final Result<PlayableSpecializationIndex, String> result = executeCall(call);
-        if (result.isErr()) {
-            return Err.of(result.unwrapErr());
-        }
-        return Ok.of(result.unwrap().getItems());
+        return executeCall(call).map(PlayableSpecializationIndex::getItems);
+    }
+
+    /**
+     * Asynchronous version of {@link #getCharacterSpecializations()}.
+     * @return Future which completes with an {@link Ok} containing a list of character specialization index items
+     *         if the API call was successful, otherwise an {@link Err} containing the error message.
+     */
+    public CompletableFuture<Result<List<PlayableSpecializationIndexItem>, String>>
+        getCharacterSpecializationsAsync() {
+        final Call<PlayableSpecializationIndex> call = playableSpecializationEndpoint.getPlayableSpecializations();
+        return executeCallAsync(call).thenApply(result -> result.map(PlayableSpecializationIndex::getItems));
     }
 
     /**
@@ -74,11 +82,18 @@ public class PlayableSpecializationAPI extends WoWAPI {
      */
     public Result<List<PlayableSpecializationIndexItem>, String> getPetSpecializations() {
         final Call<PlayableSpecializationIndex> call = playableSpecializationEndpoint.getPlayableSpecializations();
-        final Result<PlayableSpecializationIndex, String> result = executeCall(call);
-        if (result.isErr()) {
-            return Err.of(result.unwrapErr());
-        }
-        return Ok.of(result.unwrap().getPetSpecializations());
+        return executeCall(call).map(PlayableSpecializationIndex::getPetSpecializations);
+    }
+
+    /**
+     * Asynchronous version of {@link #getPetSpecializations()}.
+     * @return Future which completes with an {@link Ok} containing a list of pet specialization index items if the
+     *         API call was successful, otherwise an {@link Err} containing the error message.
+     */
+    public CompletableFuture<Result<List<PlayableSpecializationIndexItem>, String>> getPetSpecializationsAsync() {
+        final Call<PlayableSpecializationIndex> call = playableSpecializationEndpoint.getPlayableSpecializations();
+        return executeCallAsync(call)
+            .thenApply(result -> result.map(PlayableSpecializationIndex::getPetSpecializations));
     }
 
     /**
@@ -91,4 +106,15 @@ public class PlayableSpecializationAPI extends WoWAPI {
         final Call<PlayableSpecialization> call = playableSpecializationEndpoint.getPlayableSpecialization(id);
         return executeCall(call);
     }
+
+    /**
+     * Asynchronous version of {@link #getSpecialization(long)}.
+     * @param id ID of the WoW Playable Specialization.
+     * @return Future which completes with an {@link Ok} containing the Playable Specialization if the API call was
+     *         successful, otherwise an {@link Err} containing the error message.
+     */
+    public CompletableFuture<Result<PlayableSpecialization, String>> getSpecializationAsync(final long id) {
+        final Call<PlayableSpecialization> call = playableSpecializationEndpoint.getPlayableSpecialization(id);
+        return executeCallAsync(call);
+    }
 }
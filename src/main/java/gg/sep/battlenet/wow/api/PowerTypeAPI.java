@@ -23,6 +23,7 @@
 package gg.sep.battlenet.wow.api;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import retrofit2.Call;
 
@@ -50,7 +51,7 @@ public class PowerTypeAPI extends WoWAPI {
      */
     public PowerTypeAPI(final BattleNet battleNet) {
         super(battleNet);
-        this.powerTypeEndpoint = battleNet.getRetrofit().create(PowerTypeEndpoint.class);
+        this.powerTypeEndpoint = battleNet.getEndpoint(PowerTypeEndpoint.class);
     }
 
     /**
@@ -63,6 +64,16 @@ public class PowerTypeAPI extends WoWAPI {
         return executeIndexCall(call);
     }
 
+    /**
+     * Asynchronous version of {@link #getPowerTypes()}.
+     * @return Future which completes with an {@link Ok} containing a list of power type index items if the API call was
+     *         successful, otherwise an {@link Err} containing the error message.
+     */
+    public CompletableFuture<Result<List<PowerTypeIndexItem>, String>> getPowerTypesAsync() {
+        final Call<PowerTypeIndex> call = powerTypeEndpoint.getPowerTypes();
+        return executeIndexCallAsync(call);
+    }
+
     /**
      * Gets a WoW Power Type entity for the specified Power Type {@code id}.
      * @param id ID of the WoW Power Type.
@@ -73,4 +84,15 @@ public class PowerTypeAPI extends WoWAPI {
         final Call<PowerType> call = powerTypeEndpoint.getPowerType(id);
         return executeCall(call);
     }
+
+    /**
+     * Asynchronous version of {@link #getPowerType(long)}.
+     * @param id ID of the WoW Power Type.
+     * @return Future which completes with an {@link Ok} containing the Power Type if the API call was successful,
+     *         otherwise an {@link Err} containing the error message.
+     */
+    public CompletableFuture<Result<PowerType, String>> getPowerTypeAsync(final long id) {
+        final Call<PowerType> call = powerTypeEndpoint.getPowerType(id);
+        return executeCallAsync(call);
+    }
 }
@@ -23,6 +23,7 @@
 package gg.sep.battlenet.wow.api;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import retrofit2.Call;
 
@@ -50,7 +51,7 @@ public class RaceAPI extends WoWAPI {
      */
     public RaceAPI(final BattleNet battleNet) {
         super(battleNet);
-        this.raceEndpoint = battleNet.getRetrofit().create(RaceEndpoint.class);
+        this.raceEndpoint = battleNet.getEndpoint(RaceEndpoint.class);
     }
 
     /**
@@ -63,6 +64,16 @@ public class RaceAPI extends WoWAPI {
         return executeIndexCall(call);
     }
 
+    /**
+     * Asynchronous version of {@link #getPlayableRaces()}.
+     * @return Future which completes with an {@link Ok} containing a list of playable race index items if the API call
+     *         was successful, otherwise an {@link Err} containing the error message.
+     */
+    public CompletableFuture<Result<List<PlayableRaceIndexItem>, String>> getPlayableRacesAsync() {
+        final Call<PlayableRaceIndex> call = raceEndpoint.getPlayableRaces();
+        return executeIndexCallAsync(call);
+    }
+
     /**
      * Gets a WoW Playable Race entity for the specified Playable Race {@code id}.
      * @param id ID of the WoW Playable Race.
@@ -73,4 +84,15 @@ public class RaceAPI extends WoWAPI {
         final Call<PlayableRace> call = raceEndpoint.getPlayableRace(id);
         return executeCall(call);
     }
+
+    /**
+     * Asynchronous version of {@link #getPlayableRace(long)}.
+     * @param id ID of the WoW Playable Race.
+     * @return Future which completes with an {@link Ok} containing the Playable Race if the API call was successful,
+     *         otherwise an {@link Err} containing the error message.
+     */
+    public CompletableFuture<Result<PlayableRace, String>> getPlayableRaceAsync(final long id) {
+        final Call<PlayableRace> call = raceEndpoint.getPlayableRace(id);
+        return executeCallAsync(call);
+    }
 }
@@ -23,6 +23,7 @@
 package gg.sep.battlenet.wow.api;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import retrofit2.Call;
 
@@ -53,7 +54,7 @@ public class RealmAPI extends WoWAPI {
      */
     public RealmAPI(final BattleNet battleNet) {
         super(battleNet);
-        this.realmEndpoint = battleNet.getRetrofit().create(RealmEndpoint.class);
+        this.realmEndpoint = battleNet.getEndpoint(RealmEndpoint.class);
     }
 
     /**
@@ -66,6 +67,16 @@ public class RealmAPI extends WoWAPI {
         return executeIndexCall(call);
     }
 
+    /**
+     * Asynchronous version of {@link #getRealms()}.
+     * @return Future which completes with an {@link Ok} containing a list of realm index items if the API call was
+     *         successful, otherwise an {@link Err} containing the error message.
+     */
+    public CompletableFuture<Result<List<RealmIndexItem>, String>> getRealmsAsync() {
+        final Call<RealmIndex> call = realmEndpoint.getRealms();
+        return executeIndexCallAsync(call);
+    }
+
     /**
      * Gets a WoW Realm entity for the specified Realm {@code slug}.
      * @param slug Slug of the WoW Realm.
@@ -77,6 +88,17 @@ public class RealmAPI extends WoWAPI {
         return executeCall(call);
     }
 
+    /**
+     * Asynchronous version of {@link #getRealm(String)}.
+     * @param slug Slug of the WoW Realm.
+     * @return Future which completes with an {@link Ok} containing the Realm if the API call was successful, otherwise
+     *         an {@link Err} containing the error message.
+     */
+    public CompletableFuture<Result<Realm, String>> getRealmAsync(final String slug) {
+        final Call<Realm> call = realmEndpoint.getRealm(slug);
+        return executeCallAsync(call);
+    }
+
     /**
      * Gets a list of all Realm Index items for the WoW Connected Realm API.
      * @return {@link Ok} containing a list of connected realm index items if the API call was successful,
@@ -87,6 +109,16 @@ public class RealmAPI extends WoWAPI {
         return executeKeyIndexCall(call);
     }
 
+    /**
+     * Asynchronous version of {@link #getConnectedRealms()}.
+     * @return Future which completes with an {@link Ok} containing a list of connected realm index items if the
+     *         API call was successful, otherwise an {@link Err} containing the error message.
+     */
+    public CompletableFuture<Result<List<ConnectedRealmKey>, String>> getConnectedRealmsAsync() {
+        final Call<ConnectedRealmIndex> call = realmEndpoint.getConnectedRealms();
+        return executeKeyIndexCallAsync(call);
+    }
+
     /**
      * Gets a WoW Connected Realm entity for the specified Realm {@code id}.
      * @param id Slug of the WoW Connected Realm.
@@ -97,4 +129,15 @@ public class RealmAPI extends WoWAPI {
         final Call<ConnectedRealm> call = realmEndpoint.getConnectedRealm(id);
         return executeCall(call);
     }
+
+    /**
+     * Asynchronous version of {@link #getConnectedRealm(int)}.
+     * @param id ID of the WoW Connected Realm.
+     * @return Future which completes with an {@link Ok} containing the Connected Realm if the API call was
+     *         successful, otherwise an {@link Err} containing the error message.
+     */
+    public CompletableFuture<Result<ConnectedRealm, String>> getConnectedRealmAsync(final int id) {
+        final Call<ConnectedRealm> call = realmEndpoint.getConnectedRealm(id);
+        return executeCallAsync(call);
+    }
 }
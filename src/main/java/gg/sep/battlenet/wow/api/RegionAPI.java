@@ -23,6 +23,7 @@
 package gg.sep.battlenet.wow.api;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import retrofit2.Call;
 
@@ -50,7 +51,7 @@ public class RegionAPI extends WoWAPI {
      */
     public RegionAPI(final BattleNet battleNet) {
         super(battleNet);
-        this.regionEndpoint = battleNet.getRetrofit().create(RegionEndpoint.class);
+        this.regionEndpoint = battleNet.getEndpoint(RegionEndpoint.class);
     }
 
     /**
@@ -63,6 +64,16 @@ public class RegionAPI extends WoWAPI {
         return executeKeyIndexCall(call);
     }
 
+    /**
+     * Asynchronous version of {@link #getRegions()}.
+     * @return Future which completes with an {@link Ok} containing a list of region index items if the API call was
+     *         successful, otherwise an {@link Err} containing the error message.
+     */
+    public CompletableFuture<Result<List<RegionKey>, String>> getRegionsAsync() {
+        final Call<RegionIndex> call = regionEndpoint.getRegions();
+        return executeKeyIndexCallAsync(call);
+    }
+
     /**
      * Gets a WoW Region entity for the specified Region {@code id}.
      * @param id ID of the WoW Region.
@@ -73,4 +84,15 @@ public class RegionAPI extends WoWAPI {
         final Call<Region> call = regionEndpoint.getRegion(id);
         return executeCall(call);
     }
+
+    /**
+     * Asynchronous version of {@link #getRegion(int)}.
+     * @param id ID of the WoW Region.
+     * @return Future which completes with an {@link Ok} containing the Region if the API call was successful, otherwise
+     *         an {@link Err} containing the error message.
+     */
+    public CompletableFuture<Result<Region, String>> getRegionAsync(final int id) {
+        final Call<Region> call = regionEndpoint.getRegion(id);
+        return executeCallAsync(call);
+    }
 }
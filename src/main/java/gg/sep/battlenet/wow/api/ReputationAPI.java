@@ -23,6 +23,7 @@
 package gg.sep.battlenet.wow.api;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import retrofit2.Call;
 
@@ -53,7 +54,7 @@ public class ReputationAPI extends WoWAPI {
      */
     public ReputationAPI(final BattleNet battleNet) {
         super(battleNet);
-        this.reputationEndpoint = battleNet.getRetrofit().create(ReputationEndpoint.class);
+        this.reputationEndpoint = battleNet.getEndpoint(ReputationEndpoint.class);
     }
 
     /**
@@ -66,6 +67,16 @@ public class ReputationAPI extends WoWAPI {
         return executeIndexCall(call);
     }
 
+    /**
+     * Asynchronous version of {@link #getFactions()}.
+     * @return Future which completes with an {@link Ok} containing a list of reputation faction index items if the API
+     *         call was successful, otherwise an {@link Err} containing the error message.
+     */
+    public CompletableFuture<Result<List<ReputationFactionIndexItem>, String>> getFactionsAsync() {
+        final Call<ReputationFactionIndex> call = reputationEndpoint.getFactions();
+        return executeIndexCallAsync(call);
+    }
+
     /**
      * Gets a WoW Reputation Faction entity for the specified Reputation Faction {@code id}.
      * @param id ID of the WoW Reputation Faction.
@@ -77,6 +88,17 @@ public class ReputationAPI extends WoWAPI {
         return executeCall(call);
     }
 
+    /**
+     * Asynchronous version of {@link #getFaction(long)}.
+     * @param id ID of the WoW Reputation Faction.
+     * @return Future which completes with an {@link Ok} containing the Reputation faction if the API call was
+     *         successful, otherwise an {@link Err} containing the error message.
+     */
+    public CompletableFuture<Result<ReputationFaction, String>> getFactionAsync(final long id) {
+        final Call<ReputationFaction> call = reputationEndpoint.getFaction(id);
+        return executeCallAsync(call);
+    }
+
     /**
      * Gets a list of all Reputation Tiers Index items for the WoW Reputation API.
      * @return {@link Ok} containing a list of reputation tiers index items if the API call was successful,
@@ -87,6 +109,16 @@ public class ReputationAPI extends WoWAPI {
         return executeIndexCall(call);
     }
 
+    /**
+     * Asynchronous version of {@link #getReputationTiersIndex()}.
+     * @return Future which completes with an {@link Ok} containing a list of reputation tiers index items if the API
+     *         call was successful, otherwise an {@link Err} containing the error message.
+     */
+    public CompletableFuture<Result<List<ReputationTiersIndexItem>, String>> getReputationTiersIndexAsync() {
+        final Call<ReputationTiersIndex> call = reputationEndpoint.getReputationTiersIndex();
+        return executeIndexCallAsync(call);
+    }
+
     /**
      * Gets a WoW Reputation Tiers entity for the specified Reputation Tiers {@code id}.
      * @param id ID of the WoW Reputation Tiers.
@@ -97,4 +129,15 @@ public class ReputationAPI extends WoWAPI {
         final Call<ReputationTiers> call = reputationEndpoint.getReputationTiers(id);
         return executeCall(call);
     }
+
+    /**
+     * Asynchronous version of {@link #getReputationTiers(long)}.
+     * @param id ID of the WoW Reputation Tiers.
+     * @return Future which completes with an {@link Ok} containing the Reputation tiers if the API call was successful,
+     *         otherwise an {@link Err} containing the error message.
+     */
+    public CompletableFuture<Result<ReputationTiers, String>> getReputationTiersAsync(final long id) {
+        final Call<ReputationTiers> call = reputationEndpoint.getReputationTiers(id);
+        return executeCallAsync(call);
+    }
 }
@@ -23,6 +23,7 @@
 package gg.sep.battlenet.wow.api;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import retrofit2.Call;
 
@@ -50,7 +51,7 @@ public class TitleAPI extends WoWAPI {
      */
     public TitleAPI(final BattleNet battleNet) {
         super(battleNet);
-        this.titleEndpoint = battleNet.getRetrofit().create(TitleEndpoint.class);
+        this.titleEndpoint = battleNet.getEndpoint(TitleEndpoint.class);
     }
 
     /**
@@ -63,6 +64,16 @@ public class TitleAPI extends WoWAPI {
         return executeIndexCall(call);
     }
 
+    /**
+     * Asynchronous version of {@link #getTitles()}.
+     * @return Future which completes with an {@link Ok} containing a list of title index items if the API call was
+     *         successful, otherwise an {@link Err} containing the error message.
+     */
+    public CompletableFuture<Result<List<TitleIndexItem>, String>> getTitlesAsync() {
+        final Call<TitleIndex> call = titleEndpoint.getTitles();
+        return executeIndexCallAsync(call);
+    }
+
     /**
      * Gets a WoW Title entity for the specified Title {@code id}.
      * @param id ID of the WoW Title.
@@ -73,4 +84,15 @@ public class TitleAPI extends WoWAPI {
         final Call<Title> call = titleEndpoint.getTitle(id);
         return executeCall(call);
     }
+
+    /**
+     * Asynchronous version of {@link #getTitle(long)}.
+     * @param id ID of the WoW Title.
+     * @return Future which completes with an {@link Ok} containing the Title if the API call was successful, otherwise
+     *         an {@link Err} containing the error message.
+     */
+    public CompletableFuture<Result<Title, String>> getTitleAsync(final long id) {
+        final Call<Title> call = titleEndpoint.getTitle(id);
+        return executeCallAsync(call);
+    }
 }
@@ -23,12 +23,15 @@
 package gg.sep.battlenet.wow.api;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
+import lombok.extern.log4j.Log4j2;
 import retrofit2.Call;
 
 import gg.sep.battlenet.BattleNet;
 import gg.sep.battlenet.api.BattleNetAPI;
 import gg.sep.battlenet.model.BattleNetEntity;
+import gg.sep.battlenet.wow.model.Keyed;
 import gg.sep.battlenet.wow.model.WoWIndex;
 import gg.sep.battlenet.wow.model.WoWIndexItem;
 import gg.sep.battlenet.wow.model.WoWKey;
@@ -38,7 +41,13 @@ import gg.sep.result.Result;
 /**
  * A subclass of {@link BattleNetAPI} which implements WoW-API specific
  * helper methods.
+ *
+ * <p>If the client has an {@link IndexCacheWarmer}, the items of every index retrieved with
+ * {@link #executeIndexCall(Call)} or {@link #executeIndexCallAsync(Call)} are queued to have their full items
+ * fetched into the cache in the background. The keys of every index retrieved through a WoW API are given the
+ * API's priority, so requests for their full items wait for rate limit permits with it.
  */
+@Log4j2
 public abstract class WoWAPI extends BattleNetAPI {
 
     /**
@@ -66,7 +75,7 @@ public abstract class WoWAPI extends BattleNetAPI {
         Result<List<E>, String> executeIndexCall(final Call<I> call) {
 
         final Result<I, String> indexResponse = executeCall(call);
-        return indexResponse.map(WoWIndex::getItems);
+        return warm(prioritizeItems(indexResponse.map(WoWIndex::getItems)));
     }
 
     /**
@@ -75,6 +84,91 @@ public abstract class WoWAPI extends BattleNetAPI {
     protected <I extends WoWKeyIndex<E>, E extends WoWKey<T>, T extends BattleNetEntity>
         Result<List<E>, String> executeKeyIndexCall(final Call<I> call) {
         final Result<I, String> indexResponse = executeCall(call);
-        return indexResponse.map(WoWKeyIndex::getItems);
+        return prioritizeKeys(indexResponse.map(WoWKeyIndex::getItems));
+    }
+
+    /**
+     * Asynchronous version of {@link #executeIndexCall(Call)}.
+     *
+     * @param call Retrofit call which will return a {@code I} {@link WoWIndex} API response.
+     * @param <I> Type of index API response to expect from the raw API call.
+     * @param <E> Type of index items that are contained on the {@code items} field of the index response.
+     * @param <T> Type of full entity versions of the index items for the {@link WoWIndexItem}.
+     * @return Future which completes with the list of {@link WoWIndexItem}s contained in the index
+     *         if the API call was successful, otherwise an {@link gg.sep.result.Err} containing the error message.
+     */
+    protected <I extends WoWIndex<E>, E extends WoWIndexItem<T>, T extends BattleNetEntity>
+        CompletableFuture<Result<List<E>, String>> executeIndexCallAsync(final Call<I> call) {
+
+        return executeCallAsync(call)
+            .thenApply(indexResponse -> warm(prioritizeItems(indexResponse.map(WoWIndex::getItems))));
+    }
+
+    /**
+     * Asynchronous version of {@link #executeKeyIndexCall(Call)}, the {@link WoWKeyIndex} equivalent of
+     * {@link #executeIndexCallAsync(Call)}.
+     *
+     * @param call Retrofit call which will return a {@code I} {@link WoWKeyIndex} API response.
+     * @param <I> Type of key index API response to expect from the raw API call.
+     * @param <E> Type of keys that are contained on the {@code items} field of the key index response.
+     * @param <T> Type of full entity versions of the {@link WoWKey}s.
+     * @return Future which completes with the list of {@link WoWKey}s contained in the index
+     *         if the API call was successful, otherwise an {@link gg.sep.result.Err} containing the error message.
+     */
+    protected <I extends WoWKeyIndex<E>, E extends WoWKey<T>, T extends BattleNetEntity>
+        CompletableFuture<Result<List<E>, String>> executeKeyIndexCallAsync(final Call<I> call) {
+        return executeCallAsync(call)
+            .thenApply(indexResponse -> prioritizeKeys(indexResponse.map(WoWKeyIndex::getItems)));
+    }
+
+    /**
+     * Gives the keys of the index's items this API's priority, so that their full items are requested with it.
+     *
+     * @param items Result of an index call.
+     * @param <E> Type of index items.
+     * @return The unchanged {@code items}.
+     */
+    private <E extends Keyed<?>> Result<List<E>, String> prioritizeItems(final Result<List<E>, String> items) {
+        if (items.isOk() && items.unwrap() != null) {
+            for (final E item : items.unwrap()) {
+                if (item.getKey() != null) {
+                    item.getKey().setPriority(getPriority());
+                }
+            }
+        }
+        return items;
+    }
+
+    /**
+     * Gives the keys of a key index this API's priority, so that their full items are requested with it.
+     *
+     * @param keys Result of a key index call.
+     * @param <E> Type of keys.
+     * @return The unchanged {@code keys}.
+     */
+    private <E extends WoWKey<?>> Result<List<E>, String> prioritizeKeys(final Result<List<E>, String> keys) {
+        if (keys.isOk() && keys.unwrap() != null) {
+            keys.unwrap().forEach(key -> key.setPriority(getPriority()));
+        }
+        return keys;
+    }
+
+    /**
+     * Queues the full items of the index's items with the client's {@link IndexCacheWarmer}, if it has one.
+     *
+     * @param items Result of an index call.
+     * @param <E> Type of index items.
+     * @return The unchanged {@code items}.
+     */
+    private <E extends Keyed<?>> Result<List<E>, String> warm(final Result<List<E>, String> items) {
+        final IndexCacheWarmer warmer = getBattleNet().getCacheWarmer();
+        if (warmer != null && items.isOk()) {
+            try {
+                warmer.warm(items.unwrap());
+            } catch (final RuntimeException e) {
+                log.error("Error queueing index items for cache warming", e);
+            }
+        }
+        return items;
     }
 }
@@ -28,11 +28,12 @@ import com.google.gson.JsonElement;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
-import lombok.extern.log4j.Log4j2;
 import retrofit2.Call;
 
 import gg.sep.battlenet.model.AbstractBattleNetEntity;
+import gg.sep.battlenet.model.BattleNetEntity;
 import gg.sep.battlenet.model.JsonSerializable;
+import gg.sep.battlenet.ratelimit.RequestPriority;
 import gg.sep.battlenet.wow.endpoint.KeyFullItemEndpoint;
 import gg.sep.result.Err;
 import gg.sep.result.Ok;
@@ -47,36 +48,48 @@ import gg.sep.result.Result;
  */
 @Getter
 @Setter(AccessLevel.PRIVATE)
-@Log4j2
-public class WoWKey<T> extends AbstractBattleNetEntity implements JsonSerializable {
+public class WoWKey<T extends BattleNetEntity> extends AbstractBattleNetEntity implements JsonSerializable {
     private URL href;
+    @Getter(AccessLevel.NONE)
+    private transient volatile RequestPriority priority;
+
+    /**
+     * Returns the priority with which {@link #getItem(Class)} waits for rate limit permits. Keys in an index
+     * retrieved through a {@link gg.sep.battlenet.wow.api.WoWAPI} have the priority of that API, and other keys
+     * have {@link RequestPriority#NORMAL}.
+     *
+     * @return The priority of requests for the full item.
+     */
+    public RequestPriority getPriority() {
+        final RequestPriority current = priority;
+        return (current == null) ? RequestPriority.NORMAL : current;
+    }
+
+    /**
+     * Sets the priority with which {@link #getItem(Class)} waits for rate limit permits.
+     *
+     * @param priority The priority of requests for the full item.
+     */
+    public void setPriority(final RequestPriority priority) {
+        this.priority = priority;
+    }
 
     /**
      * Helper method that classes which contain a WoWKey can use in their own {@code getFullItem()} implementation
      * to return the full version of an API item.
      *
      * <p>This method performs a {@code GET} request to the full URL contained in {@link #getHref()}
-     * and converts it to the model specified by {@code T}.
+     * and converts it to the model specified by {@code T}. The request goes through the client's
+     * {@link gg.sep.battlenet.api.BattleNetAPIProxy} at the key's {@link #getPriority()}, so it is rate limited,
+     * retried and cached like any other API call.
      *
      * @param clazz Class of {@code T} which will be used to parse the API response.
      * @return {@link Ok} result containing of {@code T} if the API call was successful, otherwise an {@link Err}
      *         containing the error message.
      */
     protected Result<T, String> getItem(final Class<T> clazz) {
-        final KeyFullItemEndpoint endpoint = getBattleNet().getRetrofit().create(KeyFullItemEndpoint.class);
+        final KeyFullItemEndpoint endpoint = getBattleNet().getEndpoint(KeyFullItemEndpoint.class);
         final Call<JsonElement> call = endpoint.getFullItem(href.toExternalForm());
-        try {
-            final JsonElement jsonElement = call.execute().body();
-            final T entity = getBattleNet().getJsonParser().fromJson(jsonElement, clazz);
-            return nullableResult(entity, "Error retrieving the full item %s", call.request().url());
-        } catch (final Exception e) {
-            log.error(e);
-            return nullableResult(null, "Exception when attempting to get Full Item. url=%s, exception=%s",
-                call.request().url(), e);
-        }
-    }
-
-    private Result<T, String> nullableResult(final T ok, final String err, final Object... args) {
-        return (ok == null) ? Err.of(String.format(err, args)) : Ok.of(ok);
+        return getBattleNet().getProxy().getEntity(call, clazz, getPriority());
     }
 }
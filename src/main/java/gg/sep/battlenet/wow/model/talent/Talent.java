@@ -35,4 +35,9 @@ import gg.sep.battlenet.model.JsonSerializable;
  * API Reference: https://develop.battle.net/documentation/api-reference/world-of-warcraft-game-data-api
  */
 public class Talent extends AbstractBattleNetEntity implements JsonSerializable {
+    /**
+     * Error returned for the WoW Talents API, which Blizzard has not implemented.
+     */
+    public static final String API_UNAVAILABLE = "The WoW Talents API is not currently implemented by Blizzard. " +
+        "See the Known Issues: https://develop.battle.net/documentation/guides/game-data-apis-wow-known-issues";
 }
@@ -51,7 +51,6 @@ public class TalentIndexItem extends AbstractWoWIndexItem<Talent> implements Jso
      * {@inheritDoc}
      */
     public Result<Talent, String> getFullItem() {
-        return Err.of("The WoW Talents API is not currently implemented by Blizzard. See the Known Issues: " +
-            "https://develop.battle.net/documentation/guides/game-data-apis-wow-known-issues");
+        return Err.of(Talent.API_UNAVAILABLE);
     }
 }
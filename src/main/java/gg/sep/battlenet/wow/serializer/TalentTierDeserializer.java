@@ -32,6 +32,8 @@ import com.google.gson.JsonDeserializer;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParseException;
+import com.google.gson.JsonSerializationContext;
+import com.google.gson.JsonSerializer;
 import lombok.RequiredArgsConstructor;
 
 import gg.sep.battlenet.BattleNet;
@@ -48,9 +50,13 @@ import gg.sep.battlenet.wow.model.talent.TalentTier;
  *
  * <p>This deserializer merges the spell tooltip into the {@link TalentIndexItem} entity, and simply
  * returns a list of the combined objects in {@link TalentTier#getTalents()}.
+ *
+ * <p>Talent tiers are serialized back into the API's nested format, with each tooltip split back out
+ * of its {@link TalentIndexItem}, so entities written with
+ * {@link gg.sep.battlenet.model.JsonSerializable#toJson()} can be parsed again.
  */
 @RequiredArgsConstructor
-public class TalentTierDeserializer implements JsonDeserializer<TalentTier> {
+public class TalentTierDeserializer implements JsonDeserializer<TalentTier>, JsonSerializer<TalentTier> {
 
     private final BattleNet battleNet;
 
@@ -81,4 +87,26 @@ public class TalentTierDeserializer implements JsonDeserializer<TalentTier> {
         talentTier.setBattleNet(battleNet);
         return talentTier;
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public JsonElement serialize(final TalentTier src, final Type typeOfSrc, final JsonSerializationContext context) {
+        final JsonObject jsonObject = new JsonObject();
+        jsonObject.addProperty("level", src.getLevel());
+
+        final JsonArray talents = new JsonArray();
+        if (src.getTalents() != null) {
+            for (final TalentIndexItem indexItem : src.getTalents()) {
+                final JsonObject talentElement = new JsonObject();
+                talentElement.add("talent", context.serialize(indexItem, TalentIndexItem.class));
+                talentElement.add("spell_tooltip",
+                    context.serialize(indexItem.getSpellTooltip(), TalentSpellTooltip.class));
+                talents.add(talentElement);
+            }
+        }
+        jsonObject.add("talents", talents);
+        return jsonObject;
+    }
 }
@@ -0,0 +1,251 @@
+/*
+ * Copyright (c) 2019 sep.gg <seputaes@sep.gg>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package gg.sep.battlenet.wow.snapshot;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.extern.log4j.Log4j2;
+
+import gg.sep.battlenet.BattleNet;
+import gg.sep.battlenet.api.BattleNetAPI;
+import gg.sep.battlenet.cache.EntitySnapshot;
+import gg.sep.battlenet.cache.NamespaceRevision;
+import gg.sep.battlenet.cache.NamespaceRevisions;
+import gg.sep.battlenet.cache.RecordingEntityCache;
+import gg.sep.battlenet.model.BattleNetEntity;
+import gg.sep.battlenet.ratelimit.RequestPriority;
+import gg.sep.battlenet.wow.api.AchievementAPI;
+import gg.sep.battlenet.wow.api.AzeriteEssenceAPI;
+import gg.sep.battlenet.wow.api.CreatureAPI;
+import gg.sep.battlenet.wow.api.KeystoneAPI;
+import gg.sep.battlenet.wow.api.MountAPI;
+import gg.sep.battlenet.wow.api.PetAPI;
+import gg.sep.battlenet.wow.api.PlayableClassAPI;
+import gg.sep.battlenet.wow.api.PlayableSpecializationAPI;
+import gg.sep.battlenet.wow.api.PowerTypeAPI;
+import gg.sep.battlenet.wow.api.RaceAPI;
+import gg.sep.battlenet.wow.api.ReputationAPI;
+import gg.sep.battlenet.wow.api.TitleAPI;
+import gg.sep.battlenet.wow.model.Keyed;
+import gg.sep.result.Err;
+import gg.sep.result.Ok;
+import gg.sep.result.Result;
+
+/**
+ * Builds an {@link EntitySnapshot} of the WoW static namespace, so the static dataset can be retrieved once and
+ * shipped to every node, rather than each node requesting it from Battle.net.
+ *
+ * <p>The writer walks every static index (achievements, achievement categories, mounts, pets, creature families
+ * and types, playable classes, character and pet specializations, playable races, power types, titles,
+ * reputation factions and tiers, keystone affixes and azerite essences) and the full item of every index entry,
+ * running up to {@code concurrency} requests at a time. Index requests are made at {@link RequestPriority#BULK}.
+ *
+ * <p>The entities are captured by a {@link RecordingEntityCache}, under the same cache keys the proxy reads them
+ * with, so the client must be built with one:
+ *
+ * <pre>
+ * BattleNet battleNet = BattleNet.builder()
+ *     .clientId(clientId).clientSecret(clientSecret)
+ *     .cacheConfig(CacheConfig.builder()
+ *         .cache(new RecordingEntityCache(InMemoryEntityCache.builder().build()))
+ *         .build())
+ *     .build();
+ * StaticSnapshotWriter.builder().battleNet(battleNet).build().write(Paths.get("static-us.snapshot.gz"));
+ * </pre>
+ *
+ * <p>Nodes then load the snapshot into their own cache with {@link EntitySnapshot#load(Path, BattleNet)}. The
+ * snapshot includes the revision of the static namespace (see {@link NamespaceRevisions}), so loaded entities
+ * are read until Battle.net reports a new game build.
+ */
+@Log4j2
+public final class StaticSnapshotWriter {
+    private static final int DEFAULT_CONCURRENCY = 4;
+
+    private final BattleNet battleNet;
+    private final RecordingEntityCache recorder;
+    private final int concurrency;
+
+    /**
+     * Create a new snapshot writer.
+     *
+     * @param battleNet Client to retrieve the static data with. Must be built with a {@link RecordingEntityCache}.
+     * @param concurrency Maximum number of requests to run at a time. Defaults to 4.
+     */
+    @Builder
+    private StaticSnapshotWriter(@NonNull final BattleNet battleNet, final Integer concurrency) {
+        if (!(battleNet.getCache() instanceof RecordingEntityCache)) {
+            throw new IllegalArgumentException("The Battle.net client must be built with a RecordingEntityCache");
+        }
+        this.battleNet = battleNet;
+        this.recorder = (RecordingEntityCache) battleNet.getCache();
+        this.concurrency = (concurrency == null) ? DEFAULT_CONCURRENCY : concurrency;
+        if (this.concurrency < 1) {
+            throw new IllegalArgumentException("concurrency must be at least 1");
+        }
+    }
+
+    /**
+     * Retrieves every static index and full item, and writes them to a snapshot file.
+     *
+     * <p>Full items which can't be retrieved are logged and left out of the snapshot. If an index can't be
+     * retrieved, no snapshot is written.
+     *
+     * @param file File to write the snapshot to.
+     * @return An {@link Ok} containing the number of entities written to the snapshot, otherwise
+     *         an {@link Err} containing the error message.
+     * @throws IOException If the snapshot can't be written.
+     */
+    public Result<Integer, String> write(final Path file) throws IOException {
+        // static responses aren't cached until the namespace revision is known, so learn it before the walk
+        final PowerTypeAPI powerTypeAPI = bulk(PowerTypeAPI.class);
+        final Result<?, String> probe = powerTypeAPI.getPowerTypes();
+        if (probe.isErr()) {
+            return Err.of("Unable to retrieve the static namespace revision: " + probe.unwrapErr());
+        }
+
+        final Queue<String> indexErrors = new ConcurrentLinkedQueue<>();
+        final AtomicInteger itemErrors = new AtomicInteger();
+        final Set<String> seen = ConcurrentHashMap.newKeySet();
+        final ExecutorService executor = Executors.newFixedThreadPool(concurrency, new ThreadFactoryBuilder()
+            .setDaemon(true)
+            .setNameFormat("battlenet-snapshot-%d")
+            .build());
+        try {
+            final List<CompletableFuture<Void>> walks = new ArrayList<>();
+            indexes().forEach((name, index) -> walks.add(CompletableFuture.supplyAsync(index, executor)
+                .thenCompose(result -> {
+                    if (result.isErr()) {
+                        indexErrors.add(name + ": " + result.unwrapErr());
+                        return CompletableFuture.completedFuture(null);
+                    }
+                    log.info("Snapshot | index={}, items={}", name, result.unwrap().size());
+                    return CompletableFuture.allOf(result.unwrap().stream()
+                        .filter(item -> item.getKey() != null && seen.add(item.getKey().getHref().toString()))
+                        .map(item -> CompletableFuture.runAsync(() -> {
+                            final Result<?, String> fullItem = item.getFullItem();
+                            if (fullItem.isErr()) {
+                                itemErrors.incrementAndGet();
+                                log.warn("Snapshot | Unable to retrieve {}: {}", item.getKey().getHref(),
+                                    fullItem.unwrapErr());
+                            }
+                        }, executor))
+                        .toArray(CompletableFuture[]::new));
+                })));
+            CompletableFuture.allOf(walks.toArray(new CompletableFuture[0])).join();
+        } finally {
+            executor.shutdownNow();
+        }
+
+        if (!indexErrors.isEmpty()) {
+            return Err.of("Unable to retrieve static indexes: " + String.join(", ", indexErrors));
+        }
+        if (itemErrors.get() > 0) {
+            log.warn("Snapshot | {} full items could not be retrieved and are left out", itemErrors.get());
+        }
+        return Ok.of(EntitySnapshot.write(file, battleNet, entities()));
+    }
+
+    /**
+     * Returns the recorded entities, plus the current revision of each static namespace, so that clients
+     * loading the snapshot read the entities with the revision they were retrieved from.
+     */
+    private Map<String, BattleNetEntity> entities() {
+        final Map<String, BattleNetEntity> entities = new HashMap<>(recorder.getRecorded());
+        final NamespaceRevisions revisions = battleNet.getProxy().getNamespaceRevisions();
+        for (final String namespace : revisions.getNamespaces()) {
+            entities.put(NamespaceRevisions.revisionKey(battleNet.getRegion(), namespace), NamespaceRevision.builder()
+                .namespace(namespace)
+                .revision(revisions.getRevision(namespace, null, battleNet.getRegion()))
+                .build());
+        }
+        return entities;
+    }
+
+    /**
+     * Returns the static indexes to walk, by name.
+     */
+    private Map<String, Supplier<Result<? extends List<? extends Keyed<?>>, String>>> indexes() {
+        final AchievementAPI achievementAPI = bulk(AchievementAPI.class);
+        final AzeriteEssenceAPI azeriteEssenceAPI = bulk(AzeriteEssenceAPI.class);
+        final CreatureAPI creatureAPI = bulk(CreatureAPI.class);
+        final KeystoneAPI keystoneAPI = bulk(KeystoneAPI.class);
+        final MountAPI mountAPI = bulk(MountAPI.class);
+        final PetAPI petAPI = bulk(PetAPI.class);
+        final PlayableClassAPI playableClassAPI = bulk(PlayableClassAPI.class);
+        final PlayableSpecializationAPI specializationAPI = bulk(PlayableSpecializationAPI.class);
+        final PowerTypeAPI powerTypeAPI = bulk(PowerTypeAPI.class);
+        final RaceAPI raceAPI = bulk(RaceAPI.class);
+        final ReputationAPI reputationAPI = bulk(ReputationAPI.class);
+        final TitleAPI titleAPI = bulk(TitleAPI.class);
+
+        final Map<String, Supplier<Result<? extends List<? extends Keyed<?>>, String>>> indexes =
+            new LinkedHashMap<>();
+        indexes.put("achievements", achievementAPI::getAchievements);
+        indexes.put("achievement categories", achievementAPI::getCategories);
+        indexes.put("azerite essences", azeriteEssenceAPI::getAzeriteEssences);
+        indexes.put("creature families", creatureAPI::getCreatureFamilies);
+        indexes.put("creature types", creatureAPI::getCreatureTypes);
+        indexes.put("keystone affixes", keystoneAPI::getAfixes);
+        indexes.put("mounts", mountAPI::getMounts);
+        indexes.put("pets", petAPI::getPets);
+        indexes.put("playable classes", playableClassAPI::getPlayableClasses);
+        indexes.put("character specializations", specializationAPI::getCharacterSpecializations);
+        indexes.put("pet specializations", specializationAPI::getPetSpecializations);
+        indexes.put("power types", powerTypeAPI::getPowerTypes);
+        indexes.put("playable races", raceAPI::getPlayableRaces);
+        indexes.put("reputation factions", reputationAPI::getFactions);
+        indexes.put("reputation tiers", reputationAPI::getReputationTiersIndex);
+        indexes.put("titles", titleAPI::getTitles);
+        return indexes;
+    }
+
+    /**
+     * Returns a copy of the client's instance of the API which requests at {@link RequestPriority#BULK}, so that
+     * writing a snapshot doesn't delay other requests sharing the client.
+     *
+     * @param apiClass Class of the API.
+     * @param <A> Type of the API.
+     * @return The API at bulk priority.
+     */
+    private <A extends BattleNetAPI> A bulk(final Class<A> apiClass) {
+        return battleNet.getAPI(apiClass).withPriority(RequestPriority.BULK);
+    }
+}
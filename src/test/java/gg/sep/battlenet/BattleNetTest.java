@@ -22,10 +22,15 @@
 package gg.sep.battlenet;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.util.stream.Stream;
 
+import okhttp3.OkHttpClient;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
@@ -34,6 +39,11 @@ import org.junit.jupiter.params.provider.MethodSource;
 
 import gg.sep.battlenet.model.BattleNetLocale;
 import gg.sep.battlenet.model.BattleNetRegion;
+import gg.sep.battlenet.ratelimit.RequestPriority;
+import gg.sep.battlenet.wow.api.MountAPI;
+import gg.sep.battlenet.wow.api.RealmAPI;
+import gg.sep.battlenet.wow.endpoint.KeyFullItemEndpoint;
+import gg.sep.battlenet.wow.endpoint.RealmEndpoint;
 
 /**
  * Tests for {@link BattleNet}.
@@ -72,6 +82,49 @@ class BattleNetTest {
             .build());
     }
 
+    @Test void constructor_DefaultTransport_SharesConnectionPoolAcrossInstances() {
+        final BattleNet us = BattleNet.builder().clientId("").clientSecret("").build();
+        final BattleNet eu = BattleNet.builder().clientId("").clientSecret("").region(BattleNetRegion.EUROPE).build();
+        assertSame(us.getHttpClient(), eu.getHttpClient());
+        final OkHttpClient euApiClient = (OkHttpClient) eu.getRetrofit().callFactory();
+        assertSame(us.getHttpClient().connectionPool(), euApiClient.connectionPool());
+    }
+
+    @Test void constructor_WithHttpClient_SharesItsPoolAndDispatcher() {
+        final OkHttpClient httpClient = new OkHttpClient();
+        final BattleNet battleNet = BattleNet.builder()
+            .clientId("").clientSecret("")
+            .httpClient(httpClient)
+            .build();
+        final OkHttpClient apiClient = (OkHttpClient) battleNet.getRetrofit().callFactory();
+        assertSame(httpClient, battleNet.getHttpClient());
+        assertSame(httpClient.connectionPool(), apiClient.connectionPool());
+        assertSame(httpClient.dispatcher(), apiClient.dispatcher());
+        assertTrue(httpClient.interceptors().isEmpty());
+    }
+
+    @Test void getAPI_ReturnsSameInstance() {
+        final BattleNet battleNet = BattleNet.builder().clientId("").clientSecret("").build();
+        assertSame(battleNet.getAPI(RealmAPI.class), battleNet.getAPI(RealmAPI.class));
+        assertSame(battleNet.getEndpoint(RealmEndpoint.class), battleNet.getEndpoint(RealmEndpoint.class));
+        assertNotSame(battleNet.getAPI(RealmAPI.class), battleNet.getAPI(MountAPI.class));
+    }
+
+    @Test void getAPI_WithPriority_CopiesWithoutChangingSharedInstance() {
+        final BattleNet battleNet = BattleNet.builder().clientId("").clientSecret("").build();
+        final RealmAPI shared = battleNet.getAPI(RealmAPI.class);
+        final RealmAPI bulk = shared.withPriority(RequestPriority.BULK);
+        assertNotSame(shared, bulk);
+        assertEquals(RequestPriority.BULK, bulk.getPriority());
+        assertEquals(RequestPriority.NORMAL, shared.getPriority());
+        assertSame(shared, battleNet.getAPI(RealmAPI.class));
+    }
+
+    @Test void constructor_ValidateEndpoints_CreatesEndpointsUpFront() {
+        final BattleNet battleNet = BattleNet.builder().clientId("").clientSecret("").validateEndpoints(true).build();
+        assertNotNull(battleNet.getEndpoint(KeyFullItemEndpoint.class));
+    }
+
     private static Stream<Arguments> regionAndLocale() {
         // entered region, entered locale, expected region, expected locale
         return Stream.of(
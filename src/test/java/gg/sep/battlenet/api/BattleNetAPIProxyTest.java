@@ -22,6 +22,15 @@
 
 package gg.sep.battlenet.api;
 
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Headers;
 import okhttp3.HttpUrl;
 import okhttp3.Request;
 import org.junit.jupiter.api.Assertions;
@@ -29,10 +38,18 @@ import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.mockito.stubbing.OngoingStubbing;
 import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Invocation;
 import retrofit2.Response;
 
 import gg.sep.battlenet.BattleNet;
+import gg.sep.battlenet.auth.model.OAuthToken;
+import gg.sep.battlenet.cache.BattleNetEntityCache;
+import gg.sep.battlenet.cache.CacheConfig;
+import gg.sep.battlenet.cache.InMemoryEntityCache;
+import gg.sep.battlenet.cache.RefreshPolicy;
 import gg.sep.battlenet.model.BattleNetEntity;
+import gg.sep.battlenet.model.BattleNetRegion;
 import gg.sep.result.Result;
 
 /**
@@ -51,6 +68,11 @@ public class BattleNetAPIProxyTest {
 
         Mockito.when(mockCall.clone()).thenReturn(mockCall);
         Mockito.when(mockCall.execute()).thenReturn(mockResponse);
+        Mockito.doAnswer(invocation -> {
+            final Callback<BattleNetEntity> callback = invocation.getArgument(0);
+            callback.onResponse(mockCall, mockResponse);
+            return null;
+        }).when(mockCall).enqueue(Mockito.any());
         Mockito.when(mockCall.request()).thenReturn(mockRequest);
         Mockito.when(mockRequest.url()).thenReturn(httpUrl);
         final OngoingStubbing<Integer> responseCodeStub = Mockito.when(mockResponse.code()).thenReturn(responseCode);
@@ -59,6 +81,7 @@ public class BattleNetAPIProxyTest {
         }
         Mockito.when(mockResponse.body()).thenReturn(mockObject);
         Mockito.when(mockResponse.raw()).thenReturn(mockRawResponse);
+        Mockito.when(mockResponse.headers()).thenReturn(Headers.of());
         Mockito.when(mockRawResponse.request()).thenReturn(mockRequest);
 
         final BattleNetAPIProxy proxy = new BattleNetAPIProxy(mockBattleNet);
@@ -118,4 +141,286 @@ public class BattleNetAPIProxyTest {
         Assertions.assertTrue(responseObject.isErr());
         Assertions.assertTrue(responseObject.unwrapErr().startsWith("Unable to get an API response from Battle.net:"));
     }
+
+    @Test void getResponseAsync_ReturnsObject() throws Exception {
+        final BattleNetEntity mockObject = Mockito.mock(BattleNetEntity.class);
+        final Call<BattleNetEntity> mockCall = Mockito.mock(Call.class);
+        final BattleNet mockBattleNet = Mockito.mock(BattleNet.class);
+
+        final BattleNetAPIProxy proxy = getProxy(mockBattleNet, mockCall, mockObject, 1, 200,
+            false);
+        final Result<BattleNetEntity, String> responseObject = proxy.getResponseAsync(mockCall)
+            .get(5, TimeUnit.SECONDS);
+
+        Assertions.assertTrue(responseObject.isOk());
+        Assertions.assertEquals(mockObject, responseObject.unwrap());
+        Mockito.verify(mockCall, Mockito.never()).execute();
+    }
+
+    @Test void getResponseAsync_GetsThrottled_SucceedsNextTry() throws Exception {
+        final BattleNetEntity mockObject = Mockito.mock(BattleNetEntity.class);
+        final Call<BattleNetEntity> mockCall = Mockito.mock(Call.class);
+        final BattleNet mockBattleNet = Mockito.mock(BattleNet.class);
+
+        final BattleNetAPIProxy proxy = getProxy(mockBattleNet, mockCall, mockObject, 4, 429,
+            true);
+        final Result<BattleNetEntity, String> responseObject = proxy.getResponseAsync(mockCall)
+            .get(5, TimeUnit.SECONDS);
+        Assertions.assertTrue(responseObject.isOk());
+        Assertions.assertEquals(mockObject, responseObject.unwrap());
+        Mockito.verify(mockCall, Mockito.times(2)).enqueue(Mockito.any());
+    }
+
+    @Test void getResponseAsync_HitMaxRetries_IsErr() throws Exception {
+        final Call<BattleNetEntity> mockCall = Mockito.mock(Call.class);
+        final BattleNet mockBattleNet = Mockito.mock(BattleNet.class);
+        final BattleNetAPIProxy proxy = getProxy(mockBattleNet, mockCall, null, 2,
+            429, false);
+        final Result<?, String> response = proxy.getResponseAsync(mockCall).get(5, TimeUnit.SECONDS);
+        Assertions.assertEquals("Maximum number of throttle retries hit", response.unwrapErr());
+    }
+
+    @Test void getResponseAsync_Failure_ReturnsErr() throws Exception {
+        final Call<BattleNetEntity> mockCall = Mockito.mock(Call.class);
+        final BattleNet mockBattleNet = Mockito.mock(BattleNet.class);
+        final BattleNetAPIProxy proxy = getProxy(mockBattleNet, mockCall, null, 1, 200,
+            false);
+        Mockito.doAnswer(invocation -> {
+            final Callback<BattleNetEntity> callback = invocation.getArgument(0);
+            callback.onFailure(mockCall, new IOException("connection reset"));
+            return null;
+        }).when(mockCall).enqueue(Mockito.any());
+
+        final Result<BattleNetEntity, String> responseObject = proxy.getResponseAsync(mockCall)
+            .get(5, TimeUnit.SECONDS);
+        Assertions.assertTrue(responseObject.isErr());
+        Assertions.assertTrue(responseObject.unwrapErr().startsWith("Error retrieving valid response"));
+    }
+
+    @Test void close_LaterRequestsFailWithoutBeingSent() throws Exception {
+        final Call<BattleNetEntity> mockCall = Mockito.mock(Call.class);
+        final BattleNet mockBattleNet = Mockito.mock(BattleNet.class);
+        final BattleNetAPIProxy proxy = getProxy(mockBattleNet, mockCall, null, 1, 200,
+            false);
+        proxy.close();
+
+        final Result<BattleNetEntity, String> responseObject = proxy.getResponseAsync(mockCall)
+            .get(5, TimeUnit.SECONDS);
+        Assertions.assertTrue(responseObject.isErr());
+        Assertions.assertTrue(responseObject.unwrapErr().startsWith("Unable to acquire a rate limit permit"));
+        Mockito.verify(mockCall, Mockito.never()).enqueue(Mockito.any());
+    }
+
+    @Test
+    void getResponse_ServerError_RetriesAndSucceeds() throws Exception {
+        final BattleNetEntity mockObject = Mockito.mock(BattleNetEntity.class);
+        final Call<BattleNetEntity> mockCall = Mockito.mock(Call.class);
+        final BattleNet mockBattleNet = Mockito.mock(BattleNet.class);
+
+        final BattleNetAPIProxy proxy = getProxy(mockBattleNet, mockCall, mockObject, 4, 503,
+            true);
+        final Result<BattleNetEntity, String> responseObject = proxy.getResponse(mockCall);
+        Assertions.assertTrue(responseObject.isOk());
+        Mockito.verify(mockCall, Mockito.times(2)).execute();
+    }
+
+    @Test
+    void getResponse_IOException_RetriesAndSucceeds() throws Exception {
+        final BattleNetEntity mockObject = Mockito.mock(BattleNetEntity.class);
+        final Call<BattleNetEntity> mockCall = Mockito.mock(Call.class);
+        final BattleNet mockBattleNet = Mockito.mock(BattleNet.class);
+
+        final BattleNetAPIProxy proxy = getProxy(mockBattleNet, mockCall, mockObject, 4, 200,
+            false);
+        final Response<BattleNetEntity> successResponse = mockCall.execute();
+        Mockito.when(mockCall.execute())
+            .thenThrow(new IOException("connection reset"))
+            .thenReturn(successResponse);
+
+        final Result<BattleNetEntity, String> responseObject = proxy.getResponse(mockCall);
+        Assertions.assertTrue(responseObject.isOk());
+        Assertions.assertEquals(mockObject, responseObject.unwrap());
+    }
+
+    @Test
+    void getResponseAsync_IdenticalRequestInFlight_SharesCall() throws Exception {
+        final BattleNetEntity mockObject = Mockito.mock(BattleNetEntity.class);
+        final Call<BattleNetEntity> mockCall = Mockito.mock(Call.class);
+        final BattleNet mockBattleNet = Mockito.mock(BattleNet.class);
+
+        final BattleNetAPIProxy proxy = getProxy(mockBattleNet, mockCall, mockObject, 1, 200,
+            false);
+        final Response<BattleNetEntity> response = mockCall.execute();
+        Mockito.when(mockCall.request().method()).thenReturn("GET");
+        final List<Callback<BattleNetEntity>> callbacks = new CopyOnWriteArrayList<>();
+        Mockito.doAnswer(invocation -> callbacks.add(invocation.getArgument(0)))
+            .when(mockCall).enqueue(Mockito.any());
+
+        final CompletableFuture<Result<BattleNetEntity, String>> first = proxy.getResponseAsync(mockCall);
+        final CompletableFuture<Result<BattleNetEntity, String>> second = proxy.getResponseAsync(mockCall);
+
+        Mockito.verify(mockCall, Mockito.timeout(5000).times(1)).enqueue(Mockito.any());
+        callbacks.get(0).onResponse(mockCall, response);
+
+        Assertions.assertEquals(mockObject, first.get(5, TimeUnit.SECONDS).unwrap());
+        Assertions.assertEquals(mockObject, second.get(5, TimeUnit.SECONDS).unwrap());
+        Mockito.verify(mockCall, Mockito.times(1)).enqueue(Mockito.any());
+    }
+
+    @Test
+    void getResponse_NotModified_ReturnsStoredEntity() throws Exception {
+        final BattleNetEntity mockObject = Mockito.mock(BattleNetEntity.class);
+        final Call<BattleNetEntity> mockCall = Mockito.mock(Call.class);
+        final BattleNet mockBattleNet = Mockito.mock(BattleNet.class);
+
+        getProxy(mockBattleNet, mockCall, null, 1, 304, false);
+        final BattleNetAPIProxy proxy = BattleNetAPIProxy.builder()
+            .battleNet(mockBattleNet)
+            .cacheConfig(CacheConfig.builder().conditionalRequests(true).build())
+            .build();
+        final Request request = mockCall.request();
+        Mockito.when(request.method()).thenReturn("GET");
+        Mockito.when(request.header("If-None-Match")).thenReturn("\"abc\"");
+        proxy.getValidatorStore().record(request.url().toString(), Headers.of("ETag", "\"abc\""), mockObject);
+
+        final Result<BattleNetEntity, String> responseObject = proxy.getResponse(mockCall);
+        Assertions.assertTrue(responseObject.isOk());
+        Assertions.assertSame(mockObject, responseObject.unwrap());
+        Mockito.verify(mockCall, Mockito.times(1)).execute();
+    }
+
+    @Test
+    void getResponse_NotModifiedWithCache_ReturnsCachedEntity() throws Exception {
+        final OAuthToken token = OAuthToken.builder().accessToken("foo").build();
+        final Call<OAuthToken> mockCall = Mockito.mock(Call.class);
+        final BattleNet mockBattleNet = Mockito.mock(BattleNet.class);
+        final BattleNetEntityCache cache = Mockito.mock(BattleNetEntityCache.class);
+        Mockito.when(mockBattleNet.getCache()).thenReturn(cache);
+        Mockito.when(mockBattleNet.getRegion()).thenReturn(BattleNetRegion.NORTH_AMERICA);
+        // missed when the request is made, then found once the response is not modified
+        Mockito.when(cache.get("us:/", OAuthToken.class)).thenReturn(null, token);
+
+        getProxy(mockBattleNet, mockCall, null, 1, 304, false);
+        final BattleNetAPIProxy proxy = BattleNetAPIProxy.builder()
+            .battleNet(mockBattleNet)
+            .cacheConfig(CacheConfig.builder().conditionalRequests(true).build())
+            .build();
+        final Request request = mockCall.request();
+        Mockito.when(request.method()).thenReturn("GET");
+        Mockito.when(request.header("If-None-Match")).thenReturn("\"abc\"");
+        Mockito.when(request.tag(Invocation.class)).thenReturn(
+            Invocation.of(TokenEndpoint.class.getMethod("getToken"), Collections.emptyList()));
+        proxy.getValidatorStore().record(request.url().toString(), Headers.of("ETag", "\"abc\""), null);
+
+        Assertions.assertSame(token, proxy.getResponse(mockCall).unwrap());
+        Mockito.verify(mockCall, Mockito.times(1)).execute();
+    }
+
+    /**
+     * Endpoint used to give mocked calls a declared response type.
+     */
+    private interface TokenEndpoint {
+        Call<OAuthToken> getToken();
+    }
+
+    @Test
+    void getResponse_WithCache_ReadsThroughCache() throws Exception {
+        final OAuthToken token = OAuthToken.builder().accessToken("foo").build();
+        final Call<OAuthToken> mockCall = Mockito.mock(Call.class);
+        final BattleNet mockBattleNet = Mockito.mock(BattleNet.class);
+        final InMemoryEntityCache cache = InMemoryEntityCache.builder().build();
+        Mockito.when(mockBattleNet.getCache()).thenReturn(cache);
+        Mockito.when(mockBattleNet.getRegion()).thenReturn(BattleNetRegion.NORTH_AMERICA);
+
+        final BattleNetAPIProxy proxy = getProxy(mockBattleNet, mockCall, null, 1, 200, false);
+        final Response<OAuthToken> response = mockCall.execute();
+        Mockito.when(response.body()).thenReturn(token);
+        final Request request = mockCall.request();
+        Mockito.when(request.method()).thenReturn("GET");
+        Mockito.when(request.tag(Invocation.class)).thenReturn(
+            Invocation.of(TokenEndpoint.class.getMethod("getToken"), Collections.emptyList()));
+
+        Assertions.assertSame(token, proxy.getResponse(mockCall).unwrap());
+        Assertions.assertSame(token, cache.get("us:/", OAuthToken.class));
+        Assertions.assertSame(token, proxy.getResponse(mockCall).unwrap());
+        Mockito.verify(mockCall, Mockito.times(2)).execute(); // once in the test setup, once by the proxy
+    }
+
+    @Test
+    void getResponse_StaleCacheEntry_ServesStaleAndRefreshesInBackground() throws Exception {
+        final OAuthToken stale = OAuthToken.builder().accessToken("stale").build();
+        final OAuthToken fresh = OAuthToken.builder().accessToken("fresh").build();
+        final Call<OAuthToken> mockCall = Mockito.mock(Call.class);
+        final BattleNet mockBattleNet = Mockito.mock(BattleNet.class);
+        final BattleNetEntityCache cache = Mockito.mock(BattleNetEntityCache.class);
+        Mockito.when(mockBattleNet.getCache()).thenReturn(cache);
+        Mockito.when(mockBattleNet.getRegion()).thenReturn(BattleNetRegion.NORTH_AMERICA);
+        Mockito.when(cache.get("us:/", OAuthToken.class)).thenReturn(stale);
+        Mockito.when(cache.getEntityTTL(OAuthToken.class)).thenReturn(Duration.ofHours(1));
+        Mockito.when(cache.getTTL("us:/")).thenReturn(Duration.ofMinutes(1));
+        Mockito.when(cache.set("us:/", fresh)).thenReturn(true);
+
+        getProxy(mockBattleNet, mockCall, null, 1, 200, false);
+        final Response<OAuthToken> response = mockCall.execute();
+        Mockito.when(response.body()).thenReturn(fresh);
+        final Request request = mockCall.request();
+        Mockito.when(request.method()).thenReturn("GET");
+        Mockito.when(request.tag(Invocation.class)).thenReturn(
+            Invocation.of(TokenEndpoint.class.getMethod("getToken"), Collections.emptyList()));
+        final BattleNetAPIProxy proxy = BattleNetAPIProxy.builder()
+            .battleNet(mockBattleNet)
+            .cacheConfig(CacheConfig.builder()
+                .refreshPolicy(RefreshPolicy.builder().staleWindow(Duration.ofMinutes(5)).build())
+                .build())
+            .build();
+
+        Assertions.assertSame(stale, proxy.getResponse(mockCall).unwrap());
+        Mockito.verify(cache, Mockito.timeout(5000)).set("us:/", fresh);
+        Mockito.verify(cache, Mockito.timeout(5000)).updateTTL(Duration.ofMinutes(65), "us:/");
+        Mockito.verify(mockCall, Mockito.times(1)).execute(); // only by the test setup
+        Mockito.verify(mockCall).enqueue(Mockito.any());
+    }
+
+    @Test
+    void getResponse_NotFound_IsRememberedWithoutSpendingAPermit() throws Exception {
+        final Call<BattleNetEntity> mockCall = Mockito.mock(Call.class);
+        final BattleNet mockBattleNet = Mockito.mock(BattleNet.class);
+        final BattleNetAPIProxy proxy = getProxy(mockBattleNet, mockCall, null, 1, 404, false);
+        Mockito.when(mockCall.request().method()).thenReturn("GET");
+
+        final Result<BattleNetEntity, String> first = proxy.getResponse(mockCall);
+        final Result<BattleNetEntity, String> second = proxy.getResponse(mockCall);
+        Assertions.assertTrue(first.isErr());
+        Assertions.assertEquals(first.unwrapErr(), second.unwrapErr());
+        Assertions.assertEquals(1, proxy.getNegativeCache().size());
+        Mockito.verify(mockCall, Mockito.times(1)).execute();
+    }
+
+    @Test
+    void getResponse_StaticNamespace_KeyedByReportedRevision() throws Exception {
+        final OAuthToken token = OAuthToken.builder().accessToken("token").build();
+        final Call<OAuthToken> mockCall = Mockito.mock(Call.class);
+        final BattleNet mockBattleNet = Mockito.mock(BattleNet.class);
+        final BattleNetEntityCache cache = Mockito.mock(BattleNetEntityCache.class);
+        Mockito.when(mockBattleNet.getCache()).thenReturn(cache);
+        Mockito.when(mockBattleNet.getRegion()).thenReturn(BattleNetRegion.NORTH_AMERICA);
+
+        final BattleNetAPIProxy proxy = getProxy(mockBattleNet, mockCall, token, 1, 200, false);
+        final Response<OAuthToken> response = mockCall.execute();
+        Mockito.when(response.headers()).thenReturn(Headers.of("Battlenet-Namespace", "static-9.0.2_36165-us"));
+        final Request request = mockCall.request();
+        Mockito.when(request.method()).thenReturn("GET");
+        Mockito.when(request.url()).thenReturn(HttpUrl.get("https://sep.gg/data?namespace=static-us"));
+        Mockito.when(request.tag(Invocation.class)).thenReturn(
+            Invocation.of(TokenEndpoint.class.getMethod("getToken"), Collections.emptyList()));
+
+        // the revision isn't known until the first response reports it
+        proxy.getResponse(mockCall);
+        Assertions.assertEquals("static-9.0.2_36165-us",
+            proxy.getNamespaceRevisions().getRevision("static-us", null, BattleNetRegion.NORTH_AMERICA));
+        Mockito.verify(cache, Mockito.never()).set(Mockito.startsWith("us:/"), Mockito.any());
+
+        proxy.getResponse(mockCall);
+        Mockito.verify(cache).set("us:static-9.0.2_36165-us:/data?namespace=static-us", token);
+    }
 }
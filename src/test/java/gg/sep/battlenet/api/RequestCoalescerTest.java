@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2019 sep.gg <seputaes@sep.gg>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package gg.sep.battlenet.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link RequestCoalescer}.
+ */
+public class RequestCoalescerTest {
+
+    @Test
+    void executeAsync_ConcurrentRequests_ShareOneExecution() {
+        final RequestCoalescer coalescer = new RequestCoalescer();
+        final AtomicInteger executions = new AtomicInteger();
+        final CompletableFuture<String> response = new CompletableFuture<>();
+
+        final CompletableFuture<String> first = coalescer.executeAsync("key", () -> {
+            executions.incrementAndGet();
+            return response;
+        });
+        final CompletableFuture<String> second = coalescer.executeAsync("key", () -> {
+            executions.incrementAndGet();
+            return CompletableFuture.completedFuture("unexpected");
+        });
+        assertSame(first, second);
+        assertEquals(1, coalescer.getInFlight());
+
+        response.complete("result");
+        assertEquals("result", first.join());
+        assertEquals(1, executions.get());
+        assertEquals(0, coalescer.getInFlight());
+    }
+
+    @Test
+    void executeAsync_AfterCompletion_ExecutesAgain() {
+        final RequestCoalescer coalescer = new RequestCoalescer();
+        final AtomicInteger executions = new AtomicInteger();
+
+        coalescer.executeAsync("key", () -> CompletableFuture.completedFuture(executions.incrementAndGet())).join();
+        coalescer.executeAsync("key", () -> CompletableFuture.completedFuture(executions.incrementAndGet())).join();
+        assertEquals(2, executions.get());
+    }
+
+    @Test
+    void executeAsync_DifferentKeys_NotShared() {
+        final RequestCoalescer coalescer = new RequestCoalescer();
+        final CompletableFuture<String> first = coalescer.executeAsync("a", CompletableFuture::new);
+        final CompletableFuture<String> second = coalescer.executeAsync("b", CompletableFuture::new);
+        assertFalse(first == second);
+        assertEquals(2, coalescer.getInFlight());
+    }
+
+    @Test
+    void execute_ConcurrentRequests_ShareOneExecution() throws Exception {
+        final RequestCoalescer coalescer = new RequestCoalescer();
+        final AtomicInteger executions = new AtomicInteger();
+        final CountDownLatch leaderStarted = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final Future<String> leader = executor.submit(() -> coalescer.execute("key", () -> {
+                executions.incrementAndGet();
+                leaderStarted.countDown();
+                awaitQuietly(release);
+                return "result";
+            }));
+            leaderStarted.await(5, TimeUnit.SECONDS);
+
+            final AtomicReference<String> followerResult = new AtomicReference<>();
+            final Thread follower = new Thread(() -> followerResult.set(coalescer.execute("key", () -> {
+                executions.incrementAndGet();
+                return "unexpected";
+            })));
+            follower.start();
+            // wait until the follower is parked on the leader's result before releasing the leader
+            while (follower.getState() != Thread.State.WAITING && follower.isAlive()) {
+                Thread.sleep(1);
+            }
+            release.countDown();
+
+            assertEquals("result", leader.get(5, TimeUnit.SECONDS));
+            follower.join(5000);
+            assertEquals("result", followerResult.get());
+            assertEquals(1, executions.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void execute_LeaderThrows_ReleasesKey() {
+        final RequestCoalescer coalescer = new RequestCoalescer();
+        assertThrows(IllegalStateException.class, () -> coalescer.execute("key", () -> {
+            throw new IllegalStateException();
+        }));
+        assertEquals(0, coalescer.getInFlight());
+        assertEquals("ok", coalescer.execute("key", () -> "ok"));
+    }
+
+    private static void awaitQuietly(final CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2019 sep.gg <seputaes@sep.gg>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package gg.sep.battlenet.auth;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import gg.sep.battlenet.auth.model.OAuthToken;
+
+/**
+ * Unit tests for {@link FileOAuthTokenStore}.
+ */
+public class FileOAuthTokenStoreTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void save_Load_RoundTripsToken() {
+        final Path path = directory.resolve("token.properties");
+        final Instant expiresAt = Instant.parse("2019-10-01T12:00:00Z");
+        new FileOAuthTokenStore(path).save(new StoredOAuthToken(
+            OAuthToken.builder().accessToken("a").tokenType("bearer").build(), expiresAt));
+
+        final StoredOAuthToken stored = new FileOAuthTokenStore(path).load();
+        assertEquals("a", stored.getToken().getAccessToken());
+        assertEquals("bearer", stored.getToken().getTokenType());
+        assertEquals(expiresAt, stored.getExpiresAt());
+    }
+
+    @Test
+    void save_ReplacesToken() {
+        final FileOAuthTokenStore store = new FileOAuthTokenStore(directory.resolve("token.properties"));
+        store.save(new StoredOAuthToken(OAuthToken.builder().accessToken("a").build(), Instant.now()));
+        store.save(new StoredOAuthToken(OAuthToken.builder().accessToken("b").build(), null));
+
+        final StoredOAuthToken stored = store.load();
+        assertEquals("b", stored.getToken().getAccessToken());
+        assertNull(stored.getExpiresAt());
+    }
+
+    @Test
+    void load_MissingOrMalformed_ReturnsNull() throws Exception {
+        final Path path = directory.resolve("token.properties");
+        assertNull(new FileOAuthTokenStore(path).load());
+        Files.write(path, "access_token=a\nexpires_at=soon\n".getBytes(StandardCharsets.UTF_8));
+        assertNull(new FileOAuthTokenStore(path).load());
+    }
+}
@@ -26,15 +26,19 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import com.google.gson.Gson;
 import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 
 import gg.sep.battlenet.APITest;
 import gg.sep.battlenet.BattleNet;
+import gg.sep.battlenet.api.BattleNetAPIProxy;
 import gg.sep.battlenet.auth.api.OAuthAPI;
 import gg.sep.battlenet.auth.model.OAuthToken;
 import gg.sep.battlenet.model.BattleNetEntity;
+import gg.sep.battlenet.ratelimit.RequestPriority;
 import gg.sep.result.Ok;
 import gg.sep.result.Result;
 
@@ -120,4 +124,16 @@ public class OAuthAPITest extends APITest {
         assertTrue(token.isOk());
         assertSame(battleNet, token.unwrap().getBattleNet());
     }
+
+    @Test void getToken_WaitsForPermitAsInteractive() {
+        final BattleNet battleNet = Mockito.mock(BattleNet.class);
+        final BattleNetAPIProxy proxy = Mockito.mock(BattleNetAPIProxy.class);
+        Mockito.when(battleNet.getJsonParser()).thenReturn(new Gson());
+        Mockito.when(battleNet.getHttpClient()).thenReturn(new OkHttpClient());
+        Mockito.when(battleNet.getProxy()).thenReturn(proxy);
+
+        final OAuthAPI oAuthAPI = basicAPI(HttpUrl.get("https://sep.gg"), battleNet).withPriority(RequestPriority.BULK);
+        oAuthAPI.getToken();
+        Mockito.verify(proxy).getResponse(Mockito.any(), Mockito.eq(RequestPriority.INTERACTIVE));
+    }
 }
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2019 sep.gg <seputaes@sep.gg>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package gg.sep.battlenet.auth;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import gg.sep.battlenet.auth.model.OAuthToken;
+import gg.sep.result.Err;
+import gg.sep.result.Ok;
+
+/**
+ * Unit tests for {@link OAuthAuthenticator}.
+ */
+public class OAuthAuthenticatorTest {
+    private static final OAuthToken REJECTED = OAuthToken.builder().accessToken("old").build();
+    private static final OAuthToken REPLACEMENT = OAuthToken.builder().accessToken("new").build();
+
+    private static Request request(final OAuthToken token) {
+        final Request.Builder builder = new Request.Builder()
+            .url("https://us.api.blizzard.com/data/wow/realm/index?locale=en_US")
+            .header("Authorization", "Bearer old");
+        return (token == null) ? builder.build() : builder.tag(OAuthToken.class, token).build();
+    }
+
+    private static Response unauthorized(final Request request, final Response prior) {
+        return new Response.Builder()
+            .request(request)
+            .protocol(Protocol.HTTP_1_1)
+            .code(401)
+            .message("Unauthorized")
+            .priorResponse(prior)
+            .build();
+    }
+
+    @Test
+    void authenticate_RejectedToken_ReplaysWithReplacement() {
+        final OAuthTokenManager tokenManager = Mockito.mock(OAuthTokenManager.class);
+        Mockito.when(tokenManager.replace(REJECTED)).thenReturn(Ok.of(REPLACEMENT));
+        final OAuthAuthenticator authenticator = new OAuthAuthenticator(tokenManager);
+
+        final Request replay = authenticator.authenticate(null, unauthorized(request(REJECTED), null));
+        assertEquals("Bearer new", replay.header("Authorization"));
+        assertEquals("en_US", replay.url().queryParameter("locale"));
+        assertEquals(REPLACEMENT, replay.tag(OAuthToken.class));
+    }
+
+    @Test
+    void authenticate_AlreadyReplayed_GivesUp() {
+        final OAuthTokenManager tokenManager = Mockito.mock(OAuthTokenManager.class);
+        final OAuthAuthenticator authenticator = new OAuthAuthenticator(tokenManager);
+
+        final Response prior = unauthorized(request(REJECTED), null);
+        assertNull(authenticator.authenticate(null, unauthorized(request(REPLACEMENT), prior)));
+        Mockito.verifyZeroInteractions(tokenManager);
+    }
+
+    @Test
+    void authenticate_TokenNotAddedByClient_IsNotReplayed() {
+        final OAuthTokenManager tokenManager = Mockito.mock(OAuthTokenManager.class);
+        final OAuthAuthenticator authenticator = new OAuthAuthenticator(tokenManager);
+
+        assertNull(authenticator.authenticate(null, unauthorized(request(null), null)));
+        Mockito.verifyZeroInteractions(tokenManager);
+    }
+
+    @Test
+    void authenticate_ReplacementFails_GivesUp() {
+        final OAuthTokenManager tokenManager = Mockito.mock(OAuthTokenManager.class);
+        Mockito.when(tokenManager.replace(REJECTED)).thenReturn(Err.of("unavailable"));
+        final OAuthAuthenticator authenticator = new OAuthAuthenticator(tokenManager);
+
+        assertNull(authenticator.authenticate(null, unauthorized(request(REJECTED), null)));
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright (c) 2019 sep.gg <seputaes@sep.gg>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package gg.sep.battlenet.auth;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import gg.sep.battlenet.auth.api.OAuthAPI;
+import gg.sep.battlenet.auth.model.OAuthToken;
+import gg.sep.result.Err;
+import gg.sep.result.Ok;
+import gg.sep.result.Result;
+
+/**
+ * Unit tests for {@link OAuthTokenManager}.
+ */
+public class OAuthTokenManagerTest {
+
+    private static OAuthToken token(final String accessToken, final Long expiresIn) {
+        return OAuthToken.builder().accessToken(accessToken).tokenType("bearer").expiresIn(expiresIn).build();
+    }
+
+    @Test
+    void getToken_ConcurrentCallers_RetrieveOnce() throws Exception {
+        final OAuthAPI oAuthAPI = Mockito.mock(OAuthAPI.class);
+        final CountDownLatch retrieving = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        Mockito.when(oAuthAPI.getToken()).thenAnswer(invocation -> {
+            retrieving.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return Ok.of(token("a", 3600L));
+        });
+        final OAuthTokenManager manager = OAuthTokenManager.builder().oAuthAPI(oAuthAPI).build();
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<Result<OAuthToken, String>>> results = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                results.add(executor.submit(manager::getToken));
+            }
+            assertTrue(retrieving.await(5, TimeUnit.SECONDS));
+            release.countDown();
+            for (final Future<Result<OAuthToken, String>> result : results) {
+                assertEquals("a", result.get(5, TimeUnit.SECONDS).unwrap().getAccessToken());
+            }
+            Mockito.verify(oAuthAPI, Mockito.times(1)).getToken();
+        } finally {
+            executor.shutdownNow();
+            manager.close();
+        }
+    }
+
+    @Test
+    void getToken_BeforeExpiry_RefreshesInBackground() {
+        final OAuthAPI oAuthAPI = Mockito.mock(OAuthAPI.class);
+        Mockito.when(oAuthAPI.getToken())
+            .thenReturn(Ok.of(token("a", 1L)))
+            .thenReturn(Ok.of(token("b", 3600L)));
+        final OAuthTokenManager manager = OAuthTokenManager.builder()
+            .oAuthAPI(oAuthAPI)
+            .refreshMargin(Duration.ofMinutes(5))
+            .build();
+        try {
+            assertEquals("a", manager.getToken().unwrap().getAccessToken());
+            // the margin is capped at half of the token's lifetime, so the refresh runs after half a second
+            Mockito.verify(oAuthAPI, Mockito.timeout(5000).times(2)).getToken();
+            assertEquals("b", manager.getToken().unwrap().getAccessToken());
+        } finally {
+            manager.close();
+        }
+    }
+
+    @Test
+    void getToken_RetrievalFails_ReturnsErrAndRetries() {
+        final OAuthAPI oAuthAPI = Mockito.mock(OAuthAPI.class);
+        Mockito.when(oAuthAPI.getToken())
+            .thenReturn(Err.of("unavailable"))
+            .thenReturn(Ok.of(token("a", null)));
+        final OAuthTokenManager manager = OAuthTokenManager.builder().oAuthAPI(oAuthAPI).build();
+        try {
+            assertEquals("unavailable", manager.getToken().unwrapErr());
+            assertEquals("a", manager.getToken().unwrap().getAccessToken());
+            assertEquals("a", manager.getToken().unwrap().getAccessToken());
+            Mockito.verify(oAuthAPI, Mockito.times(2)).getToken();
+        } finally {
+            manager.close();
+        }
+    }
+
+    @Test
+    void getToken_RetrievalThrowsError_DoesNotBlockLaterRetrievals() {
+        final OAuthAPI oAuthAPI = Mockito.mock(OAuthAPI.class);
+        Mockito.when(oAuthAPI.getToken())
+            .thenThrow(new AssertionError("broken"))
+            .thenReturn(Ok.of(token("a", null)));
+        final OAuthTokenManager manager = OAuthTokenManager.builder().oAuthAPI(oAuthAPI).build();
+        try {
+            assertThrows(AssertionError.class, manager::getToken);
+            assertEquals("a", manager.getToken().unwrap().getAccessToken());
+        } finally {
+            manager.close();
+        }
+    }
+
+    @Test
+    void replace_AlreadyReplaced_DoesNotRetrieveAgain() {
+        final OAuthAPI oAuthAPI = Mockito.mock(OAuthAPI.class);
+        final OAuthToken rejected = token("a", null);
+        Mockito.when(oAuthAPI.getToken())
+            .thenReturn(Ok.of(rejected))
+            .thenReturn(Ok.of(token("b", null)))
+            .thenReturn(Ok.of(token("c", null)));
+        final OAuthTokenManager manager = OAuthTokenManager.builder().oAuthAPI(oAuthAPI).build();
+        try {
+            manager.getToken();
+            assertEquals("b", manager.replace(rejected).unwrap().getAccessToken());
+            assertEquals("b", manager.replace(rejected).unwrap().getAccessToken());
+            assertEquals("b", manager.getToken().unwrap().getAccessToken());
+            Mockito.verify(oAuthAPI, Mockito.times(2)).getToken();
+        } finally {
+            manager.close();
+        }
+    }
+
+    @Test
+    void getToken_StoredToken_IsReusedAndRetrievedTokensAreSaved() {
+        final OAuthAPI oAuthAPI = Mockito.mock(OAuthAPI.class);
+        final OAuthTokenStore store = Mockito.mock(OAuthTokenStore.class);
+        final OAuthToken stored = token("stored", null);
+        Mockito.when(store.load())
+            .thenReturn(new StoredOAuthToken(stored, Instant.now().plus(Duration.ofHours(1))));
+        Mockito.when(oAuthAPI.getToken()).thenReturn(Ok.of(token("retrieved", 3600L)));
+        final OAuthTokenManager manager = OAuthTokenManager.builder().oAuthAPI(oAuthAPI).tokenStore(store).build();
+        try {
+            assertEquals("stored", manager.getToken().unwrap().getAccessToken());
+            Mockito.verify(oAuthAPI, Mockito.never()).getToken();
+
+            // the stored token is the one rejected, so a new token is retrieved and saved
+            assertEquals("retrieved", manager.replace(stored).unwrap().getAccessToken());
+            final ArgumentCaptor<StoredOAuthToken> saved = ArgumentCaptor.forClass(StoredOAuthToken.class);
+            Mockito.verify(store).save(saved.capture());
+            assertEquals("retrieved", saved.getValue().getToken().getAccessToken());
+            assertTrue(saved.getValue().getExpiresAt().isAfter(Instant.now().plus(Duration.ofMinutes(59))));
+        } finally {
+            manager.close();
+        }
+    }
+
+    @Test
+    void getToken_StoredTokenDueForRefresh_IsNotReused() {
+        final OAuthAPI oAuthAPI = Mockito.mock(OAuthAPI.class);
+        final OAuthTokenStore store = Mockito.mock(OAuthTokenStore.class);
+        Mockito.when(store.load())
+            .thenReturn(new StoredOAuthToken(token("stored", null), Instant.now().plus(Duration.ofMinutes(1))));
+        Mockito.when(oAuthAPI.getToken()).thenReturn(Ok.of(token("retrieved", 3600L)));
+        final OAuthTokenManager manager = OAuthTokenManager.builder().oAuthAPI(oAuthAPI).tokenStore(store).build();
+        try {
+            assertEquals("retrieved", manager.getToken().unwrap().getAccessToken());
+        } finally {
+            manager.close();
+        }
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2019 sep.gg <seputaes@sep.gg>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package gg.sep.battlenet.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import okhttp3.HttpUrl;
+import org.junit.jupiter.api.Test;
+
+import gg.sep.battlenet.model.BattleNetRegion;
+
+/**
+ * Unit tests for {@link CacheKeys}.
+ */
+public class CacheKeysTest {
+
+    @Test void of_IncludesRegionPathAndQuery() {
+        final HttpUrl url = HttpUrl.get(
+            "https://eu.api.blizzard.com/data/wow/mount/6?namespace=static-eu&locale=de_DE");
+        assertEquals("eu:/data/wow/mount/6?namespace=static-eu&locale=de_DE",
+            CacheKeys.of(BattleNetRegion.EUROPE, url));
+    }
+
+    @Test void of_NoQuery_OmitsQuery() {
+        final HttpUrl url = HttpUrl.get("https://us.api.blizzard.com/data/wow/mount/6");
+        assertEquals("us:/data/wow/mount/6", CacheKeys.of(BattleNetRegion.NORTH_AMERICA, url));
+    }
+
+    @Test void of_WithRevision_IncludesRevision() {
+        final HttpUrl url = HttpUrl.get("https://us.api.blizzard.com/data/wow/mount/6?namespace=static-us");
+        assertEquals("us:static-9.0.2_36165-us:/data/wow/mount/6?namespace=static-us",
+            CacheKeys.of(BattleNetRegion.NORTH_AMERICA, url, "static-9.0.2_36165-us"));
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2019 sep.gg <seputaes@sep.gg>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package gg.sep.battlenet.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import gg.sep.battlenet.auth.model.OAuthToken;
+
+/**
+ * Unit tests for {@link CacheStatistics}.
+ */
+public class CacheStatisticsTest {
+    private static final Instant START = Instant.parse("2019-10-01T00:00:00Z");
+
+    @Test
+    void snapshot_CountsPerEntityClass() {
+        final AtomicLong entries = new AtomicLong(3);
+        final CacheStatistics statistics = new CacheStatistics(entries::get, () -> 1024);
+        statistics.recordHit(OAuthToken.class);
+        statistics.recordHit(OAuthToken.class);
+        statistics.recordMiss(OAuthToken.class);
+        statistics.recordMiss(NamespaceRevision.class);
+        statistics.recordLoad(OAuthToken.class, Duration.ofMillis(30).toNanos(), true);
+        statistics.recordLoad(OAuthToken.class, Duration.ofMillis(10).toNanos(), false);
+        statistics.recordEviction(CacheStatistics.EvictionCause.SIZE);
+        statistics.recordEvictions(CacheStatistics.EvictionCause.EXPIRED, 4);
+
+        final CacheStatsSnapshot snapshot = statistics.snapshot();
+        assertEquals(2, snapshot.getHitCount());
+        assertEquals(2, snapshot.getMissCount());
+        assertEquals(0.5, snapshot.getHitRate());
+        assertEquals(Duration.ofMillis(20), snapshot.getAverageLoadTime());
+        assertEquals(1, snapshot.getEvictionCount(CacheStatistics.EvictionCause.SIZE));
+        assertEquals(4, snapshot.getEvictionCount(CacheStatistics.EvictionCause.EXPIRED));
+        assertEquals(3, snapshot.getEntries());
+        assertEquals(1024, snapshot.getBytes());
+
+        final CacheStatsSnapshot.EntityStats tokens = snapshot.getEntities().get(OAuthToken.class);
+        assertEquals(2, tokens.getHits());
+        assertEquals(1, tokens.getMisses());
+        assertEquals(1, tokens.getLoadSuccesses());
+        assertEquals(1, tokens.getLoadFailures());
+        assertEquals(0.0, snapshot.getEntities().get(NamespaceRevision.class).getHitRate());
+    }
+
+    @Test
+    void since_ReturnsActivityOfPeriod() {
+        final Clock clock = Mockito.mock(Clock.class);
+        Mockito.when(clock.instant()).thenReturn(START, START.plusSeconds(60), START.plusSeconds(120));
+        final CacheStatistics statistics = new CacheStatistics(() -> 0, () -> -1, clock);
+        statistics.recordHit(OAuthToken.class);
+        statistics.recordEvictions(CacheStatistics.EvictionCause.EXPIRED, 6);
+        final CacheStatsSnapshot first = statistics.snapshot();
+
+        statistics.recordHit(OAuthToken.class);
+        statistics.recordMiss(OAuthToken.class);
+        statistics.recordMiss(NamespaceRevision.class);
+        statistics.recordEvictions(CacheStatistics.EvictionCause.EXPIRED, 30);
+        final CacheStatsSnapshot period = statistics.snapshot().since(first);
+
+        assertEquals(Duration.ofSeconds(60), period.getPeriod());
+        assertEquals(1, period.getHitCount());
+        assertEquals(2, period.getMissCount());
+        assertEquals(1, period.getEntities().get(NamespaceRevision.class).getMisses());
+        assertEquals(30, period.getEvictionCount(CacheStatistics.EvictionCause.EXPIRED));
+        assertEquals(0.5, period.getExpiryRate());
+    }
+
+    @Test
+    void snapshot_NoReads_HitRateIsOne() {
+        final CacheStatsSnapshot snapshot = new CacheStatistics(() -> 0, () -> -1).snapshot();
+        assertEquals(1.0, snapshot.getHitRate());
+        assertEquals(Duration.ZERO, snapshot.getAverageLoadTime());
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2019 sep.gg <seputaes@sep.gg>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package gg.sep.battlenet.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+
+import gg.sep.battlenet.BattleNet;
+import gg.sep.battlenet.auth.model.OAuthToken;
+
+/**
+ * Unit tests for {@link DiskEntityCache}.
+ */
+public class DiskEntityCacheTest {
+
+    @TempDir
+    Path directory;
+
+    private final FakeClock clock = new FakeClock();
+
+    private static final class FakeClock extends Clock {
+        private Instant now = Instant.EPOCH;
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(final ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+
+        void advance(final Duration duration) {
+            now = now.plus(duration);
+        }
+    }
+
+    private DiskEntityCache open(final Integer segmentSize) {
+        final BattleNet battleNet = Mockito.mock(BattleNet.class);
+        Mockito.when(battleNet.getJsonParser()).thenReturn(new Gson());
+        final DiskEntityCache cache = DiskEntityCache.builder()
+            .directory(directory)
+            .segmentSize(segmentSize)
+            .clock(clock)
+            .build();
+        cache.bind(battleNet);
+        return cache;
+    }
+
+    private static OAuthToken token(final String accessToken) {
+        return OAuthToken.builder().accessToken(accessToken).tokenType("bearer").expiresIn(3600L).build();
+    }
+
+    @Test
+    void set_Get_RoundTripsEntity() throws Exception {
+        try (DiskEntityCache cache = open(null)) {
+            assertTrue(cache.set("foo", token("a")));
+            assertEquals(token("a"), cache.get("foo", OAuthToken.class));
+            assertNull(cache.get("bar", OAuthToken.class));
+        }
+    }
+
+    @Test
+    void reopen_RestoresEntitiesAndDeletes() throws Exception {
+        try (DiskEntityCache cache = open(null)) {
+            cache.set("foo", token("a"));
+            cache.set("bar", token("b"));
+            cache.set("foo", token("c"));
+            cache.del("bar");
+        }
+        try (DiskEntityCache cache = open(null)) {
+            assertEquals(token("c"), cache.get("foo", OAuthToken.class));
+            assertNull(cache.get("bar", OAuthToken.class));
+            assertEquals(1, cache.size());
+        }
+    }
+
+    @Test
+    void get_Expired_ReturnsNull() throws Exception {
+        try (DiskEntityCache cache = open(null)) {
+            cache.setEntityTTL(OAuthToken.class, Duration.ofMinutes(10));
+            cache.set("foo", token("a"));
+            clock.advance(Duration.ofMinutes(4));
+            assertEquals(Duration.ofMinutes(6), cache.getTTL("foo"));
+            clock.advance(Duration.ofMinutes(6));
+            assertNull(cache.get("foo", OAuthToken.class));
+            assertEquals(Duration.ZERO, cache.getTTL("foo"));
+        }
+    }
+
+    @Test
+    void updateTTL_PersistsAcrossReopen() throws Exception {
+        try (DiskEntityCache cache = open(null)) {
+            cache.setEntityTTL(OAuthToken.class, Duration.ofMinutes(10));
+            cache.set("foo", token("a"));
+            cache.updateTTL(Duration.ofHours(2), "foo");
+        }
+        clock.advance(Duration.ofHours(1));
+        try (DiskEntityCache cache = open(null)) {
+            assertEquals(Duration.ofHours(1), cache.getTTL("foo"));
+            assertEquals(token("a"), cache.get("foo", OAuthToken.class));
+        }
+    }
+
+    @Test
+    void set_SegmentsFillWithGarbage_AreCompacted() throws Exception {
+        try (DiskEntityCache cache = open(512)) {
+            cache.set("other", token("x"));
+            for (int i = 0; i < 20; i++) {
+                cache.set("foo", token("a" + i));
+            }
+            // compaction runs in the background
+            final long deadline = System.currentTimeMillis() + 5000;
+            while (cache.getSegmentCount() > 2 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(token("a19"), cache.get("foo", OAuthToken.class));
+            assertEquals(token("x"), cache.get("other", OAuthToken.class));
+            assertTrue(cache.getSegmentCount() <= 2);
+        }
+        try (DiskEntityCache cache = open(512)) {
+            assertEquals(token("a19"), cache.get("foo", OAuthToken.class));
+            assertEquals(token("x"), cache.get("other", OAuthToken.class));
+        }
+    }
+
+    @Test
+    void builder_DirectoryInUse_Throws() throws Exception {
+        try (DiskEntityCache cache = open(null)) {
+            assertThrows(IllegalStateException.class, () -> open(null));
+        }
+    }
+}
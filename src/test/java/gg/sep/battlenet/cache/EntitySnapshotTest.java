@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2019 sep.gg <seputaes@sep.gg>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package gg.sep.battlenet.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+
+import gg.sep.battlenet.BattleNet;
+import gg.sep.battlenet.auth.model.OAuthToken;
+import gg.sep.battlenet.model.BattleNetEntity;
+import gg.sep.battlenet.model.BattleNetLocale;
+
+/**
+ * Unit tests for {@link EntitySnapshot} and {@link RecordingEntityCache}.
+ */
+public class EntitySnapshotTest {
+
+    @TempDir
+    Path directory;
+
+    private static BattleNet battleNet(final BattleNetLocale locale, final BattleNetEntityCache cache) {
+        final BattleNet battleNet = Mockito.mock(BattleNet.class);
+        Mockito.when(battleNet.getJsonParser()).thenReturn(new Gson());
+        Mockito.when(battleNet.getRegion()).thenReturn(locale.getRegion());
+        Mockito.when(battleNet.getLocale()).thenReturn(locale);
+        Mockito.when(battleNet.getCache()).thenReturn(cache);
+        return battleNet;
+    }
+
+    @Test void writeAndLoad_RecordedEntities_FillCache() throws Exception {
+        final RecordingEntityCache recorder = new RecordingEntityCache(InMemoryEntityCache.builder().build());
+        final OAuthToken token = OAuthToken.builder().accessToken("token").expiresIn(100L).build();
+        recorder.set("us:/token", token);
+        recorder.set("us:/deleted", token);
+        recorder.del("us:/deleted");
+        recorder.getDelegate().set("us:/read", OAuthToken.builder().accessToken("read").build());
+        recorder.get("us:/read", OAuthToken.class);
+
+        final Path file = directory.resolve("static.snapshot.gz");
+        assertEquals(2, EntitySnapshot.write(file, battleNet(BattleNetLocale.EN_US, recorder),
+            recorder.getRecorded()));
+
+        final InMemoryEntityCache cache = InMemoryEntityCache.builder().build();
+        assertEquals(2, EntitySnapshot.load(file, battleNet(BattleNetLocale.EN_US, cache)));
+        assertEquals(token, cache.get("us:/token", OAuthToken.class));
+        assertEquals("read", cache.get("us:/read", OAuthToken.class).getAccessToken());
+        assertNull(cache.get("us:/deleted", OAuthToken.class));
+    }
+
+    @Test void load_ToConsumer_InWrittenOrder() throws Exception {
+        final Map<String, BattleNetEntity> entities = new LinkedHashMap<>();
+        entities.put("us:/b", OAuthToken.builder().accessToken("b").build());
+        entities.put("us:/a", NamespaceRevision.builder().namespace("static-us").revision("static-1_2-us").build());
+        final Path file = directory.resolve("static.snapshot.gz");
+        EntitySnapshot.write(file, battleNet(BattleNetLocale.EN_US, null), entities);
+
+        final Map<String, BattleNetEntity> loaded = new LinkedHashMap<>();
+        EntitySnapshot.load(file, battleNet(BattleNetLocale.EN_US, null), loaded::put);
+        assertEquals(entities.get("us:/a"), loaded.get("us:/a"));
+        assertEquals("us:/a", loaded.keySet().iterator().next());
+        assertEquals(2, loaded.size());
+    }
+
+    @Test void load_DifferentLocale_Throws() throws Exception {
+        final Path file = directory.resolve("static.snapshot.gz");
+        EntitySnapshot.write(file, battleNet(BattleNetLocale.EN_US, null),
+            Collections.singletonMap("us:/token", OAuthToken.builder().accessToken("token").build()));
+
+        assertThrows(IllegalArgumentException.class, () -> EntitySnapshot.load(file,
+            battleNet(BattleNetLocale.ES_MX, InMemoryEntityCache.builder().build())));
+    }
+
+    @Test void load_NoCache_Throws() throws Exception {
+        final Path file = directory.resolve("static.snapshot.gz");
+        EntitySnapshot.write(file, battleNet(BattleNetLocale.EN_US, null), Collections.emptyMap());
+        assertThrows(IllegalStateException.class,
+            () -> EntitySnapshot.load(file, battleNet(BattleNetLocale.EN_US, null)));
+    }
+}
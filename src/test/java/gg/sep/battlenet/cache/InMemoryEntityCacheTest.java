@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2019 sep.gg <seputaes@sep.gg>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package gg.sep.battlenet.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.google.common.collect.ImmutableMap;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import gg.sep.battlenet.auth.model.OAuthToken;
+import gg.sep.battlenet.model.BattleNetEntity;
+
+/**
+ * Unit tests for {@link InMemoryEntityCache}.
+ */
+public class InMemoryEntityCacheTest {
+
+    private static final class FakeTicker implements Ticker {
+        private final AtomicLong nanos = new AtomicLong();
+
+        @Override
+        public long read() {
+            return nanos.get();
+        }
+
+        void advance(final Duration duration) {
+            nanos.addAndGet(duration.toNanos());
+        }
+    }
+
+    private static OAuthToken token(final String accessToken) {
+        return OAuthToken.builder().accessToken(accessToken).build();
+    }
+
+    @Test void set_ThenGet_ReturnsEntity() {
+        final InMemoryEntityCache cache = InMemoryEntityCache.builder().build();
+        final OAuthToken token = token("foo");
+        assertTrue(cache.set("token", token));
+        assertSame(token, cache.get("token", OAuthToken.class));
+    }
+
+    @Test void get_WrongType_ReturnsNull() {
+        final InMemoryEntityCache cache = InMemoryEntityCache.builder().build();
+        cache.set("entity", Mockito.mock(BattleNetEntity.class));
+        assertNull(cache.get("entity", OAuthToken.class));
+    }
+
+    @Test void set_UsesEntityClassTTL() {
+        final FakeTicker ticker = new FakeTicker();
+        final InMemoryEntityCache cache = InMemoryEntityCache.builder()
+            .defaultTTL(Duration.ofHours(1))
+            .ticker(ticker)
+            .build();
+        assertNull(cache.setEntityTTL(OAuthToken.class, Duration.ofMinutes(1)));
+        assertEquals(Duration.ofMinutes(1), cache.setEntityTTL(OAuthToken.class, Duration.ofMinutes(5)));
+
+        cache.set("token", token("foo"));
+        assertEquals(Duration.ofMinutes(5), cache.getTTL("token"));
+
+        ticker.advance(Duration.ofMinutes(6));
+        assertNull(cache.get("token", OAuthToken.class));
+        assertEquals(Duration.ZERO, cache.getTTL("token"));
+    }
+
+    @Test void getEntityTTL_NotSet_ReturnsDefault() {
+        final InMemoryEntityCache cache = InMemoryEntityCache.builder()
+            .defaultTTL(Duration.ofMinutes(42))
+            .build();
+        assertEquals(Duration.ofMinutes(42), cache.getEntityTTL(OAuthToken.class));
+    }
+
+    @Test void updateTTL_AndResetTTL_ChangeRemainingTTL() {
+        final FakeTicker ticker = new FakeTicker();
+        final InMemoryEntityCache cache = InMemoryEntityCache.builder()
+            .defaultTTL(Duration.ofHours(1))
+            .ticker(ticker)
+            .build();
+        cache.set("token", token("foo"));
+
+        assertTrue(cache.updateTTL(Duration.ofSeconds(10), "token"));
+        assertEquals(Duration.ofSeconds(10), cache.getTTL("token"));
+
+        assertTrue(cache.resetTTL(ImmutableMap.of("token", OAuthToken.class)));
+        assertEquals(Duration.ofHours(1), cache.getTTL("token"));
+    }
+
+    @Test void getTTL_MissingKey_ReturnsZero() {
+        assertEquals(Duration.ZERO, InMemoryEntityCache.builder().build().getTTL("missing"));
+    }
+
+    @Test void getOrElse_ConcurrentCallers_RetrieveOnce() throws Exception {
+        final InMemoryEntityCache cache = InMemoryEntityCache.builder().build();
+        final AtomicInteger retrievals = new AtomicInteger();
+        final CountDownLatch start = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            final List<Future<OAuthToken>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return cache.getOrElse("token", OAuthToken.class, () -> {
+                        retrievals.incrementAndGet();
+                        Thread.sleep(50);
+                        return token("foo");
+                    });
+                }));
+            }
+            start.countDown();
+            final OAuthToken first = results.get(0).get(5, TimeUnit.SECONDS);
+            for (final Future<OAuthToken> result : results) {
+                assertSame(first, result.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, retrievals.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test void getOrElse_RetrieveReturnsNull_NotCached() {
+        final InMemoryEntityCache cache = InMemoryEntityCache.builder().build();
+        assertNull(cache.getOrElse("token", OAuthToken.class, () -> null));
+        assertEquals("foo", cache.getOrElse("token", OAuthToken.class, () -> token("foo")).getAccessToken());
+    }
+
+    @Test void getOrElse_RetrieveThrowsChecked_WrapsException() {
+        final InMemoryEntityCache cache = InMemoryEntityCache.builder().build();
+        assertThrows(IllegalStateException.class, () -> cache.getOrElse("token", OAuthToken.class, () -> {
+            throw new Exception("boom");
+        }));
+        assertNull(cache.get("token", OAuthToken.class));
+    }
+
+    @Test void set_OverMaximumWeight_Evicts() {
+        final InMemoryEntityCache cache = InMemoryEntityCache.builder()
+            .maximumWeight(10L)
+            .build();
+        for (int i = 0; i < 100; i++) {
+            cache.set("token" + i, token("foo" + i));
+        }
+        cache.cleanUp();
+        assertTrue(cache.estimatedSize() <= 10, "size " + cache.estimatedSize());
+    }
+
+    @Test void delAndFlush_RemoveEntries() {
+        final InMemoryEntityCache cache = InMemoryEntityCache.builder().build();
+        cache.set("a", token("a"));
+        cache.set("b", token("b"));
+        cache.set("c", token("c"));
+
+        assertTrue(cache.del("a", "b"));
+        assertNull(cache.get("a", OAuthToken.class));
+        assertNull(cache.get("b", OAuthToken.class));
+        assertTrue(cache.flushCache());
+        assertNull(cache.get("c", OAuthToken.class));
+    }
+}
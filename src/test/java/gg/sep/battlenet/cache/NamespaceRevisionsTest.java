@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2019 sep.gg <seputaes@sep.gg>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package gg.sep.battlenet.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.HttpUrl;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import gg.sep.battlenet.model.BattleNetRegion;
+
+/**
+ * Unit tests for {@link NamespaceRevisions}.
+ */
+public class NamespaceRevisionsTest {
+    private static final BattleNetRegion REGION = BattleNetRegion.NORTH_AMERICA;
+
+    @Test void staticNamespace_OnlyStaticNamespaces() {
+        assertEquals("static-us", NamespaceRevisions.staticNamespace(
+            HttpUrl.get("https://us.api.blizzard.com/data/wow/mount/6?namespace=static-us")));
+        assertNull(NamespaceRevisions.staticNamespace(
+            HttpUrl.get("https://us.api.blizzard.com/data/wow/realm/index?namespace=dynamic-us")));
+        assertNull(NamespaceRevisions.staticNamespace(HttpUrl.get("https://us.api.blizzard.com/oauth/token")));
+    }
+
+    @Test void observe_NewerRevision_ReplacesRevision() {
+        final NamespaceRevisions revisions = new NamespaceRevisions();
+        assertTrue(revisions.observe("static-us", "static-9.0.1_35598-us", null, REGION));
+        assertFalse(revisions.observe("static-us", "static-9.0.1_35598-us", null, REGION));
+        assertTrue(revisions.observe("static-us", "static-9.0.2_36165-us", null, REGION));
+        assertEquals("static-9.0.2_36165-us", revisions.getRevision("static-us", null, REGION));
+    }
+
+    @Test void observe_OlderBuild_IsIgnored() {
+        final NamespaceRevisions revisions = new NamespaceRevisions();
+        revisions.observe("static-us", "static-9.0.2_36165-us", null, REGION);
+        assertFalse(revisions.observe("static-us", "static-9.0.1_35598-us", null, REGION));
+        assertEquals("static-9.0.2_36165-us", revisions.getRevision("static-us", null, REGION));
+    }
+
+    @Test void observe_NonStaticRevision_IsIgnored() {
+        final NamespaceRevisions revisions = new NamespaceRevisions();
+        assertFalse(revisions.observe("static-us", "dynamic-us", null, REGION));
+        assertFalse(revisions.observe(null, "static-9.0.2_36165-us", null, REGION));
+        assertTrue(revisions.getNamespaces().isEmpty());
+    }
+
+    @Test void getRevision_StoredInCache_SurvivesRestart() {
+        final BattleNetEntityCache cache = InMemoryEntityCache.builder().build();
+        new NamespaceRevisions().observe("static-us", "static-9.0.2_36165-us", cache, REGION);
+
+        final NamespaceRevisions restarted = new NamespaceRevisions();
+        assertEquals("static-9.0.2_36165-us", restarted.getRevision("static-us", cache, REGION));
+        assertTrue(restarted.getNamespaces().contains("static-us"));
+    }
+
+    @Test void observe_StoredRevision_OutlivesDefaultTTL() {
+        final AtomicLong nanos = new AtomicLong();
+        final BattleNetEntityCache cache = InMemoryEntityCache.builder()
+            .defaultTTL(Duration.ofMinutes(5))
+            .ticker(nanos::get)
+            .build();
+        new NamespaceRevisions().observe("static-us", "static-9.0.2_36165-us", cache, REGION);
+        nanos.addAndGet(Duration.ofDays(30).toNanos());
+
+        assertEquals("static-9.0.2_36165-us", new NamespaceRevisions().getRevision("static-us", cache, REGION));
+    }
+
+    @Test void getRevision_NotStored_ReadsCacheOnce() {
+        final BattleNetEntityCache cache = Mockito.mock(BattleNetEntityCache.class);
+        final NamespaceRevisions revisions = new NamespaceRevisions();
+        assertNull(revisions.getRevision("static-us", cache, REGION));
+        assertNull(revisions.getRevision("static-us", cache, REGION));
+
+        Mockito.verify(cache).get(NamespaceRevisions.revisionKey(REGION, "static-us"), NamespaceRevision.class);
+    }
+}
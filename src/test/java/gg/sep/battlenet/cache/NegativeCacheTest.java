@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2019 sep.gg <seputaes@sep.gg>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package gg.sep.battlenet.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.base.Ticker;
+import okhttp3.HttpUrl;
+import org.junit.jupiter.api.Test;
+
+import gg.sep.battlenet.wow.model.talent.Talent;
+
+/**
+ * Unit tests for {@link NegativeCache}.
+ */
+public class NegativeCacheTest {
+    private static final HttpUrl CREATURE_URL =
+        HttpUrl.get("https://us.api.blizzard.com/data/wow/creature/1?namespace=static-us&locale=en_US");
+
+    @Test
+    void get_TalentPath_IsKnownUnavailable() {
+        final NegativeCache cache = new NegativeCache(Duration.ofMinutes(5), 100);
+        final HttpUrl url = HttpUrl.get("https://us.api.blizzard.com/data/wow/talent/123?namespace=static-us");
+        assertEquals(Optional.of(Talent.API_UNAVAILABLE), cache.get(url));
+    }
+
+    @Test
+    void record_ExpiresAfterTTL() {
+        final AtomicLong nanos = new AtomicLong();
+        final Ticker ticker = new Ticker() {
+            @Override
+            public long read() {
+                return nanos.get();
+            }
+        };
+        final NegativeCache cache = new NegativeCache(Duration.ofMinutes(5), 100, ticker);
+        assertFalse(cache.get(CREATURE_URL).isPresent());
+
+        cache.record(CREATURE_URL, "not found");
+        assertEquals(Optional.of("not found"), cache.get(CREATURE_URL));
+        assertFalse(cache.get(CREATURE_URL.newBuilder().setQueryParameter("locale", "de_DE").build()).isPresent());
+
+        nanos.addAndGet(TimeUnit.MINUTES.toNanos(5));
+        assertFalse(cache.get(CREATURE_URL).isPresent());
+    }
+
+    @Test
+    void record_ZeroTTL_IsNotRemembered() {
+        final NegativeCache cache = new NegativeCache(Duration.ZERO, 100);
+        cache.record(CREATURE_URL, "not found");
+        assertFalse(cache.get(CREATURE_URL).isPresent());
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2019 sep.gg <seputaes@sep.gg>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package gg.sep.battlenet.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import gg.sep.battlenet.BattleNet;
+import gg.sep.battlenet.auth.model.OAuthToken;
+
+/**
+ * Unit tests for {@link OffHeapEntityCache}.
+ */
+public class OffHeapEntityCacheTest {
+
+    private static OffHeapEntityCache bound(final OffHeapEntityCache cache) {
+        final BattleNet battleNet = Mockito.mock(BattleNet.class);
+        Mockito.when(battleNet.getJsonParser()).thenReturn(new Gson());
+        cache.bind(battleNet);
+        return cache;
+    }
+
+    private static OAuthToken token(final String accessToken) {
+        return OAuthToken.builder().accessToken(accessToken).tokenType("bearer").expiresIn(3600L).build();
+    }
+
+    @Test
+    void set_Get_RoundTripsEntity() {
+        final OffHeapEntityCache cache = bound(OffHeapEntityCache.builder().build());
+        assertTrue(cache.set("foo", token("a")));
+        assertEquals(token("a"), cache.get("foo", OAuthToken.class));
+        assertNull(cache.get("bar", OAuthToken.class));
+
+        final CacheStatistics stats = cache.getStatistics();
+        assertEquals(1, stats.getHitCount());
+        assertEquals(1, stats.getMissCount());
+        assertEquals(1, stats.snapshot().getEntries());
+        assertTrue(stats.snapshot().getBytes() > 0);
+    }
+
+    @Test
+    void set_Unbound_IsNotCached() {
+        final OffHeapEntityCache cache = OffHeapEntityCache.builder().build();
+        assertFalse(cache.set("foo", token("a")));
+        assertNull(cache.get("foo", OAuthToken.class));
+    }
+
+    @Test
+    void set_AllSlabsFull_EvictsOldestSlab() {
+        final OffHeapEntityCache cache = bound(OffHeapEntityCache.builder()
+            .slabSize(1024)
+            .maxBytes(2048L)
+            .build());
+        for (int i = 0; i < 50; i++) {
+            cache.set("key" + i, token("token" + i));
+        }
+        assertNull(cache.get("key0", OAuthToken.class));
+        assertEquals(token("token49"), cache.get("key49", OAuthToken.class));
+        assertTrue(cache.getStatistics().getEvictionCount(CacheStatistics.EvictionCause.SIZE) > 0);
+        assertTrue(cache.getStatistics().snapshot().getBytes() <= 2048);
+        assertEquals(cache.size(), cache.getStatistics().snapshot().getEntries());
+    }
+
+    @Test
+    void updateTTL_DelAndFlush() {
+        final OffHeapEntityCache cache = bound(OffHeapEntityCache.builder().build());
+        cache.set("foo", token("a"));
+        cache.set("bar", token("b"));
+        cache.updateTTL(Duration.ofMinutes(5), "foo");
+        final Duration ttl = cache.getTTL("foo");
+        assertTrue(ttl.compareTo(Duration.ofMinutes(5)) <= 0 && ttl.compareTo(Duration.ofMinutes(4)) > 0);
+
+        cache.del("foo");
+        assertNull(cache.get("foo", OAuthToken.class));
+        assertNotNull(cache.get("bar", OAuthToken.class));
+        cache.flushCache();
+        assertNull(cache.get("bar", OAuthToken.class));
+        assertEquals(0, cache.getStatistics().snapshot().getBytes());
+    }
+
+    @Test
+    void statistics_RecordEvictionCauses() {
+        final OffHeapEntityCache cache = bound(OffHeapEntityCache.builder().build());
+        cache.set("foo", token("a"));
+        cache.set("foo", token("b"));
+        cache.set("bar", token("c"));
+        cache.updateTTL(Duration.ZERO, "bar");
+        assertNull(cache.get("bar", OAuthToken.class));
+        cache.del("foo");
+
+        final CacheStatsSnapshot snapshot = cache.getStatistics().snapshot();
+        // overwriting and deleting "foo" aren't evictions
+        assertEquals(1, snapshot.getEvictionCount(CacheStatistics.EvictionCause.EXPIRED));
+        assertEquals(0, snapshot.getEvictionCount(CacheStatistics.EvictionCause.SIZE));
+        assertEquals(1, snapshot.getEntities().get(OAuthToken.class).getMisses());
+        assertEquals(0, snapshot.getBytes());
+    }
+}
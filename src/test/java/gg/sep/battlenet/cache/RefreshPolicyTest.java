@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2019 sep.gg <seputaes@sep.gg>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package gg.sep.battlenet.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+
+import gg.sep.battlenet.auth.model.OAuthToken;
+import gg.sep.battlenet.model.BattleNetEntity;
+
+/**
+ * Unit tests for {@link RefreshPolicy}.
+ */
+public class RefreshPolicyTest {
+    private static final Duration TTL = Duration.ofMinutes(10);
+
+    private final RefreshPolicy policy = RefreshPolicy.builder()
+        .staleWindow(Duration.ofMinutes(5))
+        .refreshAheadFraction(0.2)
+        .refreshAheadMinReads(2)
+        .build();
+
+    @Test void freshness_PlentyOfTTL_IsFresh() {
+        assertEquals(RefreshPolicy.Freshness.FRESH,
+            policy.freshness(TTL, Duration.ofMinutes(14), BattleNetEntity.class, 10));
+    }
+
+    @Test void freshness_WithinStaleWindow_IsStale() {
+        assertEquals(RefreshPolicy.Freshness.STALE,
+            policy.freshness(TTL, Duration.ofMinutes(4), BattleNetEntity.class, 1));
+        assertEquals(RefreshPolicy.Freshness.STALE,
+            policy.freshness(TTL, Duration.ZERO, BattleNetEntity.class, 1));
+    }
+
+    @Test void freshness_NearExpiry_OnlyRefreshesHotEntries() {
+        final Duration remaining = Duration.ofMinutes(6);
+        assertEquals(RefreshPolicy.Freshness.FRESH, policy.freshness(TTL, remaining, BattleNetEntity.class, 1));
+        assertEquals(RefreshPolicy.Freshness.REFRESH_AHEAD,
+            policy.freshness(TTL, remaining, BattleNetEntity.class, 2));
+    }
+
+    @Test void getStaleWindow_EntityOverride_IsUsed() {
+        final RefreshPolicy overridden = RefreshPolicy.builder()
+            .entityStaleWindows(Collections.singletonMap(OAuthToken.class, Duration.ZERO))
+            .build();
+        assertEquals(Duration.ZERO, overridden.getStaleWindow(OAuthToken.class));
+        assertEquals(Duration.ofMinutes(5), overridden.getStaleWindow(BattleNetEntity.class));
+        assertEquals(TTL, overridden.getStoredTTL(TTL, OAuthToken.class));
+    }
+
+    @Test void getStoredTTL_NoExpiry_Saturates() {
+        final Duration noExpiry = Duration.ofMillis(Long.MAX_VALUE);
+        assertEquals(TTL.plusMinutes(5), policy.getStoredTTL(TTL, BattleNetEntity.class));
+        assertEquals(noExpiry, policy.getStoredTTL(Duration.ofSeconds(Long.MAX_VALUE), BattleNetEntity.class));
+        assertEquals(noExpiry, policy.getStoredTTL(noExpiry.minusMinutes(1), BattleNetEntity.class));
+        assertEquals(noExpiry, policy.getStoredTTL(Duration.ofSeconds(-1), BattleNetEntity.class));
+    }
+
+    @Test void builder_InvalidFraction_Throws() {
+        assertThrows(IllegalArgumentException.class, () -> RefreshPolicy.builder().refreshAheadFraction(2.0).build());
+    }
+}
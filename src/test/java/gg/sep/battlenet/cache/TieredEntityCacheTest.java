@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2019 sep.gg <seputaes@sep.gg>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package gg.sep.battlenet.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import gg.sep.battlenet.BattleNet;
+import gg.sep.battlenet.auth.model.OAuthToken;
+
+/**
+ * Unit tests for {@link TieredEntityCache}.
+ */
+public class TieredEntityCacheTest {
+
+    private static TieredEntityCache bound(final TieredEntityCache cache) {
+        final BattleNet battleNet = Mockito.mock(BattleNet.class);
+        Mockito.when(battleNet.getJsonParser()).thenReturn(new Gson());
+        cache.bind(battleNet);
+        return cache;
+    }
+
+    @Test
+    void get_L2Hit_IsPromotedToL1() {
+        final TieredEntityCache cache = bound(TieredEntityCache.builder().build());
+        final OAuthToken token = OAuthToken.builder().accessToken("foo").build();
+        cache.getL2().set("key", token);
+
+        assertEquals(token, cache.get("key", OAuthToken.class));
+        assertEquals(token, cache.get("key", OAuthToken.class));
+        assertNull(cache.get("missing", OAuthToken.class));
+
+        assertEquals(1, cache.getL1().getStatistics().getHitCount());
+        assertEquals(2, cache.getL1().getStatistics().getMissCount());
+        assertEquals(1, cache.getL2().getStatistics().getHitCount());
+        assertEquals(1, cache.getL2().getStatistics().getMissCount());
+        assertEquals(2, cache.getStatistics().getHitCount());
+    }
+
+    @Test
+    void set_WritesBothTiers_DelRemovesFromBoth() {
+        final TieredEntityCache cache = bound(TieredEntityCache.builder().build());
+        final OAuthToken token = OAuthToken.builder().accessToken("foo").build();
+        cache.set("key", token);
+        assertEquals(token, cache.getL1().get("key", OAuthToken.class));
+        assertEquals(token, cache.getL2().get("key", OAuthToken.class));
+
+        cache.del("key");
+        assertNull(cache.get("key", OAuthToken.class));
+        assertNull(cache.getL2().get("key", OAuthToken.class));
+    }
+
+    @Test
+    void getOrElse_L2Hit_PromotedWithoutRetrieving() {
+        final TieredEntityCache cache = bound(TieredEntityCache.builder().build());
+        final OAuthToken token = OAuthToken.builder().accessToken("foo").build();
+        cache.getL2().set("key", token);
+
+        assertEquals(token, cache.getOrElse("key", OAuthToken.class, () -> {
+            throw new IllegalStateException("should not retrieve");
+        }));
+        assertEquals(token, cache.getL1().get("key", OAuthToken.class));
+        assertEquals(1, cache.getStatistics().getHitCount());
+    }
+
+    @Test
+    void getOrElse_ConcurrentMisses_RetrieveOnce() throws Exception {
+        final TieredEntityCache cache = bound(TieredEntityCache.builder().build());
+        final OAuthToken token = OAuthToken.builder().accessToken("foo").build();
+        final AtomicInteger retrievals = new AtomicInteger();
+        final CountDownLatch retrieving = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        final CompletableFuture<OAuthToken> first = CompletableFuture.supplyAsync(() ->
+            cache.getOrElse("key", OAuthToken.class, () -> {
+                retrievals.incrementAndGet();
+                retrieving.countDown();
+                release.await();
+                return token;
+            }));
+        retrieving.await(1, TimeUnit.SECONDS);
+        final CompletableFuture<OAuthToken> second = CompletableFuture.supplyAsync(() ->
+            cache.getOrElse("key", OAuthToken.class, () -> {
+                retrievals.incrementAndGet();
+                return token;
+            }));
+        Thread.sleep(100);
+        release.countDown();
+
+        assertSame(token, first.get(1, TimeUnit.SECONDS));
+        assertSame(token, second.get(1, TimeUnit.SECONDS));
+        assertEquals(1, retrievals.get());
+        assertEquals(token, cache.getL2().get("key", OAuthToken.class));
+    }
+}
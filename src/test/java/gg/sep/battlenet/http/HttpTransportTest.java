@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2019 sep.gg <seputaes@sep.gg>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package gg.sep.battlenet.http;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link HttpTransport}.
+ */
+public class HttpTransportTest {
+
+    @Test void getClient_AppliesSettings() {
+        final HttpTransport transport = HttpTransport.builder()
+            .maxRequests(32)
+            .maxRequestsPerHost(8)
+            .connectTimeout(Duration.ofSeconds(3))
+            .readTimeout(Duration.ofSeconds(7))
+            .http2(false)
+            .build();
+        final OkHttpClient client = transport.getClient();
+
+        assertEquals(32, client.dispatcher().getMaxRequests());
+        assertEquals(8, client.dispatcher().getMaxRequestsPerHost());
+        assertEquals(3000, client.connectTimeoutMillis());
+        assertEquals(7000, client.readTimeoutMillis());
+        assertEquals(Collections.singletonList(Protocol.HTTP_1_1), client.protocols());
+    }
+
+    @Test void getClient_Defaults_AllowHttp2() {
+        final OkHttpClient client = HttpTransport.builder().build().getClient();
+        assertEquals(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1), client.protocols());
+    }
+
+    @Test void getClient_CalledTwice_ReturnsSameClient() {
+        final HttpTransport transport = HttpTransport.builder().build();
+        assertSame(transport.getClient(), transport.getClient());
+    }
+
+    @Test void shared_ReturnsSameTransport() {
+        assertSame(HttpTransport.shared(), HttpTransport.shared());
+    }
+}
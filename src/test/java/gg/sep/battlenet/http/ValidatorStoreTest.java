@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2019 sep.gg <seputaes@sep.gg>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package gg.sep.battlenet.http;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import okhttp3.Headers;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link ValidatorStore}.
+ */
+public class ValidatorStoreTest {
+    private static final String URL = "https://us.api.blizzard.com/data/wow/mount/6?namespace=static-us&locale=en_US";
+
+    @Test void record_WithETag_StoresValidatorsAndEntity() {
+        final ValidatorStore store = new ValidatorStore(10);
+        final Object entity = new Object();
+        store.record(URL, Headers.of("ETag", "\"abc\""), entity);
+
+        final ValidatorStore.Validators validators = store.get(URL).orElseThrow(AssertionError::new);
+        assertEquals("\"abc\"", validators.getEtag());
+        assertNull(validators.getLastModified());
+        assertSame(entity, validators.getEntity());
+    }
+
+    @Test void record_WithLastModified_StoresValidators() {
+        final ValidatorStore store = new ValidatorStore(10);
+        store.record(URL, Headers.of("Last-Modified", "Wed, 21 Oct 2015 07:28:00 GMT"), new Object());
+        assertEquals("Wed, 21 Oct 2015 07:28:00 GMT",
+            store.get(URL).map(ValidatorStore.Validators::getLastModified).orElse(null));
+    }
+
+    @Test void record_WithoutValidators_DiscardsPreviousEntry() {
+        final ValidatorStore store = new ValidatorStore(10);
+        store.record(URL, Headers.of("ETag", "\"abc\""), new Object());
+        store.record(URL, Headers.of(), new Object());
+        assertFalse(store.get(URL).isPresent());
+    }
+
+    @Test void record_OverMaximumSize_EvictsEntries() {
+        final ValidatorStore store = new ValidatorStore(2);
+        for (int i = 0; i < 5; i++) {
+            store.record(URL + i, Headers.of("ETag", "\"" + i + "\""), new Object());
+        }
+        assertEquals(2, store.size());
+    }
+}
@@ -24,9 +24,11 @@ package gg.sep.battlenet.interceptor;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 
 import java.io.IOException;
 
+import okhttp3.Headers;
 import okhttp3.HttpUrl;
 import okhttp3.Interceptor.Chain;
 import okhttp3.Request;
@@ -35,8 +37,10 @@ import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 
 import gg.sep.battlenet.BattleNet;
+import gg.sep.battlenet.auth.OAuthTokenManager;
 import gg.sep.battlenet.auth.api.OAuthAPI;
 import gg.sep.battlenet.auth.model.OAuthToken;
+import gg.sep.battlenet.cache.CacheConfig;
 import gg.sep.battlenet.model.BattleNetLocale;
 import gg.sep.battlenet.model.BattleNetRegion;
 import gg.sep.result.Ok;
@@ -59,6 +63,10 @@ public class BattleNetInterceptorTest {
         return simpleBattleNet(null, null);
     }
 
+    private static OAuthTokenManager tokenManager(final OAuthAPI oAuthAPI) {
+        return OAuthTokenManager.builder().oAuthAPI(oAuthAPI).build();
+    }
+
     private static Chain basicChain(final boolean hasAccessToken,
                                     final boolean hasLocale,
                                     final String addNamespace,
@@ -89,7 +97,8 @@ public class BattleNetInterceptorTest {
 
     @Test void intercept_RetrievesTokenFromOAuthAPI() throws Exception {
         final OAuthAPI mockOAuthAPI = Mockito.mock(OAuthAPI.class);
-        final BattleNetInterceptor interceptor = new BattleNetInterceptor(mockOAuthAPI, simpleBattleNet());
+        final BattleNetInterceptor interceptor = new BattleNetInterceptor(
+            tokenManager(mockOAuthAPI), simpleBattleNet());
 
         final OAuthToken expectedToken = OAuthToken.builder()
             .accessToken("fooAccessToken")
@@ -100,14 +109,35 @@ public class BattleNetInterceptorTest {
         final Chain mockChain = basicChain(false, false, null, newRequestBuilder);
         interceptor.intercept(mockChain);
 
-        // check that the new access token matches
-        final HttpUrl requestUrl = newRequestBuilder.build().url();
-        assertEquals(expectedToken.getAccessToken(), requestUrl.queryParameter("access_token"));
+        // check that the new access token is sent as a bearer token, not on the url
+        final Request request = newRequestBuilder.build();
+        assertEquals("Bearer " + expectedToken.getAccessToken(), request.header("Authorization"));
+        assertNull(request.url().queryParameter("access_token"));
+        assertEquals(expectedToken, request.tag(OAuthToken.class));
+    }
+
+    @SuppressWarnings("deprecation")
+    @Test void constructor_OAuthAPI_UsesClientTokenManager() throws Exception {
+        final OAuthTokenManager sharedManager = Mockito.mock(OAuthTokenManager.class);
+        Mockito.when(sharedManager.getToken())
+            .thenReturn(Ok.of(OAuthToken.builder().accessToken("sharedAccessToken").build()));
+        final BattleNet battleNet = Mockito.mock(BattleNet.class);
+        Mockito.when(battleNet.getTokenManager()).thenReturn(sharedManager);
+        Mockito.when(battleNet.getRegion()).thenReturn(BattleNetRegion.NORTH_AMERICA);
+        Mockito.when(battleNet.getLocale()).thenReturn(BattleNetLocale.EN_US);
+        final OAuthAPI mockOAuthAPI = Mockito.mock(OAuthAPI.class);
+        final BattleNetInterceptor interceptor = new BattleNetInterceptor(mockOAuthAPI, battleNet);
+        final Request.Builder newRequestBuilder = new Request.Builder();
+
+        interceptor.intercept(basicChain(false, false, null, newRequestBuilder));
+        assertEquals("Bearer sharedAccessToken", newRequestBuilder.build().header("Authorization"));
+        Mockito.verifyZeroInteractions(mockOAuthAPI);
     }
 
     @Test void intercept_UsesStoredToken() throws Exception {
         final OAuthAPI mockOAuthAPI = Mockito.mock(OAuthAPI.class);
-        final BattleNetInterceptor interceptor = new BattleNetInterceptor(mockOAuthAPI, simpleBattleNet());
+        final BattleNetInterceptor interceptor = new BattleNetInterceptor(
+            tokenManager(mockOAuthAPI), simpleBattleNet());
 
         final OAuthToken expectedToken = OAuthToken.builder()
             .accessToken("fooAccessToken")
@@ -124,13 +154,13 @@ public class BattleNetInterceptorTest {
         interceptor.intercept(mockChain);
 
         // check that the new access token matches the cached token
-        final HttpUrl requestUrl = newRequestBuilder.build().url();
-        assertEquals(expectedToken.getAccessToken(), requestUrl.queryParameter("access_token"));
+        assertEquals("Bearer " + expectedToken.getAccessToken(), newRequestBuilder.build().header("Authorization"));
     }
 
     @Test void intercept_DoesNotOverwriteTokenOnUrl() throws Exception {
         final OAuthAPI mockOAuthAPI = Mockito.mock(OAuthAPI.class);
-        final BattleNetInterceptor interceptor = new BattleNetInterceptor(mockOAuthAPI, simpleBattleNet());
+        final BattleNetInterceptor interceptor = new BattleNetInterceptor(
+            tokenManager(mockOAuthAPI), simpleBattleNet());
         final Request.Builder newRequestBuilder = new Request.Builder();
 
         final Chain mockChain = basicChain(true, false, null, newRequestBuilder);
@@ -145,7 +175,7 @@ public class BattleNetInterceptorTest {
     @Test void intercept_addsNamespace() throws Exception {
         final OAuthAPI mockOAuthAPI = Mockito.mock(OAuthAPI.class);
         final BattleNet battleNet = simpleBattleNet(BattleNetRegion.EUROPE, BattleNetLocale.DE_DE);
-        final BattleNetInterceptor interceptor = new BattleNetInterceptor(mockOAuthAPI, battleNet);
+        final BattleNetInterceptor interceptor = new BattleNetInterceptor(tokenManager(mockOAuthAPI), battleNet);
 
         final Request.Builder newRequestBuilder = new Request.Builder();
         final Chain mockChain = basicChain(true, false, "static", newRequestBuilder);
@@ -156,7 +186,7 @@ public class BattleNetInterceptorTest {
     @Test void intercept_doesNotAddInvalidNamespace() throws Exception {
         final OAuthAPI mockOAuthAPI = Mockito.mock(OAuthAPI.class);
         final BattleNet battleNet = simpleBattleNet(BattleNetRegion.EUROPE, BattleNetLocale.DE_DE);
-        final BattleNetInterceptor interceptor = new BattleNetInterceptor(mockOAuthAPI, battleNet);
+        final BattleNetInterceptor interceptor = new BattleNetInterceptor(tokenManager(mockOAuthAPI), battleNet);
 
         final Request.Builder newRequestBuilder = new Request.Builder();
         final Chain mockChain = basicChain(true, false, "invalid", newRequestBuilder);
@@ -167,7 +197,7 @@ public class BattleNetInterceptorTest {
     @Test void intercept_addsLocale() throws Exception {
         final OAuthAPI mockOAuthAPI = Mockito.mock(OAuthAPI.class);
         final BattleNet battleNet = simpleBattleNet(BattleNetRegion.EUROPE, BattleNetLocale.DE_DE);
-        final BattleNetInterceptor interceptor = new BattleNetInterceptor(mockOAuthAPI, battleNet);
+        final BattleNetInterceptor interceptor = new BattleNetInterceptor(tokenManager(mockOAuthAPI), battleNet);
 
         final Request.Builder newRequestBuilder = new Request.Builder();
         final Chain mockChain = basicChain(true, false, null, newRequestBuilder);
@@ -178,11 +208,89 @@ public class BattleNetInterceptorTest {
     @Test void intercept_doesNotOverrideLocale() throws Exception {
         final OAuthAPI mockOAuthAPI = Mockito.mock(OAuthAPI.class);
         final BattleNet battleNet = simpleBattleNet(BattleNetRegion.EUROPE, BattleNetLocale.DE_DE);
-        final BattleNetInterceptor interceptor = new BattleNetInterceptor(mockOAuthAPI, battleNet);
+        final BattleNetInterceptor interceptor = new BattleNetInterceptor(tokenManager(mockOAuthAPI), battleNet);
 
         final Request.Builder newRequestBuilder = new Request.Builder();
         final Chain mockChain = basicChain(true, true, null, newRequestBuilder);
         interceptor.intercept(mockChain);
         assertEquals("en_US", newRequestBuilder.build().url().queryParameter("locale"));
     }
+
+    @Test void canonicalUrl_AppliesNamespaceAndLocaleWithoutToken() {
+        final OAuthAPI mockOAuthAPI = Mockito.mock(OAuthAPI.class);
+        final BattleNet battleNet = simpleBattleNet(BattleNetRegion.EUROPE, BattleNetLocale.DE_DE);
+        final BattleNetInterceptor interceptor = new BattleNetInterceptor(tokenManager(mockOAuthAPI), battleNet);
+
+        final HttpUrl url = HttpUrl.get("https://sep.gg/data/wow/realm/1?addNamespace=dynamic&access_token=foo");
+        final HttpUrl canonicalUrl = interceptor.canonicalUrl(url);
+        assertEquals("dynamic-eu", canonicalUrl.queryParameter("namespace"));
+        assertEquals("de_DE", canonicalUrl.queryParameter("locale"));
+        assertNull(canonicalUrl.queryParameter("addNamespace"));
+        assertNull(canonicalUrl.queryParameter("access_token"));
+        Mockito.verifyZeroInteractions(mockOAuthAPI);
+    }
+
+    @Test void canonicalUrl_NoChangesNeeded_ReturnsSameUrl() {
+        final OAuthAPI mockOAuthAPI = Mockito.mock(OAuthAPI.class);
+        final BattleNet battleNet = simpleBattleNet(BattleNetRegion.EUROPE, BattleNetLocale.DE_DE);
+        final BattleNetInterceptor interceptor = new BattleNetInterceptor(tokenManager(mockOAuthAPI), battleNet);
+
+        final HttpUrl url = HttpUrl.get("https://sep.gg/data/wow/realm/1?locale=en_US");
+        assertSame(url, interceptor.canonicalUrl(url));
+        // a second url with the same query string reuses the rewritten query, but keeps its own path
+        final HttpUrl first = interceptor.canonicalUrl(
+            HttpUrl.get("https://sep.gg/data/wow/realm/1?addNamespace=static"));
+        final HttpUrl second = interceptor.canonicalUrl(
+            HttpUrl.get("https://sep.gg/data/wow/realm/2?addNamespace=static"));
+        assertEquals("/data/wow/realm/1", first.encodedPath());
+        assertEquals("/data/wow/realm/2", second.encodedPath());
+        assertEquals(first.encodedQuery(), second.encodedQuery());
+        assertEquals("static-eu", second.queryParameter("namespace"));
+    }
+
+    @Test void canonicalUrl_SameUrlAgain_ReusesCanonicalUrl() {
+        final OAuthAPI mockOAuthAPI = Mockito.mock(OAuthAPI.class);
+        final BattleNet battleNet = simpleBattleNet(BattleNetRegion.EUROPE, BattleNetLocale.DE_DE);
+        final BattleNetInterceptor interceptor = new BattleNetInterceptor(tokenManager(mockOAuthAPI), battleNet);
+
+        final String url = "https://sep.gg/data/wow/realm/1?addNamespace=static";
+        assertSame(interceptor.canonicalUrl(HttpUrl.get(url)), interceptor.canonicalUrl(HttpUrl.get(url)));
+    }
+
+    @Test void intercept_StoredValidators_AddsConditionalHeaders() throws Exception {
+        final OAuthAPI mockOAuthAPI = Mockito.mock(OAuthAPI.class);
+        final BattleNet battleNet = BattleNet.builder()
+            .clientSecret("")
+            .clientId("")
+            .region(BattleNetRegion.EUROPE)
+            .locale(BattleNetLocale.DE_DE)
+            .cacheConfig(CacheConfig.builder().conditionalRequests(true).build())
+            .build();
+        final BattleNetInterceptor interceptor = new BattleNetInterceptor(tokenManager(mockOAuthAPI), battleNet);
+
+        final Request.Builder newRequestBuilder = new Request.Builder();
+        final Chain mockChain = basicChain(true, false, "static", newRequestBuilder);
+        Mockito.when(mockChain.request().method()).thenReturn("GET");
+        final String canonicalUrl = interceptor.canonicalUrl(mockChain.request().url()).toString();
+        battleNet.getProxy().getValidatorStore().record(canonicalUrl,
+            Headers.of("ETag", "\"abc\"", "Last-Modified", "Wed, 21 Oct 2015 07:28:00 GMT"), new Object());
+
+        interceptor.intercept(mockChain);
+        final Request request = newRequestBuilder.build();
+        assertEquals("\"abc\"", request.header("If-None-Match"));
+        assertEquals("Wed, 21 Oct 2015 07:28:00 GMT", request.header("If-Modified-Since"));
+    }
+
+    @Test void intercept_NoStoredValidators_NotConditional() throws Exception {
+        final OAuthAPI mockOAuthAPI = Mockito.mock(OAuthAPI.class);
+        final BattleNetInterceptor interceptor = new BattleNetInterceptor(
+            tokenManager(mockOAuthAPI), simpleBattleNet());
+
+        final Request.Builder newRequestBuilder = new Request.Builder();
+        final Chain mockChain = basicChain(true, false, "static", newRequestBuilder);
+        Mockito.when(mockChain.request().method()).thenReturn("GET");
+
+        interceptor.intercept(mockChain);
+        assertNull(newRequestBuilder.build().header("If-None-Match"));
+    }
 }
@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2019 sep.gg <seputaes@sep.gg>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package gg.sep.battlenet.ratelimit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import okhttp3.Headers;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link AdaptiveThrottle}.
+ */
+public class AdaptiveThrottleTest {
+
+    private ScheduledExecutorService scheduler;
+
+    @BeforeEach void setUp() {
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+    }
+
+    @AfterEach void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    @Test void onResponse_Throttled_HalvesRateOncePerCooldown() {
+        final AsyncRateLimiter limiter = new AsyncRateLimiter(10, 10, scheduler);
+        final AdaptiveThrottle throttle = new AdaptiveThrottle(limiter);
+
+        throttle.onResponse(429, null);
+        throttle.onResponse(429, null);
+        assertEquals(5.0, limiter.getRate());
+    }
+
+    @Test void onResponse_Success_RecoversUpToMaxRate() {
+        final AsyncRateLimiter limiter = new AsyncRateLimiter(10, 10, scheduler);
+        final AdaptiveThrottle throttle = new AdaptiveThrottle(limiter, 10, 1, 0.5, 2, 0);
+
+        throttle.onResponse(429, null);
+        assertEquals(5.0, limiter.getRate());
+        throttle.onResponse(200, null);
+        assertEquals(7.0, limiter.getRate());
+        throttle.onResponse(200, null);
+        throttle.onResponse(200, null);
+        assertEquals(10.0, limiter.getRate());
+    }
+
+    @Test void onResponse_NeverDropsBelowMinRate() {
+        final AsyncRateLimiter limiter = new AsyncRateLimiter(4, 10, scheduler);
+        final AdaptiveThrottle throttle = new AdaptiveThrottle(limiter, 4, 2, 0.5, 1, 0);
+        throttle.onResponse(429, null);
+        throttle.onResponse(429, null);
+        assertEquals(2.0, limiter.getRate());
+    }
+
+    @Test void onResponse_QuotaHeaders_CapsRate() {
+        final AsyncRateLimiter limiter = new AsyncRateLimiter(100, 10, scheduler);
+        final AdaptiveThrottle throttle = new AdaptiveThrottle(limiter);
+        final Headers headers = Headers.of(
+            AdaptiveThrottle.QUOTA_REMAINING_HEADER, "600",
+            AdaptiveThrottle.QUOTA_RESET_HEADER, "60");
+
+        throttle.onResponse(304, headers);
+        assertEquals(10.0, limiter.getRate());
+    }
+
+    @Test void onResponse_QuotaExhausted_RestoresRateAtReset() throws Exception {
+        final AsyncRateLimiter limiter = new AsyncRateLimiter(100, 10, scheduler);
+        final AdaptiveThrottle throttle = new AdaptiveThrottle(limiter);
+        final Headers headers = Headers.of(
+            AdaptiveThrottle.QUOTA_REMAINING_HEADER, "0",
+            AdaptiveThrottle.QUOTA_RESET_HEADER, "1");
+
+        throttle.onResponse(200, headers);
+        assertEquals(1.0, limiter.getRate());
+        final long deadline = System.currentTimeMillis() + 5000;
+        while (limiter.getRate() < 100 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(100.0, limiter.getRate());
+    }
+
+    @Test void constructor_InvalidParameters_Throws() {
+        final AsyncRateLimiter limiter = new AsyncRateLimiter(10, 10, scheduler);
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveThrottle(limiter, 10, 1, 1.5, 1, 0));
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveThrottle(limiter, 1, 10, 0.5, 1, 0));
+    }
+}
@@ -0,0 +1,218 @@
+/*
+ * Copyright (c) 2019 sep.gg <seputaes@sep.gg>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package gg.sep.battlenet.ratelimit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+/**
+ * Unit tests for {@link AsyncRateLimiter}.
+ */
+public class AsyncRateLimiterTest {
+
+    private ScheduledExecutorService scheduler;
+
+    @BeforeEach void setUp() {
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+    }
+
+    @AfterEach void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    @Test void acquire_FirstPermit_GrantedImmediately() {
+        final AsyncRateLimiter limiter = new AsyncRateLimiter(1, 10, scheduler);
+        final CompletableFuture<Duration> permit = limiter.acquire();
+        assertTrue(permit.isDone());
+        assertEquals(Duration.ZERO, permit.join());
+    }
+
+    @Test void acquire_SecondPermit_WaitsForInterval() throws Exception {
+        final AsyncRateLimiter limiter = new AsyncRateLimiter(20, 10, scheduler);
+        limiter.acquire();
+        final CompletableFuture<Duration> second = limiter.acquire();
+        assertFalse(second.isDone());
+        assertEquals(1, limiter.getQueuedRequests());
+
+        final Duration waited = second.get(1, TimeUnit.SECONDS);
+        assertTrue(waited.toMillis() >= 40, "waited " + waited);
+    }
+
+    @Test void acquire_QueueFull_Rejects() {
+        final AsyncRateLimiter limiter = new AsyncRateLimiter(1, 1, scheduler);
+        limiter.acquire();
+        limiter.acquire();
+        final CompletableFuture<Duration> rejected = limiter.acquire();
+        final ExecutionException e = assertThrows(ExecutionException.class, rejected::get);
+        assertTrue(e.getCause() instanceof RejectedExecutionException);
+    }
+
+    @Test void setRate_UpdatesRate() {
+        final AsyncRateLimiter limiter = new AsyncRateLimiter(10, 1, scheduler);
+        limiter.setRate(2.5);
+        assertEquals(2.5, limiter.getRate());
+        assertThrows(IllegalArgumentException.class, () -> limiter.setRate(0));
+    }
+
+    @Test void acquire_InteractiveQueuedBehindBulk_ReleasedFirst() {
+        final AsyncRateLimiter limiter = new AsyncRateLimiter(20, 100, scheduler);
+        limiter.acquire();
+
+        final List<RequestPriority> released = new CopyOnWriteArrayList<>();
+        final List<CompletableFuture<?>> permits = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            permits.add(limiter.acquire(RequestPriority.BULK).thenRun(() -> released.add(RequestPriority.BULK)));
+        }
+        for (int i = 0; i < 4; i++) {
+            permits.add(limiter.acquire(RequestPriority.INTERACTIVE)
+                .thenRun(() -> released.add(RequestPriority.INTERACTIVE)));
+        }
+        assertEquals(4, limiter.getQueuedRequests(RequestPriority.BULK));
+        assertEquals(4, limiter.getQueuedRequests(RequestPriority.INTERACTIVE));
+
+        CompletableFuture.allOf(permits.toArray(new CompletableFuture<?>[0])).join();
+        assertEquals(Collections.nCopies(4, RequestPriority.INTERACTIVE), released.subList(0, 4));
+    }
+
+    @Test void acquire_BulkAndNormalQueued_BulkNotStarved() {
+        final AsyncRateLimiter limiter = new AsyncRateLimiter(50, 100, scheduler);
+        limiter.acquire();
+
+        final List<RequestPriority> released = new CopyOnWriteArrayList<>();
+        final List<CompletableFuture<?>> permits = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            permits.add(limiter.acquire(RequestPriority.NORMAL).thenRun(() -> released.add(RequestPriority.NORMAL)));
+            permits.add(limiter.acquire(RequestPriority.BULK).thenRun(() -> released.add(RequestPriority.BULK)));
+        }
+        CompletableFuture.allOf(permits.toArray(new CompletableFuture<?>[0])).join();
+
+        // with weights 4:1 bulk should get roughly one permit in five while both are waiting
+        final long bulkInFirstTen = released.subList(0, 10).stream()
+            .filter(RequestPriority.BULK::equals)
+            .count();
+        assertTrue(bulkInFirstTen >= 1 && bulkInFirstTen <= 3, "bulk permits " + bulkInFirstTen);
+    }
+
+    @Test void acquire_QueueFull_DoesNotUseQuota() {
+        final QuotaManager quota = new QuotaManager(Collections.singletonList(QuotaWindow.of(5, Duration.ofHours(1))));
+        final AsyncRateLimiter limiter = new AsyncRateLimiter(1, 1, scheduler, quota, QuotaPolicy.WAIT);
+        limiter.acquire();
+        limiter.acquire();
+        final CompletableFuture<Duration> rejected = limiter.acquire();
+        assertTrue(rejected.isCompletedExceptionally());
+        // only the granted request has used its quota
+        assertEquals(4, quota.getRemaining());
+    }
+
+    @Test void acquire_QuotaExhausted_ReleasesWaitersByPriority() {
+        final QuotaManager quota = new QuotaManager(
+            Collections.singletonList(QuotaWindow.of(1, Duration.ofMillis(200))));
+        final AsyncRateLimiter limiter = new AsyncRateLimiter(1000, 10, scheduler, quota, QuotaPolicy.WAIT);
+        assertTrue(limiter.acquire().isDone());
+
+        final List<RequestPriority> released = new CopyOnWriteArrayList<>();
+        final CompletableFuture<?> bulk = limiter.acquire(RequestPriority.BULK)
+            .thenRun(() -> released.add(RequestPriority.BULK));
+        final CompletableFuture<?> interactive = limiter.acquire(RequestPriority.INTERACTIVE)
+            .thenRun(() -> released.add(RequestPriority.INTERACTIVE));
+        assertEquals(2, limiter.getQueuedRequests());
+
+        CompletableFuture.allOf(bulk, interactive).join();
+        assertEquals(ImmutableList.of(RequestPriority.INTERACTIVE, RequestPriority.BULK), released);
+    }
+
+    @Test void acquire_QuotaExhaustedWithRejectPolicy_Rejects() {
+        final QuotaManager quota = new QuotaManager(Collections.singletonList(QuotaWindow.of(1, Duration.ofHours(1))));
+        final AsyncRateLimiter limiter = new AsyncRateLimiter(1000, 10, scheduler, quota, QuotaPolicy.REJECT);
+        assertTrue(limiter.acquire().isDone());
+        final ExecutionException e = assertThrows(ExecutionException.class, () -> limiter.acquire().get());
+        assertTrue(e.getCause() instanceof RejectedExecutionException);
+        assertEquals(0, limiter.getQueuedRequests());
+    }
+
+    @Test void acquire_QuotaFails_RejectsWaiterAndRecovers() throws Exception {
+        final QuotaManager quota = Mockito.mock(QuotaManager.class);
+        final CompletableFuture<Duration> failed = new CompletableFuture<>();
+        failed.completeExceptionally(new IllegalStateException("permit store unavailable"));
+        Mockito.when(quota.acquire()).thenReturn(failed, CompletableFuture.completedFuture(Duration.ZERO));
+        final AsyncRateLimiter limiter = new AsyncRateLimiter(1000, 10, scheduler, quota, QuotaPolicy.WAIT);
+
+        final ExecutionException e = assertThrows(ExecutionException.class,
+            () -> limiter.acquire().get(1, TimeUnit.SECONDS));
+        assertTrue(e.getCause() instanceof RejectedExecutionException);
+        assertTrue(e.getCause().getCause() instanceof IllegalStateException);
+
+        // the failure does not leave the limiter waiting for a lease, so the next request takes the quota again
+        assertEquals(Duration.ZERO, limiter.acquire().get(1, TimeUnit.SECONDS));
+        assertEquals(0, limiter.getQueuedRequests());
+        Mockito.verify(quota, Mockito.times(2)).acquire();
+    }
+
+    @Test void acquire_QuotaHandOverRejected_RejectsWaiter() {
+        final QuotaManager quota = Mockito.mock(QuotaManager.class);
+        final CompletableFuture<Duration> lease = new CompletableFuture<>();
+        Mockito.when(quota.acquire()).thenReturn(lease);
+        final AsyncRateLimiter limiter = new AsyncRateLimiter(1000, 10, scheduler, quota, QuotaPolicy.WAIT);
+
+        final CompletableFuture<Duration> waiting = limiter.acquire();
+        assertFalse(waiting.isDone());
+        scheduler.shutdownNow();
+        lease.complete(Duration.ZERO);
+
+        final ExecutionException e = assertThrows(ExecutionException.class, waiting::get);
+        assertTrue(e.getCause() instanceof RejectedExecutionException);
+        assertTrue(limiter.acquire().isCompletedExceptionally());
+    }
+
+    @Test void close_RejectsWaitingAndLaterRequests() {
+        final AsyncRateLimiter limiter = new AsyncRateLimiter(1, 10, scheduler);
+        limiter.acquire();
+        final CompletableFuture<Duration> waiting = limiter.acquire();
+        limiter.close();
+
+        final ExecutionException e = assertThrows(ExecutionException.class, waiting::get);
+        assertTrue(e.getCause() instanceof RejectedExecutionException);
+        assertTrue(limiter.acquire().isCompletedExceptionally());
+        assertEquals(0, limiter.getQueuedRequests());
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2019 sep.gg <seputaes@sep.gg>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package gg.sep.battlenet.ratelimit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Unit tests for {@link FilePermitStore}.
+ */
+public class FilePermitStoreTest {
+    private static final QuotaWindow HOURLY = QuotaWindow.of(25, Duration.ofHours(1));
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void lease_SharedFile_GrantsUpToCapacity() {
+        final Path path = directory.resolve("permits");
+        final FilePermitStore first = new FilePermitStore(path);
+        final FilePermitStore second = new FilePermitStore(path);
+
+        assertEquals(10, first.lease(HOURLY, 5, 10));
+        assertEquals(10, second.lease(HOURLY, 5, 10));
+        assertEquals(5, first.lease(HOURLY, 5, 10));
+        assertEquals(0, second.lease(HOURLY, 5, 10));
+        assertEquals(25, second.getUsed(HOURLY, 5));
+    }
+
+    @Test
+    void lease_NewPeriod_ResetsUsage() {
+        final FilePermitStore store = new FilePermitStore(directory.resolve("permits"));
+        assertEquals(10, store.lease(HOURLY, 5, 10));
+        assertEquals(10, store.lease(HOURLY, 6, 10));
+        assertEquals(10, store.getUsed(HOURLY, 6));
+
+        // an earlier period is over once a later one has been seen
+        assertEquals(0, store.lease(HOURLY, 5, 10));
+        assertEquals(25, store.getUsed(HOURLY, 5));
+    }
+
+    @Test
+    void lease_MalformedFile_IgnoresBadLines() throws Exception {
+        final Path path = directory.resolve("permits");
+        Files.write(path, "garbage\n25/3600000 5 abc\n".getBytes(StandardCharsets.UTF_8));
+        final FilePermitStore store = new FilePermitStore(path);
+        assertEquals(10, store.lease(HOURLY, 5, 10));
+        assertEquals("25/3600000 5 10\n", new String(Files.readAllBytes(path), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void getUsed_MissingFile_ReturnsZeroWithoutCreatingIt() {
+        final Path path = directory.resolve("permits");
+        final FilePermitStore store = new FilePermitStore(path);
+        assertEquals(0, store.getUsed(HOURLY, 5));
+        assertFalse(Files.exists(path));
+    }
+}
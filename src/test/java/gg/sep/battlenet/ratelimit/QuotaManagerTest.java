@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2019 sep.gg <seputaes@sep.gg>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package gg.sep.battlenet.ratelimit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+/**
+ * Unit tests for {@link QuotaManager}.
+ */
+public class QuotaManagerTest {
+
+    @Test void tryAcquire_WithinAllWindows_Acquires() {
+        final QuotaManager manager = new QuotaManager(ImmutableList.of(
+            QuotaWindow.of(5, Duration.ofSeconds(1)),
+            QuotaWindow.of(10, Duration.ofHours(1))));
+        assertEquals(Duration.ZERO, manager.tryAcquire());
+        assertEquals(4, manager.getRemaining());
+    }
+
+    @Test void tryAcquire_TightestWindowExhausted_ReturnsWait() {
+        final QuotaWindow hourly = QuotaWindow.of(2, Duration.ofHours(1));
+        final QuotaWindow perSecond = QuotaWindow.of(100, Duration.ofSeconds(1));
+        final QuotaManager manager = new QuotaManager(ImmutableList.of(perSecond, hourly));
+
+        assertEquals(Duration.ZERO, manager.tryAcquire());
+        assertEquals(Duration.ZERO, manager.tryAcquire());
+        final Duration wait = manager.tryAcquire();
+        assertFalse(wait.isZero());
+        assertTrue(wait.compareTo(Duration.ofMinutes(59)) > 0);
+
+        // the rejected attempt must not count against the other windows
+        final Map<QuotaWindow, Long> remaining = manager.getRemainingByWindow();
+        assertEquals(98L, remaining.get(perSecond).longValue());
+        assertEquals(0L, remaining.get(hourly).longValue());
+    }
+
+    @Test void tryAcquire_WindowResets() throws Exception {
+        final QuotaManager manager = new QuotaManager(ImmutableList.of(QuotaWindow.of(1, Duration.ofMillis(20))));
+        assertEquals(Duration.ZERO, manager.tryAcquire());
+        assertFalse(manager.tryAcquire().isZero());
+        Thread.sleep(25);
+        assertEquals(Duration.ZERO, manager.tryAcquire());
+    }
+
+    @Test void constructor_InvalidWindows_Throws() {
+        assertThrows(IllegalArgumentException.class, () -> new QuotaManager(ImmutableList.of()));
+        assertThrows(IllegalArgumentException.class, () -> QuotaWindow.of(0, Duration.ofSeconds(1)));
+        assertThrows(IllegalArgumentException.class, () -> QuotaWindow.of(1, Duration.ZERO));
+    }
+
+    @Test void tryAcquire_SharedPermitStore_EnforcesWindowAcrossManagers() {
+        final QuotaWindow hourly = QuotaWindow.of(25, Duration.ofHours(1));
+        final PermitStore store = new InMemoryPermitStore();
+        final QuotaManager first = new QuotaManager(ImmutableList.of(hourly), store, 10);
+        final QuotaManager second = new QuotaManager(ImmutableList.of(hourly), store, 10);
+
+        int acquired = 0;
+        for (int i = 0; i < 20; i++) {
+            acquired += first.tryAcquire().isZero() ? 1 : 0;
+            acquired += second.tryAcquire().isZero() ? 1 : 0;
+        }
+        assertEquals(25, acquired);
+        assertFalse(first.tryAcquire().isZero());
+        assertFalse(second.tryAcquire().isZero());
+        assertEquals(0, first.getRemaining());
+    }
+
+    @Test void tryAcquire_PermitStoreFails_WaitsBriefly() {
+        final PermitStore store = Mockito.mock(PermitStore.class);
+        Mockito.when(store.lease(Mockito.any(), Mockito.anyLong(), Mockito.anyLong()))
+            .thenThrow(new IllegalStateException("unavailable"));
+        final QuotaManager manager = new QuotaManager(
+            ImmutableList.of(QuotaWindow.of(100, Duration.ofHours(1))), store, 10);
+        final Duration wait = manager.tryAcquire();
+        assertFalse(wait.isZero());
+        assertTrue(wait.compareTo(Duration.ofSeconds(1)) <= 0);
+    }
+
+    @Test void acquire_SlowPermitStore_LeasesWithoutBlockingCaller() throws Exception {
+        final CountDownLatch leased = new CountDownLatch(1);
+        final PermitStore store = Mockito.mock(PermitStore.class);
+        Mockito.when(store.lease(Mockito.any(), Mockito.anyLong(), Mockito.anyLong())).thenAnswer(invocation -> {
+            leased.await();
+            return 10L;
+        });
+        final QuotaManager manager = new QuotaManager(
+            ImmutableList.of(QuotaWindow.of(100, Duration.ofHours(1))), store, 10);
+
+        final CompletableFuture<Duration> first = manager.acquire();
+        final CompletableFuture<Duration> second = manager.acquire();
+        assertFalse(first.isDone());
+        assertFalse(second.isDone());
+
+        leased.countDown();
+        assertEquals(Duration.ZERO, first.get());
+        assertEquals(Duration.ZERO, second.get());
+        // both requests were handed permits from the same lease
+        Mockito.verify(store, Mockito.times(1)).lease(Mockito.any(), Mockito.anyLong(), Mockito.anyLong());
+        manager.close();
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2019 sep.gg <seputaes@sep.gg>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package gg.sep.battlenet.retry;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.time.Duration;
+
+import com.google.gson.JsonParseException;
+import okhttp3.Headers;
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link ExponentialBackoffRetryPolicy}.
+ */
+public class ExponentialBackoffRetryPolicyTest {
+
+    private static RetryContext statusContext(final int attempt, final int statusCode, final Headers headers) {
+        return RetryContext.builder()
+            .attempt(attempt)
+            .previousDelay(Duration.ZERO)
+            .statusCode(statusCode)
+            .headers(headers)
+            .build();
+    }
+
+    private static RetryContext errorContext(final Throwable error) {
+        return RetryContext.builder()
+            .attempt(1)
+            .previousDelay(Duration.ZERO)
+            .error(error)
+            .build();
+    }
+
+    @Test
+    void shouldRetry_RetryableStatusCodes_Retries() {
+        final RetryPolicy policy = ExponentialBackoffRetryPolicy.builder().build();
+        for (final int code : new int[] {429, 500, 502, 503, 504}) {
+            assertTrue(policy.shouldRetry(statusContext(1, code, null)).isRetry(), "status " + code);
+        }
+    }
+
+    @Test
+    void shouldRetry_ClientErrors_DoesNotRetry() {
+        final RetryPolicy policy = ExponentialBackoffRetryPolicy.builder().build();
+        assertFalse(policy.shouldRetry(statusContext(1, 404, null)).isRetry());
+        assertFalse(policy.shouldRetry(statusContext(1, 400, null)).isRetry());
+    }
+
+    @Test
+    void shouldRetry_ClassifiesExceptions() {
+        final RetryPolicy policy = ExponentialBackoffRetryPolicy.builder().build();
+        assertTrue(policy.shouldRetry(errorContext(new SocketTimeoutException())).isRetry());
+        assertTrue(policy.shouldRetry(errorContext(new IOException("reset"))).isRetry());
+        assertFalse(policy.shouldRetry(errorContext(new UnknownHostException())).isRetry());
+        assertFalse(policy.shouldRetry(errorContext(new JsonParseException("bad json"))).isRetry());
+    }
+
+    @Test
+    void shouldRetry_MaxAttempts_Stops() {
+        final RetryPolicy policy = ExponentialBackoffRetryPolicy.builder().maxAttempts(3).build();
+        assertTrue(policy.shouldRetry(statusContext(2, 503, null)).isRetry());
+        assertFalse(policy.shouldRetry(statusContext(3, 503, null)).isRetry());
+    }
+
+    @Test
+    void shouldRetry_RetryAfterSeconds_UsesHeader() {
+        final RetryPolicy policy = ExponentialBackoffRetryPolicy.builder().build();
+        final RetryDecision decision = policy.shouldRetry(statusContext(1, 429, Headers.of("Retry-After", "7")));
+        assertTrue(decision.isRetry());
+        assertEquals(Duration.ofSeconds(7), decision.getDelay());
+    }
+
+    @Test
+    void shouldRetry_RetryAfterTooLong_Stops() {
+        final RetryPolicy policy = ExponentialBackoffRetryPolicy.builder()
+            .maxRetryAfter(Duration.ofSeconds(5))
+            .build();
+        assertFalse(policy.shouldRetry(statusContext(1, 503, Headers.of("Retry-After", "120"))).isRetry());
+    }
+
+    @Test
+    void retryAfter_HttpDate_Parses() {
+        final Duration delay = ExponentialBackoffRetryPolicy.retryAfter(
+            Headers.of("Retry-After", "Wed, 21 Oct 2015 07:28:00 GMT"));
+        assertEquals(Duration.ZERO, delay);
+    }
+
+    @Test
+    void shouldRetry_BudgetExhausted_Stops() {
+        final RetryPolicy policy = ExponentialBackoffRetryPolicy.builder()
+            .budget(new RetryBudget(0.5, 1))
+            .build();
+        assertTrue(policy.shouldRetry(statusContext(1, 503, null)).isRetry());
+        assertFalse(policy.shouldRetry(statusContext(1, 503, null)).isRetry());
+
+        // two new requests earn back a full retry
+        policy.onRequest();
+        policy.onRequest();
+        assertTrue(policy.shouldRetry(statusContext(1, 503, null)).isRetry());
+    }
+
+    @RepeatedTest(20)
+    void nextDelay_StaysWithinBounds() {
+        final ExponentialBackoffRetryPolicy policy = ExponentialBackoffRetryPolicy.builder()
+            .baseDelay(Duration.ofMillis(100))
+            .maxDelay(Duration.ofSeconds(1))
+            .build();
+        final Duration first = policy.nextDelay(Duration.ZERO);
+        assertEquals(Duration.ofMillis(100), first);
+
+        final Duration next = policy.nextDelay(Duration.ofMillis(200));
+        assertTrue(next.toMillis() >= 100 && next.toMillis() <= 600, "delay " + next);
+
+        final Duration capped = policy.nextDelay(Duration.ofSeconds(10));
+        assertTrue(capped.toMillis() <= 1000, "delay " + capped);
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2019 sep.gg <seputaes@sep.gg>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package gg.sep.battlenet.wow.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import retrofit2.Retrofit;
+import retrofit2.converter.gson.GsonConverterFactory;
+
+import gg.sep.battlenet.BattleNet;
+import gg.sep.battlenet.api.BattleNetAPIProxy;
+import gg.sep.battlenet.ratelimit.QuotaManager;
+import gg.sep.battlenet.ratelimit.RequestPriority;
+import gg.sep.battlenet.wow.endpoint.KeyFullItemEndpoint;
+import gg.sep.battlenet.wow.model.mount.Mount;
+import gg.sep.battlenet.wow.model.mount.MountIndexItem;
+import gg.sep.battlenet.wow.model.pet.PetAbility;
+import gg.sep.battlenet.wow.model.pet.PetAbilityIndexItem;
+import gg.sep.battlenet.wow.model.powertype.PowerTypeIndex;
+import gg.sep.result.Ok;
+
+/**
+ * Unit tests for {@link IndexCacheWarmer}.
+ */
+@SuppressWarnings("unchecked")
+public class IndexCacheWarmerTest {
+
+    private static MountIndexItem mount(final long id) {
+        return new Gson().fromJson(String.format(
+            "{\"key\": {\"href\": \"https://us.api.blizzard.com/data/wow/mount/%d?namespace=static-us\"}, " +
+                "\"id\": %d, \"name\": \"Mount\"}", id, id), MountIndexItem.class);
+    }
+
+    @Test void fullItemType_FromIndexItemTypeArgument() {
+        assertEquals(Mount.class, IndexCacheWarmer.fullItemType(MountIndexItem.class));
+        assertEquals(PetAbility.class, IndexCacheWarmer.fullItemType(PetAbilityIndexItem.class));
+        assertNull(IndexCacheWarmer.fullItemType(PowerTypeIndex.class));
+    }
+
+    @Test void warm_SkipsCachedAndDuplicateItems() throws Exception {
+        final BattleNet battleNet = Mockito.mock(BattleNet.class);
+        final BattleNetAPIProxy proxy = Mockito.mock(BattleNetAPIProxy.class);
+        Mockito.when(battleNet.getProxy()).thenReturn(proxy);
+        Mockito.when(battleNet.getEndpoint(KeyFullItemEndpoint.class)).thenReturn(new Retrofit.Builder()
+            .baseUrl("https://us.api.blizzard.com/")
+            .addConverterFactory(GsonConverterFactory.create())
+            .build()
+            .create(KeyFullItemEndpoint.class));
+        Mockito.when(proxy.getQuotaManager()).thenReturn(QuotaManager.battleNetDefaults());
+        Mockito.when(proxy.isCached(ArgumentMatchers.argThat(call -> call.request().url().encodedPath()
+            .endsWith("/7")), ArgumentMatchers.eq(Mount.class))).thenReturn(true);
+        Mockito.when(proxy.getEntityAsync(ArgumentMatchers.any(), ArgumentMatchers.eq(Mount.class),
+            ArgumentMatchers.eq(RequestPriority.BULK)))
+            .thenReturn(CompletableFuture.completedFuture(Ok.of(Mockito.mock(Mount.class))));
+
+        try (IndexCacheWarmer warmer = IndexCacheWarmer.builder().battleNet(battleNet).build()) {
+            assertEquals(1, warmer.warm(Arrays.asList(mount(6), mount(7), mount(6))));
+            Mockito.verify(proxy, Mockito.timeout(5000)).getEntityAsync(ArgumentMatchers.any(),
+                ArgumentMatchers.eq(Mount.class), ArgumentMatchers.eq(RequestPriority.BULK));
+            assertEquals(2, warmer.getSkipped());
+        }
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2019 sep.gg <seputaes@sep.gg>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package gg.sep.battlenet.wow.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import retrofit2.Retrofit;
+import retrofit2.converter.gson.GsonConverterFactory;
+
+import gg.sep.battlenet.BattleNet;
+import gg.sep.battlenet.api.BattleNetAPIProxy;
+import gg.sep.battlenet.ratelimit.RequestPriority;
+import gg.sep.battlenet.wow.endpoint.KeyFullItemEndpoint;
+import gg.sep.battlenet.wow.model.region.Region;
+import gg.sep.battlenet.wow.model.region.RegionKey;
+
+/**
+ * Unit tests for {@link WoWKey}.
+ */
+public class WoWKeyTest {
+
+    private static RegionKey key(final BattleNet battleNet) {
+        final RegionKey key = new Gson().fromJson(
+            "{\"href\": \"https://us.api.blizzard.com/data/wow/region/1?namespace=dynamic-us\"}", RegionKey.class);
+        key.setBattleNet(battleNet);
+        return key;
+    }
+
+    private static BattleNet battleNet(final BattleNetAPIProxy proxy) {
+        final BattleNet battleNet = Mockito.mock(BattleNet.class);
+        Mockito.when(battleNet.getProxy()).thenReturn(proxy);
+        Mockito.when(battleNet.getEndpoint(KeyFullItemEndpoint.class)).thenReturn(new Retrofit.Builder()
+            .baseUrl("https://us.api.blizzard.com/")
+            .addConverterFactory(GsonConverterFactory.create())
+            .build()
+            .create(KeyFullItemEndpoint.class));
+        return battleNet;
+    }
+
+    @Test void getPriority_NotSet_IsNormal() {
+        assertEquals(RequestPriority.NORMAL, key(battleNet(Mockito.mock(BattleNetAPIProxy.class))).getPriority());
+    }
+
+    @Test void getFullItem_RequestsWithKeyPriority() {
+        final BattleNetAPIProxy proxy = Mockito.mock(BattleNetAPIProxy.class);
+        final RegionKey key = key(battleNet(proxy));
+        key.setPriority(RequestPriority.BULK);
+
+        key.getFullItem();
+        Mockito.verify(proxy).getEntity(ArgumentMatchers.any(), ArgumentMatchers.eq(Region.class),
+            ArgumentMatchers.eq(RequestPriority.BULK));
+    }
+}